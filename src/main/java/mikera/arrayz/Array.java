@@ -2,6 +2,7 @@ package mikera.arrayz;
 
 import java.nio.DoubleBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
@@ -9,8 +10,10 @@ import mikera.arrayz.impl.BaseShapedArray;
 import mikera.arrayz.impl.IDenseArray;
 import mikera.arrayz.impl.IStridedArray;
 import mikera.arrayz.impl.ImmutableArray;
+import mikera.arrayz.impl.StridedLoop;
 import mikera.indexz.Index;
 import mikera.matrixx.Matrix;
+import mikera.matrixx.algo.Transpose;
 import mikera.vectorz.AVector;
 import mikera.vectorz.IOperator;
 import mikera.vectorz.Op;
@@ -22,6 +25,7 @@ import mikera.vectorz.Vectorz;
 import mikera.vectorz.impl.ArrayIndexScalar;
 import mikera.vectorz.impl.StridedElementIterator;
 import mikera.vectorz.util.DoubleArrays;
+import mikera.vectorz.util.ParallelArrays;
 import mikera.vectorz.util.ErrorMessages;
 import mikera.vectorz.util.IntArrays;
 import mikera.vectorz.util.VectorzException;
@@ -209,6 +213,23 @@ public final class Array extends BaseShapedArray implements IStridedArray, IDens
 		return NDArray.wrapStrided(data, 0, IntArrays.reverse(shape), IntArrays.reverse(strides));
 	}
 	
+	@Override
+	public Array getTransposeCopy() {
+		return transposeCopy(data, 0, shape, strides);
+	}
+	
+	/**
+	 * Creates a packed Array containing the transpose of the strided array with the given shape,
+	 * using a cache-oblivious copy.
+	 */
+	static Array transposeCopy(double[] data, int offset, int[] shape, int[] strides) {
+		int[] rshape=IntArrays.reverse(shape);
+		Array result=Array.newArray(rshape);
+		int[] destStrides=IntArrays.reverse(result.strides);
+		Transpose.copyStrided(data, offset, strides, result.data, 0, destStrides, shape);
+		return result;
+	}
+	
 	@Override
 	public INDArray subArray(int[] offsets, int[] shape) {
 		int n=dimensions;
@@ -238,12 +259,12 @@ public final class Array extends BaseShapedArray implements IStridedArray, IDens
 
 	@Override
 	public double elementSum() {
-		return DoubleArrays.elementSum(data);
+		return ParallelArrays.elementSum(data);
 	}
 	
 	@Override
 	public double elementMax(){
-		return DoubleArrays.elementMax(data);
+		return ParallelArrays.elementMax(data);
 	}
 	
 	@Override
@@ -253,7 +274,7 @@ public final class Array extends BaseShapedArray implements IStridedArray, IDens
 
 	@Override
 	public double elementSquaredSum() {
-		return DoubleArrays.elementSquaredSum(data);
+		return ParallelArrays.elementSquaredSum(data);
 	}
 
 	@Override
@@ -303,23 +324,38 @@ public final class Array extends BaseShapedArray implements IStridedArray, IDens
 
 	@Override
 	public void applyOp(Op op) {
-		op.applyTo(data);
+		ParallelArrays.applyOp(op, data, 0, data.length);
+	}
+	
+	@Override
+	public void applyOp(Op2 op, INDArray b) {
+		IStridedArray sb=StridedLoop.broadcastView(b, shape);
+		if (sb!=null) {
+			StridedLoop.applyOp(this, op, sb);
+		} else {
+			super.applyOp(op, b);
+		}
+	}
+	
+	@Override
+	public void applyOp(Op2 op, double b) {
+		ParallelArrays.applyOp(op, data, 0, data.length, b);
 	}
 	
 	@Override
 	public double reduce(Op2 op) {
-		return DoubleArrays.reduce(op, data, 0, data.length);
+		return ParallelArrays.reduce(op, data, 0, data.length);
 	}
 	
 	@Override
 	public double reduce(Op2 op, double init) {
-		return op.reduce(init, data, 0, data.length);
+		return ParallelArrays.reduce(op, init, data, 0, data.length);
 	}
 
 	@Override
 	public void applyOp(IOperator op) {
 		if (op instanceof Op) {
-			((Op) op).applyTo(data);
+			ParallelArrays.applyOp((Op) op, data, 0, data.length);
 		} else {
 			for (int i = 0; i < data.length; i++) {
 				data[i] = op.apply(data[i]);
@@ -358,6 +394,71 @@ public final class Array extends BaseShapedArray implements IStridedArray, IDens
 		DoubleArrays.multiply(data, 0, data.length, factor);
 	}
 
+	@Override
+	public void set(double value) {
+		Arrays.fill(data, value);
+	}
+	
+	@Override
+	public void set(INDArray a) {
+		IStridedArray sb=StridedLoop.broadcastView(a, shape);
+		if (sb!=null) {
+			StridedLoop.set(this, sb);
+		} else {
+			super.set(a);
+		}
+	}
+	
+	@Override
+	public void add(double a) {
+		DoubleArrays.add(data, a);
+	}
+	
+	@Override
+	public void add(INDArray a) {
+		IStridedArray sb=StridedLoop.broadcastView(a, shape);
+		if (sb!=null) {
+			StridedLoop.add(this, sb);
+		} else {
+			super.add(a);
+		}
+	}
+	
+	@Override
+	public void sub(INDArray a) {
+		IStridedArray sb=StridedLoop.broadcastView(a, shape);
+		if (sb!=null) {
+			StridedLoop.sub(this, sb);
+		} else {
+			super.sub(a);
+		}
+	}
+	
+	@Override
+	public void multiply(INDArray a) {
+		IStridedArray sb=StridedLoop.broadcastView(a, shape);
+		if (sb!=null) {
+			StridedLoop.multiply(this, sb);
+		} else {
+			super.multiply(a);
+		}
+	}
+	
+	@Override
+	public void divide(INDArray a) {
+		IStridedArray sb=StridedLoop.broadcastView(a, shape);
+		if (sb!=null) {
+			StridedLoop.divide(this, sb);
+		} else {
+			super.divide(a);
+		}
+	}
+	
+	@Override
+	public void addToArray(double[] dest, int offset) {
+		DoubleArrays.add(data, 0, dest, offset, data.length);
+	}
+
 	@Override
 	public List<?> getSlices() {
 		if (dimensions==1) {
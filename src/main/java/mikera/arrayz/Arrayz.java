@@ -7,6 +7,8 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
+import mikera.arrayz.impl.Contractions;
+import mikera.arrayz.impl.Convolutions;
 import mikera.arrayz.impl.SliceArray;
 import mikera.arrayz.impl.ZeroArray;
 import mikera.matrixx.Matrix;
@@ -474,6 +476,79 @@ public class Arrayz {
 		Vectorz.fillNormal(a.asVector(),random);
 	}
 
+	/**
+	 * Computes the tensor contraction of two arrays over the given pairs of axes.
+	 * 
+	 * The result has the remaining axes of a followed by the remaining axes of b.
+	 * 
+	 * @param a
+	 * @param b
+	 * @param axesA Axes of a to contract
+	 * @param axesB Axes of b to contract, in the same order as axesA
+	 * @return A new packed Array
+	 */
+	public static Array tensordot(INDArray a, INDArray b, int[] axesA, int[] axesB) {
+		return Contractions.tensordot(a, b, axesA, axesB);
+	}
+	
+	/**
+	 * Computes the 2D convolution of a batch of images in NCHW order, with the same stride and
+	 * padding along both dimensions. See {@link Convolutions} for the full set of convolution and
+	 * pooling operations and their gradients.
+	 * 
+	 * @param input Input array of shape [batch, inChannels, height, width]
+	 * @param weights Weights of shape [outChannels, inChannels, kernelH, kernelW]
+	 * @param bias Bias vector of length outChannels, or null for no bias
+	 * @return A new Array of shape [batch, outChannels, outputH, outputW]
+	 */
+	public static Array conv2d(INDArray input, INDArray weights, INDArray bias, int stride, int padding) {
+		return Convolutions.conv2d(input, weights, bias, stride, padding);
+	}
+	
+	/**
+	 * Computes 2D max pooling over square windows of a batch of images in NCHW order.
+	 * 
+	 * @param input Input array of shape [batch, channels, height, width]
+	 * @return A new Array of shape [batch, channels, outputH, outputW]
+	 */
+	public static Array maxPool2d(INDArray input, int size, int stride) {
+		return Convolutions.maxPool2d(input, size, stride);
+	}
+	
+	/**
+	 * Computes 2D average pooling over square windows of a batch of images in NCHW order.
+	 * 
+	 * @param input Input array of shape [batch, channels, height, width]
+	 * @return A new Array of shape [batch, channels, outputH, outputW]
+	 */
+	public static Array avgPool2d(INDArray input, int size, int stride) {
+		return Convolutions.avgPool2d(input, size, stride);
+	}
+	
+	/**
+	 * Computes the tensor contraction of the last n axes of a with the first n axes of b.
+	 * 
+	 * @param a
+	 * @param b
+	 * @param n
+	 * @return A new packed Array
+	 */
+	public static Array tensordot(INDArray a, INDArray b, int n) {
+		return Contractions.tensordot(a, b, n);
+	}
+	
+	/**
+	 * Evaluates an Einstein summation expression over the given arrays, e.g. "ij,jk->ik"
+	 * for matrix multiplication or "bij,bjk->bik" for a batched product.
+	 * 
+	 * @param spec
+	 * @param arrays
+	 * @return A new packed Array
+	 */
+	public static Array einsum(String spec, INDArray... arrays) {
+		return Contractions.einsum(spec, arrays);
+	}
+
 	/**
 	 * Checks that a specified index exists along a specified dimension. Throws an exception if the index does not exist.
 	 * @param array
@@ -1124,4 +1124,81 @@ public interface INDArray extends Cloneable, Serializable, Comparable<INDArray>
 	 */	
 	public AVector reduceSlices(Op2 op, double init);
 
+	/**
+	 * Sums the elements of this array along the given axes, returning an array with the
+	 * reduced axes removed.
+	 * 
+	 * @param axes
+	 * @return
+	 */
+	public INDArray sumAlong(int... axes);
+
+	/**
+	 * Sums the elements of this array along the given axes. If keepDims is true, the reduced
+	 * axes are retained in the result with size 1.
+	 * 
+	 * @param axes
+	 * @param keepDims
+	 * @return
+	 */
+	public INDArray sumAlong(int[] axes, boolean keepDims);
+
+	/**
+	 * Computes the mean of the elements of this array along the given axes.
+	 * 
+	 * @param axes
+	 * @param keepDims
+	 * @return
+	 */
+	public INDArray meanAlong(int[] axes, boolean keepDims);
+
+	/**
+	 * Computes the maximum of the elements of this array along the given axes.
+	 * Throws an exception if any of the reduced axes has size zero.
+	 * 
+	 * @param axes
+	 * @param keepDims
+	 * @return
+	 */
+	public INDArray maxAlong(int[] axes, boolean keepDims);
+
+	/**
+	 * Computes the minimum of the elements of this array along the given axes.
+	 * Throws an exception if any of the reduced axes has size zero.
+	 * 
+	 * @param axes
+	 * @param keepDims
+	 * @return
+	 */
+	public INDArray minAlong(int[] axes, boolean keepDims);
+
+	/**
+	 * Computes the Euclidean norm of the elements of this array along the given axes.
+	 * 
+	 * @param axes
+	 * @param keepDims
+	 * @return
+	 */
+	public INDArray normAlong(int[] axes, boolean keepDims);
+
+	/**
+	 * Finds the index of the maximum element along the given axis. Ties resolve to
+	 * the lowest index.
+	 * 
+	 * @param axis
+	 * @param keepDims
+	 * @return
+	 */
+	public INDArray argMaxAlong(int axis, boolean keepDims);
+
+	/**
+	 * Finds the index of the minimum element along the given axis. Ties resolve to
+	 * the lowest index.
+	 * 
+	 * @param axis
+	 * @param keepDims
+	 * @return
+	 */
+	public INDArray argMinAlong(int axis, boolean keepDims);
+
 }
@@ -9,11 +9,13 @@ import java.util.List;
 import mikera.arrayz.impl.BaseNDArray;
 import mikera.arrayz.impl.IStridedArray;
 import mikera.arrayz.impl.ImmutableArray;
+import mikera.arrayz.impl.StridedLoop;
 import mikera.matrixx.Matrix;
 import mikera.matrixx.Matrixx;
 import mikera.vectorz.AVector;
 import mikera.vectorz.IOperator;
 import mikera.vectorz.Op;
+import mikera.vectorz.Op2;
 import mikera.vectorz.Vector;
 import mikera.vectorz.Vectorz;
 import mikera.vectorz.impl.ArrayIndexScalar;
@@ -91,18 +93,16 @@ public final class NDArray extends BaseNDArray {
 	
 	@Override
 	public void set(double value) {
-		if (dimensions==0) {
-			data[offset]=value;
-		} else if (dimensions==1) {
-			int n=sliceCount();
-			int st=getStride(0);
-			for (int i=0; i<n; i++) {
-				data[offset+i*st]=value;
-			}
+		StridedLoop.set(this, value);
+	}
+	
+	@Override
+	public void set(INDArray a) {
+		IStridedArray sb=StridedLoop.broadcastView(a, shape);
+		if (sb!=null) {
+			StridedLoop.set(this, sb);
 		} else {
-			for (INDArray s:getSlices()) {
-				s.set(value);
-			}
+			super.set(a);
 		}
 	}
 
@@ -143,6 +143,11 @@ public final class NDArray extends BaseNDArray {
 	public INDArray getTransposeView() {
 		return Arrayz.wrapStrided(data,offset,IntArrays.reverse(shape),IntArrays.reverse(stride));
 	}
+	
+	@Override
+	public Array getTransposeCopy() {
+		return Array.transposeCopy(data, offset, shape, stride);
+	}
 
 	@Override
 	public AVector asVector() {
@@ -202,8 +207,8 @@ public final class NDArray extends BaseNDArray {
 		}
 		return Arrayz.wrapStrided(data,
 				offset+index*stride[dimension],
-				IntArrays.removeIndex(shape,index),
-				IntArrays.removeIndex(stride,index));	
+				IntArrays.removeIndex(shape,dimension),
+				IntArrays.removeIndex(stride,dimension));	
 	}	
 	
 	@Override
@@ -248,19 +253,23 @@ public final class NDArray extends BaseNDArray {
 
 	@Override
 	public void applyOp(Op op) {
-		if (dimensions==0) {
-			data[offset]=op.apply(data[offset]);
-		} else if (dimensions==1) {
-			int len=sliceCount();
-			int st=getStride(0);
-			op.applyTo(data, offset, st, len);
+		StridedLoop.applyOp(this, op);
+	}
+	
+	@Override
+	public void applyOp(Op2 op, INDArray b) {
+		IStridedArray sb=StridedLoop.broadcastView(b, shape);
+		if (sb!=null) {
+			StridedLoop.applyOp(this, op, sb);
 		} else {
-			int n=sliceCount();
-			for (int i=0; i<n; i++) {
-				slice(i).applyOp(op);
-			}		
+			super.applyOp(op, b);
 		}
 	}
+	
+	@Override
+	public void applyOp(Op2 op, double b) {
+		StridedLoop.applyOp(this, op, b);
+	}
 
 	@Override
 	public void applyOp(IOperator op) {
@@ -281,6 +290,7 @@ public final class NDArray extends BaseNDArray {
 	public boolean equals(INDArray a) {
 		if (dimensions!=a.dimensionality()) return false;
 		if (dimensions==0) return (get()==a.get());
+		if ((a instanceof IStridedArray)&&a.isMutable()) return StridedLoop.equals(this, (IStridedArray)a);
 		return equalsBySlices(a);
 	}
 
@@ -297,20 +307,93 @@ public final class NDArray extends BaseNDArray {
 
 	@Override
 	public void multiply(double d) {
-		if (dimensions==0) {
-			data[offset]*=d;
-		} else if (dimensions==1) {
-			int n=sliceCount();
-			for (int i=0; i<n; i++) {
-				data[offset+i*getStride(0)]*=d;
-			}
+		StridedLoop.multiply(this, d);
+	}
+	
+	@Override
+	public void add(double a) {
+		StridedLoop.add(this, a);
+	}
+	
+	@Override
+	public void add(INDArray a) {
+		IStridedArray sb=StridedLoop.broadcastView(a, shape);
+		if (sb!=null) {
+			StridedLoop.add(this, sb);
 		} else {
-			int n=sliceCount();
-			for (int i=0; i<n; i++) {
-				slice(i).scale(d);
-			}
+			super.add(a);
 		}
 	}
+	
+	@Override
+	public void sub(INDArray a) {
+		IStridedArray sb=StridedLoop.broadcastView(a, shape);
+		if (sb!=null) {
+			StridedLoop.sub(this, sb);
+		} else {
+			super.sub(a);
+		}
+	}
+	
+	@Override
+	public void multiply(INDArray a) {
+		IStridedArray sb=StridedLoop.broadcastView(a, shape);
+		if (sb!=null) {
+			StridedLoop.multiply(this, sb);
+		} else {
+			super.multiply(a);
+		}
+	}
+	
+	@Override
+	public void divide(INDArray a) {
+		IStridedArray sb=StridedLoop.broadcastView(a, shape);
+		if (sb!=null) {
+			StridedLoop.divide(this, sb);
+		} else {
+			super.divide(a);
+		}
+	}
+	
+	@Override
+	public double elementSum() {
+		return StridedLoop.elementSum(this);
+	}
+	
+	@Override
+	public double elementSquaredSum() {
+		return StridedLoop.elementSquaredSum(this);
+	}
+	
+	@Override
+	public double elementMax() {
+		return StridedLoop.elementMax(this);
+	}
+	
+	@Override
+	public double elementMin() {
+		return StridedLoop.elementMin(this);
+	}
+	
+	@Override
+	public double reduce(Op2 op, double init) {
+		return StridedLoop.reduce(this, op, init);
+	}
+	
+	@Override
+	public double reduce(Op2 op) {
+		return StridedLoop.reduce(this, op);
+	}
+	
+	@Override
+	public void getElements(double[] dest, int offset) {
+		StridedLoop.getElements(this, dest, offset);
+	}
+	
+	@Override
+	public void addToArray(double[] dest, int offset) {
+		StridedLoop.addToArray(this, dest, offset);
+	}
 
 	@Override
 	public void setElements(int pos,double[] values, int offset, int length) {
@@ -333,10 +416,13 @@ public final class NDArray extends BaseNDArray {
 		} else if (isPackedArray()) {
 			dest.put(data,0,data.length);
 		} else {
-			int sc=sliceCount();
-			for (int i=0; i<sc; i++) {
-				INDArray s=slice(i);
-				s.toDoubleBuffer(dest);
+			for (StridedLoop loop=StridedLoop.create(this); loop.hasRow(); loop.nextRow()) {
+				int off=loop.offsetA();
+				int st=loop.rowStrideA();
+				int n=loop.rowLength();
+				for (int i=0; i<n; i++) {
+					dest.put(data[off+i*st]);
+				}
 			}
 		}
 	}
@@ -373,6 +373,10 @@ public abstract class AbstractArray<T> implements INDArray, Iterable<T> {
 				return toVector().innerProduct(a);
 			}
 		}
+		if ((this instanceof IStridedArray)&&(a instanceof IStridedArray)&&(a.dimensionality()>0)) {
+			Array r=Contractions.tensordot(this, a, new int[] {dims-1}, new int[] {0});
+			return Arrayz.wrap(r.getArray(), r.getShape());
+		}
 		int sc=sliceCount();
 		ArrayList<INDArray> sliceInnerProducts=new ArrayList<INDArray>(sc);
 		for (int i=0; i<sc; i++) {
@@ -1597,7 +1601,15 @@ public abstract class AbstractArray<T> implements INDArray, Iterable<T> {
 		int dims=dimensionality();
 		int targetDims=target.dimensionality();
 		INDArray r=this;
-		if (dims<targetDims) r=r.broadcastLike(target);
+		if (dims<targetDims) {
+			if ((dims>0)&&(this instanceof IStridedArray)) {
+				// fill a new dense array directly, without cloning a broadcast view
+				r=Arrayz.newArray(target.getShape());
+				r.set(this);
+				return r;
+			}
+			r=r.broadcastLike(target);
+		}
 		return r.clone();
 	}
 	
@@ -1707,4 +1719,48 @@ public abstract class AbstractArray<T> implements INDArray, Iterable<T> {
 		}
 		return result;
 	}
+
+	@Override
+	public INDArray sumAlong(int... axes) {
+		return sumAlong(axes,false);
+	}
+
+	@Override
+	public INDArray sumAlong(int[] axes, boolean keepDims) {
+		return wrapReduction(AxisReductions.sum(this, axes, keepDims));
+	}
+
+	@Override
+	public INDArray meanAlong(int[] axes, boolean keepDims) {
+		return wrapReduction(AxisReductions.mean(this, axes, keepDims));
+	}
+
+	@Override
+	public INDArray maxAlong(int[] axes, boolean keepDims) {
+		return wrapReduction(AxisReductions.max(this, axes, keepDims));
+	}
+
+	@Override
+	public INDArray minAlong(int[] axes, boolean keepDims) {
+		return wrapReduction(AxisReductions.min(this, axes, keepDims));
+	}
+
+	@Override
+	public INDArray normAlong(int[] axes, boolean keepDims) {
+		return wrapReduction(AxisReductions.norm(this, axes, keepDims));
+	}
+
+	@Override
+	public INDArray argMaxAlong(int axis, boolean keepDims) {
+		return wrapReduction(AxisReductions.argMax(this, axis, keepDims));
+	}
+
+	@Override
+	public INDArray argMinAlong(int axis, boolean keepDims) {
+		return wrapReduction(AxisReductions.argMin(this, axis, keepDims));
+	}
+
+	private static INDArray wrapReduction(Array r) {
+		return Arrayz.wrap(r.getArray(), r.getShape());
+	}
 }
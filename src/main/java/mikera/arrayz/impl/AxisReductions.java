@@ -0,0 +1,488 @@
+package mikera.arrayz.impl;
+
+import mikera.arrayz.Array;
+import mikera.arrayz.INDArray;
+import mikera.arrayz.NDArray;
+import mikera.matrixx.impl.ASparseRCMatrix;
+import mikera.matrixx.impl.SparseColumnMatrix;
+import mikera.vectorz.AVector;
+import mikera.vectorz.impl.IndexedElementVisitor;
+import mikera.vectorz.util.ErrorMessages;
+import mikera.vectorz.util.IntArrays;
+import mikera.vectorz.util.Parallel;
+import mikera.vectorz.util.ParallelArrays;
+
+/**
+ * Reductions of an array along one or more axes.
+ *
+ * The result has the shape of the input with the reduced axes removed, or kept with size 1 if
+ * keepDims is specified. Strided inputs are reduced in a single pass in memory order of the input,
+ * accumulating directly into the result: the result is given a stride of zero along the reduced
+ * axes, so that each input element is combined into its output element by a StridedLoop. Sparse
+ * row and column matrices are reduced by visiting the non-zero elements of their stored vectors.
+ * Other arrays are copied to a dense Array first.
+ *
+ * Large inputs are split along a kept axis and processed in parallel. Each output element is
+ * computed by a single task in the same order as the serial pass, so results do not depend on the
+ * number of threads.
+ *
+ * @author Mike
+ */
+public final class AxisReductions {
+
+	private AxisReductions() {}
+
+	private static final int SUM=0;
+	private static final int MEAN=1;
+	private static final int MAX=2;
+	private static final int MIN=3;
+	private static final int NORM=4;
+
+	/**
+	 * Sums an array along the given axes
+	 */
+	public static Array sum(INDArray a, int[] axes, boolean keepDims) {
+		return reduce(SUM,a,axes,keepDims);
+	}
+
+	/**
+	 * Computes the mean of an array along the given axes
+	 */
+	public static Array mean(INDArray a, int[] axes, boolean keepDims) {
+		return reduce(MEAN,a,axes,keepDims);
+	}
+
+	/**
+	 * Computes the maximum of an array along the given axes
+	 */
+	public static Array max(INDArray a, int[] axes, boolean keepDims) {
+		return reduce(MAX,a,axes,keepDims);
+	}
+
+	/**
+	 * Computes the minimum of an array along the given axes
+	 */
+	public static Array min(INDArray a, int[] axes, boolean keepDims) {
+		return reduce(MIN,a,axes,keepDims);
+	}
+
+	/**
+	 * Computes the Euclidean norm of an array along the given axes
+	 */
+	public static Array norm(INDArray a, int[] axes, boolean keepDims) {
+		return reduce(NORM,a,axes,keepDims);
+	}
+
+	private static IStridedArray asStrided(INDArray a) {
+		if (a instanceof IStridedArray) return (IStridedArray)a;
+		if (a instanceof IDenseArray) {
+			// packed storage such as ImmutableMatrix can be read in place through a strided view
+			IDenseArray d=(IDenseArray)a;
+			int[] shape=a.getShape();
+			return (IStridedArray)NDArray.wrapStrided(d.getArray(), d.getArrayOffset(), shape, IntArrays.calcStrides(shape));
+		}
+		return Array.create(a);
+	}
+
+	/**
+	 * Gets the storage of a strided array for reading. ImmutableArray does not expose its storage
+	 * through getArray(), but the reductions never write to it.
+	 */
+	private static double[] data(IStridedArray s) {
+		if (s instanceof BaseNDArray) return ((BaseNDArray)s).data;
+		return s.getArray();
+	}
+
+	private static boolean[] reducedAxes(INDArray a, int[] axes) {
+		int dims=a.dimensionality();
+		boolean[] reduced=new boolean[dims];
+		for (int axis: axes) {
+			if ((axis<0)||(axis>=dims)||reduced[axis]) throw new IllegalArgumentException(ErrorMessages.invalidDimension(a, axis));
+			reduced[axis]=true;
+		}
+		return reduced;
+	}
+
+	private static int[] resultShape(int[] shape, boolean[] reduced, boolean keepDims) {
+		int dims=shape.length;
+		int n=0;
+		for (int i=0; i<dims; i++) {
+			if (keepDims||!reduced[i]) n++;
+		}
+		int[] result=new int[n];
+		int j=0;
+		for (int i=0; i<dims; i++) {
+			if (reduced[i]) {
+				if (keepDims) result[j++]=1;
+			} else {
+				result[j++]=shape[i];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the strides of a packed result for each input axis, with zero for reduced axes
+	 */
+	private static int[] resultStrides(int[] shape, boolean[] reduced) {
+		int dims=shape.length;
+		int[] strides=new int[dims];
+		int st=1;
+		for (int i=dims-1; i>=0; i--) {
+			if (reduced[i]) continue;
+			strides[i]=st;
+			st*=shape[i];
+		}
+		return strides;
+	}
+
+	private static Array reduce(final int kind, INDArray a, int[] axes, boolean keepDims) {
+		boolean[] reduced=reducedAxes(a,axes);
+		if (a instanceof ASparseRCMatrix) return reduceSparse(kind,(ASparseRCMatrix)a,reduced,keepDims);
+		final IStridedArray s=asStrided(a);
+		final int[] shape=s.getShape();
+		final int[] strides=s.getStrides();
+		int dims=shape.length;
+		Array result=Array.newArray(resultShape(shape,reduced,keepDims));
+		final double[] out=result.getArray();
+		final int[] outStrides=resultStrides(shape,reduced);
+
+		long count=1;
+		for (int i=0; i<dims; i++) {
+			if (reduced[i]) count*=shape[i];
+		}
+		if (out.length==0) return result;
+		if (count==0) {
+			if ((kind==MAX)||(kind==MIN)) throw new IllegalArgumentException(ErrorMessages.zeroElementReduce(a));
+		}
+		if (kind==MAX) java.util.Arrays.fill(out, Double.NEGATIVE_INFINITY);
+		if (kind==MIN) java.util.Arrays.fill(out, Double.POSITIVE_INFINITY);
+
+		final double[] data=data(s);
+		final int offset=s.getArrayOffset();
+		int split=splitAxis(shape,reduced,s.elementCount());
+		if (split<0) {
+			accumulate(kind,data,offset,shape,strides,out,0,outStrides);
+		} else {
+			final int splitAxis=split;
+			int n=shape[split];
+			int grain=(int)Math.max(1, ParallelArrays.CHUNK_SIZE/(s.elementCount()/n));
+			Parallel.forRange(0, n, grain, new Parallel.IRangeTask() {
+				@Override
+				public void run(int start, int end) {
+					int[] subShape=shape.clone();
+					subShape[splitAxis]=end-start;
+					accumulate(kind,data,offset+start*strides[splitAxis],subShape,strides,out,start*outStrides[splitAxis],outStrides);
+				}
+			});
+		}
+
+		if (kind==MEAN) {
+			double scale=1.0/count;
+			for (int i=0; i<out.length; i++) out[i]*=scale;
+		} else if (kind==NORM) {
+			for (int i=0; i<out.length; i++) out[i]=Math.sqrt(out[i]);
+		}
+		return result;
+	}
+
+	/**
+	 * Chooses a kept axis to split a large reduction for parallel execution, or -1 to run serially
+	 */
+	private static int splitAxis(int[] shape, boolean[] reduced, long elementCount) {
+		if ((Parallel.THREADS<=1)||(elementCount<ParallelArrays.getParallelThreshold())) return -1;
+		int best=-1;
+		for (int i=0; i<shape.length; i++) {
+			if (reduced[i]) continue;
+			if ((best<0)||(shape[i]>shape[best])) best=i;
+		}
+		if ((best<0)||(shape[best]<2)) return -1;
+		return best;
+	}
+
+	/**
+	 * Accumulates the input elements into the output in a single pass over the input
+	 */
+	private static void accumulate(int kind, double[] data, int offset, int[] shape, int[] strides, double[] out, int outOffset, int[] outStrides) {
+		for (StridedLoop loop=StridedLoop.create(shape, offset, strides, outOffset, outStrides, true); loop.hasRow(); loop.nextRow()) {
+			int aOff=loop.offsetA();
+			int bOff=loop.offsetB();
+			int as=loop.rowStrideA();
+			int bs=loop.rowStrideB();
+			int n=loop.rowLength();
+			if (bs==0) {
+				// whole row reduces into a single output element
+				double acc=out[bOff];
+				switch (kind) {
+					case MAX:
+						for (int i=0; i<n; i++) {
+							double x=data[aOff+i*as];
+							if (x>acc) acc=x;
+						}
+						break;
+					case MIN:
+						for (int i=0; i<n; i++) {
+							double x=data[aOff+i*as];
+							if (x<acc) acc=x;
+						}
+						break;
+					case NORM:
+						for (int i=0; i<n; i++) {
+							double x=data[aOff+i*as];
+							acc+=x*x;
+						}
+						break;
+					default:
+						for (int i=0; i<n; i++) {
+							acc+=data[aOff+i*as];
+						}
+						break;
+				}
+				out[bOff]=acc;
+			} else {
+				switch (kind) {
+					case MAX:
+						for (int i=0; i<n; i++) {
+							double x=data[aOff+i*as];
+							int ix=bOff+i*bs;
+							if (x>out[ix]) out[ix]=x;
+						}
+						break;
+					case MIN:
+						for (int i=0; i<n; i++) {
+							double x=data[aOff+i*as];
+							int ix=bOff+i*bs;
+							if (x<out[ix]) out[ix]=x;
+						}
+						break;
+					case NORM:
+						for (int i=0; i<n; i++) {
+							double x=data[aOff+i*as];
+							out[bOff+i*bs]+=x*x;
+						}
+						break;
+					default:
+						for (int i=0; i<n; i++) {
+							out[bOff+i*bs]+=data[aOff+i*as];
+						}
+						break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Finds the index of the maximum element along an axis. Ties resolve to the lowest index.
+	 */
+	public static Array argMax(INDArray a, int axis, boolean keepDims) {
+		return argExtreme(true,a,axis,keepDims);
+	}
+
+	/**
+	 * Finds the index of the minimum element along an axis. Ties resolve to the lowest index.
+	 */
+	public static Array argMin(INDArray a, int axis, boolean keepDims) {
+		return argExtreme(false,a,axis,keepDims);
+	}
+
+	private static Array argExtreme(boolean max, INDArray a, int axis, boolean keepDims) {
+		boolean[] reduced=reducedAxes(a,new int[] {axis});
+		if (a instanceof ASparseRCMatrix) return argExtremeSparse(max,(ASparseRCMatrix)a,axis,reduced,keepDims);
+		IStridedArray s=asStrided(a);
+		int[] shape=s.getShape();
+		int[] strides=s.getStrides();
+		Array result=Array.newArray(resultShape(shape,reduced,keepDims));
+		double[] out=result.getArray();
+		if (out.length==0) return result;
+		int len=shape[axis];
+		if (len==0) throw new IllegalArgumentException(ErrorMessages.zeroElementReduce(a));
+
+		// loop over the kept axes, scanning along the reduced axis for each output element
+		int axisStride=strides[axis];
+		int[] keptShape=shape.clone();
+		keptShape[axis]=1;
+		double[] data=data(s);
+		for (StridedLoop loop=StridedLoop.create(keptShape, s.getArrayOffset(), strides, 0, resultStrides(shape,reduced), true); loop.hasRow(); loop.nextRow()) {
+			int aOff=loop.offsetA();
+			int bOff=loop.offsetB();
+			int as=loop.rowStrideA();
+			int bs=loop.rowStrideB();
+			int n=loop.rowLength();
+			for (int i=0; i<n; i++) {
+				int base=aOff+i*as;
+				double best=data[base];
+				int bestIndex=0;
+				for (int k=1; k<len; k++) {
+					double x=data[base+k*axisStride];
+					if (max?(x>best):(x<best)) {
+						best=x;
+						bestIndex=k;
+					}
+				}
+				out[bOff+i*bs]=bestIndex;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the axis indexed by the stored vectors of a sparse row or column matrix
+	 */
+	private static int componentAxis(ASparseRCMatrix m) {
+		return (m instanceof SparseColumnMatrix)?1:0;
+	}
+
+	/**
+	 * Reduces a sparse row or column matrix by visiting the non-zero elements of each stored vector.
+	 * Implicit zeros only affect MAX and MIN, which also consider zero for any output element
+	 * with fewer non-zero elements than reduced elements.
+	 */
+	private static Array reduceSparse(int kind, ASparseRCMatrix m, boolean[] reduced, boolean keepDims) {
+		int[] shape=m.getShape();
+		Array result=Array.newArray(resultShape(shape,reduced,keepDims));
+		double[] out=result.getArray();
+		long count=1;
+		for (int i=0; i<2; i++) {
+			if (reduced[i]) count*=shape[i];
+		}
+		if (out.length==0) return result;
+		if (count==0) {
+			if ((kind==MAX)||(kind==MIN)) throw new IllegalArgumentException(ErrorMessages.zeroElementReduce(m));
+		}
+		boolean extreme=(kind==MAX)||(kind==MIN);
+		if (kind==MAX) java.util.Arrays.fill(out, Double.NEGATIVE_INFINITY);
+		if (kind==MIN) java.util.Arrays.fill(out, Double.POSITIVE_INFINITY);
+
+		int c=componentAxis(m);
+		int[] outStrides=resultStrides(shape,reduced);
+		SparseVisitor visitor=new SparseVisitor(kind,out,extreme?new int[out.length]:null,outStrides[1-c]);
+		for (int k=0, n=shape[c]; k<n; k++) {
+			AVector vec=m.unsafeGetVector(k);
+			if (vec==null) continue;
+			visitor.base=k*outStrides[c];
+			vec.visitNonZero(visitor);
+		}
+
+		if (extreme) {
+			int[] nnz=visitor.nnz;
+			for (int i=0; i<out.length; i++) {
+				if (nnz[i]==count) continue;
+				out[i]=(kind==MAX)?Math.max(out[i],0.0):Math.min(out[i],0.0);
+			}
+		} else if (kind==MEAN) {
+			double scale=1.0/count;
+			for (int i=0; i<out.length; i++) out[i]*=scale;
+		} else if (kind==NORM) {
+			for (int i=0; i<out.length; i++) out[i]=Math.sqrt(out[i]);
+		}
+		return result;
+	}
+
+	/**
+	 * Accumulates the non-zero elements of a stored vector into the output, counting them if required
+	 */
+	private static final class SparseVisitor extends IndexedElementVisitor {
+		final int kind;
+		final double[] out;
+		final int[] nnz;
+		final int stride;
+		int base;
+
+		SparseVisitor(int kind, double[] out, int[] nnz, int stride) {
+			this.kind=kind;
+			this.out=out;
+			this.nnz=nnz;
+			this.stride=stride;
+		}
+
+		@Override
+		public double visit(int j, double x) {
+			int ix=base+j*stride;
+			switch (kind) {
+				case MAX: if (x>out[ix]) out[ix]=x; break;
+				case MIN: if (x<out[ix]) out[ix]=x; break;
+				case NORM: out[ix]+=x*x; break;
+				default: out[ix]+=x; break;
+			}
+			if (nnz!=null) nnz[ix]++;
+			return 0.0;
+		}
+	}
+
+	/**
+	 * Finds extreme indices in a sparse row or column matrix by visiting the non-zero elements of each
+	 * stored vector. Each output element sees its elements in increasing index order, so the first
+	 * implicit zero is the first index skipped.
+	 */
+	private static Array argExtremeSparse(boolean max, ASparseRCMatrix m, int axis, boolean[] reduced, boolean keepDims) {
+		int[] shape=m.getShape();
+		Array result=Array.newArray(resultShape(shape,reduced,keepDims));
+		double[] out=result.getArray();
+		if (out.length==0) return result;
+		int len=shape[axis];
+		if (len==0) throw new IllegalArgumentException(ErrorMessages.zeroElementReduce(m));
+
+		int c=componentAxis(m);
+		int[] outStrides=resultStrides(shape,reduced);
+		ArgVisitor visitor=new ArgVisitor(max,out.length,outStrides[1-c],axis!=c);
+		for (int k=0, n=shape[c]; k<n; k++) {
+			AVector vec=m.unsafeGetVector(k);
+			if (vec==null) continue;
+			visitor.base=k*outStrides[c];
+			visitor.component=k;
+			vec.visitNonZero(visitor);
+		}
+
+		double[] best=visitor.best;
+		int[] index=visitor.index;
+		int[] nnz=visitor.nnz;
+		int[] gap=visitor.gap;
+		for (int i=0; i<out.length; i++) {
+			if (nnz[i]<len) {
+				int z=(gap[i]>=0)?gap[i]:nnz[i];
+				if ((nnz[i]==0)||(max?(0.0>best[i]):(0.0<best[i]))||((0.0==best[i])&&(z<index[i]))) index[i]=z;
+			}
+			out[i]=index[i];
+		}
+		return result;
+	}
+
+	/**
+	 * Tracks the extreme non-zero element and the first implicit zero for each output element
+	 */
+	private static final class ArgVisitor extends IndexedElementVisitor {
+		final boolean max;
+		final double[] best;
+		final int[] index;
+		final int[] nnz;
+		final int[] gap;
+		final int stride;
+		final boolean alongLine;
+		int base;
+		int component;
+
+		ArgVisitor(boolean max, int n, int stride, boolean alongLine) {
+			this.max=max;
+			this.best=new double[n];
+			this.index=new int[n];
+			this.nnz=new int[n];
+			this.gap=new int[n];
+			java.util.Arrays.fill(gap, -1);
+			this.stride=stride;
+			this.alongLine=alongLine;
+		}
+
+		@Override
+		public double visit(int j, double x) {
+			int ix=base+j*stride;
+			int p=alongLine?j:component;
+			int seen=nnz[ix]++;
+			if ((gap[ix]<0)&&(seen<p)) gap[ix]=seen;
+			if ((seen==0)||(max?(x>best[ix]):(x<best[ix]))) {
+				best[ix]=x;
+				index[ix]=p;
+			}
+			return 0.0;
+		}
+	}
+}
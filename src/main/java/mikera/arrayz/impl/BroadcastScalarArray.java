@@ -43,6 +43,13 @@ public class BroadcastScalarArray extends BaseShapedArray {
 		}
 	}
 
+	/**
+	 * Gets the value repeated in every element of this array
+	 */
+	public double getValue() {
+		return value;
+	}
+
 	@Override
 	public double get(int... indexes) {
 		return value;
@@ -0,0 +1,463 @@
+package mikera.arrayz.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import mikera.arrayz.Array;
+import mikera.arrayz.Arrayz;
+import mikera.arrayz.INDArray;
+import mikera.matrixx.AMatrix;
+import mikera.matrixx.Matrix;
+import mikera.matrixx.Matrixx;
+import mikera.matrixx.algo.Multiplications;
+import mikera.vectorz.util.ErrorMessages;
+import mikera.vectorz.util.IntArrays;
+
+/**
+ * Tensor contraction over arbitrary pairs of axes, implemented with dense matrix multiplication.
+ *
+ * Each operand is permuted so that its free axes and contracted axes form two groups, and the
+ * groups are flattened into the rows and columns of a matrix. Where the strides of the operand
+ * allow this the matrix is a view of the original data, otherwise the operand is copied once into
+ * packed order. The product is computed with the blocked dense multiply and the result is a packed
+ * Array with the free axes of the first operand followed by the free axes of the second.
+ *
+ * @author Mike
+ */
+public final class Contractions {
+
+	private Contractions() {}
+
+	private static final int NOT_FLAT=Integer.MIN_VALUE;
+
+	/**
+	 * Contracts two arrays over the given pairs of axes.
+	 *
+	 * @param a The first array
+	 * @param b The second array
+	 * @param axesA Axes of the first array to contract
+	 * @param axesB Axes of the second array to contract, paired with axesA
+	 * @return A packed Array containing the free axes of a followed by the free axes of b
+	 */
+	public static Array tensordot(INDArray a, INDArray b, int[] axesA, int[] axesB) {
+		IStridedArray sa=asStrided(a);
+		IStridedArray sb=asStrided(b);
+		int n=axesA.length;
+		if (axesB.length!=n) throw new IllegalArgumentException("Axis lists must have the same length, got "+n+" and "+axesB.length);
+		int[] shapeA=sa.getShape();
+		int[] shapeB=sb.getShape();
+		boolean[] usedA=new boolean[shapeA.length];
+		boolean[] usedB=new boolean[shapeB.length];
+		for (int k=0; k<n; k++) {
+			int ia=axesA[k];
+			int ib=axesB[k];
+			if ((ia<0)||(ia>=shapeA.length)||usedA[ia]) throw new IllegalArgumentException(ErrorMessages.invalidDimension(a, ia));
+			if ((ib<0)||(ib>=shapeB.length)||usedB[ib]) throw new IllegalArgumentException(ErrorMessages.invalidDimension(b, ib));
+			if (shapeA[ia]!=shapeB[ib]) throw new IllegalArgumentException(ErrorMessages.incompatibleShapes(a, b));
+			usedA[ia]=true;
+			usedB[ib]=true;
+		}
+
+		// order the contracted pairs by decreasing stride in a, so a row major a can be used as a view
+		int[] order=new int[n];
+		int[] stridesA=sa.getStrides();
+		for (int i=0; i<n; i++) {
+			int st=Math.abs(stridesA[axesA[i]]);
+			int j=i;
+			while ((j>0)&&(Math.abs(stridesA[axesA[order[j-1]]])<st)) {
+				order[j]=order[j-1];
+				j--;
+			}
+			order[j]=i;
+		}
+		int[] ka=new int[n];
+		int[] kb=new int[n];
+		for (int i=0; i<n; i++) {
+			ka[i]=axesA[order[i]];
+			kb[i]=axesB[order[i]];
+		}
+		int[] fa=freeAxes(usedA);
+		int[] fb=freeAxes(usedB);
+
+		int[] resultShape=IntArrays.concat(IntArrays.select(shapeA, fa),IntArrays.select(shapeB, fb));
+		int rows=product(shapeA,fa);
+		int inner=product(shapeA,ka);
+		int cols=product(shapeB,fb);
+		if ((rows==0)||(cols==0)||(inner==0)) return Array.newArray(resultShape);
+
+		AMatrix ma=matrixView(sa,fa,ka,rows,inner);
+		AMatrix mb=matrixView(sb,kb,fb,inner,cols);
+		Matrix r=Multiplications.multiply(ma, mb);
+		return Array.wrap(r.getArray(), resultShape);
+	}
+
+	/**
+	 * Contracts the last n axes of a with the first n axes of b
+	 */
+	public static Array tensordot(INDArray a, INDArray b, int n) {
+		int da=a.dimensionality();
+		int[] axesA=new int[n];
+		int[] axesB=new int[n];
+		for (int i=0; i<n; i++) {
+			axesA[i]=da-n+i;
+			axesB[i]=i;
+		}
+		return tensordot(a,b,axesA,axesB);
+	}
+
+	private static IStridedArray asStrided(INDArray a) {
+		// immutable arrays do not expose their storage
+		if ((a instanceof IStridedArray)&&a.isMutable()) return (IStridedArray)a;
+		return Array.create(a);
+	}
+
+	private static int[] freeAxes(boolean[] used) {
+		int n=0;
+		for (int i=0; i<used.length; i++) {
+			if (!used[i]) n++;
+		}
+		int[] result=new int[n];
+		int j=0;
+		for (int i=0; i<used.length; i++) {
+			if (!used[i]) result[j++]=i;
+		}
+		return result;
+	}
+
+	private static int product(int[] shape, int[] dims) {
+		long result=1;
+		for (int d: dims) {
+			result*=shape[d];
+		}
+		if (result>Integer.MAX_VALUE) throw new IllegalArgumentException("Contraction too large: "+result+" elements in one dimension");
+		return (int)result;
+	}
+
+	/**
+	 * Gets the stride of a group of axes flattened into a single dimension,
+	 * or NOT_FLAT if the strides do not allow this
+	 */
+	private static int flatStride(int[] shape, int[] strides, int[] dims) {
+		int result=1;
+		long expected=0;
+		boolean found=false;
+		for (int i=dims.length-1; i>=0; i--) {
+			int d=dims[i];
+			int s=shape[d];
+			if (s==1) continue;
+			if (!found) {
+				result=strides[d];
+				expected=((long)result)*s;
+				found=true;
+			} else {
+				if (strides[d]!=expected) return NOT_FLAT;
+				expected*=s;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Gets a rows x cols matrix over the array, with the given axes forming the rows and columns
+	 */
+	private static AMatrix matrixView(IStridedArray s, int[] rowDims, int[] colDims, int rows, int cols) {
+		int[] shape=s.getShape();
+		int[] strides=s.getStrides();
+		int rs=flatStride(shape,strides,rowDims);
+		int cs=flatStride(shape,strides,colDims);
+		if ((rs!=NOT_FLAT)&&(cs!=NOT_FLAT)) {
+			return Matrixx.wrapStrided(s.getArray(), rows, cols, s.getArrayOffset(), rs, cs);
+		}
+		int[] dims=IntArrays.concat(rowDims,colDims);
+		Array packed=Array.newArray(IntArrays.select(shape, dims));
+		packed.set(permutedView(s,dims));
+		return Matrix.wrap(rows, cols, packed.getArray());
+	}
+
+	private static INDArray permutedView(IStridedArray s, int[] dims) {
+		return Arrayz.wrapStrided(s.getArray(), s.getArrayOffset(), IntArrays.select(s.getShape(), dims), IntArrays.select(s.getStrides(), dims));
+	}
+
+	// ================================================================
+	// einsum
+
+	/**
+	 * An operand of an einsum expression, with one label for each axis
+	 */
+	private static final class Term {
+		final IStridedArray array;
+		final String labels;
+
+		Term(IStridedArray array, String labels) {
+			this.array=array;
+			this.labels=labels;
+		}
+	}
+
+	/**
+	 * Evaluates an Einstein summation expression such as "ij,jk->ik".
+	 *
+	 * Each operand is labelled with one letter per axis. Labels that do not appear in the output
+	 * are summed over, a label repeated within one operand takes the diagonal, and labels shared by
+	 * two operands and the output are treated as batch axes. If "->" is omitted, the output contains
+	 * the labels that appear exactly once, in alphabetical order.
+	 *
+	 * Operands are contracted from left to right, each pair with a single dense matrix multiply
+	 * (or one per batch index).
+	 *
+	 * @return A packed Array with axes in the order of the output labels
+	 */
+	public static Array einsum(String spec, INDArray... arrays) {
+		spec=spec.replace(" ", "");
+		int arrow=spec.indexOf("->");
+		String lhs=(arrow<0)?spec:spec.substring(0,arrow);
+		String[] inputs=lhs.split(",",-1);
+		if (inputs.length!=arrays.length) throw new IllegalArgumentException("Expected "+inputs.length+" operands for einsum '"+spec+"' but got "+arrays.length);
+
+		int[] counts=new int[128];
+		int[] sizes=new int[128];
+		for (int i=0; i<inputs.length; i++) {
+			String in=inputs[i];
+			INDArray a=arrays[i];
+			if (in.length()!=a.dimensionality()) throw new IllegalArgumentException("Operand "+i+" of einsum '"+spec+"' has wrong number of dimensions: "+a.dimensionality());
+			for (int j=0; j<in.length(); j++) {
+				char c=checkLabel(in.charAt(j),spec);
+				int size=a.getShape(j);
+				if ((counts[c]>0)&&(sizes[c]!=size)) throw new IllegalArgumentException("Inconsistent size for label '"+c+"' in einsum '"+spec+"'");
+				sizes[c]=size;
+				counts[c]++;
+			}
+		}
+
+		String output;
+		if (arrow<0) {
+			StringBuilder sb=new StringBuilder();
+			for (char c='A'; c<='z'; c++) {
+				if (Character.isLetter(c)&&(counts[c]==1)) sb.append(c);
+			}
+			output=sb.toString();
+		} else {
+			output=spec.substring(arrow+2);
+			for (int j=0; j<output.length(); j++) {
+				char c=checkLabel(output.charAt(j),spec);
+				if (counts[c]==0) throw new IllegalArgumentException("Output label '"+c+"' does not appear in inputs of einsum '"+spec+"'");
+				if (output.indexOf(c)!=j) throw new IllegalArgumentException("Repeated output label '"+c+"' in einsum '"+spec+"'");
+			}
+		}
+
+		ArrayList<Term> terms=new ArrayList<Term>(arrays.length);
+		for (int i=0; i<arrays.length; i++) {
+			terms.add(diagonal(asStrided(arrays[i]),inputs[i]));
+		}
+
+		// contract from left to right, keeping labels needed later or in the output
+		Term result=sumUnused(terms.get(0),needed(output,terms,1));
+		for (int i=1; i<terms.size(); i++) {
+			String keep=needed(output,terms,i+1);
+			Term t=sumUnused(terms.get(i),keep+result.labels);
+			result=contract(result,t,keep);
+		}
+		result=sumUnused(result,output);
+
+		// permute into the output order
+		int dims=output.length();
+		int[] perm=new int[dims];
+		for (int j=0; j<dims; j++) {
+			perm[j]=result.labels.indexOf(output.charAt(j));
+		}
+		if ((result.array instanceof Array)&&IntArrays.isRange(perm)&&!isInput(result.array,arrays)) {
+			return (Array)result.array;
+		}
+		Array packed=Array.newArray(IntArrays.select(result.array.getShape(), perm));
+		packed.set(permutedView(result.array,perm));
+		return packed;
+	}
+
+	/**
+	 * Tests whether an array is one of the given input arrays. Compares by identity, since an
+	 * equal but distinct array can safely be returned.
+	 */
+	private static boolean isInput(INDArray a, INDArray[] arrays) {
+		for (INDArray x: arrays) {
+			if (x==a) return true;
+		}
+		return false;
+	}
+
+	private static char checkLabel(char c, String spec) {
+		if ((c>=128)||!Character.isLetter(c)) throw new IllegalArgumentException("Invalid label '"+c+"' in einsum '"+spec+"'");
+		return c;
+	}
+
+	/**
+	 * Gets the labels that appear in the output or in any term from index start onwards
+	 */
+	private static String needed(String output, ArrayList<Term> terms, int start) {
+		StringBuilder sb=new StringBuilder(output);
+		for (int i=start; i<terms.size(); i++) {
+			sb.append(terms.get(i).labels);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Replaces repeated labels within a term by a diagonal view
+	 */
+	private static Term diagonal(IStridedArray a, String labels) {
+		int dims=labels.length();
+		int[] shape=a.getShape();
+		int[] strides=a.getStrides();
+		StringBuilder sb=new StringBuilder();
+		int[] newShape=new int[dims];
+		int[] newStrides=new int[dims];
+		int n=0;
+		for (int i=0; i<dims; i++) {
+			char c=labels.charAt(i);
+			int pos=sb.indexOf(String.valueOf(c));
+			if (pos>=0) {
+				newStrides[pos]+=strides[i];
+			} else {
+				sb.append(c);
+				newShape[n]=shape[i];
+				newStrides[n]=strides[i];
+				n++;
+			}
+		}
+		if (n==dims) return new Term(a,labels);
+		INDArray view=Arrayz.wrapStrided(a.getArray(), a.getArrayOffset(), Arrays.copyOf(newShape, n), Arrays.copyOf(newStrides, n));
+		return new Term((IStridedArray)view,sb.toString());
+	}
+
+	/**
+	 * Sums over any labels of a term that are not in the keep set, by contraction with ones
+	 */
+	private static Term sumUnused(Term t, String keep) {
+		String labels=t.labels;
+		int dims=labels.length();
+		int n=0;
+		for (int i=0; i<dims; i++) {
+			if (keep.indexOf(labels.charAt(i))<0) n++;
+		}
+		if (n==0) return t;
+		int[] axes=new int[n];
+		int[] onesAxes=new int[n];
+		int[] onesShape=new int[n];
+		StringBuilder kept=new StringBuilder();
+		int j=0;
+		for (int i=0; i<dims; i++) {
+			char c=labels.charAt(i);
+			if (keep.indexOf(c)<0) {
+				axes[j]=i;
+				onesAxes[j]=j;
+				onesShape[j]=t.array.getShape(i);
+				j++;
+			} else {
+				kept.append(c);
+			}
+		}
+		Array ones=Array.newArray(onesShape);
+		ones.set(1.0);
+		return new Term(tensordot(t.array,ones,axes,onesAxes),kept.toString());
+	}
+
+	/**
+	 * Contracts two terms, keeping the given labels. Labels shared by both terms and kept are batch axes.
+	 */
+	private static Term contract(Term a, Term b, String keep) {
+		StringBuilder batch=new StringBuilder();
+		StringBuilder contracted=new StringBuilder();
+		for (int i=0; i<a.labels.length(); i++) {
+			char c=a.labels.charAt(i);
+			if (b.labels.indexOf(c)<0) continue;
+			if (keep.indexOf(c)>=0) {
+				batch.append(c);
+			} else {
+				contracted.append(c);
+			}
+		}
+		if (batch.length()==0) {
+			return contractSlices(a,b,contracted.toString());
+		}
+
+		// loop over batch indices, contracting each pair of sub-arrays
+		String bl=batch.toString();
+		int nb=bl.length();
+		int[] batchShape=new int[nb];
+		for (int i=0; i<nb; i++) {
+			batchShape[i]=a.array.getShape(a.labels.indexOf(bl.charAt(i)));
+		}
+		String cl=contracted.toString();
+		String blockLabels=freeLabels(a.labels,bl+cl)+freeLabels(b.labels,bl+cl);
+		int[] blockShape=new int[blockLabels.length()];
+		for (int i=0; i<blockShape.length; i++) {
+			char c=blockLabels.charAt(i);
+			int pos=a.labels.indexOf(c);
+			blockShape[i]=(pos>=0)?a.array.getShape(pos):b.array.getShape(b.labels.indexOf(c));
+		}
+		Array result=Array.newArray(IntArrays.concat(batchShape,blockShape));
+		double[] data=result.getArray();
+		int blockSize=(int)IntArrays.arrayProduct(blockShape);
+		long count=IntArrays.arrayProduct(batchShape);
+		int[] ix=new int[nb];
+		for (long k=0; k<count; k++) {
+			Term r=contractSlices(removeLabels(a,bl,ix),removeLabels(b,bl,ix),cl);
+			System.arraycopy(((Array)r.array).getArray(), 0, data, (int)(k*blockSize), blockSize);
+			for (int d=nb-1; d>=0; d--) {
+				if (++ix[d]<batchShape[d]) break;
+				ix[d]=0;
+			}
+		}
+		return new Term(result,bl+blockLabels);
+	}
+
+	private static Term contractSlices(Term a, Term b, String contracted) {
+		int n=contracted.length();
+		int[] axesA=new int[n];
+		int[] axesB=new int[n];
+		for (int i=0; i<n; i++) {
+			char c=contracted.charAt(i);
+			axesA[i]=a.labels.indexOf(c);
+			axesB[i]=b.labels.indexOf(c);
+		}
+		String labels=freeLabels(a.labels,contracted)+freeLabels(b.labels,contracted);
+		return new Term(tensordot(a.array,b.array,axesA,axesB),labels);
+	}
+
+	private static String freeLabels(String labels, String excluded) {
+		StringBuilder sb=new StringBuilder();
+		for (int i=0; i<labels.length(); i++) {
+			char c=labels.charAt(i);
+			if (excluded.indexOf(c)<0) sb.append(c);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Gets a view of a term with the given labels fixed at the given indexes
+	 */
+	private static Term removeLabels(Term t, String fixed, int[] ix) {
+		IStridedArray a=t.array;
+		int[] shape=a.getShape();
+		int[] strides=a.getStrides();
+		int dims=shape.length;
+		int n=dims-fixed.length();
+		int[] newShape=new int[n];
+		int[] newStrides=new int[n];
+		int offset=a.getArrayOffset();
+		StringBuilder labels=new StringBuilder();
+		int j=0;
+		for (int i=0; i<dims; i++) {
+			char c=t.labels.charAt(i);
+			int f=fixed.indexOf(c);
+			if (f>=0) {
+				offset+=ix[f]*strides[i];
+			} else {
+				newShape[j]=shape[i];
+				newStrides[j]=strides[i];
+				labels.append(c);
+				j++;
+			}
+		}
+		return new Term((IStridedArray)Arrayz.wrapStrided(a.getArray(), offset, newShape, newStrides),labels.toString());
+	}
+}
@@ -0,0 +1,592 @@
+package mikera.arrayz.impl;
+
+import java.util.Arrays;
+
+import mikera.arrayz.Array;
+import mikera.arrayz.INDArray;
+import mikera.matrixx.algo.Transpose;
+import mikera.vectorz.Vector;
+import mikera.vectorz.util.DoubleArrays;
+import mikera.vectorz.util.ErrorMessages;
+import mikera.vectorz.util.Parallel;
+
+/**
+ * 2D convolution and pooling over batches of images stored as 4D arrays in NCHW order, i.e. with
+ * shape [batch, channels, height, width], together with their gradients.
+ *
+ * Convolution uses the im2col method: the receptive fields of each image are expanded into the
+ * columns of a (channels*kernelH*kernelW) x (outputH*outputW) matrix, so that the convolution
+ * becomes a single dense matrix multiply by the weights viewed as a matrix with one row per output
+ * channel. 1x1 convolutions with unit stride and no padding multiply the image data directly.
+ * Weights have shape [outputChannels, inputChannels, kernelH, kernelW] and the bias, if present,
+ * one element per output channel. As is usual for neural networks, the kernel is not flipped, so
+ * this is strictly a cross-correlation.
+ *
+ * Output sizes are computed as in {@link #outputSize}. Batch items are processed in parallel; a
+ * single image is split over output channels instead. Gradients with respect to the weights are
+ * accumulated over a fixed split of the batch, so results do not depend on the number of threads.
+ *
+ * @author Mike
+ */
+public final class Convolutions {
+
+	private Convolutions() {}
+
+	// minimum number of multiply-adds before work is split between threads
+	private static final long PARALLEL_GRAIN=1L<<16;
+
+	// maximum number of partial sums used when accumulating weight gradients over a batch
+	private static final int MAX_CHUNKS=16;
+
+	/**
+	 * Sizes of a convolution or pooling operation over a batch of images
+	 */
+	private static final class Geometry {
+		final int n, c, h, w;
+		final int kh, kw, sh, sw, ph, pw, dh, dw;
+		final int oh, ow;
+
+		Geometry(int[] inputShape, int kh, int kw, int sh, int sw, int ph, int pw, int dh, int dw) {
+			if (inputShape.length!=4) throw new IllegalArgumentException("Expected an input shape [batch, channels, height, width] but got "+Arrays.toString(inputShape));
+			if ((kh<1)||(kw<1)) throw new IllegalArgumentException("Kernel size must be positive, got "+kh+"x"+kw);
+			if ((sh<1)||(sw<1)) throw new IllegalArgumentException("Stride must be positive, got "+sh+"x"+sw);
+			if ((dh<1)||(dw<1)) throw new IllegalArgumentException("Dilation must be positive, got "+dh+"x"+dw);
+			if ((ph<0)||(pw<0)) throw new IllegalArgumentException("Padding must not be negative, got "+ph+"x"+pw);
+			this.n=inputShape[0]; this.c=inputShape[1]; this.h=inputShape[2]; this.w=inputShape[3];
+			this.kh=kh; this.kw=kw; this.sh=sh; this.sw=sw;
+			this.ph=ph; this.pw=pw; this.dh=dh; this.dw=dw;
+			this.oh=outputSize(h,kh,sh,ph,dh);
+			this.ow=outputSize(w,kw,sw,pw,dw);
+			if ((oh<1)||(ow<1)) throw new IllegalArgumentException("Kernel "+kh+"x"+kw+" does not fit in padded input "+(h+2*ph)+"x"+(w+2*pw));
+		}
+
+		int inputPlane() {
+			return h*w;
+		}
+
+		int outputPlane() {
+			return oh*ow;
+		}
+
+		int rows() {
+			return c*kh*kw;
+		}
+
+		boolean isPointwise() {
+			return (kh==1)&&(kw==1)&&(sh==1)&&(sw==1)&&(ph==0)&&(pw==0);
+		}
+
+		int[] outputShape(int channels) {
+			return new int[] {n,channels,oh,ow};
+		}
+	}
+
+	/**
+	 * Computes the output size along one dimension of a convolution or pooling operation, i.e.
+	 * (size+2*padding-dilation*(kernel-1)-1)/stride+1
+	 */
+	public static int outputSize(int size, int kernel, int stride, int padding, int dilation) {
+		int span=dilation*(kernel-1)+1;
+		int padded=size+2*padding;
+		if (padded<span) return 0;
+		return (padded-span)/stride+1;
+	}
+
+	// ================================================================
+	// Convolution
+
+	/**
+	 * Computes the 2D convolution of a batch of images with the same stride and padding along
+	 * both dimensions, and no dilation.
+	 *
+	 * @param input Input array of shape [batch, inChannels, height, width]
+	 * @param weights Weights of shape [outChannels, inChannels, kernelH, kernelW]
+	 * @param bias Bias vector of length outChannels, or null for no bias
+	 * @return A new Array of shape [batch, outChannels, outputH, outputW]
+	 */
+	public static Array conv2d(INDArray input, INDArray weights, INDArray bias, int stride, int padding) {
+		return conv2d(input,weights,bias,stride,stride,padding,padding,1,1);
+	}
+
+	/**
+	 * Computes the 2D convolution of a batch of images.
+	 *
+	 * @param input Input array of shape [batch, inChannels, height, width]
+	 * @param weights Weights of shape [outChannels, inChannels, kernelH, kernelW]
+	 * @param bias Bias vector of length outChannels, or null for no bias
+	 * @return A new Array of shape [batch, outChannels, outputH, outputW]
+	 */
+	public static Array conv2d(INDArray input, INDArray weights, INDArray bias,
+			int strideH, int strideW, int padH, int padW, int dilationH, int dilationW) {
+		final Geometry g=convGeometry(input.getShape(),weights,strideH,strideW,padH,padW,dilationH,dilationW);
+		final int co=weights.getShape(0);
+		if ((bias!=null)&&((bias.dimensionality()!=1)||(bias.getShape(0)!=co))) throw new IllegalArgumentException(ErrorMessages.incompatibleShapes(weights, bias));
+		final double[] src=packed(input);
+		final double[] wt=packed(weights);
+		final int k=g.rows();
+		final int p=g.outputPlane();
+		final int inSize=g.c*g.inputPlane();
+
+		Array result=Array.newArray(g.outputShape(co));
+		final double[] out=result.getArray();
+		if (bias!=null) {
+			double[] b=packed(bias);
+			for (int i=0; i<g.n; i++) {
+				for (int o=0; o<co; o++) {
+					int off=(i*co+o)*p;
+					Arrays.fill(out, off, off+p, b[o]);
+				}
+			}
+		}
+		if (g.n==0) return result;
+
+		final long work=((long)co)*k*p;
+		if (g.n==1) {
+			final double[] col=g.isPointwise()?src:im2col(src,0,g,new double[k*p]);
+			Parallel.forRange(0, co, (int)Math.max(1, PARALLEL_GRAIN/(((long)k)*p)), new Parallel.IRangeTask() {
+				@Override
+				public void run(int start, int end) {
+					DoubleArrays.multiply(wt, start*k, col, 0, out, start*p, end-start, k, p);
+				}
+			});
+		} else {
+			Parallel.forRange(0, g.n, (int)Math.max(1, PARALLEL_GRAIN/work), new Parallel.IRangeTask() {
+				@Override
+				public void run(int start, int end) {
+					double[] col=g.isPointwise()?null:new double[k*p];
+					for (int i=start; i<end; i++) {
+						if (col==null) {
+							DoubleArrays.multiply(wt, 0, src, i*inSize, out, i*co*p, co, k, p);
+						} else {
+							im2col(src,i*inSize,g,col);
+							DoubleArrays.multiply(wt, 0, col, 0, out, i*co*p, co, k, p);
+						}
+					}
+				}
+			});
+		}
+		return result;
+	}
+
+	/**
+	 * Computes the gradient of a 2D convolution with respect to its input.
+	 *
+	 * @param gradOutput Gradient with respect to the output, of shape [batch, outChannels, outputH, outputW]
+	 * @param weights Weights of shape [outChannels, inChannels, kernelH, kernelW]
+	 * @param inputShape Shape of the input, [batch, inChannels, height, width]
+	 * @return A new Array with the given input shape
+	 */
+	public static Array conv2dBackwardInput(INDArray gradOutput, INDArray weights, int[] inputShape,
+			int strideH, int strideW, int padH, int padW, int dilationH, int dilationW) {
+		final Geometry g=convGeometry(inputShape,weights,strideH,strideW,padH,padW,dilationH,dilationW);
+		final int co=weights.getShape(0);
+		checkOutputShape(gradOutput,g,co);
+		final int k=g.rows();
+		final int p=g.outputPlane();
+		final int inSize=g.c*g.inputPlane();
+		final double[] gout=packed(gradOutput);
+
+		// weights transposed to k x co, so the column gradients are a row major product
+		final double[] wt=new double[k*co];
+		Transpose.transpose(packed(weights), 0, co, k, wt, 0);
+
+		Array result=Array.newArray(inputShape.clone());
+		final double[] gin=result.getArray();
+		if (g.n==0) return result;
+
+		if (g.n==1) {
+			final double[] col=g.isPointwise()?gin:new double[k*p];
+			Parallel.forRange(0, k, (int)Math.max(1, PARALLEL_GRAIN/(((long)co)*p)), new Parallel.IRangeTask() {
+				@Override
+				public void run(int start, int end) {
+					DoubleArrays.multiply(wt, start*co, gout, 0, col, start*p, end-start, co, p);
+				}
+			});
+			if (!g.isPointwise()) col2im(col,g,gin,0);
+		} else {
+			Parallel.forRange(0, g.n, (int)Math.max(1, PARALLEL_GRAIN/(((long)co)*k*p)), new Parallel.IRangeTask() {
+				@Override
+				public void run(int start, int end) {
+					double[] col=g.isPointwise()?null:new double[k*p];
+					for (int i=start; i<end; i++) {
+						if (col==null) {
+							DoubleArrays.multiply(wt, 0, gout, i*co*p, gin, i*inSize, k, co, p);
+						} else {
+							Arrays.fill(col, 0.0);
+							DoubleArrays.multiply(wt, 0, gout, i*co*p, col, 0, k, co, p);
+							col2im(col,g,gin,i*inSize);
+						}
+					}
+				}
+			});
+		}
+		return result;
+	}
+
+	/**
+	 * Computes the gradient of a 2D convolution with respect to its weights, summed over the batch.
+	 *
+	 * @param input Input array of shape [batch, inChannels, height, width]
+	 * @param gradOutput Gradient with respect to the output, of shape [batch, outChannels, outputH, outputW]
+	 * @return A new Array of shape [outChannels, inChannels, kernelH, kernelW]
+	 */
+	public static Array conv2dBackwardWeights(INDArray input, INDArray gradOutput, int kernelH, int kernelW,
+			int strideH, int strideW, int padH, int padW, int dilationH, int dilationW) {
+		final Geometry g=new Geometry(input.getShape(),kernelH,kernelW,strideH,strideW,padH,padW,dilationH,dilationW);
+		if (gradOutput.dimensionality()!=4) throw new IllegalArgumentException(ErrorMessages.incompatibleShape(gradOutput));
+		final int co=gradOutput.getShape(1);
+		checkOutputShape(gradOutput,g,co);
+		final int k=g.rows();
+		final int p=g.outputPlane();
+		final int inSize=g.c*g.inputPlane();
+		final double[] src=packed(input);
+		final double[] gout=packed(gradOutput);
+
+		Array result=Array.newArray(co,g.c,kernelH,kernelW);
+		final double[] gw=result.getArray();
+		if (g.n==0) return result;
+
+		if (g.n==1) {
+			final double[] col=g.isPointwise()?src:im2col(src,0,g,new double[k*p]);
+			Parallel.forRange(0, co, (int)Math.max(1, PARALLEL_GRAIN/(((long)k)*p)), new Parallel.IRangeTask() {
+				@Override
+				public void run(int start, int end) {
+					weightProducts(gout,0,col,0,gw,start,end,k,p);
+				}
+			});
+			return result;
+		}
+
+		// partial sums over a fixed split of the batch, combined in order
+		final int chunks=Math.min(g.n, MAX_CHUNKS);
+		final double[][] partials=new double[chunks][];
+		Parallel.forRange(0, chunks, 1, new Parallel.IRangeTask() {
+			@Override
+			public void run(int start, int end) {
+				double[] col=g.isPointwise()?null:new double[k*p];
+				for (int ch=start; ch<end; ch++) {
+					double[] partial=new double[co*k];
+					int i0=(int)(((long)g.n)*ch/chunks);
+					int i1=(int)(((long)g.n)*(ch+1)/chunks);
+					for (int i=i0; i<i1; i++) {
+						if (col==null) {
+							weightProducts(gout,i*co*p,src,i*inSize,partial,0,co,k,p);
+						} else {
+							im2col(src,i*inSize,g,col);
+							weightProducts(gout,i*co*p,col,0,partial,0,co,k,p);
+						}
+					}
+					partials[ch]=partial;
+				}
+			}
+		});
+		for (int ch=0; ch<chunks; ch++) {
+			DoubleArrays.add(partials[ch], 0, gw, 0, gw.length);
+		}
+		return result;
+	}
+
+	/**
+	 * Computes the gradient of a 2D convolution with respect to its bias, i.e. the sum of the
+	 * output gradient over the batch and spatial dimensions for each output channel.
+	 *
+	 * @param gradOutput Gradient with respect to the output, of shape [batch, outChannels, outputH, outputW]
+	 * @return A new Vector of length outChannels
+	 */
+	public static Vector conv2dBackwardBias(INDArray gradOutput) {
+		if (gradOutput.dimensionality()!=4) throw new IllegalArgumentException(ErrorMessages.incompatibleShape(gradOutput));
+		int n=gradOutput.getShape(0);
+		int co=gradOutput.getShape(1);
+		int p=gradOutput.getShape(2)*gradOutput.getShape(3);
+		double[] gout=packed(gradOutput);
+		double[] result=new double[co];
+		for (int i=0; i<n; i++) {
+			for (int o=0; o<co; o++) {
+				result[o]+=DoubleArrays.elementSum(gout, (i*co+o)*p, p);
+			}
+		}
+		return Vector.wrap(result);
+	}
+
+	/**
+	 * Adds the products of the output gradient rows [o0,o1) with the k rows of the column matrix
+	 * to the corresponding rows of the weight gradient
+	 */
+	private static void weightProducts(double[] gout, int goutOffset, double[] col, int colOffset, double[] gw, int o0, int o1, int k, int p) {
+		for (int o=o0; o<o1; o++) {
+			int go=goutOffset+o*p;
+			int wo=o*k;
+			for (int r=0; r<k; r++) {
+				gw[wo+r]+=DoubleArrays.dotProduct(gout, go, col, colOffset+r*p, p);
+			}
+		}
+	}
+
+	/**
+	 * Expands the receptive fields of one image into the columns of a (c*kh*kw) x (oh*ow) matrix.
+	 * Row (ch*kh+i)*kw+j holds, for every output position, the input element under kernel element
+	 * (i,j) of channel ch, or zero where that element falls in the padding.
+	 */
+	static double[] im2col(double[] src, int srcOffset, Geometry g, double[] col) {
+		int p=g.outputPlane();
+		int r=0;
+		for (int ch=0; ch<g.c; ch++) {
+			int plane=srcOffset+ch*g.inputPlane();
+			for (int i=0; i<g.kh; i++) {
+				for (int j=0; j<g.kw; j++) {
+					int xoff=j*g.dw-g.pw;
+					int x0=firstInside(xoff,g.sw,g.ow);
+					int x1=Math.max(x0, endInside(xoff,g.sw,g.w,g.ow));
+					for (int oy=0; oy<g.oh; oy++) {
+						int d=r*p+oy*g.ow;
+						int y=oy*g.sh+i*g.dh-g.ph;
+						if ((y<0)||(y>=g.h)) {
+							Arrays.fill(col, d, d+g.ow, 0.0);
+							continue;
+						}
+						int s=plane+y*g.w+xoff;
+						Arrays.fill(col, d, d+x0, 0.0);
+						if (g.sw==1) {
+							System.arraycopy(src, s+x0, col, d+x0, x1-x0);
+						} else {
+							for (int ox=x0; ox<x1; ox++) {
+								col[d+ox]=src[s+ox*g.sw];
+							}
+						}
+						Arrays.fill(col, d+x1, d+g.ow, 0.0);
+					}
+					r++;
+				}
+			}
+		}
+		return col;
+	}
+
+	/**
+	 * Adds the columns of a (c*kh*kw) x (oh*ow) matrix back to the image positions they were
+	 * taken from by im2col, ignoring positions in the padding
+	 */
+	static void col2im(double[] col, Geometry g, double[] dest, int destOffset) {
+		int p=g.outputPlane();
+		int r=0;
+		for (int ch=0; ch<g.c; ch++) {
+			int plane=destOffset+ch*g.inputPlane();
+			for (int i=0; i<g.kh; i++) {
+				for (int j=0; j<g.kw; j++) {
+					int xoff=j*g.dw-g.pw;
+					int x0=firstInside(xoff,g.sw,g.ow);
+					int x1=endInside(xoff,g.sw,g.w,g.ow);
+					for (int oy=0; oy<g.oh; oy++) {
+						int y=oy*g.sh+i*g.dh-g.ph;
+						if ((y<0)||(y>=g.h)) continue;
+						int d=r*p+oy*g.ow;
+						int s=plane+y*g.w+xoff;
+						for (int ox=x0; ox<x1; ox++) {
+							dest[s+ox*g.sw]+=col[d+ox];
+						}
+					}
+					r++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the first output index ox with ox*stride+offset>=0, at most n
+	 */
+	private static int firstInside(int offset, int stride, int n) {
+		if (offset>=0) return 0;
+		return Math.min(n, (-offset+stride-1)/stride);
+	}
+
+	/**
+	 * Gets the end of the range of output indices ox with ox*stride+offset<size, at most n
+	 */
+	private static int endInside(int offset, int stride, int size, int n) {
+		int last=size-1-offset;
+		if (last<0) return 0;
+		return Math.min(n, last/stride+1);
+	}
+
+	private static Geometry convGeometry(int[] inputShape, INDArray weights, int sh, int sw, int ph, int pw, int dh, int dw) {
+		if (weights.dimensionality()!=4) throw new IllegalArgumentException(ErrorMessages.incompatibleShape(weights));
+		if ((inputShape.length!=4)||(weights.getShape(1)!=inputShape[1])) {
+			throw new IllegalArgumentException("Input shape "+Arrays.toString(inputShape)+" does not match weights with shape "+Arrays.toString(weights.getShape()));
+		}
+		return new Geometry(inputShape,weights.getShape(2),weights.getShape(3),sh,sw,ph,pw,dh,dw);
+	}
+
+	private static void checkOutputShape(INDArray gradOutput, Geometry g, int channels) {
+		if (!Arrays.equals(gradOutput.getShape(), g.outputShape(channels))) {
+			throw new IllegalArgumentException("Expected an output gradient with shape "+Arrays.toString(g.outputShape(channels))+" but got "+Arrays.toString(gradOutput.getShape()));
+		}
+	}
+
+	// ================================================================
+	// Pooling
+
+	/**
+	 * Computes 2D max pooling over square windows, with no padding.
+	 *
+	 * @param input Input array of shape [batch, channels, height, width]
+	 * @return A new Array of shape [batch, channels, outputH, outputW]
+	 */
+	public static Array maxPool2d(INDArray input, int size, int stride) {
+		return maxPool2d(input,size,size,stride,stride,0,0);
+	}
+
+	/**
+	 * Computes 2D max pooling. Positions in the padding are ignored, and the padding may be at most
+	 * half the window size along each dimension so that every window contains an input element.
+	 *
+	 * @param input Input array of shape [batch, channels, height, width]
+	 * @return A new Array of shape [batch, channels, outputH, outputW]
+	 */
+	public static Array maxPool2d(INDArray input, int kernelH, int kernelW, int strideH, int strideW, int padH, int padW) {
+		return pool(input,kernelH,kernelW,strideH,strideW,padH,padW,true);
+	}
+
+	/**
+	 * Computes the gradient of 2D max pooling with respect to its input. The gradient of each window
+	 * goes to the first position holding the maximum value in row major order.
+	 *
+	 * @param input Input array of shape [batch, channels, height, width]
+	 * @param gradOutput Gradient with respect to the output, of shape [batch, channels, outputH, outputW]
+	 * @return A new Array with the shape of the input
+	 */
+	public static Array maxPool2dBackward(INDArray input, INDArray gradOutput, int kernelH, int kernelW, int strideH, int strideW, int padH, int padW) {
+		return poolBackward(packed(input),input.getShapeClone(),gradOutput,kernelH,kernelW,strideH,strideW,padH,padW,true);
+	}
+
+	/**
+	 * Computes 2D average pooling over square windows, with no padding.
+	 *
+	 * @param input Input array of shape [batch, channels, height, width]
+	 * @return A new Array of shape [batch, channels, outputH, outputW]
+	 */
+	public static Array avgPool2d(INDArray input, int size, int stride) {
+		return avgPool2d(input,size,size,stride,stride,0,0);
+	}
+
+	/**
+	 * Computes 2D average pooling. Each output is the mean of the input elements in its window,
+	 * excluding positions in the padding. The padding may be at most half the window size along
+	 * each dimension.
+	 *
+	 * @param input Input array of shape [batch, channels, height, width]
+	 * @return A new Array of shape [batch, channels, outputH, outputW]
+	 */
+	public static Array avgPool2d(INDArray input, int kernelH, int kernelW, int strideH, int strideW, int padH, int padW) {
+		return pool(input,kernelH,kernelW,strideH,strideW,padH,padW,false);
+	}
+
+	/**
+	 * Computes the gradient of 2D average pooling with respect to its input.
+	 *
+	 * @param gradOutput Gradient with respect to the output, of shape [batch, channels, outputH, outputW]
+	 * @param inputShape Shape of the input, [batch, channels, height, width]
+	 * @return A new Array with the given input shape
+	 */
+	public static Array avgPool2dBackward(INDArray gradOutput, int[] inputShape, int kernelH, int kernelW, int strideH, int strideW, int padH, int padW) {
+		return poolBackward(null,inputShape.clone(),gradOutput,kernelH,kernelW,strideH,strideW,padH,padW,false);
+	}
+
+	private static Geometry poolGeometry(int[] inputShape, int kh, int kw, int sh, int sw, int ph, int pw) {
+		Geometry g=new Geometry(inputShape,kh,kw,sh,sw,ph,pw,1,1);
+		if ((2*ph>kh)||(2*pw>kw)) throw new IllegalArgumentException("Pooling padding "+ph+"x"+pw+" must be at most half the window size "+kh+"x"+kw);
+		return g;
+	}
+
+	private static Array pool(INDArray input, int kh, int kw, int sh, int sw, int ph, int pw, final boolean max) {
+		final Geometry g=poolGeometry(input.getShape(),kh,kw,sh,sw,ph,pw);
+		final double[] src=packed(input);
+		Array result=Array.newArray(g.outputShape(g.c));
+		final double[] out=result.getArray();
+		long work=((long)g.outputPlane())*kh*kw;
+		Parallel.forRange(0, g.n*g.c, (int)Math.max(1, PARALLEL_GRAIN/work), new Parallel.IRangeTask() {
+			@Override
+			public void run(int start, int end) {
+				for (int pl=start; pl<end; pl++) {
+					int s=pl*g.inputPlane();
+					int d=pl*g.outputPlane();
+					for (int oy=0; oy<g.oh; oy++) {
+						int y0=Math.max(0, oy*g.sh-g.ph);
+						int y1=Math.min(g.h, oy*g.sh-g.ph+g.kh);
+						for (int ox=0; ox<g.ow; ox++) {
+							int x0=Math.max(0, ox*g.sw-g.pw);
+							int x1=Math.min(g.w, ox*g.sw-g.pw+g.kw);
+							double acc=max?src[s+y0*g.w+x0]:0.0;
+							for (int y=y0; y<y1; y++) {
+								int row=s+y*g.w;
+								for (int x=x0; x<x1; x++) {
+									double v=src[row+x];
+									if (max) {
+										if (v>acc) acc=v;
+									} else {
+										acc+=v;
+									}
+								}
+							}
+							out[d+oy*g.ow+ox]=max?acc:acc/((y1-y0)*(x1-x0));
+						}
+					}
+				}
+			}
+		});
+		return result;
+	}
+
+	private static Array poolBackward(final double[] src, int[] inputShape, INDArray gradOutput, int kh, int kw, int sh, int sw, int ph, int pw, final boolean max) {
+		final Geometry g=poolGeometry(inputShape,kh,kw,sh,sw,ph,pw);
+		checkOutputShape(gradOutput,g,g.c);
+		final double[] gout=packed(gradOutput);
+		Array result=Array.newArray(inputShape);
+		final double[] gin=result.getArray();
+		long work=((long)g.outputPlane())*kh*kw;
+		Parallel.forRange(0, g.n*g.c, (int)Math.max(1, PARALLEL_GRAIN/work), new Parallel.IRangeTask() {
+			@Override
+			public void run(int start, int end) {
+				for (int pl=start; pl<end; pl++) {
+					int s=pl*g.inputPlane();
+					int d=pl*g.outputPlane();
+					for (int oy=0; oy<g.oh; oy++) {
+						int y0=Math.max(0, oy*g.sh-g.ph);
+						int y1=Math.min(g.h, oy*g.sh-g.ph+g.kh);
+						for (int ox=0; ox<g.ow; ox++) {
+							int x0=Math.max(0, ox*g.sw-g.pw);
+							int x1=Math.min(g.w, ox*g.sw-g.pw+g.kw);
+							double grad=gout[d+oy*g.ow+ox];
+							if (max) {
+								int best=s+y0*g.w+x0;
+								for (int y=y0; y<y1; y++) {
+									int row=s+y*g.w;
+									for (int x=x0; x<x1; x++) {
+										if (src[row+x]>src[best]) best=row+x;
+									}
+								}
+								gin[best]+=grad;
+							} else {
+								double share=grad/((y1-y0)*(x1-x0));
+								for (int y=y0; y<y1; y++) {
+									int row=s+y*g.w;
+									for (int x=x0; x<x1; x++) {
+										gin[row+x]+=share;
+									}
+								}
+							}
+						}
+					}
+				}
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Gets the elements of an array in row major order, without copying if it is a packed Array
+	 */
+	private static double[] packed(INDArray a) {
+		if (a instanceof Array) return ((Array)a).getArray();
+		return a.toDoubleArray();
+	}
+}
@@ -0,0 +1,276 @@
+package mikera.arrayz.impl;
+
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import mikera.arrayz.Array;
+import mikera.arrayz.INDArray;
+import mikera.matrixx.impl.FloatMatrix;
+import mikera.vectorz.Op;
+import mikera.vectorz.impl.FloatVector;
+import mikera.vectorz.impl.VectorIndexScalar;
+import mikera.vectorz.util.ErrorMessages;
+import mikera.vectorz.util.FloatArrays;
+import mikera.vectorz.util.IntArrays;
+
+/**
+ * Dense N-dimensional array storing its elements in single precision in a float[] array, in
+ * row major order.
+ *
+ * Values set in the array are rounded to the nearest float. Slices are views of the same
+ * float[] storage, as a FloatMatrix or FloatVector where the dimensionality allows.
+ *
+ * @author Mike
+ *
+ */
+public final class FloatArray extends BaseShapedArray {
+	private static final long serialVersionUID = 2590357398137641522L;
+
+	private final float[] data;
+	private final int offset;
+	private final int[] strides;
+
+	private FloatArray(int[] shape, float[] data, int offset) {
+		super(shape);
+		this.data=data;
+		this.offset=offset;
+		this.strides=IntArrays.calcStrides(shape);
+	}
+
+	public static FloatArray newArray(int... shape) {
+		long ec=IntArrays.arrayProduct(shape);
+		return new FloatArray(shape.clone(),new float[(int)ec],0);
+	}
+
+	/**
+	 * Wraps a float[] array containing the elements of an array in row major order.
+	 * Does not take a defensive copy.
+	 */
+	public static FloatArray wrap(float[] data, int... shape) {
+		long ec=IntArrays.arrayProduct(shape);
+		if (data.length!=ec) throw new IllegalArgumentException(ErrorMessages.insufficientElements(data.length));
+		return new FloatArray(shape.clone(),data,0);
+	}
+
+	/**
+	 * Creates a FloatArray from an array, rounding each element to the nearest float
+	 */
+	public static FloatArray create(INDArray a) {
+		if (a instanceof FloatArray) return ((FloatArray)a).exactClone();
+		int[] shape=a.getShapeClone();
+		int n=(int)a.elementCount();
+		float[] data;
+		if (a instanceof Array) {
+			data=FloatArrays.toFloat(((Array)a).getArray(),0,n);
+		} else {
+			double[] temp=new double[n];
+			a.getElements(temp, 0);
+			data=FloatArrays.toFloat(temp);
+		}
+		return new FloatArray(shape,data,0);
+	}
+
+	/**
+	 * Gets the underlying float[] array
+	 */
+	public float[] getFloatArray() {
+		return data;
+	}
+
+	/**
+	 * Gets the offset of the first element in the underlying float[] array
+	 */
+	public int getFloatArrayOffset() {
+		return offset;
+	}
+
+	/**
+	 * Converts this array to a double precision Array. The conversion is exact.
+	 */
+	public Array toDouble() {
+		return Array.wrap(FloatArrays.toDouble(data, offset, size()), shape.clone());
+	}
+
+	private int size() {
+		return (int)elementCount();
+	}
+
+	private int index(int[] indexes) {
+		int dims=shape.length;
+		if (indexes.length!=dims) throw new IllegalArgumentException(ErrorMessages.invalidIndex(this, indexes));
+		int ix=offset;
+		for (int i=0; i<dims; i++) {
+			int x=indexes[i];
+			if ((x<0)||(x>=shape[i])) throw new IndexOutOfBoundsException(ErrorMessages.invalidIndex(this, indexes));
+			ix+=x*strides[i];
+		}
+		return ix;
+	}
+
+	@Override
+	public double get() {
+		return data[index(IntArrays.EMPTY_INT_ARRAY)];
+	}
+
+	@Override
+	public double get(int x) {
+		return data[index(new int[] {x})];
+	}
+
+	@Override
+	public double get(int x, int y) {
+		return data[index(new int[] {x,y})];
+	}
+
+	@Override
+	public double get(int... indexes) {
+		return data[index(indexes)];
+	}
+
+	@Override
+	public void set(int[] indexes, double value) {
+		data[index(indexes)]=(float)value;
+	}
+
+	@Override
+	public void set(double value) {
+		fill(value);
+	}
+
+	@Override
+	public INDArray slice(int majorSlice) {
+		int dims=shape.length;
+		if (dims==0) throw new IllegalArgumentException(ErrorMessages.noSlices(this));
+		if ((majorSlice<0)||(majorSlice>=shape[0])) throw new IndexOutOfBoundsException(ErrorMessages.invalidSlice(this, majorSlice));
+		int off=offset+majorSlice*strides[0];
+		switch (dims) {
+			case 1: return VectorIndexScalar.wrap(FloatVector.wrap(data, offset, shape[0]), majorSlice);
+			case 2: return FloatVector.wrap(data, off, shape[1]);
+			case 3: return FloatMatrix.wrap(shape[1], shape[2], data, off);
+			default: return new FloatArray(Arrays.copyOfRange(shape, 1, dims),data,off);
+		}
+	}
+
+	@Override
+	public INDArray slice(int dimension, int index) {
+		checkDimension(dimension);
+		if (dimension==0) return slice(index);
+		int sc=sliceCount();
+		ArrayList<INDArray> al=new ArrayList<INDArray>(sc);
+		for (int i=0; i<sc; i++) {
+			al.add(slice(i).slice(dimension-1,index));
+		}
+		return SliceArray.create(al);
+	}
+
+	@Override
+	public boolean isView() {
+		return (offset!=0)||(data.length!=size());
+	}
+
+	@Override
+	public boolean isMutable() {
+		return true;
+	}
+
+	@Override
+	public boolean isFullyMutable() {
+		// cannot store every double value
+		return false;
+	}
+
+	@Override
+	public FloatVector asVector() {
+		return FloatVector.wrap(data, offset, size());
+	}
+
+	@Override
+	public boolean isElementConstrained() {
+		return true;
+	}
+
+	@Override
+	public void getElements(double[] dest, int destOffset) {
+		FloatArrays.copy(data, offset, dest, destOffset, size());
+	}
+
+	@Override
+	public void setElements(double[] values, int valuesOffset) {
+		FloatArrays.copy(values, valuesOffset, data, offset, size());
+	}
+
+	@Override
+	public Iterator<Double> elementIterator() {
+		return asVector().elementIterator();
+	}
+
+	@Override
+	public void toDoubleBuffer(DoubleBuffer dest) {
+		asVector().toDoubleBuffer(dest);
+	}
+
+	@Override
+	public void fill(double value) {
+		Arrays.fill(data, offset, offset+size(), (float)value);
+	}
+
+	@Override
+	public void multiply(double factor) {
+		FloatArrays.multiply(data, offset, size(), (float)factor);
+	}
+
+	@Override
+	public void add(double value) {
+		FloatArrays.add(data, offset, size(), (float)value);
+	}
+
+	@Override
+	public void add(INDArray a) {
+		if ((a instanceof FloatArray)&&(isSameShape(a))) {
+			FloatArray fa=(FloatArray)a;
+			FloatArrays.add(data, offset, fa.data, fa.offset, size());
+		} else {
+			super.add(a);
+		}
+	}
+
+	@Override
+	public void multiply(INDArray a) {
+		if ((a instanceof FloatArray)&&(isSameShape(a))) {
+			FloatArray fa=(FloatArray)a;
+			FloatArrays.multiply(data, offset, fa.data, fa.offset, size());
+		} else {
+			super.multiply(a);
+		}
+	}
+
+	@Override
+	public void applyOp(Op op) {
+		FloatArrays.applyOp(op, data, offset, size());
+	}
+
+	@Override
+	public double elementSum() {
+		return FloatArrays.elementSum(data, offset, size());
+	}
+
+	@Override
+	public double elementSquaredSum() {
+		return FloatArrays.elementSquaredSum(data, offset, size());
+	}
+
+	@Override
+	public void addToArray(double[] dest, int destOffset) {
+		int n=size();
+		for (int i=0; i<n; i++) {
+			dest[destOffset+i]+=data[offset+i];
+		}
+	}
+
+	@Override
+	public FloatArray exactClone() {
+		return new FloatArray(shape.clone(),Arrays.copyOfRange(data, offset, offset+size()),0);
+	}
+}
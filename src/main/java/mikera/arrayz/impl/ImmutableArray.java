@@ -130,8 +130,8 @@ public class ImmutableArray extends BaseNDArray implements IDense {
 		return new ImmutableArray(data,
 				dimensions-1,
 				offset+index*stride[dimension],
-				IntArrays.removeIndex(shape,index),
-				IntArrays.removeIndex(stride,index));	
+				IntArrays.removeIndex(shape,dimension),
+				IntArrays.removeIndex(stride,dimension));	
 	}	
 	
 	@Override
@@ -0,0 +1,912 @@
+package mikera.arrayz.impl;
+
+import java.io.Serializable;
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import mikera.arrayz.INDArray;
+import mikera.arrayz.ISparse;
+import mikera.matrixx.AMatrix;
+import mikera.matrixx.Matrix;
+import mikera.vectorz.AVector;
+import mikera.vectorz.Scalar;
+import mikera.vectorz.impl.ASizedVector;
+import mikera.vectorz.impl.IndexedElementVisitor;
+import mikera.vectorz.impl.VectorIndexScalar;
+import mikera.vectorz.util.ErrorMessages;
+import mikera.vectorz.util.IntArrays;
+import mikera.vectorz.util.VectorzException;
+
+/**
+ * Sparse N-dimensional array in coordinate (COO) format.
+ *
+ * Non-zero elements are stored as a sorted list of coordinates and values. Each coordinate is
+ * stored as its row major linear index in a long[] array, so arrays with more than 2^31 logical
+ * elements are supported, and the elements of any major slice occupy a contiguous range of the
+ * coordinate list.
+ *
+ * Slices along any dimension are mutable views that share the coordinate storage of the original
+ * array. Element access is by binary search, O(log n) in the number of non-zero elements, while
+ * setting a new non-zero element is O(n) in the worst case. Bulk construction should use one of
+ * the create(...) methods, which sort the coordinates once.
+ *
+ * @author Mike
+ *
+ */
+public final class SparseCoordinateArray extends BaseShapedArray implements ISparse {
+	private static final long serialVersionUID = -2218434713412069816L;
+
+	/**
+	 * Sorted coordinate storage, shared between an array and all of its slice views
+	 */
+	private static final class Storage implements Serializable {
+		private static final long serialVersionUID = 3095520227104577235L;
+
+		private long[] keys;
+		private double[] values;
+		private int size;
+
+		private Storage(long[] keys, double[] values, int size) {
+			this.keys=keys;
+			this.values=values;
+			this.size=size;
+		}
+
+		/**
+		 * Returns the position of the first key greater than or equal to the given key
+		 */
+		private int lowerBound(long key) {
+			int lo=0;
+			int hi=size;
+			while (lo<hi) {
+				int mid=(lo+hi)>>>1;
+				if (keys[mid]<key) lo=mid+1; else hi=mid;
+			}
+			return lo;
+		}
+
+		private void insert(int pos, long key, double value) {
+			if (size==keys.length) {
+				int n=Math.max(8, size*2);
+				keys=Arrays.copyOf(keys, n);
+				values=Arrays.copyOf(values, n);
+			}
+			System.arraycopy(keys, pos, keys, pos+1, size-pos);
+			System.arraycopy(values, pos, values, pos+1, size-pos);
+			keys[pos]=key;
+			values[pos]=value;
+			size++;
+		}
+
+		private void remove(int pos) {
+			System.arraycopy(keys, pos+1, keys, pos, size-pos-1);
+			System.arraycopy(values, pos+1, values, pos, size-pos-1);
+			size--;
+		}
+	}
+
+	private final Storage store;
+
+	// shape and row major strides of the array that owns the storage
+	private final int[] rootShape;
+	private final long[] rootStrides;
+
+	// coordinate in each root dimension fixed by slicing, or -1 if the dimension is free
+	private final int[] fixed;
+
+	// root dimension corresponding to each dimension of this array
+	private final int[] dims;
+
+	// smallest root key of this view, and range of root keys containing all elements of this view
+	private final long base;
+	private final long lo;
+	private final long hi;
+
+	// true if every key in the range [lo,hi) is an element of this view
+	private final boolean contiguous;
+
+	private SparseCoordinateArray(Storage store, int[] rootShape, long[] rootStrides, int[] fixed, int[] dims) {
+		super(selectShape(rootShape,dims));
+		this.store=store;
+		this.rootShape=rootShape;
+		this.rootStrides=rootStrides;
+		this.fixed=fixed;
+		this.dims=dims;
+
+		int rootDims=rootShape.length;
+		long b=0;
+		int prefix=0;
+		while ((prefix<rootDims)&&(fixed[prefix]>=0)) {
+			b+=fixed[prefix]*rootStrides[prefix];
+			prefix++;
+		}
+		lo=b;
+		hi=b+((prefix==0)?IntArrays.arrayProduct(rootShape):rootStrides[prefix-1]);
+		boolean cont=true;
+		for (int i=prefix; i<rootDims; i++) {
+			if (fixed[i]>=0) {
+				b+=fixed[i]*rootStrides[i];
+				cont=false;
+			}
+		}
+		base=b;
+		contiguous=cont;
+	}
+
+	private static int[] selectShape(int[] rootShape, int[] dims) {
+		int n=dims.length;
+		int[] shape=new int[n];
+		for (int i=0; i<n; i++) {
+			shape[i]=rootShape[dims[i]];
+		}
+		return shape;
+	}
+
+	private static long[] calcLongStrides(int[] shape) {
+		int n=shape.length;
+		long[] strides=new long[n];
+		long st=1;
+		for (int i=n-1; i>=0; i--) {
+			strides[i]=st;
+			st*=shape[i];
+		}
+		return strides;
+	}
+
+	private static SparseCoordinateArray createRoot(int[] shape, long[] keys, double[] values, int size) {
+		int n=shape.length;
+		if (n==0) throw new IllegalArgumentException("SparseCoordinateArray requires at least one dimension");
+		for (int i=0; i<n; i++) {
+			if (shape[i]<0) throw new IllegalArgumentException(ErrorMessages.illegalSize(shape));
+		}
+		int[] fixed=new int[n];
+		Arrays.fill(fixed, -1);
+		int[] dims=new int[n];
+		for (int i=0; i<n; i++) dims[i]=i;
+		return new SparseCoordinateArray(new Storage(keys,values,size),shape,calcLongStrides(shape),fixed,dims);
+	}
+
+	/**
+	 * Creates an empty sparse array with the given shape
+	 */
+	public static SparseCoordinateArray newArray(int... shape) {
+		return createRoot(shape.clone(),new long[0],new double[0],0);
+	}
+
+	/**
+	 * Creates a sparse array from a list of row major linear indexes and the corresponding values.
+	 *
+	 * Indexes may be given in any order. Values given for the same index are summed.
+	 */
+	public static SparseCoordinateArray create(int[] shape, long[] indexes, double[] values) {
+		int n=indexes.length;
+		if (values.length!=n) throw new IllegalArgumentException(ErrorMessages.wrongElementCount());
+		long ec=IntArrays.arrayProduct(shape);
+		for (int i=0; i<n; i++) {
+			if ((indexes[i]<0)||(indexes[i]>=ec)) throw new IndexOutOfBoundsException("Linear index out of range: "+indexes[i]);
+		}
+		long[] keys=indexes.clone();
+		double[] vals=values.clone();
+		int size=sortAndCombine(keys,vals,n);
+		return createRoot(shape.clone(),keys,vals,size);
+	}
+
+	/**
+	 * Creates a sparse array from a list of coordinates and the corresponding values, where
+	 * coordinates[k] is the index of values[k].
+	 *
+	 * Coordinates may be given in any order. Values given for the same coordinate are summed.
+	 */
+	public static SparseCoordinateArray create(int[] shape, int[][] coordinates, double[] values) {
+		int n=coordinates.length;
+		if (values.length!=n) throw new IllegalArgumentException(ErrorMessages.wrongElementCount());
+		int dims=shape.length;
+		long[] strides=calcLongStrides(shape);
+		long[] keys=new long[n];
+		for (int k=0; k<n; k++) {
+			int[] ix=coordinates[k];
+			if (!IntArrays.validIndex(ix, shape)) throw new IndexOutOfBoundsException("Invalid coordinates: "+Arrays.toString(ix));
+			long key=0;
+			for (int i=0; i<dims; i++) {
+				key+=ix[i]*strides[i];
+			}
+			keys[k]=key;
+		}
+		double[] vals=values.clone();
+		int size=sortAndCombine(keys,vals,n);
+		return createRoot(shape.clone(),keys,vals,size);
+	}
+
+	/**
+	 * Creates a sparse copy of any array with at least one dimension
+	 */
+	public static SparseCoordinateArray create(INDArray a) {
+		if (a instanceof SparseCoordinateArray) return ((SparseCoordinateArray)a).exactClone();
+		int[] shape=a.getShapeClone();
+		long[] strides=calcLongStrides(shape);
+		Storage st=new Storage(new long[0],new double[0],0);
+		if (a.dimensionality()>0) collect(a,0,strides,0,st);
+		return createRoot(shape,st.keys,st.values,st.size);
+	}
+
+	private static void collect(INDArray a, int dim, long[] strides, long key, Storage st) {
+		if (dim==strides.length-1) {
+			AVector v=a.asVector();
+			for (int i: v.nonZeroIndices()) {
+				st.insert(st.size, key+i, v.unsafeGet(i));
+			}
+		} else {
+			int sc=a.sliceCount();
+			for (int i=0; i<sc; i++) {
+				collect(a.slice(i),dim+1,strides,key+i*strides[dim],st);
+			}
+		}
+	}
+
+	/**
+	 * Sorts the first n keys together with their values, sums the values of duplicate keys and
+	 * removes zero values. Returns the number of remaining entries.
+	 */
+	private static int sortAndCombine(long[] keys, double[] values, int n) {
+		boolean sorted=true;
+		for (int i=1; i<n; i++) {
+			if (keys[i]<keys[i-1]) {
+				sorted=false;
+				break;
+			}
+		}
+		if (!sorted) sort(keys,values,0,n-1);
+		int size=0;
+		for (int i=0; i<n; ) {
+			long key=keys[i];
+			double sum=values[i++];
+			while ((i<n)&&(keys[i]==key)) {
+				sum+=values[i++];
+			}
+			if (sum!=0.0) {
+				keys[size]=key;
+				values[size]=sum;
+				size++;
+			}
+		}
+		return size;
+	}
+
+	private static void sort(long[] keys, double[] values, int from, int to) {
+		while (to-from>16) {
+			int mid=(from+to)>>>1;
+			if (keys[mid]<keys[from]) swap(keys,values,mid,from);
+			if (keys[to]<keys[from]) swap(keys,values,to,from);
+			if (keys[to]<keys[mid]) swap(keys,values,to,mid);
+			long pivot=keys[mid];
+			int i=from;
+			int j=to;
+			while (i<=j) {
+				while (keys[i]<pivot) i++;
+				while (keys[j]>pivot) j--;
+				if (i<=j) swap(keys,values,i++,j--);
+			}
+			// recurse into the smaller partition to bound the stack depth
+			if (j-from<to-i) {
+				sort(keys,values,from,j);
+				from=i;
+			} else {
+				sort(keys,values,i,to);
+				to=j;
+			}
+		}
+		for (int i=from+1; i<=to; i++) {
+			long k=keys[i];
+			double v=values[i];
+			int j=i-1;
+			while ((j>=from)&&(keys[j]>k)) {
+				keys[j+1]=keys[j];
+				values[j+1]=values[j];
+				j--;
+			}
+			keys[j+1]=k;
+			values[j+1]=v;
+		}
+	}
+
+	private static void swap(long[] keys, double[] values, int a, int b) {
+		long k=keys[a]; keys[a]=keys[b]; keys[b]=k;
+		double v=values[a]; values[a]=values[b]; values[b]=v;
+	}
+
+	private int startPos() {
+		return store.lowerBound(lo);
+	}
+
+	private int endPos() {
+		return store.lowerBound(hi);
+	}
+
+	/**
+	 * Tests whether a root key in the range [lo,hi) is an element of this view
+	 */
+	private boolean contains(long key) {
+		if (contiguous) return true;
+		int n=fixed.length;
+		for (int i=0; i<n; i++) {
+			int f=fixed[i];
+			if ((f>=0)&&(((key/rootStrides[i])%rootShape[i])!=f)) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Converts a root key to the row major position of the element in this view
+	 */
+	private long viewPosition(long key) {
+		if (contiguous) return key-lo;
+		int n=dims.length;
+		long pos=0;
+		for (int i=0; i<n; i++) {
+			int d=dims[i];
+			pos=pos*rootShape[d]+((key/rootStrides[d])%rootShape[d]);
+		}
+		return pos;
+	}
+
+	/**
+	 * Converts a row major position in this view to the corresponding root key
+	 */
+	private long positionKey(long pos) {
+		if (contiguous) return lo+pos;
+		long key=base;
+		for (int i=dims.length-1; i>=0; i--) {
+			int n=shape[i];
+			key+=(pos%n)*rootStrides[dims[i]];
+			pos/=n;
+		}
+		return key;
+	}
+
+	/**
+	 * Gets the coordinate of a root key in a given dimension of this view
+	 */
+	private int coordinate(long key, int dimension) {
+		int d=dims[dimension];
+		return (int)((key/rootStrides[d])%rootShape[d]);
+	}
+
+	private long key(int[] indexes) {
+		int n=dims.length;
+		if (indexes.length!=n) throw new IllegalArgumentException(ErrorMessages.invalidIndex(this, indexes));
+		long key=base;
+		for (int i=0; i<n; i++) {
+			int x=indexes[i];
+			if ((x<0)||(x>=shape[i])) throw new IndexOutOfBoundsException(ErrorMessages.invalidIndex(this, indexes));
+			key+=x*rootStrides[dims[i]];
+		}
+		return key;
+	}
+
+	private double getKey(long key) {
+		int pos=store.lowerBound(key);
+		if ((pos<store.size)&&(store.keys[pos]==key)) return store.values[pos];
+		return 0.0;
+	}
+
+	private void setKey(long key, double value) {
+		int pos=store.lowerBound(key);
+		if ((pos<store.size)&&(store.keys[pos]==key)) {
+			if (value==0.0) {
+				store.remove(pos);
+			} else {
+				store.values[pos]=value;
+			}
+		} else if (value!=0.0) {
+			store.insert(pos, key, value);
+		}
+	}
+
+	@Override
+	public double get() {
+		throw new IllegalArgumentException(ErrorMessages.invalidIndex(this));
+	}
+
+	@Override
+	public double get(int x) {
+		return getKey(key(new int[] {x}));
+	}
+
+	@Override
+	public double get(int x, int y) {
+		return getKey(key(new int[] {x,y}));
+	}
+
+	@Override
+	public double get(int... indexes) {
+		return getKey(key(indexes));
+	}
+
+	@Override
+	public void set(int[] indexes, double value) {
+		setKey(key(indexes),value);
+	}
+
+	@Override
+	public INDArray slice(int majorSlice) {
+		return slice(0,majorSlice);
+	}
+
+	@Override
+	public INDArray slice(int dimension, int index) {
+		checkDimension(dimension);
+		if ((index<0)||(index>=shape[dimension])) throw new IndexOutOfBoundsException(ErrorMessages.invalidSlice(this, dimension, index));
+		if (dims.length==1) return VectorIndexScalar.wrap(asVector(), index);
+		int[] nfixed=fixed.clone();
+		nfixed[dims[dimension]]=index;
+		SparseCoordinateArray view=new SparseCoordinateArray(store,rootShape,rootStrides,nfixed,IntArrays.removeIndex(dims, dimension));
+		if (view.dims.length==1) return view.asVector();
+		return view;
+	}
+
+	/**
+	 * Returns a sparse vector view of the elements of this array in row major order.
+	 *
+	 * @throws IllegalArgumentException if the array has more than Integer.MAX_VALUE elements
+	 */
+	@Override
+	public AVector asVector() {
+		return new ElementVector(this);
+	}
+
+	/**
+	 * Gets the number of elements in this array as an int, for operations that need a flat index
+	 */
+	private int checkedElementCount() {
+		long ec=elementCount();
+		if (ec>Integer.MAX_VALUE) throw new IllegalArgumentException(ErrorMessages.tooManyElements(shape));
+		return (int)ec;
+	}
+
+	@Override
+	public Iterator<Double> elementIterator() {
+		// arrays too large for a flat view are iterated slice by slice
+		if (elementCount()>Integer.MAX_VALUE) return new SliceElementIterator(this);
+		return asVector().elementIterator();
+	}
+
+	@Override
+	public void toDoubleBuffer(DoubleBuffer dest) {
+		asVector().toDoubleBuffer(dest);
+	}
+
+	@Override
+	public boolean equals(INDArray a) {
+		if (a instanceof SparseCoordinateArray) return equals((SparseCoordinateArray)a);
+		return super.equals(a);
+	}
+
+	/**
+	 * Tests whether two sparse arrays are equal by comparing their non-zero elements, without
+	 * visiting the zero elements
+	 */
+	public boolean equals(SparseCoordinateArray a) {
+		if (!Arrays.equals(shape, a.shape)) return false;
+		// elements of both views are stored in row major order, so a single merge pass suffices
+		int e=endPos();
+		int ae=a.endPos();
+		int p=nextNonZero(startPos(),e);
+		int q=a.nextNonZero(a.startPos(),ae);
+		while ((p<e)&&(q<ae)) {
+			if (viewPosition(store.keys[p])!=a.viewPosition(a.store.keys[q])) return false;
+			if (store.values[p]!=a.store.values[q]) return false;
+			p=nextNonZero(p+1,e);
+			q=a.nextNonZero(q+1,ae);
+		}
+		return (p==e)&&(q==ae);
+	}
+
+	/**
+	 * Returns the first storage position in [p,e) holding a non-zero element of this view, or e if
+	 * there is none
+	 */
+	private int nextNonZero(int p, int e) {
+		while ((p<e)&&((store.values[p]==0.0)||!contains(store.keys[p]))) p++;
+		return p;
+	}
+
+	@Override
+	public boolean isView() {
+		return dims.length<rootShape.length;
+	}
+
+	@Override
+	public boolean isMutable() {
+		return true;
+	}
+
+	@Override
+	public boolean isFullyMutable() {
+		return true;
+	}
+
+	@Override
+	public boolean isZero() {
+		return nonZeroCount()==0;
+	}
+
+	@Override
+	public double density() {
+		long ec=elementCount();
+		if (ec==0) return 0.0;
+		return ((double)nonZeroCount())/ec;
+	}
+
+	@Override
+	public long nonZeroCount() {
+		long result=0;
+		for (int p=startPos(), e=endPos(); p<e; p++) {
+			if ((store.values[p]!=0.0)&&contains(store.keys[p])) result++;
+		}
+		return result;
+	}
+
+	@Override
+	public double elementSum() {
+		double result=0.0;
+		for (int p=startPos(), e=endPos(); p<e; p++) {
+			if (contains(store.keys[p])) result+=store.values[p];
+		}
+		return result;
+	}
+
+	@Override
+	public double elementSquaredSum() {
+		double result=0.0;
+		for (int p=startPos(), e=endPos(); p<e; p++) {
+			if (contains(store.keys[p])) {
+				double v=store.values[p];
+				result+=v*v;
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public double elementMax() {
+		long ec=elementCount();
+		if (ec==0) throw new IllegalArgumentException(ErrorMessages.noElements(this));
+		double result=-Double.MAX_VALUE;
+		long count=0;
+		for (int p=startPos(), e=endPos(); p<e; p++) {
+			if (contains(store.keys[p])) {
+				result=Math.max(result, store.values[p]);
+				count++;
+			}
+		}
+		return (count<ec)?Math.max(result, 0.0):result;
+	}
+
+	@Override
+	public double elementMin() {
+		long ec=elementCount();
+		if (ec==0) throw new IllegalArgumentException(ErrorMessages.noElements(this));
+		double result=Double.MAX_VALUE;
+		long count=0;
+		for (int p=startPos(), e=endPos(); p<e; p++) {
+			if (contains(store.keys[p])) {
+				result=Math.min(result, store.values[p]);
+				count++;
+			}
+		}
+		return (count<ec)?Math.min(result, 0.0):result;
+	}
+
+	@Override
+	public void getElements(double[] dest, int offset) {
+		Arrays.fill(dest, offset, offset+checkedElementCount(), 0.0);
+		addToArray(dest,offset);
+	}
+
+	@Override
+	public void addToArray(double[] data, int offset) {
+		for (int p=startPos(), e=endPos(); p<e; p++) {
+			long key=store.keys[p];
+			if (contains(key)) data[offset+(int)viewPosition(key)]+=store.values[p];
+		}
+	}
+
+	@Override
+	public void fill(double value) {
+		if (value==0.0) {
+			clear();
+		} else {
+			super.fill(value);
+		}
+	}
+
+	/**
+	 * Sets all elements of this array to zero
+	 */
+	private void clear() {
+		if ((!isView())) {
+			store.size=0;
+			return;
+		}
+		// compact the entries outside this view in a single pass, then close the gap once
+		long[] keys=store.keys;
+		double[] values=store.values;
+		int e=endPos();
+		int w=startPos();
+		for (int p=w; p<e; p++) {
+			long key=keys[p];
+			if (contains(key)) continue;
+			keys[w]=key;
+			values[w]=values[p];
+			w++;
+		}
+		int tail=store.size-e;
+		System.arraycopy(keys, e, keys, w, tail);
+		System.arraycopy(values, e, values, w, tail);
+		store.size=w+tail;
+	}
+
+	@Override
+	public void multiply(double factor) {
+		if (factor==0.0) {
+			clear();
+			return;
+		}
+		for (int p=startPos(), e=endPos(); p<e; p++) {
+			if (contains(store.keys[p])) store.values[p]*=factor;
+		}
+	}
+
+	/**
+	 * Computes the dot product of the elements of this array in row major order with a vector
+	 */
+	private double dotProduct(AVector v) {
+		double result=0.0;
+		for (int p=startPos(), e=endPos(); p<e; p++) {
+			long key=store.keys[p];
+			if (contains(key)) result+=store.values[p]*v.unsafeGet((int)viewPosition(key));
+		}
+		return result;
+	}
+
+	private double visitNonZero(IndexedElementVisitor visitor) {
+		for (int p=startPos(), e=endPos(); p<e; p++) {
+			long key=store.keys[p];
+			double value=store.values[p];
+			if ((value==0.0)||(!contains(key))) continue;
+			double r=visitor.visit((int)viewPosition(key), value);
+			if (r!=0.0) return r;
+		}
+		return 0.0;
+	}
+
+	/**
+	 * Multiplies this tensor by a vector along the given dimension, i.e. computes the sum over i of
+	 * this[...,i,...]*v[i]. The result has the same shape as this tensor with the given dimension
+	 * removed, and is sparse unless it is a scalar.
+	 */
+	public INDArray tensorVectorProduct(int dimension, AVector v) {
+		checkDimension(dimension);
+		if (v.length()!=shape[dimension]) throw new IllegalArgumentException(ErrorMessages.incompatibleShapes(this, v));
+		int n=dims.length;
+		if (n==1) return Scalar.create(dotProduct(v));
+
+		int[] rshape=IntArrays.removeIndex(shape, dimension);
+		long[] rstrides=calcLongStrides(rshape);
+		int s=startPos();
+		int count=endPos()-s;
+		long[] keys=new long[count];
+		double[] values=new double[count];
+		int k=0;
+		for (int p=s; p<s+count; p++) {
+			long key=store.keys[p];
+			if (!contains(key)) continue;
+			double x=v.unsafeGet(coordinate(key,dimension));
+			if (x==0.0) continue;
+			long rkey=0;
+			for (int i=0, j=0; i<n; i++) {
+				if (i==dimension) continue;
+				rkey+=coordinate(key,i)*rstrides[j++];
+			}
+			keys[k]=rkey;
+			values[k]=store.values[p]*x;
+			k++;
+		}
+		int size=sortAndCombine(keys,values,k);
+		return createRoot(rshape,keys,values,size);
+	}
+
+	/**
+	 * Multiplies this tensor by a matrix along the given dimension, i.e. computes the sum over i of
+	 * this[...,i,...]*m[j,i] for each row j of the matrix. The result has the same shape as this
+	 * tensor with the given dimension replaced by the number of rows of the matrix.
+	 */
+	public SparseCoordinateArray tensorMatrixProduct(int dimension, AMatrix m) {
+		checkDimension(dimension);
+		if (m.columnCount()!=shape[dimension]) throw new IllegalArgumentException(ErrorMessages.incompatibleShapes(this, m));
+		int n=dims.length;
+		int rc=m.rowCount();
+		int cc=m.columnCount();
+		// transposed dense copy, so that each column of the matrix is contiguous
+		double[] mt=new double[rc*cc];
+		Matrix.wrap(cc, rc, mt).set(m.getTranspose());
+
+		int[] rshape=shape.clone();
+		rshape[dimension]=rc;
+		long[] rstrides=calcLongStrides(rshape);
+		long jstride=rstrides[dimension];
+		int s=startPos();
+		int e=endPos();
+		long[] keys=new long[Math.max(8, e-s)];
+		double[] values=new double[keys.length];
+		int k=0;
+		for (int p=s; p<e; p++) {
+			long key=store.keys[p];
+			if (!contains(key)) continue;
+			double x=store.values[p];
+			long rkey=0;
+			for (int i=0; i<n; i++) {
+				if (i==dimension) continue;
+				rkey+=coordinate(key,i)*rstrides[i];
+			}
+			int col=coordinate(key,dimension)*rc;
+			for (int j=0; j<rc; j++) {
+				double w=mt[col+j];
+				if (w==0.0) continue;
+				if (k==keys.length) {
+					keys=Arrays.copyOf(keys, k*2);
+					values=Arrays.copyOf(values, k*2);
+				}
+				keys[k]=rkey+j*jstride;
+				values[k]=x*w;
+				k++;
+			}
+		}
+		int size=sortAndCombine(keys,values,k);
+		return createRoot(rshape,keys,values,size);
+	}
+
+	@Override
+	public SparseCoordinateArray exactClone() {
+		int s=startPos();
+		int e=endPos();
+		long[] keys=new long[e-s];
+		double[] values=new double[e-s];
+		int k=0;
+		for (int p=s; p<e; p++) {
+			long key=store.keys[p];
+			if (contains(key)&&(store.values[p]!=0.0)) {
+				keys[k]=viewPosition(key);
+				values[k]=store.values[p];
+				k++;
+			}
+		}
+		return createRoot(shape.clone(),keys,values,k);
+	}
+
+	@Override
+	public INDArray clone() {
+		return exactClone();
+	}
+
+	@Override
+	public INDArray sparseClone() {
+		return exactClone();
+	}
+
+	@Override
+	public void validate() {
+		for (int i=1; i<store.size; i++) {
+			if (store.keys[i]<=store.keys[i-1]) throw new VectorzException("Coordinates not sorted at position "+i);
+		}
+		super.validate();
+	}
+
+	/**
+	 * Sparse vector view of the elements of a SparseCoordinateArray in row major order
+	 */
+	private static final class ElementVector extends ASizedVector implements ISparse {
+		private static final long serialVersionUID = 6040325567412231467L;
+
+		private final SparseCoordinateArray a;
+
+		private ElementVector(SparseCoordinateArray a) {
+			super(a.checkedElementCount());
+			this.a=a;
+		}
+
+		@Override
+		public double get(int i) {
+			checkIndex(i);
+			return unsafeGet(i);
+		}
+
+		@Override
+		public void set(int i, double value) {
+			checkIndex(i);
+			unsafeSet(i,value);
+		}
+
+		@Override
+		public double unsafeGet(int i) {
+			return a.getKey(a.positionKey(i));
+		}
+
+		@Override
+		public void unsafeSet(int i, double value) {
+			a.setKey(a.positionKey(i),value);
+		}
+
+		@Override
+		public boolean isFullyMutable() {
+			return true;
+		}
+
+		@Override
+		public boolean isView() {
+			return true;
+		}
+
+		@Override
+		public double density() {
+			return a.density();
+		}
+
+		@Override
+		public long nonZeroCount() {
+			return a.nonZeroCount();
+		}
+
+		@Override
+		public double elementSum() {
+			return a.elementSum();
+		}
+
+		@Override
+		public double elementSquaredSum() {
+			return a.elementSquaredSum();
+		}
+
+		@Override
+		public void getElements(double[] dest, int offset) {
+			a.getElements(dest, offset);
+		}
+
+		@Override
+		public void addToArray(double[] dest, int offset) {
+			a.addToArray(dest, offset);
+		}
+
+		@Override
+		public void multiply(double factor) {
+			a.multiply(factor);
+		}
+
+		@Override
+		public double dotProduct(AVector v) {
+			checkSameLength(v);
+			return a.dotProduct(v);
+		}
+
+		@Override
+		public double dotProduct(double[] data, int offset) {
+			double result=0.0;
+			for (int p=a.startPos(), e=a.endPos(); p<e; p++) {
+				long key=a.store.keys[p];
+				if (a.contains(key)) result+=a.store.values[p]*data[offset+(int)a.viewPosition(key)];
+			}
+			return result;
+		}
+
+		@Override
+		public double visitNonZero(IndexedElementVisitor visitor) {
+			return a.visitNonZero(visitor);
+		}
+
+		@Override
+		public AVector exactClone() {
+			return new ElementVector(a.exactClone());
+		}
+	}
+}
@@ -0,0 +1,621 @@
+package mikera.arrayz.impl;
+
+import java.util.Arrays;
+
+import mikera.arrayz.INDArray;
+import mikera.arrayz.NDArray;
+import mikera.matrixx.impl.BroadcastVectorMatrix;
+import mikera.vectorz.Op;
+import mikera.vectorz.Op2;
+import mikera.vectorz.impl.RepeatedElementVector;
+import mikera.vectorz.util.DoubleArrays;
+import mikera.vectorz.util.ErrorMessages;
+import mikera.vectorz.util.IntArrays;
+
+/**
+ * Iteration engine for elementwise operations over one or two strided arrays of the same shape.
+ * The second array may be a broadcast view with zero strides, see {@link #broadcastView}.
+ *
+ * The shape is first simplified: dimensions of size 1 are dropped, and adjacent dimensions are
+ * coalesced wherever the strides of every array allow them to be treated as a single dimension.
+ * A fully packed array of any dimensionality therefore becomes a single row. The remaining
+ * dimensions are traversed in row major order as a sequence of rows, advancing the data offsets
+ * with precomputed stride increments. No views are created during iteration.
+ *
+ * Operations where the visiting order does not matter (elementwise updates, sums and extrema)
+ * also reorder the dimensions into the memory order of the first array, so that a transposed
+ * view is traversed as efficiently as the original.
+ *
+ * Typical usage:
+ * <pre>
+ * for (StridedLoop loop=StridedLoop.create(a); loop.hasRow(); loop.nextRow()) {
+ *     int off=loop.offsetA();
+ *     ...
+ * }
+ * </pre>
+ *
+ * The static methods implement the common unary, binary and reduction operations in terms of this loop.
+ *
+ * @author Mike
+ */
+public final class StridedLoop {
+	private final int rowLength;
+	private final int rowStrideA;
+	private final int rowStrideB;
+
+	private final int outerDims;
+	private final int[] outerShape;
+	private final int[] strideA;
+	private final int[] strideB;
+	private final int[] counter;
+
+	private long remaining;
+	private int offsetA;
+	private int offsetB;
+
+	private StridedLoop(int[] shape, int offsetA, int[] stridesA, int offsetB, int[] stridesB, boolean anyOrder) {
+		int dims=shape.length;
+		int[] sh=new int[dims];
+		int[] sa=new int[dims];
+		int[] sb=new int[dims];
+		int[] order=anyOrder?strideOrder(stridesA):null;
+		int n=0;
+		boolean empty=false;
+		for (int j=0; j<dims; j++) {
+			int i=anyOrder?order[j]:j;
+			int s=shape[i];
+			if (s==1) continue;
+			if (s==0) empty=true;
+			int ta=stridesA[i];
+			int tb=(stridesB==null)?0:stridesB[i];
+			if ((n>0)&&(sa[n-1]==s*ta)&&(sb[n-1]==s*tb)) {
+				// coalesce with the enclosing dimension
+				sh[n-1]*=s;
+				sa[n-1]=ta;
+				sb[n-1]=tb;
+			} else {
+				sh[n]=s;
+				sa[n]=ta;
+				sb[n]=tb;
+				n++;
+			}
+		}
+
+		if (n==0) {
+			rowLength=1;
+			rowStrideA=0;
+			rowStrideB=0;
+			outerDims=0;
+		} else {
+			rowLength=sh[n-1];
+			rowStrideA=sa[n-1];
+			rowStrideB=sb[n-1];
+			outerDims=n-1;
+		}
+		outerShape=sh;
+		strideA=sa;
+		strideB=sb;
+		counter=new int[outerDims];
+
+		long rows=1;
+		for (int i=0; i<outerDims; i++) {
+			rows*=sh[i];
+		}
+		remaining=empty?0:rows;
+		this.offsetA=offsetA;
+		this.offsetB=offsetB;
+	}
+
+	/**
+	 * Returns the dimensions sorted by decreasing absolute stride. The sort is stable, so
+	 * a row major layout keeps its order.
+	 */
+	private static int[] strideOrder(int[] strides) {
+		int dims=strides.length;
+		int[] order=new int[dims];
+		for (int i=0; i<dims; i++) {
+			int d=i;
+			int st=Math.abs(strides[d]);
+			int j=i;
+			while ((j>0)&&(Math.abs(strides[order[j-1]])<st)) {
+				order[j]=order[j-1];
+				j--;
+			}
+			order[j]=d;
+		}
+		return order;
+	}
+
+	/**
+	 * Creates a loop over the rows of a single strided array, visiting elements in row major order
+	 */
+	public static StridedLoop create(IStridedArray a) {
+		return new StridedLoop(a.getShape(),a.getArrayOffset(),a.getStrides(),0,null,false);
+	}
+
+	/**
+	 * Creates a loop over the corresponding rows of two strided arrays, which must have the same shape.
+	 * Elements are visited in row major order.
+	 */
+	public static StridedLoop create(IStridedArray a, IStridedArray b) {
+		int[] shape=a.getShape();
+		if (!IntArrays.equals(shape, b.getShape())) throw new IllegalArgumentException(ErrorMessages.incompatibleShapes(a, b));
+		return new StridedLoop(shape,a.getArrayOffset(),a.getStrides(),b.getArrayOffset(),b.getStrides(),false);
+	}
+
+	/**
+	 * Creates a loop over the given shape, with offsets and strides for two arrays
+	 * 
+	 * @param anyOrder If true, the dimensions may be traversed in memory order of the first array
+	 * rather than row major order. Use only for operations where the visiting order does not matter.
+	 */
+	public static StridedLoop create(int[] shape, int offsetA, int[] stridesA, int offsetB, int[] stridesB, boolean anyOrder) {
+		return new StridedLoop(shape,offsetA,stridesA,offsetB,stridesB,anyOrder);
+	}
+
+	/**
+	 * Creates a loop in memory order of the array, for operations where the visiting order does not matter
+	 */
+	private static StridedLoop createElementwise(IStridedArray a) {
+		return new StridedLoop(a.getShape(),a.getArrayOffset(),a.getStrides(),0,null,true);
+	}
+
+	private static StridedLoop createElementwise(IStridedArray a, IStridedArray b) {
+		int[] shape=a.getShape();
+		if (!IntArrays.equals(shape, b.getShape())) throw new IllegalArgumentException(ErrorMessages.incompatibleShapes(a, b));
+		return new StridedLoop(shape,a.getArrayOffset(),a.getStrides(),b.getArrayOffset(),b.getStrides(),true);
+	}
+
+	/**
+	 * Returns true if the loop is positioned on a valid row
+	 */
+	public boolean hasRow() {
+		return remaining>0;
+	}
+
+	/**
+	 * Advances the loop to the next row
+	 */
+	public void nextRow() {
+		if ((--remaining)<=0) return;
+		int[] sh=outerShape;
+		for (int i=outerDims-1; i>=0; i--) {
+			int c=counter[i]+1;
+			if (c<sh[i]) {
+				counter[i]=c;
+				offsetA+=strideA[i];
+				offsetB+=strideB[i];
+				return;
+			}
+			counter[i]=0;
+			offsetA-=(sh[i]-1)*strideA[i];
+			offsetB-=(sh[i]-1)*strideB[i];
+		}
+	}
+
+	/**
+	 * Gets the number of elements in each row
+	 */
+	public int rowLength() {
+		return rowLength;
+	}
+
+	/**
+	 * Gets the stride between consecutive elements of a row in the first array
+	 */
+	public int rowStrideA() {
+		return rowStrideA;
+	}
+
+	/**
+	 * Gets the stride between consecutive elements of a row in the second array
+	 */
+	public int rowStrideB() {
+		return rowStrideB;
+	}
+
+	/**
+	 * Gets the offset of the start of the current row in the first array
+	 */
+	public int offsetA() {
+		return offsetA;
+	}
+
+	/**
+	 * Gets the offset of the start of the current row in the second array
+	 */
+	public int offsetB() {
+		return offsetB;
+	}
+
+	/**
+	 * Gets the number of dimensions remaining after coalescing, excluding the row dimension
+	 */
+	public int outerDimensions() {
+		return outerDims;
+	}
+
+	// ================================================================
+	// Unary operations
+
+	public static void set(IStridedArray a, double value) {
+		double[] data=a.getArray();
+		for (StridedLoop loop=createElementwise(a); loop.hasRow(); loop.nextRow()) {
+			int off=loop.offsetA;
+			int st=loop.rowStrideA;
+			int n=loop.rowLength;
+			if (st==1) {
+				Arrays.fill(data, off, off+n, value);
+			} else {
+				for (int i=0; i<n; i++) {
+					data[off+i*st]=value;
+				}
+			}
+		}
+	}
+
+	public static void add(IStridedArray a, double value) {
+		double[] data=a.getArray();
+		for (StridedLoop loop=createElementwise(a); loop.hasRow(); loop.nextRow()) {
+			int off=loop.offsetA;
+			int st=loop.rowStrideA;
+			int n=loop.rowLength;
+			for (int i=0; i<n; i++) {
+				data[off+i*st]+=value;
+			}
+		}
+	}
+
+	public static void multiply(IStridedArray a, double factor) {
+		double[] data=a.getArray();
+		for (StridedLoop loop=createElementwise(a); loop.hasRow(); loop.nextRow()) {
+			int off=loop.offsetA;
+			int st=loop.rowStrideA;
+			int n=loop.rowLength;
+			for (int i=0; i<n; i++) {
+				data[off+i*st]*=factor;
+			}
+		}
+	}
+
+	public static void applyOp(IStridedArray a, Op op) {
+		double[] data=a.getArray();
+		for (StridedLoop loop=createElementwise(a); loop.hasRow(); loop.nextRow()) {
+			op.applyTo(data, loop.offsetA, loop.rowStrideA, loop.rowLength);
+		}
+	}
+
+	public static void applyOp(IStridedArray a, Op2 op, double b) {
+		double[] data=a.getArray();
+		for (StridedLoop loop=createElementwise(a); loop.hasRow(); loop.nextRow()) {
+			int off=loop.offsetA;
+			int st=loop.rowStrideA;
+			int n=loop.rowLength;
+			for (int i=0; i<n; i++) {
+				int ix=off+i*st;
+				data[ix]=op.apply(data[ix], b);
+			}
+		}
+	}
+
+	// ================================================================
+	// Binary operations, where the first array is updated using values from the second
+
+	private static final int SET=0;
+	private static final int ADD=1;
+	private static final int SUB=2;
+	private static final int MUL=3;
+	private static final int DIV=4;
+
+	public static void set(IStridedArray a, IStridedArray b) {
+		binary(SET,a,b);
+	}
+
+	public static void add(IStridedArray a, IStridedArray b) {
+		binary(ADD,a,b);
+	}
+
+	public static void sub(IStridedArray a, IStridedArray b) {
+		binary(SUB,a,b);
+	}
+
+	public static void multiply(IStridedArray a, IStridedArray b) {
+		binary(MUL,a,b);
+	}
+
+	public static void divide(IStridedArray a, IStridedArray b) {
+		binary(DIV,a,b);
+	}
+
+	private static void binary(int kind, IStridedArray a, IStridedArray b) {
+		double[] ad=a.getArray();
+		double[] bd=b.getArray();
+		for (StridedLoop loop=createElementwise(a,b); loop.hasRow(); loop.nextRow()) {
+			int aOff=loop.offsetA;
+			int bOff=loop.offsetB;
+			int as=loop.rowStrideA;
+			int bs=loop.rowStrideB;
+			int n=loop.rowLength;
+			if (bs==0) {
+				// broadcast row: a single value from the second array
+				scalarRow(kind,ad,aOff,as,bd[bOff],n);
+			} else if ((as==1)&&(bs==1)) {
+				packedRow(kind,ad,aOff,bd,bOff,n);
+			} else {
+				switch (kind) {
+					case SET:
+						for (int i=0; i<n; i++) ad[aOff+i*as]=bd[bOff+i*bs];
+						break;
+					case ADD:
+						for (int i=0; i<n; i++) ad[aOff+i*as]+=bd[bOff+i*bs];
+						break;
+					case SUB:
+						for (int i=0; i<n; i++) ad[aOff+i*as]-=bd[bOff+i*bs];
+						break;
+					case MUL:
+						for (int i=0; i<n; i++) ad[aOff+i*as]*=bd[bOff+i*bs];
+						break;
+					default:
+						for (int i=0; i<n; i++) ad[aOff+i*as]/=bd[bOff+i*bs];
+						break;
+				}
+			}
+		}
+	}
+
+	private static void packedRow(int kind, double[] ad, int aOff, double[] bd, int bOff, int n) {
+		switch (kind) {
+			case SET:
+				System.arraycopy(bd, bOff, ad, aOff, n);
+				break;
+			case ADD:
+				for (int i=0; i<n; i++) ad[aOff+i]+=bd[bOff+i];
+				break;
+			case SUB:
+				for (int i=0; i<n; i++) ad[aOff+i]-=bd[bOff+i];
+				break;
+			case MUL:
+				for (int i=0; i<n; i++) ad[aOff+i]*=bd[bOff+i];
+				break;
+			default:
+				for (int i=0; i<n; i++) ad[aOff+i]/=bd[bOff+i];
+				break;
+		}
+	}
+
+	private static void scalarRow(int kind, double[] ad, int aOff, int as, double v, int n) {
+		if (as==1) {
+			switch (kind) {
+				case SET: Arrays.fill(ad, aOff, aOff+n, v); break;
+				case ADD: DoubleArrays.add(ad, aOff, n, v); break;
+				case SUB: DoubleArrays.sub(ad, aOff, n, v); break;
+				case MUL: DoubleArrays.multiply(ad, aOff, n, v); break;
+				default: DoubleArrays.divide(ad, aOff, n, v); break;
+			}
+			return;
+		}
+		switch (kind) {
+			case SET:
+				for (int i=0; i<n; i++) ad[aOff+i*as]=v;
+				break;
+			case ADD:
+				for (int i=0; i<n; i++) ad[aOff+i*as]+=v;
+				break;
+			case SUB:
+				for (int i=0; i<n; i++) ad[aOff+i*as]-=v;
+				break;
+			case MUL:
+				for (int i=0; i<n; i++) ad[aOff+i*as]*=v;
+				break;
+			default:
+				for (int i=0; i<n; i++) ad[aOff+i*as]/=v;
+				break;
+		}
+	}
+
+	public static void applyOp(IStridedArray a, Op2 op, IStridedArray b) {
+		double[] ad=a.getArray();
+		double[] bd=b.getArray();
+		for (StridedLoop loop=createElementwise(a,b); loop.hasRow(); loop.nextRow()) {
+			int aOff=loop.offsetA;
+			int bOff=loop.offsetB;
+			int as=loop.rowStrideA;
+			int bs=loop.rowStrideB;
+			int n=loop.rowLength;
+			for (int i=0; i<n; i++) {
+				int ix=aOff+i*as;
+				ad[ix]=op.apply(ad[ix], bd[bOff+i*bs]);
+			}
+		}
+	}
+
+	/**
+	 * Copies the elements of a strided array in row major order to a double[] array
+	 */
+	public static void getElements(IStridedArray a, double[] dest, int offset) {
+		double[] data=a.getArray();
+		for (StridedLoop loop=create(a); loop.hasRow(); loop.nextRow()) {
+			int off=loop.offsetA;
+			int st=loop.rowStrideA;
+			int n=loop.rowLength;
+			if (st==1) {
+				System.arraycopy(data, off, dest, offset, n);
+			} else {
+				for (int i=0; i<n; i++) {
+					dest[offset+i]=data[off+i*st];
+				}
+			}
+			offset+=n;
+		}
+	}
+
+	/**
+	 * Adds the elements of a strided array in row major order to a double[] array
+	 */
+	public static void addToArray(IStridedArray a, double[] dest, int offset) {
+		double[] data=a.getArray();
+		for (StridedLoop loop=create(a); loop.hasRow(); loop.nextRow()) {
+			int off=loop.offsetA;
+			int st=loop.rowStrideA;
+			int n=loop.rowLength;
+			for (int i=0; i<n; i++) {
+				dest[offset+i]+=data[off+i*st];
+			}
+			offset+=n;
+		}
+	}
+
+	// ================================================================
+	// Reductions
+
+	public static double elementSum(IStridedArray a) {
+		double[] data=a.getArray();
+		double result=0.0;
+		for (StridedLoop loop=createElementwise(a); loop.hasRow(); loop.nextRow()) {
+			int st=loop.rowStrideA;
+			if (st==1) {
+				result+=DoubleArrays.elementSum(data, loop.offsetA, loop.rowLength);
+			} else {
+				result+=DoubleArrays.elementSum(data, loop.offsetA, st, loop.rowLength);
+			}
+		}
+		return result;
+	}
+
+	public static double elementSquaredSum(IStridedArray a) {
+		double[] data=a.getArray();
+		double result=0.0;
+		for (StridedLoop loop=createElementwise(a); loop.hasRow(); loop.nextRow()) {
+			int st=loop.rowStrideA;
+			if (st==1) {
+				result+=DoubleArrays.elementSquaredSum(data, loop.offsetA, loop.rowLength);
+			} else {
+				result+=DoubleArrays.elementSquaredSum(data, loop.offsetA, loop.rowLength, st);
+			}
+		}
+		return result;
+	}
+
+	public static double elementMax(IStridedArray a) {
+		double[] data=a.getArray();
+		double result=-Double.MAX_VALUE;
+		boolean found=false;
+		for (StridedLoop loop=createElementwise(a); loop.hasRow(); loop.nextRow()) {
+			int off=loop.offsetA;
+			int st=loop.rowStrideA;
+			int n=loop.rowLength;
+			for (int i=0; i<n; i++) {
+				double x=data[off+i*st];
+				if ((!found)||(x>result)) result=x;
+				found=true;
+			}
+		}
+		if (!found) throw new IllegalArgumentException(ErrorMessages.zeroElementReduce());
+		return result;
+	}
+
+	public static double elementMin(IStridedArray a) {
+		double[] data=a.getArray();
+		double result=Double.MAX_VALUE;
+		boolean found=false;
+		for (StridedLoop loop=createElementwise(a); loop.hasRow(); loop.nextRow()) {
+			int off=loop.offsetA;
+			int st=loop.rowStrideA;
+			int n=loop.rowLength;
+			for (int i=0; i<n; i++) {
+				double x=data[off+i*st];
+				if ((!found)||(x<result)) result=x;
+				found=true;
+			}
+		}
+		if (!found) throw new IllegalArgumentException(ErrorMessages.zeroElementReduce());
+		return result;
+	}
+
+	/**
+	 * Tests whether two strided arrays of the same shape have equal elements
+	 */
+	public static boolean equals(IStridedArray a, IStridedArray b) {
+		int[] shape=a.getShape();
+		if (!IntArrays.equals(shape, b.getShape())) return false;
+		double[] da=a.getArray();
+		double[] db=b.getArray();
+		for (StridedLoop loop=create(shape,a.getArrayOffset(),a.getStrides(),b.getArrayOffset(),b.getStrides(),true); loop.hasRow(); loop.nextRow()) {
+			int oa=loop.offsetA;
+			int ob=loop.offsetB;
+			int sa=loop.rowStrideA;
+			int sb=loop.rowStrideB;
+			int n=loop.rowLength;
+			for (int i=0; i<n; i++) {
+				if (da[oa+i*sa]!=db[ob+i*sb]) return false;
+			}
+		}
+		return true;
+	}
+
+	public static double reduce(IStridedArray a, Op2 op, double init) {
+		double[] data=a.getArray();
+		double result=init;
+		for (StridedLoop loop=create(a); loop.hasRow(); loop.nextRow()) {
+			result=op.reduce(result, data, loop.offsetA, loop.rowLength, loop.rowStrideA);
+		}
+		return result;
+	}
+
+	/**
+	 * Reduces over all elements of a strided array, using the first element as the initial value
+	 */
+	public static double reduce(IStridedArray a, Op2 op) {
+		double[] data=a.getArray();
+		StridedLoop loop=create(a);
+		if (!loop.hasRow()) throw new IllegalArgumentException(ErrorMessages.zeroElementReduce());
+		int st=loop.rowStrideA;
+		double result=op.reduce(data[loop.offsetA], data, loop.offsetA+st, loop.rowLength-1, st);
+		for (loop.nextRow(); loop.hasRow(); loop.nextRow()) {
+			result=op.reduce(result, data, loop.offsetA, loop.rowLength, loop.rowStrideA);
+		}
+		return result;
+	}
+
+	// ================================================================
+	// Broadcasting
+
+	/**
+	 * Gets a strided view of an array broadcast to the given shape, suitable for use as the second
+	 * argument of a binary operation. Dimensions added by broadcasting are given a stride of zero,
+	 * as are broadcast scalars and the repeated rows of broadcast vectors, so no expanded copy of
+	 * the array is ever created.
+	 * 
+	 * Returns null if the array has no strided representation or cannot be broadcast to the shape,
+	 * in which case the caller should fall back to a general implementation.
+	 */
+	public static IStridedArray broadcastView(INDArray b, int[] shape) {
+		int dims=shape.length;
+		int bdims=b.dimensionality();
+		if (bdims>dims) return null;
+		if (bdims==0) return constantView(b.get(),shape);
+		for (int i=1; i<=bdims; i++) {
+			if (b.getShape(bdims-i)!=shape[dims-i]) return null;
+		}
+		
+		if (b instanceof BroadcastScalarArray) {
+			return constantView(((BroadcastScalarArray)b).getValue(),shape);
+		} else if (b instanceof RepeatedElementVector) {
+			return constantView(((RepeatedElementVector)b).getValue(),shape);
+		} else if (b instanceof BroadcastVectorMatrix) {
+			return broadcastView(((BroadcastVectorMatrix)b).getSource(),shape);
+		} else if ((b instanceof IStridedArray)&&b.isMutable()) {
+			// immutable arrays do not expose their storage
+			IStridedArray sb=(IStridedArray)b;
+			if (bdims==dims) return sb;
+			int[] strides=new int[dims];
+			System.arraycopy(sb.getStrides(), 0, strides, dims-bdims, bdims);
+			return (IStridedArray)NDArray.wrapStrided(sb.getArray(), sb.getArrayOffset(), shape, strides);
+		}
+		return null;
+	}
+
+	private static IStridedArray constantView(double value, int[] shape) {
+		return (IStridedArray)NDArray.wrapStrided(new double[] {value}, 0, shape, new int[shape.length]);
+	}
+}
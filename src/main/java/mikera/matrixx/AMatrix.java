@@ -10,7 +10,9 @@ import mikera.arrayz.Arrayz;
 import mikera.arrayz.INDArray;
 import mikera.arrayz.ISparse;
 import mikera.arrayz.impl.AbstractArray;
+import mikera.arrayz.impl.Contractions;
 import mikera.arrayz.impl.IDense;
+import mikera.arrayz.impl.IStridedArray;
 import mikera.arrayz.impl.JoinedArray;
 import mikera.arrayz.impl.SliceArray;
 import mikera.indexz.AIndex;
@@ -22,6 +24,7 @@ import mikera.matrixx.algo.Multiplications;
 import mikera.matrixx.algo.Rank;
 import mikera.matrixx.impl.ADenseArrayMatrix;
 import mikera.matrixx.impl.ARectangularMatrix;
+import mikera.matrixx.impl.ColumnMatrix;
 import mikera.matrixx.impl.AStridedMatrix;
 import mikera.matrixx.impl.IdentityMatrix;
 import mikera.matrixx.impl.ImmutableMatrix;
@@ -32,6 +35,7 @@ import mikera.matrixx.impl.MatrixElementIterator;
 import mikera.matrixx.impl.MatrixRowIterator;
 import mikera.matrixx.impl.MatrixRowList;
 import mikera.matrixx.impl.MatrixRowView;
+import mikera.matrixx.impl.RowMatrix;
 import mikera.matrixx.impl.SparseColumnMatrix;
 import mikera.matrixx.impl.SparseRowMatrix;
 import mikera.matrixx.impl.SubMatrixView;
@@ -868,6 +872,66 @@ public abstract class AMatrix extends AbstractArray<AVector> implements IMatrix
 		return result;
 	}
 	
+	/**
+	 * Returns a vector containing the sum of each row of this matrix
+	 * @return
+	 */
+	public Vector rowSums() {
+		int rc=rowCount();
+		Vector result=Vector.createLength(rc);
+		for (int i=0; i<rc; i++) {
+			result.unsafeSet(i, getRow(i).elementSum());
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns a vector containing the sum of each column of this matrix
+	 * @return
+	 */
+	public Vector columnSums() {
+		int rc=rowCount();
+		Vector result=Vector.createLength(columnCount());
+		double[] rdata=result.getArray();
+		for (int i=0; i<rc; i++) {
+			getRow(i).addToArray(rdata, 0);
+		}
+		return result;
+	}
+	
+	@Override
+	public INDArray sumAlong(int[] axes, boolean keepDims) {
+		if (axes.length==1) {
+			if (axes[0]==1) {
+				Vector r=rowSums();
+				return keepDims?ColumnMatrix.wrap(r):r;
+			} else if (axes[0]==0) {
+				Vector r=columnSums();
+				return keepDims?RowMatrix.wrap(r):r;
+			}
+		}
+		return super.sumAlong(axes, keepDims);
+	}
+	
+	/**
+	 * Returns the sum of all elements in this matrix, using Kahan compensated summation. Slower 
+	 * than elementSum(), but the rounding error does not grow with the size of the matrix.
+	 * @return 
+	 */
+	public double elementSumCompensated() {
+		int rc=rowCount();
+		
+		double sum=0.0;
+		double c=0.0;
+		for (int i=0; i<rc; i++) {
+			double y=getRow(i).elementSumCompensated()-c;
+			double t=sum+y;
+			c=Double.isInfinite(t)?0.0:(t-sum)-y;
+			sum=t;
+		}
+		return sum;
+	}
+	
 	/**
 	 * Returns the squared sum of all elements in this matrix
 	 * @param m
@@ -1493,6 +1557,9 @@ public abstract class AMatrix extends AbstractArray<AVector> implements IMatrix
 		} else if (a.dimensionality()<=2) {
 			return innerProduct(Arrayz.create(a)); // convert to most efficient format
 		}
+		if ((this instanceof IStridedArray)&&(a instanceof IStridedArray)) {
+			return Contractions.tensordot(this, a, new int[] {1}, new int[] {0});
+		}
 		int rc=rowCount();
 		List<AVector> al=getRows();
 		List<INDArray> rl=new ArrayList<INDArray>(rc);
@@ -6,6 +6,7 @@ import java.util.Iterator;
 
 import mikera.arrayz.INDArray;
 import mikera.matrixx.algo.Multiplications;
+import mikera.matrixx.algo.Transpose;
 import mikera.matrixx.impl.ADenseArrayMatrix;
 import mikera.matrixx.impl.AStridedMatrix;
 import mikera.matrixx.impl.DenseColumnMatrix;
@@ -17,9 +18,11 @@ import mikera.vectorz.Vector;
 import mikera.vectorz.Vectorz;
 import mikera.vectorz.impl.AStridedVector;
 import mikera.vectorz.impl.ArraySubVector;
+import mikera.vectorz.impl.StridedCursor;
 import mikera.vectorz.impl.StridedElementIterator;
 import mikera.vectorz.impl.StridedVector;
 import mikera.vectorz.util.DoubleArrays;
+import mikera.vectorz.util.ParallelArrays;
 import mikera.vectorz.util.ErrorMessages;
 
 /**
@@ -211,17 +214,17 @@ public final class Matrix extends ADenseArrayMatrix {
 
 	@Override
 	public double elementSum() {
-		return DoubleArrays.elementSum(data);
+		return ParallelArrays.elementSum(data);
 	}
 
 	@Override
 	public double elementSquaredSum() {
-		return DoubleArrays.elementSquaredSum(data);
+		return ParallelArrays.elementSquaredSum(data);
 	}
 
 	@Override
 	public double elementMax() {
-		return DoubleArrays.elementMax(data);
+		return ParallelArrays.elementMax(data);
 	}
 
 	@Override
@@ -404,13 +407,16 @@ public final class Matrix extends ADenseArrayMatrix {
 		int rc = rowCount();
 		int cc = columnCount();
 		Matrix m = Matrix.create(cc, rc);
-		double[] targetData = m.data;
-		for (int j = 0; j < cc; j++) {
-			copyColumnTo(j, targetData, j * rc);
-		}
+		Transpose.transpose(data, 0, rc, cc, m.data, 0);
 		return m;
 	}
 
+	@Override
+	public void transposeInPlace() {
+		int dims = checkSquare();
+		Transpose.transposeInPlace(data, 0, dims, dims);
+	}
+
 	@Override
 	public void toDoubleBuffer(DoubleBuffer dest) {
 		dest.put(data);
@@ -450,12 +456,12 @@ public final class Matrix extends ADenseArrayMatrix {
 
 	@Override
 	public void applyOp(Op op) {
-		op.applyTo(data);
+		ParallelArrays.applyOp(op, data, 0, data.length);
 	}
 	
 	@Override
 	public void applyOp(Op2 op, double b) {
-		op.applyTo(data, b);
+		ParallelArrays.applyOp(op, data, 0, data.length, b);
 	}
 
 	public void addMultiple(ADenseArrayMatrix m, double factor) {
@@ -528,6 +534,13 @@ public final class Matrix extends ADenseArrayMatrix {
 		int cc = columnCount();
 		m.checkShape(rc, cc);
 		
+		if (m instanceof AStridedMatrix) {
+			StridedCursor row = ((AStridedMatrix) m).getRowCursor();
+			for (int i = 0; i < rc; i++) {
+				row.moveTo(i).addMultipleToArray(factor, 0, data, i * cols, cc);
+			}
+			return;
+		}
 		for (int i = 0; i < rc; i++) {
 			m.getRow(i).addMultipleToArray(factor, data, i * cols);
 		}
@@ -551,8 +564,9 @@ public final class Matrix extends ADenseArrayMatrix {
 
 	@Override
 	public void set(AVector a) {
-		if ((rowCount() != a.length())) { throw new IllegalArgumentException(
+		if ((columnCount() != a.length())) { throw new IllegalArgumentException(
 				ErrorMessages.incompatibleBroadcast(a, this)); }
+		if (rows==0) return;
 		a.getElements(data, 0);
 		for (int i = 1; i < rows; i++) {
 			System.arraycopy(data, 0, data, i * cols, cols);
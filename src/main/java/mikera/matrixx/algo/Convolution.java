@@ -0,0 +1,396 @@
+package mikera.matrixx.algo;
+
+import java.util.Arrays;
+
+import mikera.matrixx.AMatrix;
+import mikera.matrixx.Matrix;
+import mikera.vectorz.AVector;
+import mikera.vectorz.Vector;
+import mikera.vectorz.util.Parallel;
+
+/**
+ * Convolution and correlation of vectors and matrices.
+ *
+ * Each operation chooses between a direct sum, which is fastest for small kernels, and FFT
+ * convolution using the overlap-add method. The FFT size is chosen by a simple cost model: blocks
+ * as large as the whole input give a single full-size FFT convolution, while smaller blocks are
+ * preferred when the kernel is much shorter than the input. Two real blocks are transformed
+ * together as the real and imaginary parts of a single complex FFT.
+ *
+ * Output sizes follow the usual conventions for the mode:
+ * <ul>
+ * <li>FULL - every position where the kernel overlaps the input, size n+k-1</li>
+ * <li>SAME - the central part of the full result with the same size as the input</li>
+ * <li>VALID - only positions where the kernel lies entirely within the input, size n-k+1 (or
+ * zero if the kernel is larger than the input)</li>
+ * </ul>
+ *
+ * @author Mike
+ */
+public class Convolution {
+
+	private Convolution(){}
+
+	public static enum Mode {
+		FULL, SAME, VALID
+	}
+
+	// estimated cost of a complex FFT of size N as FFT_COST*N*log2(N), in units of one
+	// multiply-add of the direct method
+	static final double FFT_COST=1.0;
+
+	// minimum number of multiply-adds before direct convolution is split between threads
+	private static final int DIRECT_PARALLEL_GRAIN=1<<16;
+
+	/**
+	 * Convolves a vector with a kernel.
+	 *
+	 * @param a The input vector
+	 * @param kernel The convolution kernel
+	 * @param mode Determines the part of the full convolution that is returned
+	 * @return A new Vector containing the result
+	 */
+	public static Vector convolve(AVector a, AVector kernel, Mode mode) {
+		int n=a.length();
+		int k=kernel.length();
+		checkSize(n,k);
+		double[] full=convolveFull(a.toDoubleArray(),n,kernel.toDoubleArray(),k);
+		int start=start(mode,k);
+		int len=length(mode,n,k);
+		return Vector.wrap(Arrays.copyOfRange(full, start, start+len));
+	}
+
+	/**
+	 * Computes the cross-correlation of a vector with a kernel, i.e. convolution with the reversed
+	 * kernel. In VALID mode, element i of the result is the dot product of the kernel with the
+	 * elements of a starting at i.
+	 *
+	 * @param a The input vector
+	 * @param kernel The correlation kernel
+	 * @param mode Determines the part of the full correlation that is returned
+	 * @return A new Vector containing the result
+	 */
+	public static Vector correlate(AVector a, AVector kernel, Mode mode) {
+		double[] r=kernel.toDoubleArray();
+		reverse(r,0,r.length);
+		return convolve(a,Vector.wrap(r),mode);
+	}
+
+	/**
+	 * Computes the 2D convolution of a matrix with a kernel matrix.
+	 *
+	 * @param a The input matrix
+	 * @param kernel The convolution kernel
+	 * @param mode Determines the part of the full convolution that is returned
+	 * @return A new Matrix containing the result
+	 */
+	public static Matrix convolve(AMatrix a, AMatrix kernel, Mode mode) {
+		int ar=a.rowCount();
+		int ac=a.columnCount();
+		int kr=kernel.rowCount();
+		int kc=kernel.columnCount();
+		checkSize(ar,kr);
+		checkSize(ac,kc);
+		double[] full=convolveFull2D(a.toDoubleArray(),ar,ac,kernel.toDoubleArray(),kr,kc);
+		int fc=ac+kc-1;
+		int r0=start(mode,kr);
+		int c0=start(mode,kc);
+		int rr=length(mode,ar,kr);
+		int rc=length(mode,ac,kc);
+		Matrix result=Matrix.create(rr, rc);
+		for (int i=0; i<rr; i++) {
+			System.arraycopy(full, (r0+i)*fc+c0, result.data, i*rc, rc);
+		}
+		return result;
+	}
+
+	/**
+	 * Computes the 2D cross-correlation of a matrix with a kernel matrix, i.e. convolution with
+	 * the kernel reversed along both dimensions.
+	 *
+	 * @param a The input matrix
+	 * @param kernel The correlation kernel
+	 * @param mode Determines the part of the full correlation that is returned
+	 * @return A new Matrix containing the result
+	 */
+	public static Matrix correlate(AMatrix a, AMatrix kernel, Mode mode) {
+		double[] r=kernel.toDoubleArray();
+		reverse(r,0,r.length);
+		return convolve(a,Matrix.wrap(kernel.rowCount(),kernel.columnCount(),r),mode);
+	}
+
+	private static void checkSize(int n, int k) {
+		if ((n<1)||(k<1)) throw new IllegalArgumentException("Convolution requires non-empty input and kernel, got sizes "+n+" and "+k);
+	}
+
+	private static int start(Mode mode, int k) {
+		switch (mode) {
+			case SAME: return (k-1)/2;
+			case VALID: return k-1;
+			default: return 0;
+		}
+	}
+
+	private static int length(Mode mode, int n, int k) {
+		switch (mode) {
+			case SAME: return n;
+			case VALID: return Math.max(0, n-k+1);
+			default: return n+k-1;
+		}
+	}
+
+	private static void reverse(double[] a, int offset, int length) {
+		for (int i=offset, j=offset+length-1; i<j; i++, j--) {
+			double t=a[i]; a[i]=a[j]; a[j]=t;
+		}
+	}
+
+	private static double fftCost(long size) {
+		return FFT_COST*size*Math.max(1, 31-Integer.numberOfLeadingZeros((int)size));
+	}
+
+	/**
+	 * Estimated cost of overlap-add convolution of n elements with a kernel of size k, using FFTs
+	 * of size t that each process a pair of blocks at the given cost
+	 */
+	private static double overlapAddCost(int n, int k, int t, double blockCost) {
+		int blocks=(n+t-k)/(t-k+1);
+		return ((blocks+1)/2)*blockCost;
+	}
+
+	/**
+	 * Returns the smallest FFT size considered for overlap-add convolution along one dimension.
+	 * Blocks must be at least as long as the kernel, unless a single block covers the whole result.
+	 */
+	private static int minBlockSize(int n, int k) {
+		return Math.min(FFT.nextPow2(2*k-1), FFT.nextPow2(n+k-1));
+	}
+
+	/**
+	 * Computes the full 1D convolution of a[0..n) with k[0..m), choosing the fastest method.
+	 */
+	static double[] convolveFull(double[] a, int n, double[] k, int m) {
+		double best=(double)n*m;
+		int bestT=0;
+		for (int t=minBlockSize(n,m), max=FFT.nextPow2(n+m-1); t<=max; t*=2) {
+			double cost=overlapAddCost(n,m,t,2*fftCost(t)+6.0*t)+fftCost(t);
+			if (cost<best) {
+				best=cost;
+				bestT=t;
+			}
+		}
+		if (bestT==0) return convolveDirect(a,n,k,m);
+		return convolveFFT(a,n,k,m,bestT);
+	}
+
+	/**
+	 * Computes the full 2D convolution of a row-major ar x ac matrix with a kr x kc kernel,
+	 * choosing the fastest method.
+	 */
+	static double[] convolveFull2D(double[] a, int ar, int ac, double[] k, int kr, int kc) {
+		double best=(double)ar*ac*kr*kc;
+		int bestR=0;
+		int bestC=0;
+		int maxR=FFT.nextPow2(ar+kr-1);
+		int maxC=FFT.nextPow2(ac+kc-1);
+		for (int tr=minBlockSize(ar,kr); tr<=maxR; tr*=2) {
+			int tileRows=(ar+tr-kr)/(tr-kr+1);
+			for (int tc=minBlockSize(ac,kc); tc<=maxC; tc*=2) {
+				long size=(long)tr*tc;
+				if (size>(1<<26)) continue;
+				double cost=tileRows*overlapAddCost(ac,kc,tc,2*fftCost(size)+6.0*size)+fftCost(size);
+				if (cost<best) {
+					best=cost;
+					bestR=tr;
+					bestC=tc;
+				}
+			}
+		}
+		if (bestR==0) return convolveDirect2D(a,ar,ac,k,kr,kc);
+		return convolveFFT2D(a,ar,ac,k,kr,kc,bestR,bestC);
+	}
+
+	/**
+	 * Adds the full convolution of a[aOff..aOff+n) with k[kOff..kOff+m) to dest[dOff..], for
+	 * output indices in [j0, j1)
+	 */
+	private static void directRange(double[] a, int aOff, int n, double[] k, int kOff, int m, double[] dest, int dOff, int j0, int j1) {
+		for (int t=0; t<m; t++) {
+			double kt=k[kOff+t];
+			if (kt==0.0) continue;
+			int i0=Math.max(0, j0-t);
+			int i1=Math.min(n, j1-t);
+			int d=dOff+t;
+			for (int i=i0; i<i1; i++) {
+				dest[d+i]+=kt*a[aOff+i];
+			}
+		}
+	}
+
+	/**
+	 * Computes the full 1D convolution by direct summation
+	 */
+	static double[] convolveDirect(final double[] a, final int n, final double[] k, final int m) {
+		final double[] out=new double[n+m-1];
+		Parallel.forRange(0, n+m-1, Math.max(256, DIRECT_PARALLEL_GRAIN/m), new Parallel.IRangeTask() {
+			@Override
+			public void run(int start, int end) {
+				directRange(a,0,n,k,0,m,out,0,start,end);
+			}
+		});
+		return out;
+	}
+
+	/**
+	 * Computes the full 2D convolution by direct summation
+	 */
+	static double[] convolveDirect2D(final double[] a, final int ar, final int ac, final double[] k, final int kr, final int kc) {
+		final int fc=ac+kc-1;
+		final double[] out=new double[(ar+kr-1)*fc];
+		Parallel.forRange(0, ar+kr-1, Math.max(1, DIRECT_PARALLEL_GRAIN/(ac*kr*kc)), new Parallel.IRangeTask() {
+			@Override
+			public void run(int start, int end) {
+				for (int r=start; r<end; r++) {
+					// output row r receives input row r-i convolved with kernel row i
+					int i0=Math.max(0, r-ar+1);
+					int i1=Math.min(kr, r+1);
+					for (int i=i0; i<i1; i++) {
+						directRange(a,(r-i)*ac,ac,k,i*kc,kc,out,r*fc,0,fc);
+					}
+				}
+			}
+		});
+		return out;
+	}
+
+	/**
+	 * Multiplies complex interleaved data by a complex spectrum, element by element
+	 */
+	private static void multiplySpectrum(double[] buf, double[] spectrum, int length) {
+		for (int i=0; i<length; i+=2) {
+			double re=buf[i];
+			double im=buf[i+1];
+			double sr=spectrum[i];
+			double si=spectrum[i+1];
+			buf[i]=re*sr-im*si;
+			buf[i+1]=re*si+im*sr;
+		}
+	}
+
+	/**
+	 * Computes the full 1D convolution by overlap-add with FFTs of size t. Blocks of t-m+1 input
+	 * elements are convolved in pairs, one in the real and one in the imaginary part of each FFT.
+	 * If t is at least n+m-1 this is a single full-size FFT convolution.
+	 */
+	static double[] convolveFFT(final double[] a, final int n, double[] k, final int m, final int t) {
+		final FFT fft=FFT.getPlan(t);
+		final double[] spectrum=new double[2*t];
+		for (int i=0; i<m; i++) spectrum[2*i]=k[i];
+		fft.complexForward(spectrum);
+
+		final int outLength=n+m-1;
+		final double[] out=new double[outLength];
+		final int block=t-m+1;
+		final int blocks=(n+block-1)/block;
+		final int pairs=(blocks+1)/2;
+
+		// neighbouring pairs overlap in the output, so process alternate pairs in two phases
+		for (int phase=0; phase<2; phase++) {
+			final int ph=phase;
+			Parallel.forRange(0, (pairs+1-ph)/2, 1, new Parallel.IRangeTask() {
+				@Override
+				public void run(int start, int end) {
+					double[] buf=new double[2*t];
+					for (int p=2*start+ph; p<2*end+ph; p+=2) {
+						Arrays.fill(buf, 0.0);
+						int s0=2*p*block;
+						int s1=s0+block;
+						int len0=Math.min(block, n-s0);
+						int len1=Math.max(0, Math.min(block, n-s1));
+						for (int i=0; i<len0; i++) buf[2*i]=a[s0+i];
+						for (int i=0; i<len1; i++) buf[2*i+1]=a[s1+i];
+
+						fft.complexForward(buf);
+						multiplySpectrum(buf,spectrum,2*t);
+						fft.complexInverse(buf,true);
+
+						int e0=Math.min(len0+m-1, outLength-s0);
+						for (int j=0; j<e0; j++) out[s0+j]+=buf[2*j];
+						if (len1>0) {
+							int e1=Math.min(len1+m-1, outLength-s1);
+							for (int j=0; j<e1; j++) out[s1+j]+=buf[2*j+1];
+						}
+					}
+				}
+			});
+		}
+		return out;
+	}
+
+	/**
+	 * Computes the full 2D convolution by overlap-add with tr x tc FFTs. Horizontally adjacent
+	 * tiles are convolved in pairs, one in the real and one in the imaginary part of each FFT.
+	 */
+	static double[] convolveFFT2D(final double[] a, final int ar, final int ac, double[] k, final int kr, final int kc, final int tr, final int tc) {
+		final FFT2D fft=new FFT2D(tr,tc);
+		final int tlen=2*tr*tc;
+		final double[] spectrum=new double[tlen];
+		for (int i=0; i<kr; i++) {
+			for (int j=0; j<kc; j++) {
+				spectrum[2*(i*tc+j)]=k[i*kc+j];
+			}
+		}
+		fft.complexForward(spectrum);
+
+		final int fr=ar+kr-1;
+		final int fc=ac+kc-1;
+		final double[] out=new double[fr*fc];
+		final int br=tr-kr+1;
+		final int bc=tc-kc+1;
+		final int tileRows=(ar+br-1)/br;
+		final int tileCols=(ac+bc-1)/bc;
+
+		// neighbouring tile rows overlap in the output, so process alternate tile rows in two phases
+		for (int phase=0; phase<2; phase++) {
+			final int ph=phase;
+			Parallel.forRange(0, (tileRows+1-ph)/2, 1, new Parallel.IRangeTask() {
+				@Override
+				public void run(int start, int end) {
+					double[] buf=new double[tlen];
+					for (int ti=2*start+ph; ti<2*end+ph; ti+=2) {
+						int r0=ti*br;
+						int rows=Math.min(br, ar-r0);
+						int orows=Math.min(rows+kr-1, fr-r0);
+						for (int tj=0; tj<tileCols; tj+=2) {
+							Arrays.fill(buf, 0.0);
+							int c0=tj*bc;
+							int c1=c0+bc;
+							int cols0=Math.min(bc, ac-c0);
+							int cols1=Math.max(0, Math.min(bc, ac-c1));
+							for (int i=0; i<rows; i++) {
+								int src=(r0+i)*ac;
+								int dst=2*i*tc;
+								for (int j=0; j<cols0; j++) buf[dst+2*j]=a[src+c0+j];
+								for (int j=0; j<cols1; j++) buf[dst+2*j+1]=a[src+c1+j];
+							}
+
+							fft.complexForward(buf);
+							multiplySpectrum(buf,spectrum,tlen);
+							fft.complexInverse(buf,true);
+
+							int ocols0=Math.min(cols0+kc-1, fc-c0);
+							int ocols1=(cols1>0)?Math.min(cols1+kc-1, fc-c1):0;
+							for (int i=0; i<orows; i++) {
+								int src=2*i*tc;
+								int dst=(r0+i)*fc;
+								for (int j=0; j<ocols0; j++) out[dst+c0+j]+=buf[src+2*j];
+								for (int j=0; j<ocols1; j++) out[dst+c1+j]+=buf[src+2*j+1];
+							}
+						}
+					}
+				}
+			});
+		}
+		return out;
+	}
+}
@@ -14,6 +14,14 @@
 
 package mikera.matrixx.algo;
 
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+import mikera.matrixx.AMatrix;
+import mikera.matrixx.Matrix;
+import mikera.vectorz.util.ErrorMessages;
+import mikera.vectorz.util.Parallel;
+
 /**
  * Computes 1D Discrete Fourier Transform (DFT) of complex and real, double
  * precision data. The size of the data can be an arbitrary number. This is a
@@ -23,6 +31,20 @@ package mikera.matrixx.algo;
  * This code is derived from General Purpose FFT Package written by Takuya Ooura
  * (http://www.kurims.kyoto-u.ac.jp/~ooura/fft.html) and from JFFTPack written
  * by Baoshe Zhang (http://jfftpack.sourceforge.net/)
+ * <br>
+ * <br>
+ * Large transforms are split between threads on the shared Vectorz fork/join pool. The
+ * number of threads and the sizes at which 2 and 4 threads are used can be configured with
+ * {@link #setNumberOfThreads(int)} and {@link #setThreadsBeginN(int, int)}. Split-radix 
+ * transforms run their recursive stage concurrently, mixed-radix transforms use a parallel 
+ * four-step decomposition n = n1*n2 and Bluestein transforms parallelise their chirp 
+ * multiplications as well as the inner split-radix transforms.
+ * <br>
+ * <br>
+ * Instances are thread-safe. Precomputed tables are shared by all threads and work buffers are
+ * kept per thread, so a single instance can be reused for any number of transforms of the same
+ * size. Use {@link #getPlan(int)} to obtain a cached shared instance, and the batch methods (e.g.
+ * {@link #complexForwardBatch(double[], int, int, int)}) to transform many signals in one call.
  * 
  * @author Piotr Wendykier (piotr.wendykier@gmail.com)
  * 
@@ -61,6 +83,118 @@ public class FFT {
 
     private static final double TWO_PI = 6.28318530717958623199592693708837032;
 
+    private static volatile int nthreads = Parallel.THREADS;
+
+    // transform sizes (in complex points) above which 2 and 4 threads are used
+    private static volatile int threadsBeginN2 = 4096;
+
+    private static volatile int threadsBeginN4 = 32768;
+
+    // four-step decomposition n = n1*n2 used for parallel mixed radix transforms, created on demand
+    private int n1;
+
+    private volatile FFT fft1;
+
+    private FFT fft2;
+
+    private double[] twiddle;
+
+    // per-thread work buffers
+    private final Scratch scratch = new Scratch();
+
+    private static final ConcurrentHashMap<Integer, FFT> plans = new ConcurrentHashMap<Integer, FFT>();
+
+    /**
+     * Returns a shared FFT instance for transforms of size n, creating and caching it on first use.
+     * 
+     * @param n
+     *            size of data
+     */
+    public static FFT getPlan(int n) {
+        Integer key = Integer.valueOf(n);
+        FFT fft = plans.get(key);
+        if (fft == null) {
+            fft = new FFT(n);
+            FFT existing = plans.putIfAbsent(key, fft);
+            if (existing != null)
+                fft = existing;
+        }
+        return fft;
+    }
+
+    /**
+     * Removes all cached instances created by getPlan. Instances already obtained remain valid.
+     */
+    public static void clearPlanCache() {
+        plans.clear();
+    }
+
+    /**
+     * Sets the maximum number of threads used by a single transform. Set to 1 to disable
+     * multi-threading.
+     * 
+     * @param n
+     */
+    public static void setNumberOfThreads(int n) {
+        if (n < 1)
+            throw new IllegalArgumentException("Number of threads must be at least 1");
+        nthreads = n;
+    }
+
+    /**
+     * Returns the maximum number of threads used by a single transform.
+     */
+    public static int getNumberOfThreads() {
+        return nthreads;
+    }
+
+    /**
+     * Sets the transform sizes, in complex points, above which a transform is split between 2
+     * and 4 threads respectively.
+     * 
+     * @param twoThreads
+     * @param fourThreads
+     */
+    public static void setThreadsBeginN(int twoThreads, int fourThreads) {
+        if ((twoThreads < 1) || (fourThreads < twoThreads))
+            throw new IllegalArgumentException("Invalid thread thresholds: " + twoThreads + ", " + fourThreads);
+        threadsBeginN2 = twoThreads;
+        threadsBeginN4 = fourThreads;
+    }
+
+    /**
+     * Returns the transform size above which 2 threads are used
+     */
+    public static int getThreadsBeginN2Threads() {
+        return threadsBeginN2;
+    }
+
+    /**
+     * Returns the transform size above which 4 threads are used
+     */
+    public static int getThreadsBeginN4Threads() {
+        return threadsBeginN4;
+    }
+
+    /**
+     * Returns the number of threads to use for a transform with the given number of complex points
+     */
+    private static int threadsFor(int points) {
+        int nt = nthreads;
+        if ((nt >= 4) && (points > threadsBeginN4))
+            return 4;
+        if ((nt >= 2) && (points > threadsBeginN2))
+            return 2;
+        return 1;
+    }
+
+    /**
+     * Returns the size of the transforms computed by this instance
+     */
+    public int size() {
+        return n;
+    }
+
     /**
      * Returns the closest power-of-two number greater than or equal to x.
      * 
@@ -207,7 +341,11 @@ public class FFT {
             cftbsub(2 * n, a, offa, ip, nw, w);
             break;
         case MIXED_RADIX:
-            cfftf(a, offa, -1);
+            if (useFourStep()) {
+                fourStep(a, offa, -1);
+            } else {
+                cfftf(a, offa, -1);
+            }
             break;
         case BLUESTEIN:
             bluestein_complex(a, offa, -1);
@@ -263,7 +401,11 @@ public class FFT {
             cftfsub(2 * n, a, offa, ip, nw, w);
             break;
         case MIXED_RADIX:
-            cfftf(a, offa, +1);
+            if (useFourStep()) {
+                fourStep(a, offa, +1);
+            } else {
+                cfftf(a, offa, +1);
+            }
             break;
         case BLUESTEIN:
             bluestein_complex(a, offa, 1);
@@ -416,8 +558,14 @@ public class FFT {
             }
             a[offa + n] = -a[offa + 1];
             a[offa + 1] = 0;
+            if (n > 1) a[offa + n + 1] = 0; // imaginary part of the Nyquist term
             break;
         case MIXED_RADIX:
+            if (useFourStep()) {
+                spreadReal(a, offa);
+                fourStep(a, offa, -1);
+                break;
+            }
             rfftf(a, offa);
             int m;
             if (n % 2 == 0) {
@@ -438,6 +586,7 @@ public class FFT {
                 a[idx] = tmp;
             }
             a[offa + 1] = 0;
+            if (n % 2 == 0) a[offa + n + 1] = 0; // imaginary part of the Nyquist term
             break;
         case BLUESTEIN:
             bluestein_real_full(a, offa, -1);
@@ -599,8 +748,17 @@ public class FFT {
             }
             a[offa + n] = -a[offa + 1];
             a[offa + 1] = 0;
+            if (n > 1) a[offa + n + 1] = 0; // imaginary part of the Nyquist term
             break;
         case MIXED_RADIX:
+            if (useFourStep()) {
+                spreadReal(a, offa);
+                fourStep(a, offa, +1);
+                if (scale) {
+                    scale(n, a, offa, true);
+                }
+                break;
+            }
             rfftf(a, offa);
             if (scale) {
                 scale(n, a, offa, false);
@@ -625,6 +783,7 @@ public class FFT {
                 a[idx] = tmp;
             }
             a[offa + 1] = 0;
+            if (n % 2 == 0) a[offa + n + 1] = 0; // imaginary part of the Nyquist term
             break;
         case BLUESTEIN:
             bluestein_real_full(a, offa, 1);
@@ -690,6 +849,291 @@ public class FFT {
         }
     }
 
+    /**
+     * Computes 1D forward DFTs of count complex signals, each laid out as for
+     * <code>complexForward</code> and starting <code>distance</code> elements
+     * after the previous one. Signals are split between threads.
+     * 
+     * @param a
+     *            data to transform
+     * @param offa
+     *            index of the first element of the first signal
+     * @param count
+     *            number of signals
+     * @param distance
+     *            distance in array <code>a</code> between the first elements
+     *            of consecutive signals
+     */
+    public void complexForwardBatch(double[] a, int offa, int count, int distance) {
+        checkBatch(a, offa, count, distance, 2, 2);
+        batch(COMPLEX_FORWARD, a, offa, count, distance, false);
+    }
+
+    /**
+     * Computes 1D forward DFTs of count complex signals whose elements are
+     * <code>stride</code> array elements apart, e.g. the columns of a
+     * row-major matrix of interleaved complex values. Complex element k of
+     * signal i has its real part at <code>a[offa+i*distance+k*stride]</code>
+     * and its imaginary part in the following array element.
+     * 
+     * @param a
+     *            data to transform
+     * @param offa
+     *            index of the first element of the first signal
+     * @param count
+     *            number of signals
+     * @param distance
+     *            distance in array <code>a</code> between the first elements
+     *            of consecutive signals
+     * @param stride
+     *            distance in array <code>a</code> between consecutive complex
+     *            elements of a signal
+     */
+    public void complexForwardBatch(double[] a, int offa, int count, int distance, int stride) {
+        if (stride == 2) {
+            complexForwardBatch(a, offa, count, distance);
+            return;
+        }
+        checkBatch(a, offa, count, distance, stride, 2);
+        FFT2D.stridedPass(this, a, offa, 0, 1, count, distance, stride, true, false);
+    }
+
+    /**
+     * Computes 1D inverse DFTs of count complex signals, each laid out as for
+     * <code>complexInverse</code> and starting <code>distance</code> elements
+     * after the previous one. Signals are split between threads.
+     * 
+     * @param a
+     *            data to transform
+     * @param offa
+     *            index of the first element of the first signal
+     * @param count
+     *            number of signals
+     * @param distance
+     *            distance in array <code>a</code> between the first elements
+     *            of consecutive signals
+     * @param scale
+     *            if true then scaling is performed
+     */
+    public void complexInverseBatch(double[] a, int offa, int count, int distance, boolean scale) {
+        checkBatch(a, offa, count, distance, 2, 2);
+        batch(COMPLEX_INVERSE, a, offa, count, distance, scale);
+    }
+
+    /**
+     * Computes 1D inverse DFTs of count complex signals whose elements are
+     * <code>stride</code> array elements apart. See
+     * {@link #complexForwardBatch(double[], int, int, int, int)} for the
+     * layout.
+     * 
+     * @param a
+     *            data to transform
+     * @param offa
+     *            index of the first element of the first signal
+     * @param count
+     *            number of signals
+     * @param distance
+     *            distance in array <code>a</code> between the first elements
+     *            of consecutive signals
+     * @param stride
+     *            distance in array <code>a</code> between consecutive complex
+     *            elements of a signal
+     * @param scale
+     *            if true then scaling is performed
+     */
+    public void complexInverseBatch(double[] a, int offa, int count, int distance, int stride, boolean scale) {
+        if (stride == 2) {
+            complexInverseBatch(a, offa, count, distance, scale);
+            return;
+        }
+        checkBatch(a, offa, count, distance, stride, 2);
+        FFT2D.stridedPass(this, a, offa, 0, 1, count, distance, stride, false, scale);
+    }
+
+    /**
+     * Computes 1D forward DFTs of count real signals, each laid out as for
+     * <code>realForward</code> and starting <code>distance</code> elements
+     * after the previous one. Signals are split between threads.
+     * 
+     * @param a
+     *            data to transform
+     * @param offa
+     *            index of the first element of the first signal
+     * @param count
+     *            number of signals
+     * @param distance
+     *            distance in array <code>a</code> between the first elements
+     *            of consecutive signals
+     */
+    public void realForwardBatch(double[] a, int offa, int count, int distance) {
+        checkBatch(a, offa, count, distance, 1, 1);
+        batch(REAL_FORWARD, a, offa, count, distance, false);
+    }
+
+    /**
+     * Computes full 1D forward DFTs of count real signals, each laid out as
+     * for <code>realForwardFull</code> (n real values followed by space for
+     * the rest of the 2*n element result) and starting <code>distance</code>
+     * elements after the previous one. Signals are split between threads.
+     * 
+     * @param a
+     *            data to transform
+     * @param offa
+     *            index of the first element of the first signal
+     * @param count
+     *            number of signals
+     * @param distance
+     *            distance in array <code>a</code> between the first elements
+     *            of consecutive signals
+     */
+    public void realForwardFullBatch(double[] a, int offa, int count, int distance) {
+        checkBatch(a, offa, count, distance, 2, 2);
+        batch(REAL_FORWARD_FULL, a, offa, count, distance, false);
+    }
+
+    /**
+     * Computes 1D inverse DFTs of count packed real spectra, each laid out as
+     * for <code>realInverse</code> and starting <code>distance</code>
+     * elements after the previous one. Signals are split between threads.
+     * 
+     * @param a
+     *            data to transform
+     * @param offa
+     *            index of the first element of the first signal
+     * @param count
+     *            number of signals
+     * @param distance
+     *            distance in array <code>a</code> between the first elements
+     *            of consecutive signals
+     * @param scale
+     *            if true then scaling is performed
+     */
+    public void realInverseBatch(double[] a, int offa, int count, int distance, boolean scale) {
+        checkBatch(a, offa, count, distance, 1, 1);
+        batch(REAL_INVERSE, a, offa, count, distance, scale);
+    }
+
+    /**
+     * Computes the forward DFT in place of each row of a Matrix of
+     * interleaved complex values with 2*n columns.
+     */
+    public void complexForwardRows(Matrix m) {
+        checkColumns(m, 2 * n);
+        complexForwardBatch(m.data, 0, m.rowCount(), 2 * n);
+    }
+
+    /**
+     * Computes the inverse DFT in place of each row of a Matrix of
+     * interleaved complex values with 2*n columns.
+     */
+    public void complexInverseRows(Matrix m, boolean scale) {
+        checkColumns(m, 2 * n);
+        complexInverseBatch(m.data, 0, m.rowCount(), 2 * n, scale);
+    }
+
+    /**
+     * Computes the full forward DFT of each row of a real matrix with n
+     * columns.
+     * 
+     * @return A new Matrix with 2*n columns containing the interleaved complex
+     *         spectrum of each row
+     */
+    public Matrix realForwardFullRows(AMatrix m) {
+        checkColumns(m, n);
+        int rc = m.rowCount();
+        Matrix result = Matrix.create(rc, 2 * n);
+        m.getElements(result.data, 0);
+        FFT2D.spreadRows(result.data, 0, rc, n);
+        realForwardFullBatch(result.data, 0, rc, 2 * n);
+        return result;
+    }
+
+    /**
+     * Computes the real inverse DFT of each row of a Matrix of interleaved
+     * complex spectra with 2*n columns, e.g. the output of realForwardFullRows.
+     * 
+     * @return A new Matrix with n columns containing the real part of the
+     *         inverse of each row
+     */
+    public Matrix realInverseRows(AMatrix spectrum, boolean scale) {
+        checkColumns(spectrum, 2 * n);
+        int rc = spectrum.rowCount();
+        double[] data = spectrum.toDoubleArray();
+        complexInverseBatch(data, 0, rc, 2 * n, scale);
+        Matrix result = Matrix.create(rc, n);
+        double[] rd = result.data;
+        for (int i = 0; i < rc * n; i++) {
+            rd[i] = data[2 * i];
+        }
+        return result;
+    }
+
+    private static final int COMPLEX_FORWARD = 0;
+    private static final int COMPLEX_INVERSE = 1;
+    private static final int REAL_FORWARD = 2;
+    private static final int REAL_FORWARD_FULL = 3;
+    private static final int REAL_INVERSE = 4;
+
+    private void batch(final int kind, final double[] a, final int offa, int count, final int distance, final boolean scale) {
+        Parallel.forRange(0, count, FFT2D.grain(n), new Parallel.IRangeTask() {
+            @Override
+            public void run(int start, int end) {
+                for (int i = start; i < end; i++) {
+                    int off = offa + i * distance;
+                    switch (kind) {
+                    case COMPLEX_FORWARD:
+                        complexForward(a, off);
+                        break;
+                    case COMPLEX_INVERSE:
+                        complexInverse(a, off, scale);
+                        break;
+                    case REAL_FORWARD:
+                        realForward(a, off);
+                        break;
+                    case REAL_FORWARD_FULL:
+                        realForwardFull(a, off);
+                        break;
+                    default:
+                        realInverse(a, off, scale);
+                        break;
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Checks that count signals of n elements, each element spanning width array elements, fit in
+     * the array
+     */
+    private void checkBatch(double[] a, int offa, int count, int distance, int stride, int width) {
+        if (count < 0)
+            throw new IllegalArgumentException("Negative number of signals: " + count);
+        if (count == 0)
+            return;
+        long first = offa + Math.min(0L, (long) (count - 1) * distance) + Math.min(0L, (long) (n - 1) * stride);
+        long last = offa + Math.max(0L, (long) (count - 1) * distance) + Math.max(0L, (long) (n - 1) * stride) + width - 1;
+        if ((first < 0) || (last >= a.length)) {
+            throw new IllegalArgumentException("FFT batch of " + count + " signals of size " + n + " exceeds array of length " + a.length);
+        }
+    }
+
+    private static void checkColumns(AMatrix m, int cc) {
+        if (m.columnCount() != cc) {
+            throw new IllegalArgumentException(ErrorMessages.incompatibleShape(m) + ", expected " + cc + " columns");
+        }
+    }
+
+    /**
+     * Takes a Bluestein work buffer for the current thread. Only the first 2*n elements are
+     * written before the convolution, so the remainder is cleared.
+     */
+    private double[] bluesteinBuffer() {
+        double[] ak = scratch.take(2 * nBluestein);
+        Arrays.fill(ak, 2 * n, 2 * nBluestein, 0.0);
+        return ak;
+    }
+
     private static int getReminder(int n, int factors[]) {
         int reminder = n;
 
@@ -1083,219 +1527,203 @@ public class FFT {
         }
     }
 
-    private void bluestein_complex(final double[] a, final int offa, final int isign) {
-        final double[] ak = new double[2 * nBluestein];
-        {
-            if (isign > 0) {
-                for (int i = 0; i < n; i++) {
-                    int idx1 = 2 * i;
-                    int idx2 = idx1 + 1;
-                    int idx3 = offa + idx1;
-                    int idx4 = offa + idx2;
-                    ak[idx1] = a[idx3] * bk1[idx1] - a[idx4] * bk1[idx2];
-                    ak[idx2] = a[idx3] * bk1[idx2] + a[idx4] * bk1[idx1];
-                }
-            } else {
-                for (int i = 0; i < n; i++) {
-                    int idx1 = 2 * i;
-                    int idx2 = idx1 + 1;
-                    int idx3 = offa + idx1;
-                    int idx4 = offa + idx2;
-                    ak[idx1] = a[idx3] * bk1[idx1] + a[idx4] * bk1[idx2];
-                    ak[idx2] = -a[idx3] * bk1[idx2] + a[idx4] * bk1[idx1];
-                }
-            }
-
-            cftbsub(2 * nBluestein, ak, 0, ip, nw, w);
+    /**
+     * Runs a loop over [start, end) of the Bluestein chirp arrays, split between the threads used
+     * for a transform of this size.
+     */
+    private void chirpLoop(int start, int end, Parallel.IRangeTask task) {
+        int nthreads = threadsFor(n);
+        Parallel.forRange(start, end, (end - start + nthreads - 1) / nthreads, task);
+    }
 
-            if (isign > 0) {
-                for (int i = 0; i < nBluestein; i++) {
-                    int idx1 = 2 * i;
-                    int idx2 = idx1 + 1;
-                    double im = -ak[idx1] * bk2[idx2] + ak[idx2] * bk2[idx1];
-                    ak[idx1] = ak[idx1] * bk2[idx1] + ak[idx2] * bk2[idx2];
-                    ak[idx2] = im;
-                }
-            } else {
-                for (int i = 0; i < nBluestein; i++) {
-                    int idx1 = 2 * i;
-                    int idx2 = idx1 + 1;
-                    double im = ak[idx1] * bk2[idx2] + ak[idx2] * bk2[idx1];
-                    ak[idx1] = ak[idx1] * bk2[idx1] - ak[idx2] * bk2[idx2];
-                    ak[idx2] = im;
+    /**
+     * Multiplies complex elements start to end-1 of a by the chirp bk1 (conjugated if isign<0),
+     * storing the results in ak.
+     */
+    private void bluesteinInput(final double[] a, final int offa, final double[] ak, final int isign, int start, int end) {
+        chirpLoop(start, end, new Parallel.IRangeTask() {
+            @Override
+            public void run(int start, int end) {
+                if (isign > 0) {
+                    for (int i = start; i < end; i++) {
+                        int idx1 = 2 * i;
+                        int idx2 = idx1 + 1;
+                        int idx3 = offa + idx1;
+                        int idx4 = offa + idx2;
+                        ak[idx1] = a[idx3] * bk1[idx1] - a[idx4] * bk1[idx2];
+                        ak[idx2] = a[idx3] * bk1[idx2] + a[idx4] * bk1[idx1];
+                    }
+                } else {
+                    for (int i = start; i < end; i++) {
+                        int idx1 = 2 * i;
+                        int idx2 = idx1 + 1;
+                        int idx3 = offa + idx1;
+                        int idx4 = offa + idx2;
+                        ak[idx1] = a[idx3] * bk1[idx1] + a[idx4] * bk1[idx2];
+                        ak[idx2] = -a[idx3] * bk1[idx2] + a[idx4] * bk1[idx1];
+                    }
                 }
             }
+        });
+    }
 
-            cftfsub(2 * nBluestein, ak, 0, ip, nw, w);
-            if (isign > 0) {
-                for (int i = 0; i < n; i++) {
-                    int idx1 = 2 * i;
-                    int idx2 = idx1 + 1;
-                    int idx3 = offa + idx1;
-                    int idx4 = offa + idx2;
-                    a[idx3] = bk1[idx1] * ak[idx1] - bk1[idx2] * ak[idx2];
-                    a[idx4] = bk1[idx2] * ak[idx1] + bk1[idx1] * ak[idx2];
-                }
-            } else {
-                for (int i = 0; i < n; i++) {
-                    int idx1 = 2 * i;
-                    int idx2 = idx1 + 1;
-                    int idx3 = offa + idx1;
-                    int idx4 = offa + idx2;
-                    a[idx3] = bk1[idx1] * ak[idx1] + bk1[idx2] * ak[idx2];
-                    a[idx4] = -bk1[idx2] * ak[idx1] + bk1[idx1] * ak[idx2];
+    /**
+     * Multiplies the n real elements of a by the chirp bk1 (conjugated if isign<0), storing the
+     * complex results in ak.
+     */
+    private void bluesteinRealInput(final double[] a, final int offa, final double[] ak, final int isign) {
+        chirpLoop(0, n, new Parallel.IRangeTask() {
+            @Override
+            public void run(int start, int end) {
+                if (isign > 0) {
+                    for (int i = start; i < end; i++) {
+                        int idx1 = 2 * i;
+                        int idx2 = idx1 + 1;
+                        int idx3 = offa + i;
+                        ak[idx1] = a[idx3] * bk1[idx1];
+                        ak[idx2] = a[idx3] * bk1[idx2];
+                    }
+                } else {
+                    for (int i = start; i < end; i++) {
+                        int idx1 = 2 * i;
+                        int idx2 = idx1 + 1;
+                        int idx3 = offa + i;
+                        ak[idx1] = a[idx3] * bk1[idx1];
+                        ak[idx2] = -a[idx3] * bk1[idx2];
+                    }
                 }
             }
-        }
+        });
     }
 
-    private void bluestein_real_full(final double[] a, final int offa, final int isign) {
-        final double[] ak = new double[2 * nBluestein];
-         {
-            if (isign > 0) {
-                for (int i = 0; i < n; i++) {
-                    int idx1 = 2 * i;
-                    int idx2 = idx1 + 1;
-                    int idx3 = offa + i;
-                    ak[idx1] = a[idx3] * bk1[idx1];
-                    ak[idx2] = a[idx3] * bk1[idx2];
-                }
-            } else {
-                for (int i = 0; i < n; i++) {
-                    int idx1 = 2 * i;
-                    int idx2 = idx1 + 1;
-                    int idx3 = offa + i;
-                    ak[idx1] = a[idx3] * bk1[idx1];
-                    ak[idx2] = -a[idx3] * bk1[idx2];
+    /**
+     * Multiplies the transformed chirp sequence in ak by the transformed kernel bk2 (conjugated if
+     * isign>0), completing the convolution in the frequency domain.
+     */
+    private void bluesteinConvolve(final double[] ak, final int isign) {
+        chirpLoop(0, nBluestein, new Parallel.IRangeTask() {
+            @Override
+            public void run(int start, int end) {
+                if (isign > 0) {
+                    for (int i = start; i < end; i++) {
+                        int idx1 = 2 * i;
+                        int idx2 = idx1 + 1;
+                        double im = -ak[idx1] * bk2[idx2] + ak[idx2] * bk2[idx1];
+                        ak[idx1] = ak[idx1] * bk2[idx1] + ak[idx2] * bk2[idx2];
+                        ak[idx2] = im;
+                    }
+                } else {
+                    for (int i = start; i < end; i++) {
+                        int idx1 = 2 * i;
+                        int idx2 = idx1 + 1;
+                        double im = ak[idx1] * bk2[idx2] + ak[idx2] * bk2[idx1];
+                        ak[idx1] = ak[idx1] * bk2[idx1] - ak[idx2] * bk2[idx2];
+                        ak[idx2] = im;
+                    }
                 }
             }
+        });
+    }
 
-            cftbsub(2 * nBluestein, ak, 0, ip, nw, w);
-
-            if (isign > 0) {
-                for (int i = 0; i < nBluestein; i++) {
-                    int idx1 = 2 * i;
-                    int idx2 = idx1 + 1;
-                    double im = -ak[idx1] * bk2[idx2] + ak[idx2] * bk2[idx1];
-                    ak[idx1] = ak[idx1] * bk2[idx1] + ak[idx2] * bk2[idx2];
-                    ak[idx2] = im;
-                }
-            } else {
-                for (int i = 0; i < nBluestein; i++) {
-                    int idx1 = 2 * i;
-                    int idx2 = idx1 + 1;
-                    double im = ak[idx1] * bk2[idx2] + ak[idx2] * bk2[idx1];
-                    ak[idx1] = ak[idx1] * bk2[idx1] - ak[idx2] * bk2[idx2];
-                    ak[idx2] = im;
+    /**
+     * Multiplies complex elements start to end-1 of ak by the chirp bk1 (conjugated if isign<0),
+     * storing the results in a.
+     */
+    private void bluesteinOutput(final double[] ak, final double[] a, final int offa, final int isign, int start, int end) {
+        chirpLoop(start, end, new Parallel.IRangeTask() {
+            @Override
+            public void run(int start, int end) {
+                if (isign > 0) {
+                    for (int i = start; i < end; i++) {
+                        int idx1 = 2 * i;
+                        int idx2 = idx1 + 1;
+                        a[offa + idx1] = bk1[idx1] * ak[idx1] - bk1[idx2] * ak[idx2];
+                        a[offa + idx2] = bk1[idx2] * ak[idx1] + bk1[idx1] * ak[idx2];
+                    }
+                } else {
+                    for (int i = start; i < end; i++) {
+                        int idx1 = 2 * i;
+                        int idx2 = idx1 + 1;
+                        a[offa + idx1] = bk1[idx1] * ak[idx1] + bk1[idx2] * ak[idx2];
+                        a[offa + idx2] = -bk1[idx2] * ak[idx1] + bk1[idx1] * ak[idx2];
+                    }
                 }
             }
+        });
+    }
 
-            cftfsub(2 * nBluestein, ak, 0, ip, nw, w);
+    private void bluestein_complex(final double[] a, final int offa, final int isign) {
+        final double[] ak = bluesteinBuffer();
+        bluesteinInput(a, offa, ak, isign, 0, n);
+        cftbsub(2 * nBluestein, ak, 0, ip, nw, w);
+        bluesteinConvolve(ak, isign);
+        cftfsub(2 * nBluestein, ak, 0, ip, nw, w);
+        bluesteinOutput(ak, a, offa, isign, 0, n);
+        scratch.release(ak);
+    }
 
-            if (isign > 0) {
-                for (int i = 0; i < n; i++) {
-                    int idx1 = 2 * i;
-                    int idx2 = idx1 + 1;
-                    a[offa + idx1] = bk1[idx1] * ak[idx1] - bk1[idx2] * ak[idx2];
-                    a[offa + idx2] = bk1[idx2] * ak[idx1] + bk1[idx1] * ak[idx2];
-                }
-            } else {
-                for (int i = 0; i < n; i++) {
-                    int idx1 = 2 * i;
-                    int idx2 = idx1 + 1;
-                    a[offa + idx1] = bk1[idx1] * ak[idx1] + bk1[idx2] * ak[idx2];
-                    a[offa + idx2] = -bk1[idx2] * ak[idx1] + bk1[idx1] * ak[idx2];
-                }
-            }
-        }
+    private void bluestein_real_full(final double[] a, final int offa, final int isign) {
+        final double[] ak = bluesteinBuffer();
+        bluesteinRealInput(a, offa, ak, isign);
+        cftbsub(2 * nBluestein, ak, 0, ip, nw, w);
+        bluesteinConvolve(ak, isign);
+        cftfsub(2 * nBluestein, ak, 0, ip, nw, w);
+        bluesteinOutput(ak, a, offa, isign, 0, n);
+        scratch.release(ak);
     }
 
     private void bluestein_real_forward(final double[] a, final int offa) {
-        final double[] ak = new double[2 * nBluestein];
-        {
-            for (int i = 0; i < n; i++) {
-                int idx1 = 2 * i;
-                int idx2 = idx1 + 1;
-                int idx3 = offa + i;
-                ak[idx1] = a[idx3] * bk1[idx1];
-                ak[idx2] = -a[idx3] * bk1[idx2];
-            }
-
-            cftbsub(2 * nBluestein, ak, 0, ip, nw, w);
-
-            for (int i = 0; i < nBluestein; i++) {
-                int idx1 = 2 * i;
-                int idx2 = idx1 + 1;
-                double im = ak[idx1] * bk2[idx2] + ak[idx2] * bk2[idx1];
-                ak[idx1] = ak[idx1] * bk2[idx1] - ak[idx2] * bk2[idx2];
-                ak[idx2] = im;
-            }
-        }
-
+        final double[] ak = bluesteinBuffer();
+        bluesteinRealInput(a, offa, ak, -1);
+        cftbsub(2 * nBluestein, ak, 0, ip, nw, w);
+        bluesteinConvolve(ak, -1);
         cftfsub(2 * nBluestein, ak, 0, ip, nw, w);
 
         if (n % 2 == 0) {
             a[offa] = bk1[0] * ak[0] + bk1[1] * ak[1];
             a[offa + 1] = bk1[n] * ak[n] + bk1[n + 1] * ak[n + 1];
-            for (int i = 1; i < n / 2; i++) {
-                int idx1 = 2 * i;
-                int idx2 = idx1 + 1;
-                a[offa + idx1] = bk1[idx1] * ak[idx1] + bk1[idx2] * ak[idx2];
-                a[offa + idx2] = -bk1[idx2] * ak[idx1] + bk1[idx1] * ak[idx2];
-            }
+            bluesteinOutput(ak, a, offa, -1, 1, n / 2);
         } else {
             a[offa] = bk1[0] * ak[0] + bk1[1] * ak[1];
             a[offa + 1] = -bk1[n] * ak[n - 1] + bk1[n - 1] * ak[n];
-            for (int i = 1; i < (n - 1) / 2; i++) {
-                int idx1 = 2 * i;
-                int idx2 = idx1 + 1;
-                a[offa + idx1] = bk1[idx1] * ak[idx1] + bk1[idx2] * ak[idx2];
-                a[offa + idx2] = -bk1[idx2] * ak[idx1] + bk1[idx1] * ak[idx2];
-            }
+            bluesteinOutput(ak, a, offa, -1, 1, (n - 1) / 2);
             a[offa + n - 1] = bk1[n - 1] * ak[n - 1] + bk1[n] * ak[n];
         }
 
+        scratch.release(ak);
     }
 
     private void bluestein_real_inverse(final double[] a, final int offa) {
-        final double[] ak = new double[2 * nBluestein];
+        final double[] ak = bluesteinBuffer();
+        // the upper half of the spectrum is the conjugate mirror of the packed lower half
+        Parallel.IRangeTask mirror = new Parallel.IRangeTask() {
+            @Override
+            public void run(int start, int end) {
+                for (int i = start; i < end; i++) {
+                    int idx1 = 2 * i;
+                    int idx2 = idx1 + 1;
+                    int idx3 = offa + 2 * n - idx1;
+                    int idx4 = idx3 + 1;
+                    ak[idx1] = a[idx3] * bk1[idx1] + a[idx4] * bk1[idx2];
+                    ak[idx2] = a[idx3] * bk1[idx2] - a[idx4] * bk1[idx1];
+                }
+            }
+        };
         if (n % 2 == 0) {
             ak[0] = a[offa] * bk1[0];
             ak[1] = a[offa] * bk1[1];
 
-            for (int i = 1; i < n / 2; i++) {
-                int idx1 = 2 * i;
-                int idx2 = idx1 + 1;
-                int idx3 = offa + idx1;
-                int idx4 = offa + idx2;
-                ak[idx1] = a[idx3] * bk1[idx1] - a[idx4] * bk1[idx2];
-                ak[idx2] = a[idx3] * bk1[idx2] + a[idx4] * bk1[idx1];
-            }
+            bluesteinInput(a, offa, ak, 1, 1, n / 2);
 
             ak[n] = a[offa + 1] * bk1[n];
             ak[n + 1] = a[offa + 1] * bk1[n + 1];
 
-            for (int i = n / 2 + 1; i < n; i++) {
-                int idx1 = 2 * i;
-                int idx2 = idx1 + 1;
-                int idx3 = offa + 2 * n - idx1;
-                int idx4 = idx3 + 1;
-                ak[idx1] = a[idx3] * bk1[idx1] + a[idx4] * bk1[idx2];
-                ak[idx2] = a[idx3] * bk1[idx2] - a[idx4] * bk1[idx1];
-            }
-
+            chirpLoop(n / 2 + 1, n, mirror);
         } else {
             ak[0] = a[offa] * bk1[0];
             ak[1] = a[offa] * bk1[1];
 
-            for (int i = 1; i < (n - 1) / 2; i++) {
-                int idx1 = 2 * i;
-                int idx2 = idx1 + 1;
-                int idx3 = offa + idx1;
-                int idx4 = offa + idx2;
-                ak[idx1] = a[idx3] * bk1[idx1] - a[idx4] * bk1[idx2];
-                ak[idx2] = a[idx3] * bk1[idx2] + a[idx4] * bk1[idx1];
-            }
+            bluesteinInput(a, offa, ak, 1, 1, (n - 1) / 2);
 
             ak[n - 1] = a[offa + n - 1] * bk1[n - 1] - a[offa + 1] * bk1[n];
             ak[n] = a[offa + n - 1] * bk1[n] + a[offa + 1] * bk1[n - 1];
@@ -1303,81 +1731,44 @@ public class FFT {
             ak[n + 1] = a[offa + n - 1] * bk1[n + 1] + a[offa + 1] * bk1[n + 2];
             ak[n + 2] = a[offa + n - 1] * bk1[n + 2] - a[offa + 1] * bk1[n + 1];
 
-            for (int i = (n - 1) / 2 + 2; i < n; i++) {
-                int idx1 = 2 * i;
-                int idx2 = idx1 + 1;
-                int idx3 = offa + 2 * n - idx1;
-                int idx4 = idx3 + 1;
-                ak[idx1] = a[idx3] * bk1[idx1] + a[idx4] * bk1[idx2];
-                ak[idx2] = a[idx3] * bk1[idx2] - a[idx4] * bk1[idx1];
-            }
+            chirpLoop((n - 1) / 2 + 2, n, mirror);
         }
 
         cftbsub(2 * nBluestein, ak, 0, ip, nw, w);
+        bluesteinConvolve(ak, 1);
+        cftfsub(2 * nBluestein, ak, 0, ip, nw, w);
 
-        {
-            for (int i = 0; i < nBluestein; i++) {
-                int idx1 = 2 * i;
-                int idx2 = idx1 + 1;
-                double im = -ak[idx1] * bk2[idx2] + ak[idx2] * bk2[idx1];
-                ak[idx1] = ak[idx1] * bk2[idx1] + ak[idx2] * bk2[idx2];
-                ak[idx2] = im;
-            }
-
-            cftfsub(2 * nBluestein, ak, 0, ip, nw, w);
-
-            for (int i = 0; i < n; i++) {
-                int idx1 = 2 * i;
-                int idx2 = idx1 + 1;
-                a[offa + i] = bk1[idx1] * ak[idx1] - bk1[idx2] * ak[idx2];
+        chirpLoop(0, n, new Parallel.IRangeTask() {
+            @Override
+            public void run(int start, int end) {
+                for (int i = start; i < end; i++) {
+                    int idx1 = 2 * i;
+                    int idx2 = idx1 + 1;
+                    a[offa + i] = bk1[idx1] * ak[idx1] - bk1[idx2] * ak[idx2];
+                }
             }
-        }
+        });
+        scratch.release(ak);
     }
 
     private void bluestein_real_inverse2(final double[] a, final int offa) {
-        final double[] ak = new double[2 * nBluestein];
-        {
-            for (int i = 0; i < n; i++) {
-                int idx1 = 2 * i;
-                int idx2 = idx1 + 1;
-                int idx3 = offa + i;
-                ak[idx1] = a[idx3] * bk1[idx1];
-                ak[idx2] = a[idx3] * bk1[idx2];
-            }
-
-            cftbsub(2 * nBluestein, ak, 0, ip, nw, w);
-
-            for (int i = 0; i < nBluestein; i++) {
-                int idx1 = 2 * i;
-                int idx2 = idx1 + 1;
-                double im = -ak[idx1] * bk2[idx2] + ak[idx2] * bk2[idx1];
-                ak[idx1] = ak[idx1] * bk2[idx1] + ak[idx2] * bk2[idx2];
-                ak[idx2] = im;
-            }
-        }
-
+        final double[] ak = bluesteinBuffer();
+        bluesteinRealInput(a, offa, ak, 1);
+        cftbsub(2 * nBluestein, ak, 0, ip, nw, w);
+        bluesteinConvolve(ak, 1);
         cftfsub(2 * nBluestein, ak, 0, ip, nw, w);
 
         if (n % 2 == 0) {
             a[offa] = bk1[0] * ak[0] - bk1[1] * ak[1];
             a[offa + 1] = bk1[n] * ak[n] - bk1[n + 1] * ak[n + 1];
-            for (int i = 1; i < n / 2; i++) {
-                int idx1 = 2 * i;
-                int idx2 = idx1 + 1;
-                a[offa + idx1] = bk1[idx1] * ak[idx1] - bk1[idx2] * ak[idx2];
-                a[offa + idx2] = bk1[idx2] * ak[idx1] + bk1[idx1] * ak[idx2];
-            }
+            bluesteinOutput(ak, a, offa, 1, 1, n / 2);
         } else {
             a[offa] = bk1[0] * ak[0] - bk1[1] * ak[1];
             a[offa + 1] = bk1[n] * ak[n - 1] + bk1[n - 1] * ak[n];
-            for (int i = 1; i < (n - 1) / 2; i++) {
-                int idx1 = 2 * i;
-                int idx2 = idx1 + 1;
-                a[offa + idx1] = bk1[idx1] * ak[idx1] - bk1[idx2] * ak[idx2];
-                a[offa + idx2] = bk1[idx2] * ak[idx1] + bk1[idx1] * ak[idx2];
-            }
+            bluesteinOutput(ak, a, offa, 1, 1, (n - 1) / 2);
             a[offa + n - 1] = bk1[n - 1] * ak[n - 1] - bk1[n] * ak[n];
         }
+        scratch.release(ak);
     }
 
     /*---------------------------------------------------------
@@ -1388,7 +1779,7 @@ public class FFT {
             return;
         int l1, l2, na, kh, nf, ip, iw, ido, idl1;
 
-        final double[] ch = new double[n];
+        final double[] ch = scratch.take(n);
         final int twon = 2 * n;
         nf = (int) wtable_r[1 + twon];
         na = 1;
@@ -1445,9 +1836,9 @@ public class FFT {
             }
             l2 = l1;
         }
-        if (na == 1)
-            return;
-        System.arraycopy(ch, 0, a, offa, n);
+        if (na != 1)
+            System.arraycopy(ch, 0, a, offa, n);
+        scratch.release(ch);
     }
 
     /*---------------------------------------------------------
@@ -1458,7 +1849,7 @@ public class FFT {
             return;
         int l1, l2, na, nf, ip, iw, ido, idl1;
 
-        double[] ch = new double[n];
+        double[] ch = scratch.take(n);
         final int twon = 2 * n;
         nf = (int) wtable_r[1 + twon];
         na = 0;
@@ -1515,9 +1906,9 @@ public class FFT {
             l1 = l2;
             iw += (ip - 1) * ido;
         }
-        if (na == 0)
-            return;
-        System.arraycopy(ch, 0, a, offa, n);
+        if (na != 0)
+            System.arraycopy(ch, 0, a, offa, n);
+        scratch.release(ch);
     }
 
     /*-------------------------------------------------
@@ -2987,7 +3378,7 @@ public class FFT {
         final int twon = 2 * n;
 
         int iw1, iw2;
-        double[] ch = new double[twon];
+        double[] ch = scratch.take(twon);
 
         iw1 = twon;
         iw2 = 4 * n;
@@ -3048,10 +3439,9 @@ public class FFT {
             l1 = l2;
             iw += (ip - 1) * idot;
         }
-        if (na == 0)
-            return;
-        System.arraycopy(ch, 0, a, offa, twon);
-
+        if (na != 0)
+            System.arraycopy(ch, 0, a, offa, twon);
+        scratch.release(ch);
     }
 
     /*----------------------------------------------------------------------
@@ -3665,7 +4055,9 @@ public class FFT {
         if (n > 8) {
             if (n > 32) {
                 cftf1st(n, a, offa, w, nw - (n >> 2));
-                if (n > 512) {
+                if ((n > 512) && (threadsFor(n >> 1) > 1)) {
+                    cftrec4_th(n, a, offa, nw, w);
+                } else if (n > 512) {
                     cftrec4(n, a, offa, nw, w);
                 } else if (n > 128) {
                     cftleaf(n, 1, a, offa, nw, w);
@@ -3691,7 +4083,9 @@ public class FFT {
         if (n > 8) {
             if (n > 32) {
                 cftb1st(n, a, offa, w, nw - (n >> 2));
-                if (n > 512) {
+                if ((n > 512) && (threadsFor(n >> 1) > 1)) {
+                    cftrec4_th(n, a, offa, nw, w);
+                } else if (n > 512) {
                     cftrec4(n, a, offa, nw, w);
                 } else if (n > 128) {
                     cftleaf(n, 1, a, offa, nw, w);
@@ -5154,6 +5548,73 @@ public class FFT {
         a[idx3 + 3] = wk3i * x0i - wk3r * x0r;
     }
 
+    /**
+     * Concurrent version of cftrec4, splitting the recursion into 2 or 4 independent subtrees
+     */
+    private void cftrec4_th(final int n, final double[] a, final int offa, final int nw, final double[] w) {
+        int nthreads = threadsFor(n >> 1);
+        int idiv4 = 0;
+        int m = n >> 1;
+        if (nthreads >= 4) {
+            nthreads = 4;
+            idiv4 = 1;
+            m >>= 1;
+        } else {
+            nthreads = 2;
+        }
+        final int mf = m;
+        Runnable[] tasks = new Runnable[nthreads];
+        for (int i = 0; i < nthreads; i++) {
+            final int firstIdx = offa + i * mf;
+            if (i != idiv4) {
+                tasks[i] = new Runnable() {
+                    @Override
+                    public void run() {
+                        int isplt, j, k, m;
+                        int idx1 = firstIdx + mf;
+                        m = n;
+                        while (m > 512) {
+                            m >>= 2;
+                            cftmdl1(m, a, idx1 - m, w, nw - (m >> 1));
+                        }
+                        cftleaf(m, 1, a, idx1 - m, nw, w);
+                        k = 0;
+                        int idx2 = firstIdx - m;
+                        for (j = mf - m; j > 0; j -= m) {
+                            k++;
+                            isplt = cfttree(m, j, k, a, firstIdx, nw, w);
+                            cftleaf(m, isplt, a, idx2 + j, nw, w);
+                        }
+                    }
+                };
+            } else {
+                tasks[i] = new Runnable() {
+                    @Override
+                    public void run() {
+                        int isplt, j, k, m;
+                        int idx1 = firstIdx + mf;
+                        k = 1;
+                        m = n;
+                        while (m > 512) {
+                            m >>= 2;
+                            k <<= 2;
+                            cftmdl2(m, a, idx1 - m, w, nw - m);
+                        }
+                        cftleaf(m, 0, a, idx1 - m, nw, w);
+                        k >>= 1;
+                        int idx2 = firstIdx - m;
+                        for (j = mf - m; j > 0; j -= m) {
+                            k++;
+                            isplt = cfttree(m, j, k, a, firstIdx, nw, w);
+                            cftleaf(m, isplt, a, idx2 + j, nw, w);
+                        }
+                    }
+                };
+            }
+        }
+        Parallel.runAll(tasks);
+    }
+
     private void cftrec4(int n, double[] a, int offa, int nw, double[] w) {
         int isplt, j, k, m;
 
@@ -6131,6 +6592,116 @@ public class FFT {
         }
     }
 
+    /**
+     * Returns true if this mixed radix transform is large enough to use the parallel four-step
+     * decomposition
+     */
+    private boolean useFourStep() {
+        if (threadsFor(n) <= 1)
+            return false;
+        if (fft1 == null)
+            initFourStep();
+        return n1 > 1;
+    }
+
+    /**
+     * Chooses n = n1*n2 with n1 the largest divisor of n not exceeding sqrt(n), and creates the
+     * sub-transforms and the table of n-th roots of unity.
+     */
+    private synchronized void initFourStep() {
+        if (fft1 != null)
+            return;
+        int f = 1;
+        for (int d = (int) Math.sqrt(n); d > 1; d--) {
+            if (n % d == 0) {
+                f = d;
+                break;
+            }
+        }
+        if (f > 1) {
+            double[] tw = new double[2 * n];
+            for (int i = 0; i < n; i++) {
+                double arg = TWO_PI * i / n;
+                tw[2 * i] = Math.cos(arg);
+                tw[2 * i + 1] = Math.sin(arg);
+            }
+            twiddle = tw;
+            fft2 = getPlan(n / f);
+        }
+        n1 = f;
+        fft1 = (f > 1) ? getPlan(f) : this;
+    }
+
+    /**
+     * Computes an unscaled complex transform with the four-step algorithm. The data is viewed as
+     * an n1 x n2 matrix: columns are transformed, multiplied by twiddle factors, rows are
+     * transformed and the result is transposed. Each step is split between threads.
+     */
+    private void fourStep(final double[] a, final int offa, final int isign) {
+        final int rows = n1;
+        final int cols = n / n1;
+        final boolean forward = isign < 0;
+        FFT2D.columnPass(fft1, a, offa, 0, 1, rows, cols, forward, false);
+
+        // multiply element (k1, j2) by exp(isign*2*pi*i*j2*k1/n)
+        final double[] tw = twiddle;
+        Parallel.forRange(1, rows, FFT2D.grain(cols), new Parallel.IRangeTask() {
+            @Override
+            public void run(int start, int end) {
+                for (int k1 = start; k1 < end; k1++) {
+                    int idx = offa + 2 * k1 * cols;
+                    int t = 0;
+                    for (int j2 = 0; j2 < cols; j2++) {
+                        double wr = tw[2 * t];
+                        double wi = isign * tw[2 * t + 1];
+                        double re = a[idx + 2 * j2];
+                        double im = a[idx + 2 * j2 + 1];
+                        a[idx + 2 * j2] = re * wr - im * wi;
+                        a[idx + 2 * j2 + 1] = re * wi + im * wr;
+                        t += k1;
+                        if (t >= n)
+                            t -= n;
+                    }
+                }
+            }
+        });
+
+        if (forward) {
+            fft2.complexForwardBatch(a, offa, rows, 2 * cols);
+        } else {
+            fft2.complexInverseBatch(a, offa, rows, 2 * cols, false);
+        }
+
+        // element (k1, k2) is output k1 + n1*k2, so transpose into the result
+        final double[] t = scratch.take(2 * n);
+        System.arraycopy(a, offa, t, 0, 2 * n);
+        Parallel.forRange(0, cols, FFT2D.grain(rows), new Parallel.IRangeTask() {
+            @Override
+            public void run(int start, int end) {
+                for (int k2 = start; k2 < end; k2++) {
+                    int dst = offa + 2 * k2 * rows;
+                    for (int k1 = 0; k1 < rows; k1++) {
+                        int src = 2 * (k1 * cols + k2);
+                        a[dst + 2 * k1] = t[src];
+                        a[dst + 2 * k1 + 1] = t[src + 1];
+                    }
+                }
+            }
+        });
+        scratch.release(t);
+    }
+
+    /**
+     * Converts n real values at the start of a[offa..] into n interleaved complex values with zero
+     * imaginary parts
+     */
+    private void spreadReal(double[] a, int offa) {
+        for (int i = n - 1; i >= 0; i--) {
+            a[offa + 2 * i] = a[offa + i];
+            a[offa + 2 * i + 1] = 0;
+        }
+    }
+
     private void scale(final double m, final double[] a, int offa, boolean complex) {
         final double norm = (1.0 / m);
         int n2;
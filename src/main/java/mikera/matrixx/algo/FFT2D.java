@@ -0,0 +1,236 @@
+package mikera.matrixx.algo;
+
+import mikera.matrixx.AMatrix;
+import mikera.matrixx.Matrix;
+import mikera.vectorz.util.ErrorMessages;
+import mikera.vectorz.util.Parallel;
+
+/**
+ * Computes 2D Discrete Fourier Transforms of complex and real data stored in dense row-major arrays.
+ *
+ * Complex data is interleaved, so a rows x columns complex matrix is stored as a rows x (2*columns)
+ * array with a[r*2*columns+2*c] = Re[r,c] and a[r*2*columns+2*c+1] = Im[r,c]. All transforms
+ * operate in place.
+ *
+ * The transform is computed with the row-column method. Rows are transformed directly in the array.
+ * Columns are gathered in blocks into a small transposed buffer, transformed there and scattered back,
+ * so that the array is always traversed along its rows. Both passes are split between threads for
+ * large arrays.
+ *
+ * @author Mike
+ */
+public class FFT2D {
+	// number of complex columns gathered into a contiguous buffer in each column pass
+	static final int COLUMN_BLOCK=16;
+
+	// minimum number of complex elements transformed by each parallel task
+	static final int PARALLEL_GRAIN=1<<15;
+
+	// per-thread buffers for gathered signals
+	private static final Scratch BUFFERS=new Scratch();
+
+	private final int rows;
+	private final int columns;
+
+	private final FFT rowFFT;
+	private final FFT columnFFT;
+
+	public FFT2D(int rows, int columns) {
+		if ((rows<1)||(columns<1)) throw new IllegalArgumentException("FFT dimensions must be positive, got: "+rows+"x"+columns);
+		this.rows=rows;
+		this.columns=columns;
+		this.rowFFT=FFT.getPlan(columns);
+		this.columnFFT=FFT.getPlan(rows);
+	}
+
+	/**
+	 * Computes the 2D forward DFT of complex data in place.
+	 *
+	 * @param a Interleaved complex data of length 2*rows*columns
+	 */
+	public void complexForward(double[] a) {
+		checkLength(a,2*rows*columns);
+		rowFFT.complexForwardBatch(a,0,rows,2*columns);
+		columnPass(columnFFT,a,0,0,1,rows,columns,true,false);
+	}
+
+	/**
+	 * Computes the 2D inverse DFT of complex data in place.
+	 *
+	 * @param a Interleaved complex data of length 2*rows*columns
+	 * @param scale If true, the result is scaled by 1/(rows*columns)
+	 */
+	public void complexInverse(double[] a, boolean scale) {
+		checkLength(a,2*rows*columns);
+		rowFFT.complexInverseBatch(a,0,rows,2*columns,scale);
+		columnPass(columnFFT,a,0,0,1,rows,columns,false,scale);
+	}
+
+	/**
+	 * Computes the 2D forward DFT of real data in place, giving the full complex spectrum.
+	 *
+	 * @param a Array of length 2*rows*columns. On input the first rows*columns elements contain
+	 * the real data in row-major order. On output it contains the interleaved complex spectrum.
+	 */
+	public void realForwardFull(double[] a) {
+		checkLength(a,2*rows*columns);
+		spreadRows(a,0,rows,columns);
+		rowFFT.realForwardFullBatch(a,0,rows,2*columns);
+		columnPass(columnFFT,a,0,0,1,rows,columns,true,false);
+	}
+
+	/**
+	 * Computes the 2D inverse DFT of a complex spectrum whose inverse is known to be real, e.g.
+	 * the output of realForwardFull.
+	 *
+	 * @param a Interleaved complex data of length 2*rows*columns. On output the first rows*columns
+	 * elements contain the real result in row-major order.
+	 * @param scale If true, the result is scaled by 1/(rows*columns)
+	 */
+	public void realInverse(double[] a, boolean scale) {
+		complexInverse(a,scale);
+		int n=rows*columns;
+		for (int i=0; i<n; i++) {
+			a[i]=a[2*i];
+		}
+	}
+
+	/**
+	 * Computes the 2D forward DFT in place of a complex matrix stored as a rows x (2*columns)
+	 * Matrix of interleaved values.
+	 */
+	public void complexForward(Matrix m) {
+		checkShape(m,rows,2*columns);
+		complexForward(m.data);
+	}
+
+	/**
+	 * Computes the 2D inverse DFT in place of a complex matrix stored as a rows x (2*columns)
+	 * Matrix of interleaved values.
+	 */
+	public void complexInverse(Matrix m, boolean scale) {
+		checkShape(m,rows,2*columns);
+		complexInverse(m.data,scale);
+	}
+
+	/**
+	 * Computes the 2D forward DFT of a real rows x columns matrix.
+	 *
+	 * @return A new rows x (2*columns) Matrix containing the interleaved complex spectrum
+	 */
+	public Matrix realForwardFull(AMatrix m) {
+		checkShape(m,rows,columns);
+		Matrix result=Matrix.create(rows, 2*columns);
+		m.getElements(result.data, 0);
+		realForwardFull(result.data);
+		return result;
+	}
+
+	/**
+	 * Computes the real 2D inverse DFT of a complex spectrum stored as a rows x (2*columns) matrix
+	 * of interleaved values.
+	 *
+	 * @return A new rows x columns Matrix containing the real result
+	 */
+	public Matrix realInverse(AMatrix spectrum, boolean scale) {
+		checkShape(spectrum,rows,2*columns);
+		double[] a=spectrum.toDoubleArray();
+		realInverse(a,scale);
+		Matrix result=Matrix.create(rows, columns);
+		System.arraycopy(a, 0, result.data, 0, rows*columns);
+		return result;
+	}
+
+	private static void checkShape(AMatrix m, int rc, int cc) {
+		if ((m.rowCount()!=rc)||(m.columnCount()!=cc)) {
+			throw new IllegalArgumentException(ErrorMessages.incompatibleShape(m)+", expected "+rc+"x"+cc);
+		}
+	}
+
+	static void checkLength(double[] a, int length) {
+		if (a.length<length) throw new IllegalArgumentException("FFT data array too short, needs length "+length+" but was: "+a.length);
+	}
+
+	/**
+	 * Number of independent transforms of length n to group into each parallel task
+	 */
+	static int grain(int n) {
+		return Math.max(1, PARALLEL_GRAIN/n);
+	}
+
+	/**
+	 * Moves count rows of n real values, packed from offset, to the start of consecutive rows of
+	 * length 2*n. Rows are moved last first so that no data is overwritten.
+	 */
+	static void spreadRows(double[] a, int offset, int count, int n) {
+		for (int r=count-1; r>0; r--) {
+			System.arraycopy(a, offset+r*n, a, offset+2*r*n, n);
+		}
+	}
+
+	/**
+	 * Transforms the columns of a sequence of planes, each an nrows x ncols complex matrix,
+	 * starting at offset and spaced planeStride elements apart.
+	 */
+	static void columnPass(FFT fft, double[] a, int offset, int planeStride, int planes,
+			int nrows, int ncols, boolean forward, boolean scale) {
+		stridedPass(fft,a,offset,planeStride,planes,ncols,2,2*ncols,forward,scale);
+	}
+
+	/**
+	 * Transforms count strided complex signals in each of a sequence of planes spaced planeStride
+	 * elements apart. Element k of signal j in a plane starting at base has its real part at
+	 * a[base+j*distance+k*stride].
+	 *
+	 * Signals are processed in blocks of COLUMN_BLOCK: each block is gathered element by element
+	 * into a per-thread buffer holding one contiguous signal per transform, then scattered back
+	 * after transformation. When signals are adjacent (e.g. matrix columns) this traverses the
+	 * array along its rows.
+	 */
+	static void stridedPass(final FFT fft, final double[] a, final int offset, final int planeStride, int planes,
+			final int count, final int distance, final int stride, final boolean forward, final boolean scale) {
+		final int n=fft.size();
+		final int blocks=(count+COLUMN_BLOCK-1)/COLUMN_BLOCK;
+		final int clen=2*n;
+		Parallel.forRange(0, planes*blocks, grain(n*COLUMN_BLOCK), new Parallel.IRangeTask() {
+			@Override
+			public void run(int start, int end) {
+				double[] buf=BUFFERS.take(clen*COLUMN_BLOCK);
+				for (int t=start; t<end; t++) {
+					int c0=(t%blocks)*COLUMN_BLOCK;
+					int base=offset+(t/blocks)*planeStride+c0*distance;
+					int w=Math.min(COLUMN_BLOCK, count-c0);
+
+					// gather
+					for (int k=0; k<n; k++) {
+						int src=base+k*stride;
+						for (int j=0; j<w; j++) {
+							int dst=j*clen+2*k;
+							buf[dst]=a[src+j*distance];
+							buf[dst+1]=a[src+j*distance+1];
+						}
+					}
+
+					for (int j=0; j<w; j++) {
+						if (forward) {
+							fft.complexForward(buf, j*clen);
+						} else {
+							fft.complexInverse(buf, j*clen, scale);
+						}
+					}
+
+					// scatter
+					for (int k=0; k<n; k++) {
+						int dst=base+k*stride;
+						for (int j=0; j<w; j++) {
+							int src=j*clen+2*k;
+							a[dst+j*distance]=buf[src];
+							a[dst+j*distance+1]=buf[src+1];
+						}
+					}
+				}
+				BUFFERS.release(buf);
+			}
+		});
+	}
+}
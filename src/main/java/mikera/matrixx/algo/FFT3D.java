@@ -0,0 +1,148 @@
+package mikera.matrixx.algo;
+
+import java.util.Arrays;
+
+import mikera.arrayz.Array;
+import mikera.arrayz.INDArray;
+import mikera.vectorz.util.ErrorMessages;
+
+/**
+ * Computes 3D Discrete Fourier Transforms of complex and real data stored in dense row-major arrays.
+ *
+ * Complex data is interleaved along the last dimension, so a slices x rows x columns complex array
+ * is stored as a slices x rows x (2*columns) array. All transforms operate in place.
+ *
+ * Each dimension is transformed in turn: the last dimension as contiguous rows, the other two as
+ * blocked column passes over the data (see FFT2D). All passes are split between threads for large
+ * arrays.
+ *
+ * @author Mike
+ */
+public class FFT3D {
+	private final int slices;
+	private final int rows;
+	private final int columns;
+
+	private final FFT sliceFFT;
+	private final FFT rowFFT;
+	private final FFT columnFFT;
+
+	public FFT3D(int slices, int rows, int columns) {
+		if ((slices<1)||(rows<1)||(columns<1)) throw new IllegalArgumentException("FFT dimensions must be positive, got: "+slices+"x"+rows+"x"+columns);
+		this.slices=slices;
+		this.rows=rows;
+		this.columns=columns;
+		this.columnFFT=FFT.getPlan(columns);
+		this.rowFFT=FFT.getPlan(rows);
+		this.sliceFFT=FFT.getPlan(slices);
+	}
+
+	/**
+	 * Computes the 3D forward DFT of complex data in place.
+	 *
+	 * @param a Interleaved complex data of length 2*slices*rows*columns
+	 */
+	public void complexForward(double[] a) {
+		FFT2D.checkLength(a,2*slices*rows*columns);
+		columnFFT.complexForwardBatch(a,0,slices*rows,2*columns);
+		transformLeadingDimensions(a,true,false);
+	}
+
+	/**
+	 * Computes the 3D inverse DFT of complex data in place.
+	 *
+	 * @param a Interleaved complex data of length 2*slices*rows*columns
+	 * @param scale If true, the result is scaled by 1/(slices*rows*columns)
+	 */
+	public void complexInverse(double[] a, boolean scale) {
+		FFT2D.checkLength(a,2*slices*rows*columns);
+		columnFFT.complexInverseBatch(a,0,slices*rows,2*columns,scale);
+		transformLeadingDimensions(a,false,scale);
+	}
+
+	/**
+	 * Computes the 3D forward DFT of real data in place, giving the full complex spectrum.
+	 *
+	 * @param a Array of length 2*slices*rows*columns. On input the first slices*rows*columns elements
+	 * contain the real data in row-major order. On output it contains the interleaved complex spectrum.
+	 */
+	public void realForwardFull(double[] a) {
+		FFT2D.checkLength(a,2*slices*rows*columns);
+		FFT2D.spreadRows(a,0,slices*rows,columns);
+		columnFFT.realForwardFullBatch(a,0,slices*rows,2*columns);
+		transformLeadingDimensions(a,true,false);
+	}
+
+	/**
+	 * Computes the 3D inverse DFT of a complex spectrum whose inverse is known to be real, e.g.
+	 * the output of realForwardFull.
+	 *
+	 * @param a Interleaved complex data of length 2*slices*rows*columns. On output the first
+	 * slices*rows*columns elements contain the real result in row-major order.
+	 * @param scale If true, the result is scaled by 1/(slices*rows*columns)
+	 */
+	public void realInverse(double[] a, boolean scale) {
+		complexInverse(a,scale);
+		int n=slices*rows*columns;
+		for (int i=0; i<n; i++) {
+			a[i]=a[2*i];
+		}
+	}
+
+	/**
+	 * Computes the 3D forward DFT in place of a complex array stored as a slices x rows x (2*columns)
+	 * Array of interleaved values.
+	 */
+	public void complexForward(Array a) {
+		checkShape(a,slices,rows,2*columns);
+		complexForward(a.getArray());
+	}
+
+	/**
+	 * Computes the 3D inverse DFT in place of a complex array stored as a slices x rows x (2*columns)
+	 * Array of interleaved values.
+	 */
+	public void complexInverse(Array a, boolean scale) {
+		checkShape(a,slices,rows,2*columns);
+		complexInverse(a.getArray(),scale);
+	}
+
+	/**
+	 * Computes the 3D forward DFT of a real slices x rows x columns array.
+	 *
+	 * @return A new slices x rows x (2*columns) Array containing the interleaved complex spectrum
+	 */
+	public Array realForwardFull(INDArray a) {
+		checkShape(a,slices,rows,columns);
+		double[] data=new double[2*slices*rows*columns];
+		a.getElements(data, 0);
+		realForwardFull(data);
+		return Array.wrap(data, slices, rows, 2*columns);
+	}
+
+	/**
+	 * Computes the real 3D inverse DFT of a complex spectrum stored as a slices x rows x (2*columns)
+	 * array of interleaved values.
+	 *
+	 * @return A new slices x rows x columns Array containing the real result
+	 */
+	public Array realInverse(INDArray spectrum, boolean scale) {
+		checkShape(spectrum,slices,rows,2*columns);
+		double[] data=spectrum.toDoubleArray();
+		realInverse(data,scale);
+		return Array.wrap(Arrays.copyOf(data, slices*rows*columns), slices, rows, columns);
+	}
+
+	private void transformLeadingDimensions(double[] a, boolean forward, boolean scale) {
+		// columns within each slice
+		FFT2D.columnPass(rowFFT,a,0,2*rows*columns,slices,rows,columns,forward,scale);
+		// treat the array as a slices x (rows*columns) matrix and transform its columns
+		FFT2D.columnPass(sliceFFT,a,0,0,1,slices,rows*columns,forward,scale);
+	}
+
+	private static void checkShape(INDArray a, int s, int r, int c) {
+		if ((a.dimensionality()!=3)||(a.getShape(0)!=s)||(a.getShape(1)!=r)||(a.getShape(2)!=c)) {
+			throw new IllegalArgumentException(ErrorMessages.incompatibleShape(a)+", expected "+s+"x"+r+"x"+c);
+		}
+	}
+}
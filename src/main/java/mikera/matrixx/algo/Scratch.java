@@ -0,0 +1,31 @@
+package mikera.matrixx.algo;
+
+/**
+ * Per-thread cache of a reusable double[] work buffer.
+ *
+ * A buffer is removed from the cache while it is in use and put back when released, so a thread
+ * that re-enters the same code (e.g. by stealing another fork/join task while waiting) simply gets
+ * a fresh buffer rather than sharing one that is still in use.
+ *
+ * @author Mike
+ */
+final class Scratch {
+	private final ThreadLocal<double[]> local=new ThreadLocal<double[]>();
+
+	/**
+	 * Takes a buffer of at least the given length. Contents are undefined.
+	 */
+	double[] take(int length) {
+		double[] buf=local.get();
+		if ((buf==null)||(buf.length<length)) return new double[length];
+		local.set(null);
+		return buf;
+	}
+
+	/**
+	 * Returns a buffer to the cache of the current thread for later reuse.
+	 */
+	void release(double[] buf) {
+		local.set(buf);
+	}
+}
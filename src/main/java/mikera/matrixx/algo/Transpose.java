@@ -0,0 +1,190 @@
+package mikera.matrixx.algo;
+
+import mikera.vectorz.util.Parallel;
+import mikera.vectorz.util.ParallelArrays;
+
+/**
+ * Cache-oblivious transpose kernels for dense double[] storage.
+ *
+ * The copying transpose recursively halves the larger of the two dimensions until a block fits
+ * comfortably in L1 cache, so that both the reads and the writes of each block stay in cache
+ * regardless of the matrix size or the cache sizes of the machine. Large transposes are split
+ * into blocks of source columns that run in parallel.
+ *
+ * @author Mike
+ *
+ */
+public class Transpose {
+
+	private Transpose(){}
+
+	// maximum number of elements in a base case block, about 8kb of doubles
+	private static final int BLOCK_ELEMENTS=1024;
+
+	/**
+	 * Writes the transpose of a strided rows x cols source matrix to a destination matrix with
+	 * the given row stride, i.e. sets dest[destOffset+j*destStride+i] to the element (i,j) of the
+	 * source, which is at src[srcOffset+i*rowStride+j*colStride].
+	 *
+	 * Runs in parallel for large matrices. The source and destination must not overlap.
+	 */
+	public static void transpose(final double[] src, final int srcOffset, final int rowStride, final int colStride,
+			final int rows, final int cols, final double[] dest, final int destOffset, final int destStride) {
+		long n=((long)rows)*cols;
+		if ((n<ParallelArrays.getParallelThreshold())||(Parallel.THREADS<=1)) {
+			transposeBlock(src,srcOffset,rowStride,colStride,rows,cols,dest,destOffset,destStride);
+			return;
+		}
+		// split the destination into blocks of rows, i.e. blocks of source columns
+		int grain=Math.max(1, ParallelArrays.getParallelThreshold()/Math.max(1, rows));
+		Parallel.forRange(0, cols, grain, new Parallel.IRangeTask() {
+			@Override
+			public void run(int start, int end) {
+				transposeBlock(src,srcOffset+start*colStride,rowStride,colStride,rows,end-start,dest,destOffset+start*destStride,destStride);
+			}
+		});
+	}
+
+	/**
+	 * Transposes a packed row major rows x cols matrix into a packed row major cols x rows matrix
+	 */
+	public static void transpose(double[] src, int srcOffset, int rows, int cols, double[] dest, int destOffset) {
+		transpose(src,srcOffset,cols,1,rows,cols,dest,destOffset,rows);
+	}
+
+	/**
+	 * Single threaded cache-oblivious transpose, recursively halving the larger dimension
+	 */
+	private static void transposeBlock(double[] src, int srcOffset, int rowStride, int colStride,
+			int rows, int cols, double[] dest, int destOffset, int destStride) {
+		while (((long)rows)*cols>BLOCK_ELEMENTS) {
+			if (rows>=cols) {
+				int h=rows>>>1;
+				transposeBlock(src,srcOffset,rowStride,colStride,h,cols,dest,destOffset,destStride);
+				srcOffset+=h*rowStride;
+				destOffset+=h;
+				rows-=h;
+			} else {
+				int h=cols>>>1;
+				transposeBlock(src,srcOffset,rowStride,colStride,rows,h,dest,destOffset,destStride);
+				srcOffset+=h*colStride;
+				destOffset+=h*destStride;
+				cols-=h;
+			}
+		}
+		for (int i=0; i<rows; i++) {
+			int si=srcOffset+i*rowStride;
+			int di=destOffset+i;
+			for (int j=0; j<cols; j++) {
+				dest[di+j*destStride]=src[si+j*colStride];
+			}
+		}
+	}
+
+	/**
+	 * Transposes a square n x n matrix in place, where element (i,j) is at data[offset+i*stride+j].
+	 *
+	 * Diagonal blocks are transposed in place recursively, and each pair of blocks mirrored
+	 * across the diagonal is swapped with a cache-oblivious transposing swap.
+	 */
+	public static void transposeInPlace(double[] data, int offset, int stride, int n) {
+		if (n<=32) {
+			for (int i=0; i<n; i++) {
+				int ri=offset+i*stride;
+				for (int j=i+1; j<n; j++) {
+					int a=ri+j;
+					int b=offset+j*stride+i;
+					double t=data[a];
+					data[a]=data[b];
+					data[b]=t;
+				}
+			}
+			return;
+		}
+		int h=n>>>1;
+		transposeInPlace(data,offset,stride,h);
+		transposeInPlace(data,offset+h*stride+h,stride,n-h);
+		swapTransposed(data,offset+h,offset+h*stride,stride,h,n-h);
+	}
+
+	/**
+	 * Swaps the rows x cols block at offset a with the transpose of the cols x rows block at
+	 * offset b, both with the given row stride
+	 */
+	private static void swapTransposed(double[] data, int a, int b, int stride, int rows, int cols) {
+		while (((long)rows)*cols>BLOCK_ELEMENTS) {
+			if (rows>=cols) {
+				int h=rows>>>1;
+				swapTransposed(data,a,b,stride,h,cols);
+				a+=h*stride;
+				b+=h;
+				rows-=h;
+			} else {
+				int h=cols>>>1;
+				swapTransposed(data,a,b,stride,rows,h);
+				a+=h;
+				b+=h*stride;
+				cols-=h;
+			}
+		}
+		for (int i=0; i<rows; i++) {
+			int ai=a+i*stride;
+			int bi=b+i;
+			for (int j=0; j<cols; j++) {
+				int bj=bi+j*stride;
+				double t=data[ai+j];
+				data[ai+j]=data[bj];
+				data[bj]=t;
+			}
+		}
+	}
+
+	/**
+	 * Copies an N-dimensional strided array to strided destination storage, recursively halving
+	 * the largest dimension so that both reads and writes of each block stay in cache. Used for
+	 * transposes of arrays with more than two dimensions, where the destination strides are a
+	 * permutation of the natural strides of the result.
+	 */
+	public static void copyStrided(double[] src, int srcOffset, int[] srcStrides,
+			double[] dest, int destOffset, int[] destStrides, int[] shape) {
+		int dims=shape.length;
+		if (dims==0) {
+			dest[destOffset]=src[srcOffset];
+			return;
+		}
+		long n=1;
+		int big=-1;
+		for (int i=0; i<dims; i++) {
+			n*=shape[i];
+			if ((big<0)||(shape[i]>shape[big])) big=i;
+		}
+		if (n==0) return;
+		if ((n<=BLOCK_ELEMENTS)||(shape[big]<=1)) {
+			copyBlock(src,srcOffset,srcStrides,dest,destOffset,destStrides,shape,0);
+			return;
+		}
+		int size=shape[big];
+		int h=size>>>1;
+		int[] s=shape.clone();
+		s[big]=h;
+		copyStrided(src,srcOffset,srcStrides,dest,destOffset,destStrides,s);
+		s[big]=size-h;
+		copyStrided(src,srcOffset+h*srcStrides[big],srcStrides,dest,destOffset+h*destStrides[big],destStrides,s);
+	}
+
+	private static void copyBlock(double[] src, int srcOffset, int[] srcStrides,
+			double[] dest, int destOffset, int[] destStrides, int[] shape, int dim) {
+		int n=shape[dim];
+		int ss=srcStrides[dim];
+		int ds=destStrides[dim];
+		if (dim==shape.length-1) {
+			for (int i=0; i<n; i++) {
+				dest[destOffset+i*ds]=src[srcOffset+i*ss];
+			}
+		} else {
+			for (int i=0; i<n; i++) {
+				copyBlock(src,srcOffset+i*ss,srcStrides,dest,destOffset+i*ds,destStrides,shape,dim+1);
+			}
+		}
+	}
+}
@@ -1,6 +1,9 @@
 package mikera.matrixx.decompose;
 
 import mikera.matrixx.AMatrix;
+import mikera.matrixx.decompose.impl.eigen.ArnoldiEigenDecomposition;
+import mikera.matrixx.decompose.impl.eigen.GeneralEigenDecomposition;
+import mikera.matrixx.decompose.impl.eigen.LanczosEigenDecomposition;
 import mikera.matrixx.decompose.impl.eigen.SymmetricQRAlgorithmDecomposition;
 
 public class Eigen {
@@ -11,15 +14,24 @@ public class Eigen {
 	 * decomposition fails.
 	 * </p>
 	 * 
+	 * <p>
+	 * Symmetric matrices are decomposed with the symmetric QR algorithm. Other
+	 * matrices are reduced to Hessenberg form and decomposed with the Francis
+	 * double-shift QR algorithm, in which case eigenvalues may be complex and
+	 * eigenvectors are only computed for real eigenvalues.
+	 * </p>
+	 * 
 	 * @param A
-	 *            The input matrix. It must be a square symmetric matrix.
+	 *            The input matrix. It must be a square matrix.
 	 * @param computeVectors
 	 *            Should it compute the eigenvectors or just eigenvalues.
 	 * @return an IEigenResult object that represents the solution to the
 	 *         decomposition.
 	 */
 	public static IEigenResult decompose(AMatrix A, boolean computeVectors) {
-		throw new java.lang.UnsupportedOperationException("This has not yet been implemented");
+		if (A.isSymmetric()) return decomposeSymmetric(A, computeVectors);
+		GeneralEigenDecomposition alg = new GeneralEigenDecomposition(computeVectors);
+		return alg.decompose(A);
 	}
 
 	/**
@@ -30,7 +42,7 @@ public class Eigen {
 	 * </p>
 	 * 
 	 * @param A
-	 *            The input matrix. It must be a square symmetric matrix.
+	 *            The input matrix. It must be a square matrix.
 	 * @return an IEigenResult object that represents the solution to the
 	 *         decomposition.
 	 */
@@ -72,4 +84,47 @@ public class Eigen {
 	public static IEigenResult decomposeSymmetric(AMatrix A) {
 		return decomposeSymmetric(A, true);
 	}
+
+	/**
+	 * <p>
+	 * Computes a few eigenvalues and eigenvectors of a real symmetric matrix using the
+	 * implicitly restarted Lanczos method. Only matrix-vector products with A are required,
+	 * so this is efficient for large sparse matrices. Returns null if the decomposition fails
+	 * to converge.
+	 * </p>
+	 * 
+	 * @param A
+	 *            The input matrix. It must be a square symmetric matrix.
+	 * @param k
+	 *            The number of eigenvalues to compute
+	 * @param largest
+	 *            If true, computes the algebraically largest eigenvalues, otherwise the smallest
+	 * @return an IEigenResult object containing the k eigenvalues in order, with their eigenvectors.
+	 */
+	public static IEigenResult decomposeSymmetric(AMatrix A, int k, boolean largest) {
+		LanczosEigenDecomposition alg = new LanczosEigenDecomposition(largest);
+		return alg.decompose(A, k);
+	}
+
+	/**
+	 * <p>
+	 * Computes a few eigenvalues and eigenvectors of a real square matrix using the
+	 * implicitly restarted Arnoldi method. Only matrix-vector products with A are required,
+	 * so this is efficient for large sparse matrices. Returns null if the decomposition fails
+	 * to converge.
+	 * </p>
+	 * 
+	 * @param A
+	 *            The input matrix. It must be square.
+	 * @param k
+	 *            The number of eigenvalues to compute
+	 * @param largest
+	 *            If true, computes the eigenvalues of largest magnitude, otherwise the smallest
+	 * @return an IEigenResult object containing the k eigenvalues in order. Eigenvectors are
+	 *         computed for real eigenvalues only.
+	 */
+	public static IEigenResult decompose(AMatrix A, int k, boolean largest) {
+		ArnoldiEigenDecomposition alg = new ArnoldiEigenDecomposition(largest);
+		return alg.decompose(A, k);
+	}
 }
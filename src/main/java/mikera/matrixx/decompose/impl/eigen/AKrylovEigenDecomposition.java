@@ -0,0 +1,433 @@
+package mikera.matrixx.decompose.impl.eigen;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import mikera.matrixx.AMatrix;
+import mikera.vectorz.AVector;
+import mikera.vectorz.Vector;
+import mikera.vectorz.Vector2;
+import mikera.vectorz.util.DoubleArrays;
+
+/**
+ * Abstract base class for implicitly restarted Krylov subspace eigensolvers.
+ *
+ * Computes a small number k of eigenpairs of an n x n matrix using only matrix-vector
+ * products, so the matrix may be sparse or otherwise implicitly represented. The working
+ * memory is an orthonormal basis of m vectors (m is a small multiple of k), i.e. O(n.m)
+ * rather than the O(n^2) required for a dense decomposition.
+ *
+ * After each m step factorisation A.V = V.H + f.e^T, the unwanted Ritz values are used as
+ * shifts for QR steps on the small projected matrix H, compressing the factorisation to
+ * length k while retaining the wanted spectral information (Sorensen, 1992).
+ *
+ * @author Mike
+ */
+public abstract class AKrylovEigenDecomposition {
+
+	public static final double EPS = Math.pow(2,-52);
+
+	// seed for start vector, so that results are reproducible
+	private static final long SEED=0x5eed1a2c0fL;
+
+	// the matrix being decomposed
+	protected AMatrix A;
+
+	// size of the matrix
+	protected int n;
+
+	// number of wanted eigenvalues
+	protected int k;
+
+	// maximum dimension of the Krylov subspace
+	protected int m;
+
+	// if true, want eigenvalues from the top end of the ordering, else from the bottom end
+	protected final boolean largest;
+
+	// orthonormal basis vectors, with an extra slot for the residual direction
+	protected double[][] V;
+
+	// projected matrix, stored as a dense m x m row major array
+	protected double[] H;
+
+	// norm of residual vector after an m step factorisation
+	protected double beta;
+
+	// Ritz values and vectors of the projected matrix
+	protected double[] ritzRe;
+	protected double[] ritzIm;
+	protected double[] ritzVectors;
+
+	private int maxRestarts=300;
+	private double tolerance=1e-10;
+	private int subspaceSize=-1;
+
+	private Random random;
+	private double[] temp;
+
+	protected AKrylovEigenDecomposition(boolean largest) {
+		this.largest=largest;
+	}
+
+	/**
+	 * Sets the maximum number of restarts performed before the decomposition is deemed to have failed
+	 * @param max
+	 */
+	public void setMaxRestarts(int max) {
+		this.maxRestarts=max;
+	}
+
+	/**
+	 * Sets the relative tolerance used for the convergence test of Ritz pairs
+	 * @param tolerance
+	 */
+	public void setTolerance(double tolerance) {
+		this.tolerance=tolerance;
+	}
+
+	/**
+	 * Sets the size of the Krylov subspace. Must be greater than the number of wanted eigenvalues.
+	 * If not set, a default of max(2k+1,20) is used.
+	 * @param m
+	 */
+	public void setSubspaceSize(int m) {
+		this.subspaceSize=m;
+	}
+
+	/**
+	 * Computes k eigenvalues of the given matrix, together with associated eigenvectors.
+	 *
+	 * @param A A square matrix. Not modified.
+	 * @param k Number of eigenvalues required
+	 * @return The eigen decomposition result, or null if the decomposition failed to converge
+	 */
+	public EigenResult decompose(AMatrix A, int k) {
+		int n=A.checkSquare();
+		if ((k<1)||(k>n)) throw new IllegalArgumentException("Number of eigenvalues must be in range 1.."+n+", got: "+k);
+		this.A=A;
+		this.n=n;
+		this.k=k;
+		this.m=Math.min(n, (subspaceSize>0)?Math.max(subspaceSize,k+1):Math.max(2*k+1, 20));
+
+		V=new double[m+1][];
+		for (int i=0; i<=m; i++) {
+			V[i]=new double[n];
+		}
+		H=new double[m*m];
+		ritzRe=new double[m];
+		ritzIm=new double[m];
+		ritzVectors=new double[m*m];
+		temp=new double[m+1];
+		random=new Random(SEED);
+
+		startVector(V[0],0);
+		int start=0;
+
+		for (int restart=0; restart<=maxRestarts; restart++) {
+			if (!extend(start)) return null;
+			if (!computeRitzPairs(m)) return null;
+			int[] order=sortedOrder(m);
+			int nconv=convergedCount(order);
+			if ((m==n)||(nconv==k)) return result(order);
+
+			// keep extra Ritz vectors as wanted ones converge, as in ARPACK. Without this the
+			// iteration can stagnate when the k-th and (k+1)-th eigenvalues are close together
+			int kk=k+Math.min(nconv, (m-k)/2);
+			// don't split complex conjugate pairs between wanted and unwanted sets
+			if ((ritzIm[order[kk-1]]!=0)&&(kk<m-1)&&(ritzIm[order[kk]]==-ritzIm[order[kk-1]])) {
+				kk++;
+			}
+			// no room left to restart, and the unconverged pairs must not be reported as results
+			if (kk>=m) return null;
+
+			double[] Q=applyShifts(order,kk);
+			compress(Q,kk);
+			start=kk;
+		}
+		return null;
+	}
+
+	/**
+	 * Orthogonalises w against the first j+1 basis vectors, updating column j of H.
+	 * @param j Index of the basis vector used to compute w=A.v_j
+	 * @param w The new vector, orthogonalised in place
+	 */
+	protected abstract void orthogonalize(int j, double[] w);
+
+	/**
+	 * Computes Ritz values and vectors for the leading size x size block of H,
+	 * storing the results in ritzRe, ritzIm and ritzVectors.
+	 * @return true if successful
+	 */
+	protected abstract boolean computeRitzPairs(int size);
+
+	/**
+	 * Compares two Ritz values in order of preference
+	 */
+	protected abstract int compareRitzValues(double aRe, double aIm, double bRe, double bIm);
+
+	/**
+	 * Extends the Arnoldi factorisation from length start to length m
+	 */
+	private boolean extend(int start) {
+		for (int j=start; j<m; j++) {
+			double[] w=V[j+1];
+			A.transform(Vector.wrap(V[j]), Vector.wrap(w));
+			double anorm=Math.sqrt(DoubleArrays.elementSquaredSum(w));
+			orthogonalize(j,w);
+			double b=Math.sqrt(DoubleArrays.elementSquaredSum(w));
+			if (b<=EPS*anorm) {
+				// invariant subspace found, so continue with a fresh orthogonal direction
+				b=0.0;
+				if (j+1<n) {
+					if (!startVector(w,j+1)) return false;
+				}
+			} else {
+				DoubleArrays.multiply(w, 1.0/b);
+			}
+			if (j+1<m) {
+				H[(j+1)*m+j]=b;
+			} else {
+				beta=b;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Generates a random unit vector orthogonal to the first count basis vectors
+	 */
+	private boolean startVector(double[] w, int count) {
+		for (int attempt=0; attempt<5; attempt++) {
+			for (int i=0; i<n; i++) {
+				w[i]=random.nextDouble()-0.5;
+			}
+			for (int pass=0; pass<2; pass++) {
+				for (int i=0; i<count; i++) {
+					double d=DoubleArrays.dotProduct(V[i], 0, w, 0, n);
+					DoubleArrays.addMultiple(w, 0, V[i], 0, n, -d);
+				}
+			}
+			double norm=Math.sqrt(DoubleArrays.elementSquaredSum(w));
+			if (norm>EPS) {
+				DoubleArrays.multiply(w, 1.0/norm);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Modified Gram-Schmidt with a second pass for reorthogonalisation of w against v_0..v_j.
+	 * Accumulates projection coefficients into column j of H if store is true.
+	 */
+	protected void gramSchmidt(int j, double[] w, boolean store) {
+		for (int pass=0; pass<2; pass++) {
+			for (int i=0; i<=j; i++) {
+				double d=DoubleArrays.dotProduct(V[i], 0, w, 0, n);
+				DoubleArrays.addMultiple(w, 0, V[i], 0, n, -d);
+				if (store) H[i*m+j]+=d;
+			}
+		}
+	}
+
+	private int[] sortedOrder(int size) {
+		Integer[] ix=new Integer[size];
+		for (int i=0; i<size; i++) ix[i]=i;
+		Arrays.sort(ix, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return compareRitzValues(ritzRe[a],ritzIm[a],ritzRe[b],ritzIm[b]);
+			}
+		});
+		int[] result=new int[size];
+		for (int i=0; i<size; i++) result[i]=ix[i];
+		return result;
+	}
+
+	/**
+	 * Gets the absolute value of a component of a (possibly complex) Ritz vector of the projected matrix
+	 */
+	private double ritzVectorNorm(int ix, int row) {
+		double re=ritzVectors[row*m+ix];
+		if (ritzIm[ix]==0) return Math.abs(re);
+		int reCol=(ritzIm[ix]>0)?ix:(ix-1);
+		return Math.hypot(ritzVectors[row*m+reCol], ritzVectors[row*m+reCol+1]);
+	}
+
+	/**
+	 * Counts the wanted Ritz pairs that satisfy the convergence test
+	 */
+	private int convergedCount(int[] order) {
+		int count=0;
+		for (int i=0; i<k; i++) {
+			int ix=order[i];
+			double ynorm=0.0;
+			for (int r=0; r<m; r++) {
+				double c=ritzVectorNorm(ix,r);
+				ynorm+=c*c;
+			}
+			ynorm=Math.sqrt(ynorm);
+			double resid=Math.abs(beta)*ritzVectorNorm(ix,m-1)/ynorm;
+			double scale=Math.max(Math.hypot(ritzRe[ix], ritzIm[ix]), Math.pow(EPS, 2.0/3.0));
+			if (resid<=tolerance*scale) count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Applies the unwanted Ritz values as shifts to H using explicit QR steps.
+	 * @return the accumulated m x m orthogonal matrix Q
+	 */
+	private double[] applyShifts(int[] order, int kk) {
+		double[] Q=new double[m*m];
+		for (int i=0; i<m; i++) Q[i*m+i]=1.0;
+		double[] M=new double[m*m];
+		double[] u=new double[3];
+
+		for (int s=kk; s<m; s++) {
+			int ix=order[s];
+			double re=ritzRe[ix];
+			double im=ritzIm[ix];
+			int band;
+			if (im==0) {
+				// single real shift: M = H - re.I
+				System.arraycopy(H, 0, M, 0, m*m);
+				for (int i=0; i<m; i++) M[i*m+i]-=re;
+				band=1;
+			} else {
+				// complex conjugate pair: M = H^2 - 2.re.H + |shift|^2.I
+				for (int i=0; i<m; i++) {
+					for (int j=0; j<m; j++) {
+						double acc=0.0;
+						int lo=Math.max(0, i-1);
+						int hi=Math.min(m-1, j+1);
+						for (int t=lo; t<=hi; t++) {
+							acc+=H[i*m+t]*H[t*m+j];
+						}
+						M[i*m+j]=acc-2.0*re*H[i*m+j];
+					}
+					M[i*m+i]+=re*re+im*im;
+				}
+				band=2;
+				s++; // conjugate partner consumed by same step
+			}
+
+			// Householder QR of M, applying each reflector as a similarity transform to H
+			for (int j=0; j<m-1; j++) {
+				int len=Math.min(band+1, m-j);
+				double norm=0.0;
+				for (int t=0; t<len; t++) {
+					u[t]=M[(j+t)*m+j];
+					norm+=u[t]*u[t];
+				}
+				norm=Math.sqrt(norm);
+				if (norm==0.0) continue;
+				double alpha=(u[0]>0)?-norm:norm;
+				u[0]-=alpha;
+				double unorm2=0.0;
+				for (int t=0; t<len; t++) unorm2+=u[t]*u[t];
+				if (unorm2==0.0) continue;
+				double gamma=2.0/unorm2;
+
+				applyLeft(M, j, len, u, gamma, j);
+				applyLeft(H, j, len, u, gamma, 0);
+				applyRight(H, j, len, u, gamma);
+				applyRight(Q, j, len, u, gamma);
+			}
+
+			// restore exact Hessenberg structure
+			for (int i=2; i<m; i++) {
+				for (int j=0; j<i-1; j++) {
+					H[i*m+j]=0.0;
+				}
+			}
+		}
+		return Q;
+	}
+
+	private void applyLeft(double[] X, int j, int len, double[] u, double gamma, int colStart) {
+		for (int c=colStart; c<m; c++) {
+			double d=0.0;
+			for (int t=0; t<len; t++) d+=u[t]*X[(j+t)*m+c];
+			d*=gamma;
+			for (int t=0; t<len; t++) X[(j+t)*m+c]-=d*u[t];
+		}
+	}
+
+	private void applyRight(double[] X, int j, int len, double[] u, double gamma) {
+		for (int r=0; r<m; r++) {
+			int o=r*m+j;
+			double d=0.0;
+			for (int t=0; t<len; t++) d+=u[t]*X[o+t];
+			d*=gamma;
+			for (int t=0; t<len; t++) X[o+t]-=d*u[t];
+		}
+	}
+
+	/**
+	 * Compresses the factorisation to length kk after shifts have been applied,
+	 * updating the basis as V.Q and computing the new residual vector
+	 */
+	private void compress(double[] Q, int kk) {
+		double hk=H[kk*m+kk-1];
+		double sigma=Q[(m-1)*m+kk-1];
+
+		// V[0..kk] = V[0..m-1] * Q[:,0..kk], computed one row of V at a time
+		for (int i=0; i<n; i++) {
+			for (int c=0; c<=kk; c++) {
+				double acc=0.0;
+				for (int r=0; r<m; r++) {
+					acc+=V[r][i]*Q[r*m+c];
+				}
+				temp[c]=acc;
+			}
+			for (int c=0; c<=kk; c++) {
+				V[c][i]=temp[c];
+			}
+		}
+
+		// new residual f = V[kk]*hk + beta*v_m*sigma
+		double[] f=V[kk];
+		DoubleArrays.multiply(f, hk);
+		DoubleArrays.addMultiple(f, 0, V[m], 0, n, beta*sigma);
+		for (int i=0; i<m; i++) {
+			for (int j=0; j<m; j++) {
+				if ((i>=kk)||(j>=kk)) H[i*m+j]=0.0;
+			}
+		}
+
+		gramSchmidt(kk-1, f, false);
+		double b=Math.sqrt(DoubleArrays.elementSquaredSum(f));
+		if (b<=EPS) {
+			b=0.0;
+			startVector(f,kk);
+		} else {
+			DoubleArrays.multiply(f, 1.0/b);
+		}
+		H[kk*m+kk-1]=b;
+	}
+
+	private EigenResult result(int[] order) {
+		Vector2[] values=new Vector2[k];
+		AVector[] vectors=new AVector[k];
+		for (int i=0; i<k; i++) {
+			int ix=order[i];
+			values[i]=new Vector2(ritzRe[ix],ritzIm[ix]);
+			if (ritzIm[ix]!=0) continue;
+
+			Vector x=Vector.createLength(n);
+			double[] xd=x.getArray();
+			for (int r=0; r<m; r++) {
+				double y=ritzVectors[r*m+ix];
+				if (y!=0.0) DoubleArrays.addMultiple(xd, 0, V[r], 0, n, y);
+			}
+			double norm=x.magnitude();
+			if (norm>0) x.divide(norm);
+			vectors[i]=x;
+		}
+		return new EigenResult(values,vectors);
+	}
+}
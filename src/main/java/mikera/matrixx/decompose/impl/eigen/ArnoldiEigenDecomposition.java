@@ -0,0 +1,58 @@
+package mikera.matrixx.decompose.impl.eigen;
+
+import mikera.matrixx.Matrix;
+
+/**
+ * Implicitly restarted Arnoldi algorithm for computing a few eigenpairs of a large real
+ * non-symmetric matrix.
+ *
+ * The projected upper Hessenberg matrix is solved with the Francis double-shift QR algorithm,
+ * so Ritz values may be complex. Eigenvalues are ordered by magnitude, either largest first or
+ * smallest first. Eigenvectors are only returned for real eigenvalues.
+ *
+ * @author Mike
+ */
+public class ArnoldiEigenDecomposition extends AKrylovEigenDecomposition {
+
+	/**
+	 * Creates an Arnoldi decomposition
+	 * @param largest If true, computes the eigenvalues of largest magnitude, otherwise the smallest
+	 */
+	public ArnoldiEigenDecomposition(boolean largest) {
+		super(largest);
+	}
+
+	@Override
+	protected void orthogonalize(int j, double[] w) {
+		gramSchmidt(j,w,true);
+	}
+
+	@Override
+	protected boolean computeRitzPairs(int size) {
+		Matrix Hm=Matrix.create(size,size);
+		for (int i=0; i<size; i++) {
+			System.arraycopy(H, i*m, Hm.data, i*size, size);
+		}
+		Matrix Y=Matrix.createIdentity(size);
+		HessenbergQRAlgorithm alg=new HessenbergQRAlgorithm(Hm,Y);
+		if (!alg.process()) return false;
+		alg.computeEigenvectors();
+		System.arraycopy(alg.getRealEigenvalues(), 0, ritzRe, 0, size);
+		System.arraycopy(alg.getImaginaryEigenvalues(), 0, ritzIm, 0, size);
+		for (int i=0; i<size; i++) {
+			System.arraycopy(Y.data, i*size, ritzVectors, i*m, size);
+		}
+		return true;
+	}
+
+	@Override
+	protected int compareRitzValues(double aRe, double aIm, double bRe, double bIm) {
+		int c=Double.compare(Math.hypot(aRe, aIm), Math.hypot(bRe, bIm));
+		if (largest) c=-c;
+		if (c!=0) return c;
+		// keep complex conjugate pairs adjacent, positive imaginary part first
+		c=Double.compare(bRe, aRe);
+		if (c!=0) return c;
+		return Double.compare(bIm, aIm);
+	}
+}
@@ -0,0 +1,81 @@
+package mikera.matrixx.decompose.impl.eigen;
+
+import mikera.matrixx.AMatrix;
+import mikera.matrixx.Matrix;
+import mikera.matrixx.decompose.impl.hessenberg.HessenbergResult;
+import mikera.matrixx.decompose.impl.hessenberg.HessenbergSimilarDecomposition;
+import mikera.vectorz.AVector;
+import mikera.vectorz.Vector;
+import mikera.vectorz.Vector2;
+
+/**
+ * Computes the eigenvalues and eigenvectors of a general real square matrix.
+ *
+ * The matrix is first reduced to upper Hessenberg form with a similarity transform, then the
+ * Francis double-shift QR algorithm is used to find the real Schur form. Eigenvalues are returned
+ * as (real, imaginary) pairs, with complex conjugate pairs in consecutive positions. Eigenvectors
+ * are computed by back-substitution and normalised to unit length. Following the IEigenResult
+ * contract, eigenvectors are only returned for real eigenvalues.
+ *
+ * When eigenvectors are not required, the orthogonal matrix of the Hessenberg reduction is never
+ * formed and each QR sweep only updates the active unreduced block of the matrix.
+ *
+ * @author Mike
+ */
+public class GeneralEigenDecomposition {
+
+	// should it compute eigenvectors or just eigenvalues
+	private final boolean computeVectors;
+
+	private int maxIterations=30;
+
+	public GeneralEigenDecomposition(boolean computeVectors) {
+		this.computeVectors=computeVectors;
+	}
+
+	/**
+	 * Sets the maximum number of QR sweeps per matrix row before the decomposition fails.
+	 *
+	 * @param max
+	 */
+	public void setMaxIterations(int max) {
+		this.maxIterations=max;
+	}
+
+	/**
+	 * Decomposes the matrix.
+	 *
+	 * @param A The matrix which is being decomposed. Not modified.
+	 * @return The decomposition result, or null if the QR algorithm failed to converge
+	 */
+	public EigenResult decompose(AMatrix A) {
+		int n=A.checkSquare();
+
+		HessenbergResult hr=HessenbergSimilarDecomposition.decompose(A, computeVectors);
+		Matrix H=hr.getH().toMatrix();
+		Matrix V=computeVectors?hr.getQ().toMatrix():null;
+
+		HessenbergQRAlgorithm alg=new HessenbergQRAlgorithm(H,V);
+		alg.setMaxIterations(maxIterations);
+		if (!alg.process()) return null;
+
+		double[] wr=alg.getRealEigenvalues();
+		double[] wi=alg.getImaginaryEigenvalues();
+		Vector2[] values=new Vector2[n];
+		for (int i=0; i<n; i++) {
+			values[i]=new Vector2(wr[i],wi[i]);
+		}
+		if (!computeVectors) return new EigenResult(values);
+
+		alg.computeEigenvectors();
+		AVector[] vectors=new AVector[n];
+		for (int i=0; i<n; i++) {
+			if (wi[i]!=0) continue;
+			Vector x=V.getColumn(i).toVector();
+			double norm=x.magnitude();
+			if (norm>0) x.divide(norm);
+			vectors[i]=x;
+		}
+		return new EigenResult(values,vectors);
+	}
+}
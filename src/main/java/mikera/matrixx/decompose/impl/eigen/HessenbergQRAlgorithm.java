@@ -0,0 +1,495 @@
+package mikera.matrixx.decompose.impl.eigen;
+
+import java.util.Arrays;
+
+import mikera.matrixx.Matrix;
+
+/**
+ * Francis double-shift QR algorithm for real upper Hessenberg matrices.
+ *
+ * Reduces an upper Hessenberg matrix H to real Schur form in place, producing the
+ * (possibly complex) eigenvalues as pairs of real and imaginary parts. If an
+ * accumulation matrix V is supplied, all orthogonal transformations are applied to it
+ * and eigenvectors may subsequently be computed by back-substitution.
+ *
+ * Complex conjugate eigenvalue pairs are stored in consecutive positions, with the
+ * positive imaginary part first. The eigenvectors for such a pair are stored in the
+ * corresponding columns of V as the real and imaginary parts of the first eigenvector.
+ *
+ * Based on the public domain JAMA implementation, which is in turn derived from the
+ * EISPACK routine hqr2.
+ *
+ * @author Mike
+ */
+public class HessenbergQRAlgorithm {
+	public static final double EPS = Math.pow(2,-52);
+
+	// number of rows and columns in H
+	private final int n;
+
+	// data for upper Hessenberg matrix, modified in place
+	private final double[] h;
+
+	// accumulated transformations, or null if not required
+	private final double[] v;
+
+	// real and imaginary parts of eigenvalues
+	private final double[] wr;
+	private final double[] wi;
+
+	// maximum number of QR sweeps per matrix row before giving up
+	private int maxIterations=30;
+
+	// norm of the original matrix, used as a scale for convergence tests
+	private double norm;
+
+	// results of complex division
+	private double cdivr, cdivi;
+
+	/**
+	 * Creates a QR algorithm instance operating on the given upper Hessenberg matrix.
+	 *
+	 * @param H Upper Hessenberg matrix. Modified in place to real Schur form.
+	 * @param V Matrix to accumulate transformations into, typically the identity or the
+	 *          orthogonal matrix from a Hessenberg reduction. May be null if eigenvectors
+	 *          are not required.
+	 */
+	public HessenbergQRAlgorithm(Matrix H, Matrix V) {
+		n=H.checkSquare();
+		if ((V!=null)&&((V.rowCount()!=n)||(V.columnCount()!=n))) {
+			throw new IllegalArgumentException("Accumulation matrix must have same shape as H");
+		}
+		h=H.data;
+		v=(V==null)?null:V.data;
+		wr=new double[n];
+		wi=new double[n];
+	}
+
+	/**
+	 * Sets the maximum number of QR sweeps performed per row of the matrix.
+	 *
+	 * @param max
+	 */
+	public void setMaxIterations(int max) {
+		this.maxIterations=max;
+	}
+
+	public double[] getRealEigenvalues() {
+		return wr;
+	}
+
+	public double[] getImaginaryEigenvalues() {
+		return wi;
+	}
+
+	/**
+	 * Reduces H to real Schur form, computing all eigenvalues.
+	 *
+	 * If no accumulation matrix was supplied, only the active unreduced block of H is updated
+	 * at each step, which is considerably faster but leaves H in an incomplete Schur form.
+	 *
+	 * @return true if the algorithm converged, false otherwise
+	 */
+	public boolean process() {
+		int nn=n;
+		int n=nn-1;
+		double exshift=0.0;
+		double p=0,q=0,r=0,s=0,z=0,w,x,y;
+
+		norm=0.0;
+		for (int i=0; i<nn; i++) {
+			for (int j=Math.max(i-1,0); j<nn; j++) {
+				norm+=Math.abs(h[i*nn+j]);
+			}
+		}
+
+		int iter=0;
+		int totalIter=0;
+		int iterLimit=maxIterations*Math.max(nn,1);
+		while (n>=0) {
+			// look for single small sub-diagonal element
+			int l=n;
+			while (l>0) {
+				s=Math.abs(h[(l-1)*nn+l-1])+Math.abs(h[l*nn+l]);
+				if (s==0.0) s=norm;
+				if (Math.abs(h[l*nn+l-1])<EPS*s) break;
+				l--;
+			}
+
+			if (l==n) {
+				// one root found
+				h[n*nn+n]+=exshift;
+				wr[n]=h[n*nn+n];
+				wi[n]=0.0;
+				n--;
+				iter=0;
+			} else if (l==n-1) {
+				// two roots found
+				w=h[n*nn+n-1]*h[(n-1)*nn+n];
+				p=(h[(n-1)*nn+n-1]-h[n*nn+n])/2.0;
+				q=p*p+w;
+				z=Math.sqrt(Math.abs(q));
+				h[n*nn+n]+=exshift;
+				h[(n-1)*nn+n-1]+=exshift;
+				x=h[n*nn+n];
+
+				if (q>=0) {
+					// real pair
+					z=(p>=0)?(p+z):(p-z);
+					wr[n-1]=x+z;
+					wr[n]=wr[n-1];
+					if (z!=0.0) wr[n]=x-w/z;
+					wi[n-1]=0.0;
+					wi[n]=0.0;
+					// the standardising rotation only matters for the Schur form
+					if (v==null) {
+						n=n-2;
+						iter=0;
+						continue;
+					}
+
+					x=h[n*nn+n-1];
+					s=Math.abs(x)+Math.abs(z);
+					p=x/s;
+					q=z/s;
+					r=Math.sqrt(p*p+q*q);
+					p=p/r;
+					q=q/r;
+
+					// row modification
+					for (int j=n-1; j<nn; j++) {
+						z=h[(n-1)*nn+j];
+						h[(n-1)*nn+j]=q*z+p*h[n*nn+j];
+						h[n*nn+j]=q*h[n*nn+j]-p*z;
+					}
+
+					// column modification
+					for (int i=0; i<=n; i++) {
+						z=h[i*nn+n-1];
+						h[i*nn+n-1]=q*z+p*h[i*nn+n];
+						h[i*nn+n]=q*h[i*nn+n]-p*z;
+					}
+
+					// accumulate transformations
+					if (v!=null) {
+						for (int i=0; i<nn; i++) {
+							z=v[i*nn+n-1];
+							v[i*nn+n-1]=q*z+p*v[i*nn+n];
+							v[i*nn+n]=q*v[i*nn+n]-p*z;
+						}
+					}
+				} else {
+					// complex pair
+					wr[n-1]=x+p;
+					wr[n]=x+p;
+					wi[n-1]=z;
+					wi[n]=-z;
+				}
+				n=n-2;
+				iter=0;
+			} else {
+				// no convergence yet
+				if (totalIter++>iterLimit) return false;
+
+				// form shift
+				x=h[n*nn+n];
+				y=0.0;
+				w=0.0;
+				if (l<n) {
+					y=h[(n-1)*nn+n-1];
+					w=h[n*nn+n-1]*h[(n-1)*nn+n];
+				}
+
+				// Wilkinson's original ad hoc shift
+				if (iter==10) {
+					exshift+=x;
+					for (int i=0; i<=n; i++) {
+						h[i*nn+i]-=x;
+					}
+					s=Math.abs(h[n*nn+n-1])+Math.abs(h[(n-1)*nn+n-2]);
+					x=y=0.75*s;
+					w=-0.4375*s*s;
+				}
+
+				// MATLAB's ad hoc shift
+				if (iter==30) {
+					s=(y-x)/2.0;
+					s=s*s+w;
+					if (s>0) {
+						s=Math.sqrt(s);
+						if (y<x) s=-s;
+						s=x-w/((y-x)/2.0+s);
+						for (int i=0; i<=n; i++) {
+							h[i*nn+i]-=s;
+						}
+						exshift+=s;
+						x=y=w=0.964;
+					}
+				}
+
+				iter++;
+
+				// look for two consecutive small sub-diagonal elements
+				int m=n-2;
+				while (m>=l) {
+					z=h[m*nn+m];
+					r=x-z;
+					s=y-z;
+					p=(r*s-w)/h[(m+1)*nn+m]+h[m*nn+m+1];
+					q=h[(m+1)*nn+m+1]-z-r-s;
+					r=h[(m+2)*nn+m+1];
+					s=Math.abs(p)+Math.abs(q)+Math.abs(r);
+					p=p/s;
+					q=q/s;
+					r=r/s;
+					if (m==l) break;
+					if (Math.abs(h[m*nn+m-1])*(Math.abs(q)+Math.abs(r))<
+						EPS*(Math.abs(p)*(Math.abs(h[(m-1)*nn+m-1])+Math.abs(z)+Math.abs(h[(m+1)*nn+m+1])))) {
+						break;
+					}
+					m--;
+				}
+
+				for (int i=m+2; i<=n; i++) {
+					h[i*nn+i-2]=0.0;
+					if (i>m+2) h[i*nn+i-3]=0.0;
+				}
+
+				// if only eigenvalues are wanted, updates can be restricted to the active block l:n
+				int jmax=(v!=null)?nn:(n+1);
+				int imin=(v!=null)?0:l;
+
+				// double QR step involving rows l:n and columns m:n
+				for (int k=m; k<=n-1; k++) {
+					boolean notlast=(k!=n-1);
+					if (k!=m) {
+						p=h[k*nn+k-1];
+						q=h[(k+1)*nn+k-1];
+						r=(notlast?h[(k+2)*nn+k-1]:0.0);
+						x=Math.abs(p)+Math.abs(q)+Math.abs(r);
+						if (x==0.0) continue;
+						p=p/x;
+						q=q/x;
+						r=r/x;
+					}
+
+					s=Math.sqrt(p*p+q*q+r*r);
+					if (p<0) s=-s;
+					if (s!=0) {
+						if (k!=m) {
+							h[k*nn+k-1]=-s*x;
+						} else if (l!=m) {
+							h[k*nn+k-1]=-h[k*nn+k-1];
+						}
+						p=p+s;
+						x=p/s;
+						y=q/s;
+						z=r/s;
+						q=q/p;
+						r=r/p;
+
+						// row modification
+						for (int j=k; j<jmax; j++) {
+							p=h[k*nn+j]+q*h[(k+1)*nn+j];
+							if (notlast) {
+								p=p+r*h[(k+2)*nn+j];
+								h[(k+2)*nn+j]-=p*z;
+							}
+							h[k*nn+j]-=p*x;
+							h[(k+1)*nn+j]-=p*y;
+						}
+
+						// column modification
+						int imax=Math.min(n,k+3);
+						for (int i=imin; i<=imax; i++) {
+							p=x*h[i*nn+k]+y*h[i*nn+k+1];
+							if (notlast) {
+								p=p+z*h[i*nn+k+2];
+								h[i*nn+k+2]-=p*r;
+							}
+							h[i*nn+k]-=p;
+							h[i*nn+k+1]-=p*q;
+						}
+
+						// accumulate transformations
+						if (v!=null) {
+							for (int i=0; i<nn; i++) {
+								p=x*v[i*nn+k]+y*v[i*nn+k+1];
+								if (notlast) {
+									p=p+z*v[i*nn+k+2];
+									v[i*nn+k+2]-=p*r;
+								}
+								v[i*nn+k]-=p;
+								v[i*nn+k+1]-=p*q;
+							}
+						}
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Computes eigenvectors by back-substitution on the real Schur form, and transforms them
+	 * using the accumulated transformations in V. Must be called after a successful call to process().
+	 *
+	 * On completion, column j of V contains the eigenvector for the real eigenvalue j, or the
+	 * real and imaginary parts of a complex eigenvector in columns j and j+1 for a complex
+	 * conjugate pair. Eigenvectors are not normalised.
+	 */
+	public void computeEigenvectors() {
+		if (v==null) throw new IllegalStateException("No accumulation matrix provided");
+		int nn=n;
+		double p,q,r=0,s=0,t,w,x,y,z=0;
+		if (norm==0.0) return;
+
+		for (int n=nn-1; n>=0; n--) {
+			p=wr[n];
+			q=wi[n];
+
+			if (q==0) {
+				// real vector
+				int l=n;
+				h[n*nn+n]=1.0;
+				for (int i=n-1; i>=0; i--) {
+					w=h[i*nn+i]-p;
+					r=0.0;
+					for (int j=l; j<=n; j++) {
+						r+=h[i*nn+j]*h[j*nn+n];
+					}
+					if (wi[i]<0.0) {
+						z=w;
+						s=r;
+					} else {
+						l=i;
+						if (wi[i]==0.0) {
+							if (w!=0.0) {
+								h[i*nn+n]=-r/w;
+							} else {
+								h[i*nn+n]=-r/(EPS*norm);
+							}
+						} else {
+							// solve real equations
+							x=h[i*nn+i+1];
+							y=h[(i+1)*nn+i];
+							q=(wr[i]-p)*(wr[i]-p)+wi[i]*wi[i];
+							t=(x*s-z*r)/q;
+							h[i*nn+n]=t;
+							if (Math.abs(x)>Math.abs(z)) {
+								h[(i+1)*nn+n]=(-r-w*t)/x;
+							} else {
+								h[(i+1)*nn+n]=(-s-y*t)/z;
+							}
+						}
+
+						// overflow control
+						t=Math.abs(h[i*nn+n]);
+						if ((EPS*t)*t>1) {
+							for (int j=i; j<=n; j++) {
+								h[j*nn+n]/=t;
+							}
+						}
+					}
+				}
+			} else if (q<0) {
+				// complex vector
+				int l=n-1;
+
+				// last vector component imaginary so matrix is triangular
+				if (Math.abs(h[n*nn+n-1])>Math.abs(h[(n-1)*nn+n])) {
+					h[(n-1)*nn+n-1]=q/h[n*nn+n-1];
+					h[(n-1)*nn+n]=-(h[n*nn+n]-p)/h[n*nn+n-1];
+				} else {
+					cdiv(0.0,-h[(n-1)*nn+n],h[(n-1)*nn+n-1]-p,q);
+					h[(n-1)*nn+n-1]=cdivr;
+					h[(n-1)*nn+n]=cdivi;
+				}
+				h[n*nn+n-1]=0.0;
+				h[n*nn+n]=1.0;
+				for (int i=n-2; i>=0; i--) {
+					double ra=0.0, sa=0.0, vr, vi;
+					for (int j=l; j<=n; j++) {
+						ra+=h[i*nn+j]*h[j*nn+n-1];
+						sa+=h[i*nn+j]*h[j*nn+n];
+					}
+					w=h[i*nn+i]-p;
+
+					if (wi[i]<0.0) {
+						z=w;
+						r=ra;
+						s=sa;
+					} else {
+						l=i;
+						if (wi[i]==0) {
+							cdiv(-ra,-sa,w,q);
+							h[i*nn+n-1]=cdivr;
+							h[i*nn+n]=cdivi;
+						} else {
+							// solve complex equations
+							x=h[i*nn+i+1];
+							y=h[(i+1)*nn+i];
+							vr=(wr[i]-p)*(wr[i]-p)+wi[i]*wi[i]-q*q;
+							vi=(wr[i]-p)*2.0*q;
+							if ((vr==0.0)&&(vi==0.0)) {
+								vr=EPS*norm*(Math.abs(w)+Math.abs(q)+Math.abs(x)+Math.abs(y)+Math.abs(z));
+							}
+							cdiv(x*r-z*ra+q*sa,x*s-z*sa-q*ra,vr,vi);
+							h[i*nn+n-1]=cdivr;
+							h[i*nn+n]=cdivi;
+							if (Math.abs(x)>(Math.abs(z)+Math.abs(q))) {
+								h[(i+1)*nn+n-1]=(-ra-w*h[i*nn+n-1]+q*h[i*nn+n])/x;
+								h[(i+1)*nn+n]=(-sa-w*h[i*nn+n]-q*h[i*nn+n-1])/x;
+							} else {
+								cdiv(-r-y*h[i*nn+n-1],-s-y*h[i*nn+n],z,q);
+								h[(i+1)*nn+n-1]=cdivr;
+								h[(i+1)*nn+n]=cdivi;
+							}
+						}
+
+						// overflow control
+						t=Math.max(Math.abs(h[i*nn+n-1]),Math.abs(h[i*nn+n]));
+						if ((EPS*t)*t>1) {
+							for (int j=i; j<=n; j++) {
+								h[j*nn+n-1]/=t;
+								h[j*nn+n]/=t;
+							}
+						}
+					}
+				}
+			}
+		}
+
+		// back transformation to get eigenvectors of original matrix: V = V * upper(H)
+		// computed one row of V at a time to keep memory access sequential
+		double[] row=new double[nn];
+		for (int i=0; i<nn; i++) {
+			int vo=i*nn;
+			Arrays.fill(row, 0.0);
+			for (int k=0; k<nn; k++) {
+				double vik=v[vo+k];
+				if (vik==0.0) continue;
+				int ho=k*nn;
+				for (int j=k; j<nn; j++) {
+					row[j]+=vik*h[ho+j];
+				}
+			}
+			System.arraycopy(row, 0, v, vo, nn);
+		}
+	}
+
+	private void cdiv(double xr, double xi, double yr, double yi) {
+		double r,d;
+		if (Math.abs(yr)>Math.abs(yi)) {
+			r=yi/yr;
+			d=yr+r*yi;
+			cdivr=(xr+r*xi)/d;
+			cdivi=(xi-r*xr)/d;
+		} else {
+			r=yr/yi;
+			d=yi+r*yr;
+			cdivr=(r*xr+xi)/d;
+			cdivi=(r*xi-xr)/d;
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package mikera.matrixx.decompose.impl.eigen;
+
+import mikera.matrixx.Matrix;
+import mikera.vectorz.AVector;
+import mikera.vectorz.util.DoubleArrays;
+
+/**
+ * Implicitly restarted Lanczos algorithm for computing a few eigenpairs of a large real
+ * symmetric matrix, typically a sparse matrix such as a graph Laplacian.
+ *
+ * Uses the three term Lanczos recurrence with full reorthogonalisation, so the projected matrix
+ * is symmetric tridiagonal. Eigenvalues are ordered algebraically, either largest first or
+ * smallest first.
+ *
+ * The input matrix is assumed to be symmetric. This is not checked, since checking would require
+ * a full scan of the matrix.
+ *
+ * @author Mike
+ */
+public class LanczosEigenDecomposition extends AKrylovEigenDecomposition {
+
+	/**
+	 * Creates a Lanczos decomposition
+	 * @param largest If true, computes the algebraically largest eigenvalues, otherwise the smallest
+	 */
+	public LanczosEigenDecomposition(boolean largest) {
+		super(largest);
+	}
+
+	@Override
+	protected void orthogonalize(int j, double[] w) {
+		double alpha=DoubleArrays.dotProduct(V[j], 0, w, 0, n);
+		double b=(j>0)?H[j*m+j-1]:0.0;
+		double[] vj=V[j];
+		if (j>0) {
+			double[] vp=V[j-1];
+			for (int i=0; i<n; i++) {
+				w[i]-=alpha*vj[i]+b*vp[i];
+			}
+		} else {
+			for (int i=0; i<n; i++) {
+				w[i]-=alpha*vj[i];
+			}
+		}
+		H[j*m+j]=alpha;
+		if (j>0) H[(j-1)*m+j]=b;
+
+		// full reorthogonalisation to maintain a numerically orthonormal basis
+		gramSchmidt(j,w,false);
+	}
+
+	@Override
+	protected boolean computeRitzPairs(int size) {
+		Matrix T=Matrix.create(size,size);
+		for (int i=0; i<size; i++) {
+			T.unsafeSet(i, i, H[i*m+i]);
+			if (i+1<size) {
+				double b=H[(i+1)*m+i];
+				T.unsafeSet(i+1, i, b);
+				T.unsafeSet(i, i+1, b);
+			}
+		}
+		EigenResult r=new SymmetricQRAlgorithmDecomposition(true).decompose(T);
+		if (r==null) return false;
+		AVector[] vecs=r.getEigenVectors();
+		for (int i=0; i<size; i++) {
+			ritzRe[i]=r.getEigenvalues()[i].x;
+			ritzIm[i]=0.0;
+			AVector y=vecs[i];
+			for (int j=0; j<size; j++) {
+				ritzVectors[j*m+i]=y.unsafeGet(j);
+			}
+		}
+		return true;
+	}
+
+	@Override
+	protected int compareRitzValues(double aRe, double aIm, double bRe, double bIm) {
+		return largest?Double.compare(bRe, aRe):Double.compare(aRe, bRe);
+	}
+}
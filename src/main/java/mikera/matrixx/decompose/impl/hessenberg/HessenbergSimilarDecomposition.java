@@ -64,9 +64,20 @@ public class HessenbergSimilarDecomposition {
      * @return If it detects any errors or not.
      */
     public static HessenbergResult decompose( AMatrix A )
+    {
+        return decompose(A,true);
+    }
+
+    /**
+     * Computes the decomposition of the provided matrix, optionally skipping the construction
+     * of the orthogonal matrix Q.  If Q is not computed then getQ() on the result returns null.
+     * @param A  The matrix that is being decomposed.  Not modified.
+     * @param computeQ Should the orthogonal matrix Q be computed
+     */
+    public static HessenbergResult decompose( AMatrix A , boolean computeQ )
     {
         HessenbergSimilarDecomposition alg = new HessenbergSimilarDecomposition();
-        return alg._decompose(A);
+        return alg._decompose(A,computeQ);
     }
 
     /**
@@ -121,7 +132,7 @@ public class HessenbergSimilarDecomposition {
      * Internal function for computing the decomposition.
      * @param A 
      */
-    private HessenbergResult _decompose(AMatrix A) {
+    private HessenbergResult _decompose(AMatrix A, boolean computeQ) {
     	if( A.rowCount() != A.columnCount() )
             throw new IllegalArgumentException("A must be square.");
     	QH = A.copy().toMatrix();
@@ -191,7 +202,7 @@ public class HessenbergSimilarDecomposition {
 
         }
 
-        return new HessenbergResult(getH(), getQ());
+        return new HessenbergResult(getH(), computeQ ? getQ() : null);
     }
 
     public double[] getGammas() {
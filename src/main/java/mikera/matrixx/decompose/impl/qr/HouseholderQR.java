@@ -165,7 +165,23 @@ public class HouseholderQR implements QRDecomposition {
      */
     @Override
     public QRResult decompose( AMatrix A ) {
+        _decompose(A);
+        
+        // if (error) return null; // TODO: figure out how to handle
+
+        return new QRResult(getQ(), getR());
+    }
+
+    /**
+     * Computes the decomposition into the compact form returned by {@link #getQR()} and
+     * {@link #getGammas()}, without forming Q or R explicitly.
+     *
+     * @return false if a column with no remaining component was encountered, i.e. A is rank deficient
+     */
+    public boolean _decompose( AMatrix A ) {
         error = false;
+        Q = null;
+        R = null;
 
         this.numCols = A.columnCount();
         this.numRows = A.rowCount();
@@ -184,10 +200,7 @@ public class HouseholderQR implements QRDecomposition {
             householder(j);
             updateA(j);
         }
-        
-        // if (error) return null; // TODO: figure out how to handle
-
-        return new QRResult(getQ(), getR());
+        return !error;
     }
 
     /**
@@ -12,6 +12,7 @@ import mikera.vectorz.impl.ADenseArrayVector;
 import mikera.vectorz.impl.AStridedVector;
 import mikera.vectorz.impl.ArraySubVector;
 import mikera.vectorz.util.DoubleArrays;
+import mikera.vectorz.util.ParallelArrays;
 import mikera.vectorz.util.ErrorMessages;
 
 /**
@@ -133,17 +134,22 @@ public abstract class ADenseArrayMatrix extends AStridedMatrix implements IFastR
 	
 	@Override
 	public double elementSum() {
-		return DoubleArrays.elementSum(data,getArrayOffset(), rows*cols);
+		return ParallelArrays.elementSum(data,getArrayOffset(), rows*cols);
+	}
+	
+	@Override
+	public double elementSumCompensated() {
+		return ParallelArrays.kahanSum(data,getArrayOffset(), rows*cols);
 	}
 	
 	@Override
 	public double elementSquaredSum() {
-		return DoubleArrays.elementSquaredSum(data,getArrayOffset(), rows*cols);
+		return ParallelArrays.elementSquaredSum(data,getArrayOffset(), rows*cols);
 	}
 	
 	@Override
 	public double elementMax(){
-		return DoubleArrays.elementMax(data,getArrayOffset(), rows*cols);
+		return ParallelArrays.elementMax(data,getArrayOffset(), rows*cols);
 	}
 	
 	@Override
@@ -228,7 +234,7 @@ public abstract class ADenseArrayMatrix extends AStridedMatrix implements IFastR
 	public double reduce(Op2 op, double init) {
 		int offset=getArrayOffset();
 		int n=rows*cols;
-		return op.reduce(init,data,offset,n);
+		return ParallelArrays.reduce(op,init,data,offset,n);
 	}
 	
 	@Override
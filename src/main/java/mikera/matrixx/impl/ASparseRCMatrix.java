@@ -224,6 +224,31 @@ public abstract class ASparseRCMatrix extends ARectangularMatrix {
 		return result;
 	}	
 	
+	/**
+	 * Sums each of the stored row or column vectors
+	 */
+	protected Vector componentSums() {
+		int n=componentCount();
+		Vector result=Vector.createLength(n);
+		for (int i=0; i<n; i++) {
+			AVector vec=data[i];
+			if (vec != null) result.unsafeSet(i, vec.elementSum());
+		}
+		return result;
+	}
+	
+	/**
+	 * Adds together all of the stored row or column vectors
+	 */
+	protected Vector lineSums() {
+		Vector result=Vector.createLength(lineLength());
+		double[] rdata=result.getArray();
+		for (AVector vec: data) {
+			if (vec != null) vec.addToArray(rdata, 0);
+		}
+		return result;
+	}
+	
 	@Override
 	public double elementSquaredSum() {
 		double result=0.0;
@@ -2,15 +2,21 @@ package mikera.matrixx.impl;
 
 import java.util.Iterator;
 
+import mikera.arrayz.INDArray;
+import mikera.arrayz.impl.AxisReductions;
 import mikera.arrayz.impl.IStridedArray;
+import mikera.arrayz.impl.StridedLoop;
 import mikera.matrixx.AMatrix;
 import mikera.matrixx.Matrix;
 import mikera.matrixx.Matrixx;
+import mikera.matrixx.algo.Transpose;
 import mikera.vectorz.AVector;
 import mikera.vectorz.Op;
 import mikera.vectorz.Op2;
+import mikera.vectorz.Vector;
 import mikera.vectorz.Vectorz;
 import mikera.vectorz.impl.AStridedVector;
+import mikera.vectorz.impl.StridedCursor;
 import mikera.vectorz.util.ErrorMessages;
 
 /**
@@ -70,6 +76,22 @@ public abstract class AStridedMatrix extends AArrayMatrix implements IStridedArr
 		return getColumn(i);
 	}
 	
+	/**
+	 * Gets a cursor over the rows of this matrix: a single mutable row view that can be moved
+	 * to any row with moveTo(i), so that scanning the rows of the matrix allocates no further views.
+	 */
+	public StridedCursor getRowCursor() {
+		return StridedCursor.create(getArray(), getArrayOffset(), rows, rowStride(), cols, columnStride());
+	}
+	
+	/**
+	 * Gets a cursor over the columns of this matrix: a single mutable column view that can be moved
+	 * to any column with moveTo(i).
+	 */
+	public StridedCursor getColumnCursor() {
+		return StridedCursor.create(getArray(), getArrayOffset(), cols, columnStride(), rows, rowStride());
+	}
+	
 	@Override
 	public double diagonalProduct() {
 		int n=Math.min(rowCount(), columnCount());
@@ -117,6 +139,76 @@ public abstract class AStridedMatrix extends AArrayMatrix implements IStridedArr
 		}
 	}
 	
+	@Override
+	public void sub(AVector v) {
+		IStridedArray b=StridedLoop.broadcastView(v, getShape());
+		if (b!=null) {
+			StridedLoop.sub(this, b);
+		} else {
+			super.sub(v);
+		}
+	}
+	
+	@Override
+	public void multiply(AVector v) {
+		IStridedArray b=StridedLoop.broadcastView(v, getShape());
+		if (b!=null) {
+			StridedLoop.multiply(this, b);
+		} else {
+			super.multiply(v);
+		}
+	}
+	
+	@Override
+	public void divide(AVector v) {
+		IStridedArray b=StridedLoop.broadcastView(v, getShape());
+		if (b!=null) {
+			StridedLoop.divide(this, b);
+		} else {
+			super.divide(v);
+		}
+	}
+	
+	@Override
+	public void add(INDArray a) {
+		IStridedArray b=StridedLoop.broadcastView(a, getShape());
+		if (b!=null) {
+			StridedLoop.add(this, b);
+		} else {
+			super.add(a);
+		}
+	}
+	
+	@Override
+	public void sub(INDArray a) {
+		IStridedArray b=StridedLoop.broadcastView(a, getShape());
+		if (b!=null) {
+			StridedLoop.sub(this, b);
+		} else {
+			super.sub(a);
+		}
+	}
+	
+	@Override
+	public void multiply(INDArray a) {
+		IStridedArray b=StridedLoop.broadcastView(a, getShape());
+		if (b!=null) {
+			StridedLoop.multiply(this, b);
+		} else {
+			super.multiply(a);
+		}
+	}
+	
+	@Override
+	public void divide(INDArray a) {
+		IStridedArray b=StridedLoop.broadcastView(a, getShape());
+		if (b!=null) {
+			StridedLoop.divide(this, b);
+		} else {
+			super.divide(a);
+		}
+	}
+	
 	@Override
 	public void addToArray(double[] dest, int destOffset) {
 		int offset=getArrayOffset();
@@ -160,6 +252,16 @@ public abstract class AStridedMatrix extends AArrayMatrix implements IStridedArr
 		return result;
 	}
 	
+	@Override
+	public Vector rowSums() {
+		return Vector.wrap(AxisReductions.sum(this, new int[] {1}, false).getArray());
+	}
+	
+	@Override
+	public Vector columnSums() {
+		return Vector.wrap(AxisReductions.sum(this, new int[] {0}, false).getArray());
+	}
+	
 	@Override
 	public double rowDotProduct(int i, AVector a) {
 		double[] data=getArray();
@@ -171,6 +273,10 @@ public abstract class AStridedMatrix extends AArrayMatrix implements IStridedArr
 	@Override
 	public void add(AMatrix m) {
 		checkSameShape(m);
+		if (m instanceof AStridedMatrix) {
+			StridedLoop.add(this, (AStridedMatrix)m);
+			return;
+		}
 		int offset=getArrayOffset();
 		int colStride=columnStride();
 		int rowStride=rowStride();
@@ -179,6 +285,76 @@ public abstract class AStridedMatrix extends AArrayMatrix implements IStridedArr
 		}
 	}
 	
+	@Override
+	public void fill(double value) {
+		StridedLoop.set(this, value);
+	}
+	
+	@Override
+	public void clamp(double min, double max) {
+		StridedCursor row=getRowCursor();
+		for (int i=0; i<rows; i++) {
+			row.moveTo(i).clamp(min, max);
+		}
+	}
+	
+	@Override
+	public void square() {
+		StridedCursor row=getRowCursor();
+		for (int i=0; i<rows; i++) {
+			row.moveTo(i).square();
+		}
+	}
+	
+	@Override
+	public void set(AVector v) {
+		checkColumnCount(v.length());
+		StridedCursor row=getRowCursor();
+		for (int i=0; i<rows; i++) {
+			row.moveTo(i).set(v);
+		}
+	}
+	
+	@Override
+	public double elementSum() {
+		return StridedLoop.elementSum(this);
+	}
+	
+	@Override
+	public double elementSquaredSum() {
+		return StridedLoop.elementSquaredSum(this);
+	}
+	
+	@Override
+	public long nonZeroCount() {
+		StridedCursor row=getRowCursor();
+		long result=0;
+		for (int i=0; i<rows; i++) {
+			result+=row.moveTo(i).nonZeroCount();
+		}
+		return result;
+	}
+	
+	@Override
+	public boolean equalsArray(double[] data, int offset) {
+		StridedCursor row=getRowCursor();
+		for (int i=0; i<rows; i++) {
+			if (!row.moveTo(i).equalsArray(data, offset+i*cols)) return false;
+		}
+		return true;
+	}
+	
+	@Override
+	protected boolean equalsByRows(AMatrix m) {
+		StridedCursor row=getRowCursor();
+		StridedCursor mrow=(m instanceof AStridedMatrix)?((AStridedMatrix)m).getRowCursor():null;
+		for (int i=0; i<rows; i++) {
+			AVector b=(mrow!=null)?mrow.moveTo(i):m.getRow(i);
+			if (!row.moveTo(i).equals(b)) return false;
+		}
+		return true;
+	}
+	
 	@Override
 	public abstract void copyRowTo(int row, double[] dest, int destOffset);
 	
@@ -214,6 +390,15 @@ public abstract class AStridedMatrix extends AArrayMatrix implements IStridedArr
 		return Matrixx.wrapStrided(getArray(),columnCount(),rowCount(),getArrayOffset(),columnStride(),rowStride());
 	}
 	
+	@Override
+	public Matrix toMatrixTranspose() {
+		int rc=rowCount();
+		int cc=columnCount();
+		Matrix m=Matrix.create(cc, rc);
+		Transpose.transpose(getArray(), getArrayOffset(), rowStride(), columnStride(), rc, cc, m.getArray(), 0, rc);
+		return m;
+	}
+	
 	@Override
 	public boolean isPackedArray() {
 		return (getArrayOffset()==0)&&(columnStride()==1)&&(rowStride()==columnCount())&&(getArray().length==elementCount());
@@ -228,16 +413,10 @@ public abstract class AStridedMatrix extends AArrayMatrix implements IStridedArr
 	@Override
 	public boolean isZero() {
 		// select row or column iteration in the most cache-friendly manner
-		if (rowStride()>columnStride()) {
-			int rc=rowCount();
-			for (int i=0; i<rc; i++) {
-				if (!getRow(i).isZero()) return false;
-			}
-		} else {
-			int cc=columnCount();
-			for (int i=0; i<cc; i++) {
-				if (!getColumn(i).isZero()) return false;
-			}
+		StridedCursor c=(rowStride()>columnStride())?getRowCursor():getColumnCursor();
+		int n=c.positionCount();
+		for (int i=0; i<n; i++) {
+			if (!c.moveTo(i).isZero()) return false;
 		}
 		return true;
 	}
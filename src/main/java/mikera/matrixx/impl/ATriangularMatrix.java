@@ -1,21 +1,111 @@
 package mikera.matrixx.impl;
 
+import mikera.matrixx.AMatrix;
+import mikera.matrixx.Matrix;
 import mikera.vectorz.AVector;
+import mikera.vectorz.Vector;
 import mikera.vectorz.util.DoubleArrays;
 import mikera.vectorz.util.ErrorMessages;
+import mikera.vectorz.util.Parallel;
 
 /**
  * Abstract base class for densely packed triangular matrices (upper and lower)
  * 
+ * Multiplication by vectors and matrices uses the packed data directly, so the zero triangle is 
+ * never visited. Matrix products are computed in column strips of the right hand side, which
+ * are split between threads for large products.
+ * 
  * @author Mike
  */
 public abstract class ATriangularMatrix extends AArrayMatrix {
 	private static final long serialVersionUID = -5557895922040729998L;
 
+	// maximum number of right hand side columns processed together in a matrix product
+	static final int BLOCK_COLS=256;
+	
+	// number of rows of the right hand side or result kept in cache while streaming the other
+	static final int BLOCK_ROWS=64;
+	
+	// number of multiply-adds above which matrix products are computed in parallel
+	private static final long PARALLEL_THRESHOLD=1L<<20;
+
 	protected ATriangularMatrix(double[] data, int rows, int cols) {
 		super(data, rows, cols);
 	}
 	
+	/**
+	 * Computes dest = this.src using only the stored triangle. dest is fully overwritten, and must
+	 * not be the same array as src.
+	 */
+	protected abstract void transformArray(double[] src, double[] dest);
+	
+	/**
+	 * Computes columns c0 to c1 of R = this.B, where B is a row-major columnCount() x k 
+	 * array and R is a zero-initialised row-major rowCount() x k array.
+	 */
+	protected abstract void multiplyStrip(double[] B, double[] R, int k, int c0, int c1);
+	
+	@Override
+	public void transform(Vector source, Vector dest) {
+		if (source.length()!=cols) throw new IllegalArgumentException(ErrorMessages.wrongSourceLength(source));
+		if (dest.length()!=rows) throw new IllegalArgumentException(ErrorMessages.wrongDestLength(dest));
+		double[] src=source.getArray();
+		double[] dst=dest.getArray();
+		// transformArray writes dest while still reading source, so in-place transforms need a copy
+		if (src==dst) src=src.clone();
+		transformArray(src,dst);
+	}
+	
+	@Override
+	public void transform(AVector source, AVector dest) {
+		if ((source instanceof Vector)&&(dest instanceof Vector)) {
+			transform((Vector)source,(Vector)dest);
+			return;
+		}
+		if (source.length()!=cols) throw new IllegalArgumentException(ErrorMessages.wrongSourceLength(source));
+		if (dest.length()!=rows) throw new IllegalArgumentException(ErrorMessages.wrongDestLength(dest));
+		double[] result=new double[rows];
+		transformArray(source.toDoubleArray(),result);
+		dest.setElements(result);
+	}
+	
+	@Override
+	public Vector innerProduct(Vector v) {
+		Vector r=Vector.createLength(rows);
+		transform(v,r);
+		return r;
+	}
+	
+	@Override
+	public AVector innerProduct(AVector v) {
+		Vector r=Vector.createLength(rows);
+		transform(v,r);
+		return r;
+	}
+	
+	@Override
+	public AMatrix innerProduct(AMatrix a) {
+		if (a.rowCount()!=cols) throw new IllegalArgumentException(ErrorMessages.incompatibleShapes(this,a));
+		final int k=a.columnCount();
+		final double[] b=a.toDoubleArray();
+		final double[] r=new double[rows*k];
+		
+		int width=Math.min(k, BLOCK_COLS);
+		if ((Parallel.THREADS>1)&&(((long)rows)*cols*k>PARALLEL_THRESHOLD)) {
+			width=Math.min(width, Math.max(16, (k+Parallel.THREADS-1)/Parallel.THREADS));
+		}
+		final int w=Math.max(1, width);
+		Parallel.forRange(0, (k+w-1)/w, 1, new Parallel.IRangeTask() {
+			@Override
+			public void run(int start, int end) {
+				for (int s=start; s<end; s++) {
+					multiplyStrip(b,r,k,s*w,Math.min(k, (s+1)*w));
+				}
+			}
+		});
+		return Matrix.wrap(rows, k, r);
+	}
+	
 	@Override
 	public boolean isFullyMutable() {
 		return false;
@@ -0,0 +1,295 @@
+package mikera.matrixx.impl;
+
+import java.util.Arrays;
+
+import mikera.arrayz.INDArray;
+import mikera.matrixx.AMatrix;
+import mikera.matrixx.Matrix;
+import mikera.vectorz.AVector;
+import mikera.vectorz.BitVector;
+import mikera.vectorz.impl.ADenseArrayVector;
+import mikera.vectorz.util.ErrorMessages;
+import mikera.vectorz.util.LongArrays;
+import mikera.vectorz.util.Parallel;
+import mikera.vectorz.util.ParallelArrays;
+
+/**
+ * Boolean matrix backed by densely packed single bits - constrained to 0.0 / 1.0 values
+ *
+ * Each row is stored as a whole number of 64-bit words in a single long[] array, so that rows
+ * can be accessed as BitVector views and combined a word at a time. Setting an element stores
+ * 1.0 for any positive value (true) and 0.0 otherwise (false).
+ *
+ * Multiplication by another BitMatrix counts matching bits with word-level AND and popcount
+ * operations, which is much faster than the double based matrix product.
+ *
+ * @author Mike
+ *
+ */
+public final class BitMatrix extends ABooleanMatrix implements IFastRows {
+	private static final long serialVersionUID = -6293702125380961453L;
+
+	private final long[] data;
+	private final int rowWords;
+
+	private BitMatrix(int rows, int cols, long[] data) {
+		super(rows,cols);
+		this.data=data;
+		this.rowWords=BitVector.requiredArraySize(cols);
+	}
+
+	public static BitMatrix create(int rows, int cols) {
+		return new BitMatrix(rows,cols,new long[rows*BitVector.requiredArraySize(cols)]);
+	}
+
+	/**
+	 * Creates a BitMatrix from a matrix, setting each element that is positive
+	 */
+	public static BitMatrix create(AMatrix m) {
+		if (m instanceof BitMatrix) return ((BitMatrix)m).exactClone();
+		int rc=m.rowCount();
+		int cc=m.columnCount();
+		BitMatrix result=create(rc,cc);
+		for (int i=0; i<rc; i++) {
+			result.getRowView(i).set(m.getRow(i));
+		}
+		return result;
+	}
+
+	/**
+	 * Creates a BitMatrix with the given BitVectors as rows
+	 */
+	public static BitMatrix create(BitVector... rows) {
+		int rc=rows.length;
+		if (rc==0) return create(0,0);
+		int cc=rows[0].length();
+		BitMatrix result=create(rc,cc);
+		for (int i=0; i<rc; i++) {
+			result.getRowView(i).set(rows[i]);
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the underlying long[] array of packed bits
+	 */
+	public long[] getLongArray() {
+		return data;
+	}
+
+	/**
+	 * Gets the number of 64-bit words used to store each row
+	 */
+	public int getRowWords() {
+		return rowWords;
+	}
+
+	@Override
+	public double get(int i, int j) {
+		checkIndex(i,j);
+		return unsafeGet(i,j);
+	}
+
+	@Override
+	public void set(int i, int j, double value) {
+		checkIndex(i,j);
+		unsafeSet(i,j,value);
+	}
+
+	@Override
+	public double unsafeGet(int i, int j) {
+		long w=data[i*rowWords+(j>>>6)];
+		return (((w>>>(j&63))&1L)!=0L) ? BitVector.BIT_ON : BitVector.BIT_OFF;
+	}
+
+	@Override
+	public void unsafeSet(int i, int j, double value) {
+		int p=i*rowWords+(j>>>6);
+		long mask=1L<<(j&63);
+		data[p]=(data[p]&(~mask))|(value>BitVector.BIT_THRESHOLD?mask:0L);
+	}
+
+	@Override
+	public boolean isMutable() {
+		return true;
+	}
+
+	@Override
+	public boolean isElementConstrained() {
+		return true;
+	}
+
+	@Override
+	public boolean isZero() {
+		for (int i=0; i<data.length; i++) {
+			if (data[i]!=0L) return false;
+		}
+		return true;
+	}
+
+	@Override
+	public long nonZeroCount() {
+		return LongArrays.bitCount(data, 0, data.length);
+	}
+
+	@Override
+	public BitVector getRowView(int i) {
+		checkRow(i);
+		return BitVector.wrap(data, i*rowWords, cols);
+	}
+
+	@Override
+	public BitVector getRow(int i) {
+		return getRowView(i);
+	}
+
+	@Override
+	public void copyRowTo(int row, double[] dest, int destOffset) {
+		getRowView(row).getElements(dest, destOffset);
+	}
+
+	@Override
+	public void getElements(double[] dest, int destOffset) {
+		for (int i=0; i<rows; i++) {
+			copyRowTo(i,dest,destOffset+i*cols);
+		}
+	}
+
+	@Override
+	public void fill(double value) {
+		for (int i=0; i<rows; i++) {
+			getRowView(i).fill(value);
+		}
+	}
+
+	@Override
+	public double rowDotProduct(int i, AVector v) {
+		return getRowView(i).dotProduct(v);
+	}
+
+	@Override
+	public void transform(AVector source, AVector dest) {
+		if (!((source instanceof BitVector)||(source instanceof ADenseArrayVector))) {
+			super.transform(source, dest);
+			return;
+		}
+		checkColumnCount(source.length());
+		checkRowCount(dest.length());
+		for (int i=0; i<rows; i++) {
+			dest.unsafeSet(i, rowDotProduct(i,source));
+		}
+	}
+
+	/**
+	 * Creates the transpose of this matrix as a new BitMatrix
+	 */
+	public BitMatrix transposeCopy() {
+		BitMatrix result=create(cols,rows);
+		int rw=result.rowWords;
+		for (int i=0; i<rows; i++) {
+			int wordBase=i*rowWords;
+			long bit=1L<<(i&63);
+			int col=i>>>6;
+			for (int w=0; w<rowWords; w++) {
+				long x=data[wordBase+w];
+				int base=w<<6;
+				while (x!=0L) {
+					int j=base+Long.numberOfTrailingZeros(x);
+					result.data[j*rw+col]|=bit;
+					x&=x-1;
+				}
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public AMatrix innerProduct(AMatrix m) {
+		if (m instanceof BitMatrix) return innerProduct((BitMatrix)m);
+		return super.innerProduct(m);
+	}
+
+	@Override
+	public INDArray innerProduct(INDArray a) {
+		if (a instanceof BitMatrix) return innerProduct((BitMatrix)a);
+		return super.innerProduct(a);
+	}
+
+	/**
+	 * Multiplies this matrix by another BitMatrix. Each element of the result is the number of
+	 * positions set in both the corresponding row of this matrix and column of the other matrix,
+	 * computed with word-level AND and popcount operations on a packed transpose of the other
+	 * matrix. Large products are computed in parallel over blocks of rows.
+	 */
+	public Matrix innerProduct(BitMatrix m) {
+		if (cols!=m.rows) throw new IllegalArgumentException(ErrorMessages.incompatibleShapes(this, m));
+		final int cc=m.cols;
+		final BitMatrix mt=m.transposeCopy();
+		final Matrix result=Matrix.create(rows, cc);
+		long work=((long)rows)*cc*rowWords;
+		if (work<ParallelArrays.getParallelThreshold()) {
+			countProducts(mt,result,0,rows);
+		} else {
+			int grain=(int)Math.max(1, ParallelArrays.getParallelThreshold()/(((long)cc)*rowWords+1));
+			Parallel.forRange(0, rows, grain, new Parallel.IRangeTask() {
+				@Override
+				public void run(int start, int end) {
+					countProducts(mt,result,start,end);
+				}
+			});
+		}
+		return result;
+	}
+
+	private void countProducts(BitMatrix mt, Matrix result, int start, int end) {
+		double[] rdata=result.getArray();
+		int cc=mt.rows;
+		for (int i=start; i<end; i++) {
+			int ri=i*cc;
+			int ai=i*rowWords;
+			for (int j=0; j<cc; j++) {
+				rdata[ri+j]=LongArrays.andCount(data, ai, mt.data, j*rowWords, rowWords);
+			}
+		}
+	}
+
+	/**
+	 * Computes the boolean product of this matrix and another BitMatrix, where each element of the
+	 * result is set if any position is set in both the corresponding row of this matrix and column
+	 * of the other matrix. Each result row is the word-level OR of the rows of the other matrix
+	 * selected by the set bits of the corresponding row of this matrix.
+	 */
+	public BitMatrix booleanProduct(BitMatrix m) {
+		if (cols!=m.rows) throw new IllegalArgumentException(ErrorMessages.incompatibleShapes(this, m));
+		BitMatrix result=create(rows,m.cols);
+		int rw=result.rowWords;
+		for (int i=0; i<rows; i++) {
+			int ai=i*rowWords;
+			int ri=i*rw;
+			for (int w=0; w<rowWords; w++) {
+				long x=data[ai+w];
+				int base=w<<6;
+				while (x!=0L) {
+					int k=base+Long.numberOfTrailingZeros(x);
+					LongArrays.or(result.data, ri, m.data, k*rw, rw);
+					x&=x-1;
+				}
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public BitMatrix exactClone() {
+		return new BitMatrix(rows,cols,data.clone());
+	}
+
+	@Override
+	public boolean equals(AMatrix m) {
+		if (m instanceof BitMatrix) {
+			BitMatrix b=(BitMatrix)m;
+			return (rows==b.rows)&&(cols==b.cols)&&Arrays.equals(data, b.data);
+		}
+		return super.equals(m);
+	}
+}
@@ -39,6 +39,13 @@ public final class BroadcastVectorMatrix extends ARectangularMatrix implements I
 		return new BroadcastVectorMatrix(v,rows);
 	}
 
+	/**
+	 * Gets the source vector, which is repeated in every row of this matrix
+	 */
+	public AVector getSource() {
+		return source;
+	}
+
 	@Override
 	public AVector getRowView(int row) {
 		checkRow(row);
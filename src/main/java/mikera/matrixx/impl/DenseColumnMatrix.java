@@ -5,6 +5,7 @@ import java.util.Arrays;
 import mikera.arrayz.impl.IDense;
 import mikera.matrixx.AMatrix;
 import mikera.matrixx.Matrix;
+import mikera.matrixx.algo.Transpose;
 import mikera.vectorz.AVector;
 import mikera.vectorz.Op;
 import mikera.vectorz.impl.ArraySubVector;
@@ -37,8 +38,16 @@ public final class DenseColumnMatrix extends AStridedMatrix implements IFastColu
 	}
 	
 	public static DenseColumnMatrix create(AMatrix m) {
-		DenseColumnMatrix dm= new DenseColumnMatrix(m.rowCount(), m.columnCount());
-		dm.set(m);
+		int rc=m.rowCount();
+		int cc=m.columnCount();
+		DenseColumnMatrix dm= new DenseColumnMatrix(rc, cc);
+		if (m instanceof AStridedMatrix) {
+			// the column major data is the row major transpose of the source
+			AStridedMatrix sm=(AStridedMatrix)m;
+			Transpose.transpose(sm.getArray(), sm.getArrayOffset(), sm.rowStride(), sm.columnStride(), rc, cc, dm.data, 0, rc);
+		} else {
+			dm.set(m);
+		}
 		return dm;
 	}
 	
@@ -274,9 +283,22 @@ public final class DenseColumnMatrix extends AStridedMatrix implements IFastColu
 		return exactClone();
 	}
 		
+	@Override
+	public Matrix toMatrix() {
+		Matrix m=Matrix.create(rows, cols);
+		Transpose.transpose(data, 0, cols, rows, m.getArray(), 0);
+		return m;
+	}
+		
 	@Override
 	public Matrix toMatrixTranspose() {
 		return Matrix.wrap(cols, rows, data);
 	}
+	
+	@Override
+	public void transposeInPlace() {
+		int dims=checkSquare();
+		Transpose.transposeInPlace(data, 0, dims, dims);
+	}
 
 }
@@ -0,0 +1,292 @@
+package mikera.matrixx.impl;
+
+import java.util.Arrays;
+
+import mikera.arrayz.INDArray;
+import mikera.matrixx.AMatrix;
+import mikera.matrixx.Matrix;
+import mikera.vectorz.AVector;
+import mikera.vectorz.Op;
+import mikera.vectorz.Vector;
+import mikera.vectorz.impl.ADenseArrayVector;
+import mikera.vectorz.impl.FloatVector;
+import mikera.vectorz.util.ErrorMessages;
+import mikera.vectorz.util.FloatArrays;
+import mikera.vectorz.util.Parallel;
+import mikera.vectorz.util.ParallelArrays;
+
+/**
+ * Dense row major matrix storing its elements in single precision in a float[] array.
+ *
+ * Values set in the matrix are rounded to the nearest float. Matrix multiplication of two
+ * FloatMatrix instances is performed entirely in single precision; matrix-vector products
+ * are accumulated in double precision, and return a double vector unless the argument is
+ * also a FloatVector.
+ *
+ * @author Mike
+ *
+ */
+public final class FloatMatrix extends ARectangularMatrix implements IFastRows {
+	private static final long serialVersionUID = -3871206325419474412L;
+
+	private final float[] data;
+	private final int offset;
+
+	private FloatMatrix(int rows, int cols, float[] data, int offset) {
+		super(rows,cols);
+		this.data=data;
+		this.offset=offset;
+	}
+
+	public static FloatMatrix create(int rows, int cols) {
+		return new FloatMatrix(rows,cols,new float[rows*cols],0);
+	}
+
+	/**
+	 * Wraps a float[] array containing the elements of a matrix in row major order.
+	 * Does not take a defensive copy.
+	 */
+	public static FloatMatrix wrap(int rows, int cols, float[] data) {
+		return wrap(rows,cols,data,0);
+	}
+
+	public static FloatMatrix wrap(int rows, int cols, float[] data, int offset) {
+		if ((offset<0)||(offset+rows*cols>data.length)) throw new IllegalArgumentException(ErrorMessages.insufficientElements(data.length));
+		return new FloatMatrix(rows,cols,data,offset);
+	}
+
+	/**
+	 * Creates a FloatMatrix from a matrix, rounding each element to the nearest float
+	 */
+	public static FloatMatrix create(AMatrix m) {
+		if (m instanceof FloatMatrix) return ((FloatMatrix)m).exactClone();
+		int rc=m.rowCount();
+		int cc=m.columnCount();
+		FloatMatrix result=create(rc,cc);
+		if (m instanceof ADenseArrayMatrix) {
+			ADenseArrayMatrix dm=(ADenseArrayMatrix)m;
+			FloatArrays.copy(dm.getArray(), dm.getArrayOffset(), result.data, 0, rc*cc);
+		} else {
+			for (int i=0; i<rc; i++) {
+				result.getRowView(i).set(m.getRow(i));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the underlying float[] array
+	 */
+	public float[] getFloatArray() {
+		return data;
+	}
+
+	/**
+	 * Gets the offset of the first element in the underlying float[] array
+	 */
+	public int getFloatArrayOffset() {
+		return offset;
+	}
+
+	/**
+	 * Converts this matrix to a double precision Matrix. The conversion is exact.
+	 */
+	public Matrix toDouble() {
+		return Matrix.wrap(rows, cols, FloatArrays.toDouble(data, offset, rows*cols));
+	}
+
+	@Override
+	public double get(int i, int j) {
+		checkIndex(i,j);
+		return data[offset+i*cols+j];
+	}
+
+	@Override
+	public void set(int i, int j, double value) {
+		checkIndex(i,j);
+		data[offset+i*cols+j]=(float)value;
+	}
+
+	@Override
+	public double unsafeGet(int i, int j) {
+		return data[offset+i*cols+j];
+	}
+
+	@Override
+	public void unsafeSet(int i, int j, double value) {
+		data[offset+i*cols+j]=(float)value;
+	}
+
+	@Override
+	public boolean isMutable() {
+		return true;
+	}
+
+	@Override
+	public boolean isFullyMutable() {
+		// cannot store every double value
+		return false;
+	}
+
+	@Override
+	public boolean isElementConstrained() {
+		return true;
+	}
+
+	@Override
+	public FloatVector getRowView(int i) {
+		checkRow(i);
+		return FloatVector.wrap(data, offset+i*cols, cols);
+	}
+
+	@Override
+	public FloatVector getRow(int i) {
+		return getRowView(i);
+	}
+
+	@Override
+	public void copyRowTo(int row, double[] dest, int destOffset) {
+		FloatArrays.copy(data, offset+row*cols, dest, destOffset, cols);
+	}
+
+	@Override
+	public void getElements(double[] dest, int destOffset) {
+		FloatArrays.copy(data, offset, dest, destOffset, rows*cols);
+	}
+
+	@Override
+	public void setElements(double[] values, int valuesOffset) {
+		FloatArrays.copy(values, valuesOffset, data, offset, rows*cols);
+	}
+
+	@Override
+	public void fill(double value) {
+		Arrays.fill(data, offset, offset+rows*cols, (float)value);
+	}
+
+	@Override
+	public void multiply(double factor) {
+		FloatArrays.multiply(data, offset, rows*cols, (float)factor);
+	}
+
+	@Override
+	public void add(double value) {
+		FloatArrays.add(data, offset, rows*cols, (float)value);
+	}
+
+	@Override
+	public void add(AMatrix m) {
+		if (m instanceof FloatMatrix) {
+			checkSameShape(m);
+			FloatMatrix fm=(FloatMatrix)m;
+			FloatArrays.add(data, offset, fm.data, fm.offset, rows*cols);
+		} else {
+			super.add(m);
+		}
+	}
+
+	@Override
+	public void applyOp(Op op) {
+		FloatArrays.applyOp(op, data, offset, rows*cols);
+	}
+
+	@Override
+	public double elementSum() {
+		return FloatArrays.elementSum(data, offset, rows*cols);
+	}
+
+	@Override
+	public double elementSquaredSum() {
+		return FloatArrays.elementSquaredSum(data, offset, rows*cols);
+	}
+
+	@Override
+	public void addToArray(double[] dest, int destOffset) {
+		int n=rows*cols;
+		for (int i=0; i<n; i++) {
+			dest[destOffset+i]+=data[offset+i];
+		}
+	}
+
+	@Override
+	public double rowDotProduct(int i, AVector a) {
+		if (a instanceof FloatVector) {
+			FloatVector fa=(FloatVector)a;
+			return FloatArrays.dotProduct(data, offset+i*cols, fa.getFloatArray(), fa.getFloatArrayOffset(), cols);
+		} else if (a instanceof ADenseArrayVector) {
+			ADenseArrayVector da=(ADenseArrayVector)a;
+			return FloatArrays.dotProduct(data, offset+i*cols, da.getArray(), da.getArrayOffset(), cols);
+		}
+		return super.rowDotProduct(i, a);
+	}
+
+	@Override
+	public void transform(AVector source, AVector dest) {
+		if (!((source instanceof FloatVector)||(source instanceof ADenseArrayVector))) {
+			super.transform(source, dest);
+			return;
+		}
+		checkColumnCount(source.length());
+		checkRowCount(dest.length());
+		for (int i=0; i<rows; i++) {
+			dest.unsafeSet(i, rowDotProduct(i,source));
+		}
+	}
+
+	@Override
+	public AVector innerProduct(AVector v) {
+		if (v instanceof FloatVector) {
+			FloatVector result=FloatVector.createLength(rows);
+			transform(v,result);
+			return result;
+		} else if (v instanceof ADenseArrayVector) {
+			// mixed precision products are returned in double precision
+			Vector result=Vector.createLength(rows);
+			transform(v,result);
+			return result;
+		}
+		return super.innerProduct(v);
+	}
+
+	@Override
+	public AMatrix innerProduct(AMatrix m) {
+		if (m instanceof FloatMatrix) return innerProduct((FloatMatrix)m);
+		return super.innerProduct(m);
+	}
+
+	/**
+	 * Multiplies this matrix by another FloatMatrix, in single precision. Large products are
+	 * computed in parallel over blocks of rows.
+	 */
+	public FloatMatrix innerProduct(final FloatMatrix m) {
+		final int ic=cols;
+		final int cc=m.cols;
+		if (ic!=m.rows) throw new IllegalArgumentException(ErrorMessages.incompatibleShapes(this, m));
+		final FloatMatrix result=create(rows,cc);
+		long work=((long)rows)*ic*cc;
+		if (work<ParallelArrays.getParallelThreshold()) {
+			FloatArrays.multiply(data, offset, m.data, m.offset, result.data, 0, rows, ic, cc);
+		} else {
+			int grain=(int)Math.max(1, ParallelArrays.getParallelThreshold()/(((long)ic)*cc+1));
+			Parallel.forRange(0, rows, grain, new Parallel.IRangeTask() {
+				@Override
+				public void run(int start, int end) {
+					FloatArrays.multiply(data, offset+start*ic, m.data, m.offset, result.data, start*cc, end-start, ic, cc);
+				}
+			});
+		}
+		return result;
+	}
+
+	@Override
+	public INDArray innerProduct(INDArray a) {
+		if (a instanceof FloatMatrix) return innerProduct((FloatMatrix)a);
+		if (a instanceof AVector) return innerProduct((AVector)a);
+		return super.innerProduct(a);
+	}
+
+	@Override
+	public FloatMatrix exactClone() {
+		return new FloatMatrix(rows,cols,Arrays.copyOfRange(data, offset, offset+rows*cols),0);
+	}
+}
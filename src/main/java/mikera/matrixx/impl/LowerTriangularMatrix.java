@@ -7,6 +7,7 @@ import mikera.vectorz.AVector;
 import mikera.vectorz.Vectorz;
 import mikera.vectorz.impl.ArraySubVector;
 import mikera.vectorz.impl.IndexedArrayVector;
+import mikera.vectorz.util.DoubleArrays;
 
 /**
  * Class for a lower triangular matrix packed densely by rows.
@@ -116,6 +117,40 @@ public final class LowerTriangularMatrix extends ATriangularMatrix implements IF
 		if (nn<cols) Arrays.fill(dest, offset+nn, offset+cols, 0.0);
 	}
 	
+	@Override
+	public double rowDotProduct(int i, AVector a) {
+		int nn=Math.min(i+1,cols);
+		return a.subVector(0, nn).dotProduct(data, internalIndex(i,0));
+	}
+	
+	@Override
+	protected void transformArray(double[] src, double[] dest) {
+		for (int i=0; i<rows; i++) {
+			dest[i]=DoubleArrays.dotProduct(data, internalIndex(i,0), src, 0, Math.min(i+1,cols));
+		}
+	}
+	
+	@Override
+	protected void multiplyStrip(double[] B, double[] R, int k, int c0, int c1) {
+		// keep a block of rows of B in cache while it is applied to all later rows of the result
+		for (int p0=0; p0<cols; p0+=BLOCK_ROWS) {
+			int p1=Math.min(cols, p0+BLOCK_ROWS);
+			for (int i=p0; i<rows; i++) {
+				int rowStart=internalIndex(i,0);
+				int pEnd=Math.min(p1, i+1);
+				int ri=i*k;
+				for (int p=p0; p<pEnd; p++) {
+					double a=data[rowStart+p];
+					if (a==0.0) continue;
+					int bp=p*k;
+					for (int c=c0; c<c1; c++) {
+						R[ri+c]+=a*B[bp+c];
+					}
+				}
+			}
+		}
+	}
+	
 	@Override
 	public UpperTriangularMatrix getTranspose() {
 		return UpperTriangularMatrix.wrap(data, cols, rows);
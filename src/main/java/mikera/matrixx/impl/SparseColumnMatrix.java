@@ -541,4 +541,13 @@ public class SparseColumnMatrix extends ASparseRCMatrix implements ISparse, IFas
 		return equals(Matrixx.wrapStrided(data, rc, cc, offset, cc, 1));
 	}
 
+	@Override
+	public Vector rowSums() {
+		return lineSums();
+	}
+
+	@Override
+	public Vector columnSums() {
+		return componentSums();
+	}
 }
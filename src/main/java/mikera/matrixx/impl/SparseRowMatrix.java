@@ -527,4 +527,14 @@ public class SparseRowMatrix extends ASparseRCMatrix implements ISparse, IFastRo
 		}
 		return true;
 	}
+
+	@Override
+	public Vector rowSums() {
+		return componentSums();
+	}
+
+	@Override
+	public Vector columnSums() {
+		return lineSums();
+	}
 }
@@ -1,5 +1,7 @@
 package mikera.matrixx.impl;
 
+import java.util.Arrays;
+
 import mikera.matrixx.AMatrix;
 import mikera.vectorz.AVector;
 import mikera.vectorz.Vectorz;
@@ -105,6 +107,41 @@ public final class UpperTriangularMatrix extends ATriangularMatrix implements IF
 		return ArraySubVector.wrap(data, internalIndex(0,j), end).join(Vectorz.createZeroVector(rows-end));
 	}
 	
+	@Override
+	protected void transformArray(double[] src, double[] dest) {
+		Arrays.fill(dest, 0, rows, 0.0);
+		for (int j=0; j<cols; j++) {
+			double x=src[j];
+			if (x==0.0) continue;
+			int colStart=internalIndex(0,j);
+			int nn=Math.min(j+1,rows);
+			for (int i=0; i<nn; i++) {
+				dest[i]+=x*data[colStart+i];
+			}
+		}
+	}
+	
+	@Override
+	protected void multiplyStrip(double[] B, double[] R, int k, int c0, int c1) {
+		// keep a block of rows of the result in cache while rows of B are streamed through it
+		for (int i0=0; i0<rows; i0+=BLOCK_ROWS) {
+			int i1=Math.min(rows, i0+BLOCK_ROWS);
+			for (int p=i0; p<cols; p++) {
+				int colStart=internalIndex(0,p);
+				int iEnd=Math.min(i1, p+1);
+				int bp=p*k;
+				for (int i=i0; i<iEnd; i++) {
+					double a=data[colStart+i];
+					if (a==0.0) continue;
+					int ri=i*k;
+					for (int c=c0; c<c1; c++) {
+						R[ri+c]+=a*B[bp+c];
+					}
+				}
+			}
+		}
+	}
+	
 	@Override
 	public LowerTriangularMatrix getTranspose() {
 		return LowerTriangularMatrix.wrap(data, cols, rows);
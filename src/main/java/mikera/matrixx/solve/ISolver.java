@@ -0,0 +1,45 @@
+package mikera.matrixx.solve;
+
+import mikera.matrixx.AMatrix;
+import mikera.vectorz.AVector;
+
+/**
+ * Interface for a linear solver that has been prepared for a specific matrix A, typically by 
+ * computing and caching a factorisation of A. Each call then solves
+ * 
+ *    A.x = b
+ * 
+ * for a new right hand side at the cost of triangular solves only.
+ * 
+ * @author Mike
+ */
+public interface ISolver {
+
+	/**
+	 * Returns the number of rows of the matrix A, i.e. the required length of each right hand side
+	 */
+	public int rowCount();
+	
+	/**
+	 * Returns the number of columns of the matrix A, i.e. the length of each solution vector
+	 */
+	public int columnCount();
+	
+	/**
+	 * Solves A.x = b for a single right hand side. For over-determined systems this is the least squares
+	 * solution.
+	 * 
+	 * @param b A vector of length rowCount(). Not modified.
+	 * @return A new solution vector
+	 */
+	public AVector solve(AVector b);
+	
+	/**
+	 * Solves A.X = B, where each column of B is a separate right hand side. 
+	 * All columns are solved together.
+	 * 
+	 * @param B A matrix with rowCount() rows. Not modified.
+	 * @return A new solution matrix
+	 */
+	public AMatrix solve(AMatrix B);
+}
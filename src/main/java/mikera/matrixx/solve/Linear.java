@@ -1,10 +1,18 @@
 package mikera.matrixx.solve;
 
 import mikera.matrixx.AMatrix;
+import mikera.matrixx.impl.ABandedMatrix;
 import mikera.matrixx.impl.ColumnMatrix;
+import mikera.matrixx.solve.impl.BandedCholeskySolver;
+import mikera.matrixx.solve.impl.BandedLUSolver;
+import mikera.matrixx.solve.impl.FactorisedCholeskySolver;
+import mikera.matrixx.solve.impl.FactorisedLUSolver;
+import mikera.matrixx.solve.impl.FactorisedQRSolver;
+import mikera.matrixx.solve.impl.TridiagonalSolver;
 import mikera.matrixx.solve.impl.lu.LUSolver;
 import mikera.matrixx.solve.impl.qr.QRHouseColSolver;
 import mikera.vectorz.AVector;
+import mikera.vectorz.Vector;
 
 /**
  * Class providing liner solver algorithms that find the solution to systems of the form:
@@ -88,6 +96,40 @@ public class Linear {
 		    return solveLeastSquares(A, B);
 	}
 	
+	/**
+	 * Factorises A once and returns a solver that can be reused for any number of right hand sides,
+	 * each solved with triangular solves only.
+	 * 
+	 * Banded matrices use a banded LU or Cholesky decomposition, symmetric positive definite matrices
+	 * use a Cholesky decomposition and other square matrices use LU with partial pivoting. 
+	 * Over-determined systems use a QR decomposition and give least squares solutions. 
+	 * Under-determined systems never have full column rank, so give null.
+	 * 
+	 * @param A
+	 * @return The prepared solver, or null if A is singular or does not have full column rank
+	 */
+	public static ISolver factorize(AMatrix A) {
+		if (!A.isSquare()) {
+			if (A.rowCount()<A.columnCount()) return null;
+			return FactorisedQRSolver.create(A);
+		}
+		if (isBandedSolveEfficient(A)) {
+			int kl=A.lowerBandwidth();
+			int ku=A.upperBandwidth();
+			if ((kl==ku)&&A.isSymmetric()) {
+				BandedCholeskySolver chol=new BandedCholeskySolver();
+				if (chol.setA(A,kl)) return chol;
+			}
+			BandedLUSolver lu=new BandedLUSolver();
+			return lu.setA(A,kl,ku)?lu:null;
+		}
+		if (A.isSymmetric()) {
+			ISolver chol=FactorisedCholeskySolver.create(A);
+			if (chol!=null) return chol;
+		}
+		return FactorisedLUSolver.create(A);
+	}
+	
 	/**
 	 * For a square matrix A, returns the solution to the equation A.x = b.
 	 * Returns null if equation doesn't have a solution.
@@ -98,6 +140,7 @@ public class Linear {
 	 */
 	private static AVector solveSquare(AMatrix A, AVector b) {
 	    A.checkSquare();
+	    if (isBandedSolveEfficient(A)) return solveBanded(A,b);
 	    LUSolver solver = new LUSolver();
 	    solver.setA(A);
 //      create AMatrix from AVector
@@ -121,9 +164,61 @@ public class Linear {
      */
 	private static AMatrix solveSquare(AMatrix A, AMatrix B) {
 		A.checkSquare();
+		if (isBandedSolveEfficient(A)) return solveBanded(A,B);
 		LUSolver solver = new LUSolver();
 		solver.setA(A);
 		return solver.solve(B);
 	}
+	
+	/**
+	 * Returns true if A stores its data in bands, and the band storage needed for a banded LU
+	 * decomposition is smaller than a dense copy of A.
+	 */
+	private static boolean isBandedSolveEfficient(AMatrix A) {
+		if (!(A instanceof ABandedMatrix)) return false;
+		int n=A.rowCount();
+		return (2*A.lowerBandwidthLimit()+A.upperBandwidthLimit()+1)<n;
+	}
+	
+	/**
+	 * Solves a square banded system directly from the bands of A, without densifying A.
+	 * Uses the O(n) Thomas algorithm for diagonally dominant tridiagonal matrices, banded Cholesky 
+	 * for symmetric positive definite matrices and banded LU otherwise.
+	 * Returns null if the system has no unique solution.
+	 */
+	private static AVector solveBanded(AMatrix A, AVector b) {
+		int kl=A.lowerBandwidth();
+		int ku=A.upperBandwidth();
+		if ((kl==1)&&(ku==1)) {
+			double[] lower=A.getBand(-1).toDoubleArray();
+			double[] diag=A.getBand(0).toDoubleArray();
+			double[] upper=A.getBand(1).toDoubleArray();
+			if (TridiagonalSolver.isDiagonallyDominant(lower, diag, upper)) {
+				double[] x=b.toDoubleArray();
+				if (TridiagonalSolver.solveInPlace(lower, diag, upper, x, new double[diag.length])) {
+					return Vector.wrap(x);
+				}
+			}
+		}
+		if ((kl==ku)&&A.isSymmetric()) {
+			BandedCholeskySolver chol=new BandedCholeskySolver();
+			if (chol.setA(A,kl)) return chol.solve(b);
+		}
+		BandedLUSolver lu=new BandedLUSolver();
+		if (!lu.setA(A,kl,ku)) return null;
+		return lu.solve(b);
+	}
+	
+	private static AMatrix solveBanded(AMatrix A, AMatrix B) {
+		int kl=A.lowerBandwidth();
+		int ku=A.upperBandwidth();
+		if ((kl==ku)&&A.isSymmetric()) {
+			BandedCholeskySolver chol=new BandedCholeskySolver();
+			if (chol.setA(A,kl)) return chol.solve(B);
+		}
+		BandedLUSolver lu=new BandedLUSolver();
+		if (!lu.setA(A,kl,ku)) return null;
+		return lu.solve(B);
+	}
 
 }
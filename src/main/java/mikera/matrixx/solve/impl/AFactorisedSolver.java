@@ -0,0 +1,62 @@
+package mikera.matrixx.solve.impl;
+
+import mikera.matrixx.AMatrix;
+import mikera.matrixx.Matrix;
+import mikera.matrixx.solve.ISolver;
+import mikera.vectorz.AVector;
+import mikera.vectorz.Vector;
+import mikera.vectorz.util.ErrorMessages;
+
+/**
+ * Abstract base class for solvers that hold a dense factorisation of a matrix.
+ * 
+ * Right hand sides are copied into a row-major array and solved in place, so that a block of
+ * right hand sides is processed together by the blocked routines in TriangularSolver.
+ * 
+ * @author Mike
+ */
+public abstract class AFactorisedSolver implements ISolver {
+	protected final int rows;
+	protected final int cols;
+	
+	protected AFactorisedSolver(int rows, int cols) {
+		this.rows=rows;
+		this.cols=cols;
+	}
+	
+	@Override
+	public int rowCount() {
+		return rows;
+	}
+	
+	@Override
+	public int columnCount() {
+		return cols;
+	}
+
+	/**
+	 * Solves in place for k right hand sides stored as a row-major rows x k matrix. On return 
+	 * the solution occupies the first cols rows of B.
+	 */
+	protected abstract void solveInPlace(double[] B, int k);
+
+	@Override
+	public AVector solve(AVector b) {
+		if (b.length()!=rows) throw new IllegalArgumentException(ErrorMessages.incompatibleShapes(rows, b.length()));
+		double[] x=b.toDoubleArray();
+		solveInPlace(x,1);
+		if (cols<rows) return Vector.create(x,0,cols);
+		return Vector.wrap(x);
+	}
+
+	@Override
+	public AMatrix solve(AMatrix B) {
+		if (B.rowCount()!=rows) throw new IllegalArgumentException(ErrorMessages.incompatibleShapes(rows, B.rowCount()));
+		int k=B.columnCount();
+		double[] x=B.toDoubleArray();
+		solveInPlace(x,k);
+		Matrix X=Matrix.wrap(rows, k, x);
+		if (cols<rows) return X.subMatrix(0, cols, 0, k).toMatrix();
+		return X;
+	}
+}
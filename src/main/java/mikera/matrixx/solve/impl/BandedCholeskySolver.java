@@ -0,0 +1,160 @@
+package mikera.matrixx.solve.impl;
+
+import mikera.matrixx.AMatrix;
+import mikera.matrixx.Matrix;
+import mikera.matrixx.solve.ISolver;
+import mikera.vectorz.AVector;
+import mikera.vectorz.Vector;
+import mikera.vectorz.util.ErrorMessages;
+
+/**
+ * Linear solver for symmetric positive definite banded matrices using Cholesky decomposition.
+ * 
+ * Only the diagonal and lower bands of the matrix are read. These are packed into column-major
+ * band storage as in LAPACK dpbtrf. For a matrix with bandwidth kd, decomposition is
+ * O(n.kd^2) and each solve is O(n.kd), with O(n.(kd+1)) storage.
+ * 
+ * @author Mike
+ */
+public class BandedCholeskySolver implements ISolver {
+	private int n;
+	private int kd;
+	
+	// number of rows in the packed band storage, equal to kd+1
+	private int ldab;
+	
+	// packed lower triangular factor L, with L[i][j] stored at ab[j*ldab+i-j]
+	private double[] ab;
+	
+	/**
+	 * Decomposes the symmetric banded matrix A. The bandwidth is detected from the lower bands of A.
+	 * 
+	 * @param A A square symmetric matrix. Not modified.
+	 * @return true if the decomposition succeeded, false if A is not positive definite
+	 */
+	public boolean setA(AMatrix A) {
+		return setA(A,A.lowerBandwidth());
+	}
+	
+	/**
+	 * Decomposes the symmetric banded matrix A with the given bandwidth. 
+	 * 
+	 * @param A A square symmetric matrix. Not modified.
+	 * @return true if the decomposition succeeded, false if A is not positive definite
+	 */
+	public boolean setA(AMatrix A, int kd) {
+		n=A.checkSquare();
+		this.kd=kd;
+		ldab=kd+1;
+		ab=new double[n*ldab];
+		
+		double[] tmp=new double[n];
+		for (int d=0; d<=kd; d++) {
+			int len=A.bandLength(-d);
+			if (len<=0) continue;
+			A.getBand(-d).getElements(tmp, 0);
+			for (int t=0; t<len; t++) {
+				ab[t*ldab+d]=tmp[t];
+			}
+		}
+		return factor();
+	}
+	
+	private boolean factor() {
+		for (int j=0; j<n; j++) {
+			int cj=j*ldab;
+			double ajj=ab[cj];
+			if (!(ajj>0.0)) return false;
+			ajj=Math.sqrt(ajj);
+			ab[cj]=ajj;
+			int kn=Math.min(kd, n-1-j);
+			if (kn==0) continue;
+			
+			double r=1.0/ajj;
+			for (int t=1; t<=kn; t++) {
+				ab[cj+t]*=r;
+			}
+			// symmetric rank one update of the trailing kn x kn block
+			for (int c=1; c<=kn; c++) {
+				double x=ab[cj+c];
+				if (x==0.0) continue;
+				int o=(j+c)*ldab-c;
+				for (int t=c; t<=kn; t++) {
+					ab[o+t]-=ab[cj+t]*x;
+				}
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Solves A.x = b in place, using the decomposition of A
+	 * @param b Array containing the right hand side, overwritten with the solution
+	 * @param offset Offset of the first element in the array
+	 */
+	public void solveInPlace(double[] b, int offset) {
+		// solve L.y = b
+		for (int j=0; j<n; j++) {
+			int cj=j*ldab;
+			double bj=b[offset+j]/ab[cj];
+			b[offset+j]=bj;
+			if (bj==0.0) continue;
+			int kn=Math.min(kd, n-1-j);
+			for (int t=1; t<=kn; t++) {
+				b[offset+j+t]-=ab[cj+t]*bj;
+			}
+		}
+		// solve L^T.x = y
+		for (int j=n-1; j>=0; j--) {
+			int cj=j*ldab;
+			int kn=Math.min(kd, n-1-j);
+			double sum=b[offset+j];
+			for (int t=1; t<=kn; t++) {
+				sum-=ab[cj+t]*b[offset+j+t];
+			}
+			b[offset+j]=sum/ab[cj];
+		}
+	}
+	
+	@Override
+	public int rowCount() {
+		return n;
+	}
+
+	@Override
+	public int columnCount() {
+		return n;
+	}
+	
+	/**
+	 * Solves A.x = b using the decomposition of A
+	 * @param b
+	 * @return The solution vector x
+	 */
+	@Override
+	public AVector solve(AVector b) {
+		if (b.length()!=n) throw new IllegalArgumentException(ErrorMessages.incompatibleShapes(n, b.length()));
+		Vector x=Vector.create(b);
+		solveInPlace(x.getArray(),0);
+		return x;
+	}
+	
+	/**
+	 * Solves A.X = B using the decomposition of A
+	 * @param B
+	 * @return The solution matrix X
+	 */
+	@Override
+	public AMatrix solve(AMatrix B) {
+		if (B.rowCount()!=n) throw new IllegalArgumentException(ErrorMessages.incompatibleShapes(n, B.rowCount()));
+		int cc=B.columnCount();
+		Matrix X=Matrix.create(n, cc);
+		double[] col=new double[n];
+		for (int j=0; j<cc; j++) {
+			B.copyColumnTo(j, col, 0);
+			solveInPlace(col,0);
+			X.setColumn(j, Vector.wrap(col));
+		}
+		return X;
+	}
+}
@@ -0,0 +1,197 @@
+package mikera.matrixx.solve.impl;
+
+import mikera.matrixx.AMatrix;
+import mikera.matrixx.Matrix;
+import mikera.matrixx.solve.ISolver;
+import mikera.vectorz.AVector;
+import mikera.vectorz.Vector;
+import mikera.vectorz.util.ErrorMessages;
+
+/**
+ * Linear solver for square banded matrices using LU decomposition with partial pivoting.
+ * 
+ * The matrix bands are packed into column-major band storage with space for the fill-in
+ * caused by row interchanges, as in LAPACK dgbtrf. For a matrix with lower bandwidth kl and
+ * upper bandwidth ku, decomposition is O(n.kl.(kl+ku)) and each solve is O(n.(2kl+ku)), with
+ * O(n.(2kl+ku+1)) storage. The matrix is never densified.
+ * 
+ * @author Mike
+ */
+public class BandedLUSolver implements ISolver {
+	private int n;
+	private int kl;
+	private int ku;
+	
+	// row offset of the diagonal within each packed column, equal to kl+ku
+	private int kv;
+	
+	// number of rows in the packed band storage
+	private int ldab;
+	
+	// packed LU factors, column j stored at ab[j*ldab .. (j+1)*ldab-1]
+	private double[] ab;
+	private int[] pivots;
+	
+	/**
+	 * Decomposes the banded matrix A. Bandwidths are detected from the matrix.
+	 * 
+	 * @param A A square matrix. Not modified.
+	 * @return true if the decomposition succeeded, false if A is singular
+	 */
+	public boolean setA(AMatrix A) {
+		return setA(A,A.lowerBandwidth(),A.upperBandwidth());
+	}
+	
+	/**
+	 * Decomposes the banded matrix A with the given lower and upper bandwidths. Elements outside
+	 * the bands are ignored.
+	 * 
+	 * @param A A square matrix. Not modified.
+	 * @return true if the decomposition succeeded, false if A is singular
+	 */
+	public boolean setA(AMatrix A, int kl, int ku) {
+		n=A.checkSquare();
+		this.kl=kl;
+		this.ku=ku;
+		kv=kl+ku;
+		ldab=2*kl+ku+1;
+		ab=new double[n*ldab];
+		pivots=new int[n];
+		
+		double[] tmp=new double[n];
+		for (int d=-kl; d<=ku; d++) {
+			int len=A.bandLength(d);
+			if (len<=0) continue;
+			A.getBand(d).getElements(tmp, 0);
+			int j0=Math.max(d, 0);
+			for (int t=0; t<len; t++) {
+				ab[(j0+t)*ldab+kv-d]=tmp[t];
+			}
+		}
+		return factor();
+	}
+	
+	private boolean factor() {
+		int ju=0;
+		for (int j=0; j<n; j++) {
+			int cj=j*ldab+kv;
+			int km=Math.min(kl, n-1-j);
+			
+			// find pivot
+			int jp=0;
+			double max=Math.abs(ab[cj]);
+			for (int t=1; t<=km; t++) {
+				double v=Math.abs(ab[cj+t]);
+				if (v>max) {
+					max=v;
+					jp=t;
+				}
+			}
+			pivots[j]=j+jp;
+			if (max==0.0) return false;
+			
+			ju=Math.max(ju, Math.min(j+ku+jp, n-1));
+			if (jp!=0) {
+				// interchange rows j and j+jp in columns j..ju
+				for (int c=j; c<=ju; c++) {
+					int o=c*ldab+kv+j-c;
+					double t=ab[o];
+					ab[o]=ab[o+jp];
+					ab[o+jp]=t;
+				}
+			}
+			if (km>0) {
+				double rp=1.0/ab[cj];
+				for (int t=1; t<=km; t++) {
+					ab[cj+t]*=rp;
+				}
+				// rank one update of trailing columns within the band
+				for (int c=j+1; c<=ju; c++) {
+					int o=c*ldab+kv+j-c;
+					double u=ab[o];
+					if (u==0.0) continue;
+					for (int t=1; t<=km; t++) {
+						ab[o+t]-=ab[cj+t]*u;
+					}
+				}
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Solves A.x = b in place, using the decomposition of A
+	 * @param b Array containing the right hand side, overwritten with the solution
+	 * @param offset Offset of the first element in the array
+	 */
+	public void solveInPlace(double[] b, int offset) {
+		// apply row interchanges and L
+		for (int j=0; j<n-1; j++) {
+			int km=Math.min(kl, n-1-j);
+			int p=pivots[j];
+			double bj=b[offset+p];
+			if (p!=j) {
+				b[offset+p]=b[offset+j];
+				b[offset+j]=bj;
+			}
+			if (bj==0.0) continue;
+			int cj=j*ldab+kv;
+			for (int t=1; t<=km; t++) {
+				b[offset+j+t]-=ab[cj+t]*bj;
+			}
+		}
+		// back substitution with U, which has upper bandwidth kl+ku
+		for (int j=n-1; j>=0; j--) {
+			int cj=j*ldab+kv;
+			double bj=b[offset+j]/ab[cj];
+			b[offset+j]=bj;
+			if (bj==0.0) continue;
+			int i0=Math.max(0, j-kv);
+			for (int i=i0; i<j; i++) {
+				b[offset+i]-=ab[cj+i-j]*bj;
+			}
+		}
+	}
+	
+	@Override
+	public int rowCount() {
+		return n;
+	}
+
+	@Override
+	public int columnCount() {
+		return n;
+	}
+	
+	/**
+	 * Solves A.x = b using the decomposition of A
+	 * @param b
+	 * @return The solution vector x
+	 */
+	@Override
+	public AVector solve(AVector b) {
+		if (b.length()!=n) throw new IllegalArgumentException(ErrorMessages.incompatibleShapes(n, b.length()));
+		Vector x=Vector.create(b);
+		solveInPlace(x.getArray(),0);
+		return x;
+	}
+	
+	/**
+	 * Solves A.X = B using the decomposition of A
+	 * @param B
+	 * @return The solution matrix X
+	 */
+	@Override
+	public AMatrix solve(AMatrix B) {
+		if (B.rowCount()!=n) throw new IllegalArgumentException(ErrorMessages.incompatibleShapes(n, B.rowCount()));
+		int cc=B.columnCount();
+		Matrix X=Matrix.create(n, cc);
+		double[] col=new double[n];
+		for (int j=0; j<cc; j++) {
+			B.copyColumnTo(j, col, 0);
+			solveInPlace(col,0);
+			X.setColumn(j, Vector.wrap(col));
+		}
+		return X;
+	}
+}
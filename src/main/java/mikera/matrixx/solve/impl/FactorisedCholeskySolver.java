@@ -0,0 +1,41 @@
+package mikera.matrixx.solve.impl;
+
+import mikera.matrixx.AMatrix;
+import mikera.matrixx.decompose.ICholeskyResult;
+import mikera.matrixx.decompose.impl.chol.Cholesky;
+
+/**
+ * Solver holding the Cholesky decomposition A = L.L* of a symmetric positive definite matrix.
+ * 
+ * Each solve is a forward substitution with L followed by a back substitution with L*, 
+ * which is read directly from the rows of L.
+ * 
+ * @author Mike
+ */
+public class FactorisedCholeskySolver extends AFactorisedSolver {
+	private final double[] l;
+	
+	private FactorisedCholeskySolver(int n, double[] l) {
+		super(n,n);
+		this.l=l;
+	}
+	
+	/**
+	 * Computes the Cholesky decomposition of a symmetric positive definite matrix.
+	 * 
+	 * @param A A symmetric positive definite matrix. Not modified.
+	 * @return The prepared solver, or null if A is not positive definite
+	 */
+	public static FactorisedCholeskySolver create(AMatrix A) {
+		int n=A.checkSquare();
+		ICholeskyResult r=Cholesky.decompose(A);
+		if (r==null) return null;
+		return new FactorisedCholeskySolver(n,r.getL().toMatrix().data);
+	}
+
+	@Override
+	protected void solveInPlace(double[] B, int k) {
+		TriangularSolver.solveLBlock(l, B, rows, k, false);
+		TriangularSolver.solveTranLBlock(l, B, rows, k);
+	}
+}
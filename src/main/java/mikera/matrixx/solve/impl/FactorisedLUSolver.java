@@ -0,0 +1,50 @@
+package mikera.matrixx.solve.impl;
+
+import mikera.matrixx.AMatrix;
+import mikera.matrixx.Matrix;
+import mikera.matrixx.decompose.impl.lu.AltLU;
+
+/**
+ * Solver holding the LU decomposition with partial pivoting of a square matrix, P.A = L.U
+ * 
+ * Each solve permutes the right hand sides and then performs a forward substitution with the
+ * unit lower triangular L followed by a back substitution with U.
+ * 
+ * @author Mike
+ */
+public class FactorisedLUSolver extends AFactorisedSolver {
+	private final double[] lu;
+	private final int[] pivot;
+	
+	private FactorisedLUSolver(int n, double[] lu, int[] pivot) {
+		super(n,n);
+		this.lu=lu;
+		this.pivot=pivot;
+	}
+	
+	/**
+	 * Computes the LU decomposition of a square matrix.
+	 * 
+	 * @param A A square matrix. Not modified.
+	 * @return The prepared solver, or null if A is singular
+	 */
+	public static FactorisedLUSolver create(AMatrix A) {
+		int n=A.checkSquare();
+		AltLU alg=new AltLU();
+		alg._decompose(A);
+		if (alg.isSingular()) return null;
+		Matrix LU=(Matrix) alg.getLU();
+		return new FactorisedLUSolver(n,LU.data,alg.getPivot());
+	}
+
+	@Override
+	protected void solveInPlace(double[] B, int k) {
+		int n=rows;
+		double[] t=B.clone();
+		for (int i=0; i<n; i++) {
+			System.arraycopy(t, pivot[i]*k, B, i*k, k);
+		}
+		TriangularSolver.solveLBlock(lu, B, n, k, true);
+		TriangularSolver.solveUBlock(lu, n, B, n, k);
+	}
+}
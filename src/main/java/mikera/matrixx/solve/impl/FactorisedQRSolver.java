@@ -0,0 +1,88 @@
+package mikera.matrixx.solve.impl;
+
+import mikera.matrixx.AMatrix;
+import mikera.matrixx.decompose.impl.qr.HouseholderQR;
+
+/**
+ * Solver holding the Householder QR decomposition A = Q.R of an m x n matrix with m &gt;= n
+ * and full column rank. Solves give the least squares solution for over-determined systems.
+ * 
+ * Q is kept in compact form as a sequence of Householder reflectors, which are applied to all 
+ * right hand sides together before a back substitution with R.
+ * 
+ * @author Mike
+ */
+public class FactorisedQRSolver extends AFactorisedSolver {
+	private static final double EPS = Math.pow(2,-52);
+	
+	// R in the upper triangle, Householder vectors below the diagonal
+	private final double[] qr;
+	private final double[] gammas;
+	
+	private FactorisedQRSolver(int m, int n, double[] qr, double[] gammas) {
+		super(m,n);
+		this.qr=qr;
+		this.gammas=gammas;
+	}
+	
+	/**
+	 * Computes the QR decomposition of a matrix with at least as many rows as columns.
+	 * 
+	 * A is treated as rank deficient if any diagonal element of R is no larger than m.EPS times 
+	 * the largest diagonal element in magnitude, so the test does not depend on the scale of A.
+	 * 
+	 * @param A An m x n matrix with m &gt;= n. Not modified.
+	 * @return The prepared solver, or null if A does not have full column rank
+	 * @throws IllegalArgumentException if A has fewer rows than columns
+	 */
+	public static FactorisedQRSolver create(AMatrix A) {
+		int m=A.rowCount();
+		int n=A.columnCount();
+		if (m<n) throw new IllegalArgumentException("QR solver requires at least as many rows as columns, got shape "+m+"x"+n);
+		HouseholderQR alg=new HouseholderQR(true);
+		if (!alg._decompose(A)) return null;
+		double[] qr=alg.getQR().asDoubleArray();
+		double maxDiag=0.0;
+		for (int i=0; i<n; i++) {
+			maxDiag=Math.max(maxDiag, Math.abs(qr[i*n+i]));
+		}
+		double tol=m*EPS*maxDiag;
+		for (int i=0; i<n; i++) {
+			// also rejects NaN diagonals, and zero diagonals when R is entirely zero
+			if (!(Math.abs(qr[i*n+i])>tol)) return null;
+		}
+		return new FactorisedQRSolver(m,n,qr,alg.getGammas());
+	}
+
+	@Override
+	protected void solveInPlace(double[] B, int k) {
+		int m=rows;
+		int n=cols;
+		double[] w=new double[k];
+		
+		// B = Q^T.B, applying each reflector (I - gamma.u.u^T) with u[j]=1
+		for (int j=0; j<n; j++) {
+			System.arraycopy(B, j*k, w, 0, k);
+			for (int i=j+1; i<m; i++) {
+				double u=qr[i*n+j];
+				if (u==0.0) continue;
+				int row=i*k;
+				for (int c=0; c<k; c++) w[c]+=u*B[row+c];
+			}
+			double gamma=gammas[j];
+			int rowJ=j*k;
+			for (int c=0; c<k; c++) {
+				w[c]*=gamma;
+				B[rowJ+c]-=w[c];
+			}
+			for (int i=j+1; i<m; i++) {
+				double u=qr[i*n+j];
+				if (u==0.0) continue;
+				int row=i*k;
+				for (int c=0; c<k; c++) B[row+c]-=u*w[c];
+			}
+		}
+		
+		TriangularSolver.solveUBlock(qr, n, B, n, k);
+	}
+}
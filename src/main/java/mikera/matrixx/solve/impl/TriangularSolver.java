@@ -18,6 +18,8 @@
 
 package mikera.matrixx.solve.impl;
 
+import mikera.vectorz.util.Parallel;
+
 /**
  * <p>
  * This contains algorithms for solving systems of equations where T is a
@@ -243,4 +245,201 @@ public class TriangularSolver {
 
         // todo comment out the above and optimize it
     }
+
+    /**
+     * Number of rows of the right hand side that are solved together before the remaining rows
+     * are updated.  Chosen so that a block of rows stays in cache during the update.
+     */
+    private static final int BLOCK_ROWS = 64;
+
+    /**
+     * Maximum number of right hand side columns that are processed in each pass.
+     */
+    private static final int BLOCK_COLS = 256;
+
+    /**
+     * Minimum width of a column strip when strips are split between threads.
+     */
+    private static final int MIN_PARALLEL_COLS = 16;
+
+    /**
+     * Number of multiply-adds (n*n*k) above which column strips are solved in parallel.
+     */
+    private static final long PARALLEL_THRESHOLD = 1L<<20;
+
+    /**
+     * <p>
+     * Solves for multiple right hand sides using blocked forward substitution.
+     * <br>
+     * B = L<sup>-1</sup>B<br>
+     * <br>
+     * where B is an n by k matrix, L is an n by n lower triangular matrix.  Both are stored in row
+     * major order.  The right hand side is processed in column strips, and within each strip rows
+     * of B are solved in blocks which are then used to update all the rows below them.  This way
+     * every element of L is read once per strip rather than once per column of B.  Strips are
+     * independent, so large problems are solved with one strip per thread.
+     * </p>
+     *
+     * @param L An n by n non-singular lower triangular matrix. Not modified.
+     * @param B An n by k matrix. Modified.
+     * @param n The size of L
+     * @param k The number of right hand sides
+     * @param unitDiagonal If true the diagonal of L is assumed to be one and is not read.
+     */
+    public static void solveLBlock( final double L[] , final double B[] , final int n , final int k , final boolean unitDiagonal )
+    {
+        final int width = stripWidth(n,k);
+        Parallel.forRange(0, (k+width-1)/width, 1, new Parallel.IRangeTask() {
+            @Override
+            public void run(int start, int end) {
+                for( int s = start; s < end; s++ ) {
+                    solveLStrip(L, B, n, k, unitDiagonal, s*width, Math.min(k, (s+1)*width));
+                }
+            }
+        });
+    }
+
+    private static void solveLStrip( double L[] , double B[] , int n , int k , boolean unitDiagonal , int c0 , int c1 )
+    {
+        for( int i0 = 0; i0 < n; i0 += BLOCK_ROWS ) {
+            int i1 = Math.min(n, i0+BLOCK_ROWS);
+
+            // solve the diagonal block
+            for( int i = i0; i < i1; i++ ) {
+                subtractRows(L, i*n, i0, i, B, k, i, c0, c1);
+                if( !unitDiagonal ) scaleRow(B, i*k, c0, c1, 1.0/L[i*n+i]);
+            }
+
+            // update the rows below with the solved block
+            for( int i = i1; i < n; i++ ) {
+                subtractRows(L, i*n, i0, i1, B, k, i, c0, c1);
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Solves for multiple right hand sides using blocked back substitution.
+     * <br>
+     * B = U<sup>-1</sup>B<br>
+     * <br>
+     * where B is an n by k matrix and U is the leading n by n upper triangular block of a matrix
+     * with row stride strideU.  See {@link #solveLBlock} for the blocking strategy.
+     * </p>
+     *
+     * @param U Upper triangular matrix. Not modified.
+     * @param strideU The row stride of U, at least n
+     * @param B An n by k matrix. Modified.
+     * @param n The size of U
+     * @param k The number of right hand sides
+     */
+    public static void solveUBlock( final double U[] , final int strideU , final double B[] , final int n , final int k )
+    {
+        final int width = stripWidth(n,k);
+        Parallel.forRange(0, (k+width-1)/width, 1, new Parallel.IRangeTask() {
+            @Override
+            public void run(int start, int end) {
+                for( int s = start; s < end; s++ ) {
+                    solveUStrip(U, strideU, B, n, k, s*width, Math.min(k, (s+1)*width));
+                }
+            }
+        });
+    }
+
+    private static void solveUStrip( double U[] , int strideU , double B[] , int n , int k , int c0 , int c1 )
+    {
+        for( int i1 = n; i1 > 0; i1 -= BLOCK_ROWS ) {
+            int i0 = Math.max(0, i1-BLOCK_ROWS);
+
+            for( int i = i1-1; i >= i0; i-- ) {
+                subtractRows(U, i*strideU, i+1, i1, B, k, i, c0, c1);
+                scaleRow(B, i*k, c0, c1, 1.0/U[i*strideU+i]);
+            }
+
+            for( int i = 0; i < i0; i++ ) {
+                subtractRows(U, i*strideU, i0, i1, B, k, i, c0, c1);
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Solves for multiple right hand sides with the transpose of a lower triangular matrix.
+     * <br>
+     * B = (L<sup>T</sup>)<sup>-1</sup>B<br>
+     * <br>
+     * Each solved row of B is immediately subtracted from the rows above it, so that L is
+     * only ever traversed along its rows.
+     * </p>
+     *
+     * @param L An n by n non-singular lower triangular matrix. Not modified.
+     * @param B An n by k matrix. Modified.
+     * @param n The size of L
+     * @param k The number of right hand sides
+     */
+    public static void solveTranLBlock( final double L[] , final double B[] , final int n , final int k )
+    {
+        final int width = stripWidth(n,k);
+        Parallel.forRange(0, (k+width-1)/width, 1, new Parallel.IRangeTask() {
+            @Override
+            public void run(int start, int end) {
+                for( int s = start; s < end; s++ ) {
+                    solveTranLStrip(L, B, n, k, s*width, Math.min(k, (s+1)*width));
+                }
+            }
+        });
+    }
+
+    private static void solveTranLStrip( double L[] , double B[] , int n , int k , int c0 , int c1 )
+    {
+        for( int j = n-1; j >= 0; j-- ) {
+            int rowL = j*n;
+            int rowJ = j*k;
+            scaleRow(B, rowJ, c0, c1, 1.0/L[rowL+j]);
+            for( int i = 0; i < j; i++ ) {
+                double a = L[rowL+i];
+                if( a == 0 ) continue;
+                int rowI = i*k;
+                for( int c = c0; c < c1; c++ ) {
+                    B[rowI+c] -= a*B[rowJ+c];
+                }
+            }
+        }
+    }
+
+    /**
+     * Width of the column strips for an n by n triangular system with k right hand sides.  Large
+     * systems are split into at least one strip per thread.
+     */
+    static int stripWidth( int n , int k )
+    {
+        if( k <= 0 ) return 1;
+        if( (Parallel.THREADS <= 1) || ((long)n*n*k < PARALLEL_THRESHOLD) ) return Math.min(k, BLOCK_COLS);
+        int perThread = (k+Parallel.THREADS-1)/Parallel.THREADS;
+        return Math.min(BLOCK_COLS, Math.max(MIN_PARALLEL_COLS, perThread));
+    }
+
+    /**
+     * B[i,c0:c1] -= sum over p in [p0,p1) of T[rowT+p]*B[p,c0:c1]
+     */
+    private static void subtractRows( double T[] , int rowT , int p0 , int p1 ,
+                                      double B[] , int k , int i , int c0 , int c1 )
+    {
+        int rowI = i*k;
+        for( int p = p0; p < p1; p++ ) {
+            double a = T[rowT+p];
+            if( a == 0 ) continue;
+            int rowP = p*k;
+            for( int c = c0; c < c1; c++ ) {
+                B[rowI+c] -= a*B[rowP+c];
+            }
+        }
+    }
+
+    private static void scaleRow( double B[] , int row , int c0 , int c1 , double factor )
+    {
+        for( int c = c0; c < c1; c++ ) {
+            B[row+c] *= factor;
+        }
+    }
 }
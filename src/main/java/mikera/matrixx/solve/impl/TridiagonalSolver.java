@@ -0,0 +1,91 @@
+package mikera.matrixx.solve.impl;
+
+import mikera.matrixx.AMatrix;
+import mikera.vectorz.AVector;
+import mikera.vectorz.Vector;
+import mikera.vectorz.util.ErrorMessages;
+
+/**
+ * O(n) solver for tridiagonal systems using the Thomas algorithm.
+ * 
+ * The Thomas algorithm is Gaussian elimination without pivoting, so it is only guaranteed to
+ * be numerically stable for diagonally dominant or symmetric positive definite matrices. 
+ * Use BandedLUSolver for general tridiagonal matrices.
+ * 
+ * @author Mike
+ */
+public class TridiagonalSolver {
+
+	private TridiagonalSolver(){}
+	
+	/**
+	 * Solves a tridiagonal system of equations in place.
+	 * 
+	 * @param lower Sub-diagonal, of length n-1. Not modified.
+	 * @param diag Main diagonal, of length n. Not modified.
+	 * @param upper Super-diagonal, of length n-1. Not modified.
+	 * @param b Right hand side of length n, overwritten with the solution
+	 * @param work Working storage of length at least n-1
+	 * @return true if successful, false if a zero pivot was encountered
+	 */
+	public static boolean solveInPlace(double[] lower, double[] diag, double[] upper, double[] b, double[] work) {
+		int n=diag.length;
+		if (n==0) return true;
+		double d=diag[0];
+		if (d==0.0) return false;
+		b[0]/=d;
+		for (int i=1; i<n; i++) {
+			double w=upper[i-1]/d;
+			work[i-1]=w;
+			d=diag[i]-lower[i-1]*w;
+			if (d==0.0) return false;
+			b[i]=(b[i]-lower[i-1]*b[i-1])/d;
+		}
+		for (int i=n-2; i>=0; i--) {
+			b[i]-=work[i]*b[i+1];
+		}
+		return true;
+	}
+	
+	/**
+	 * Returns true if the tridiagonal matrix is diagonally dominant by rows, in which case
+	 * the Thomas algorithm is numerically stable.
+	 */
+	public static boolean isDiagonallyDominant(double[] lower, double[] diag, double[] upper) {
+		int n=diag.length;
+		for (int i=0; i<n; i++) {
+			double off=((i>0)?Math.abs(lower[i-1]):0.0)+((i<n-1)?Math.abs(upper[i]):0.0);
+			if (Math.abs(diag[i])<off) return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Solves A.x = b for a tridiagonal matrix A. Only the three central bands of A are read.
+	 * 
+	 * @param A A square tridiagonal matrix
+	 * @param b
+	 * @return The solution vector, or null if a zero pivot was encountered
+	 */
+	public static AVector solve(AMatrix A, AVector b) {
+		int n=A.checkSquare();
+		if (b.length()!=n) throw new IllegalArgumentException(ErrorMessages.incompatibleShapes(n, b.length()));
+		if (n==0) return Vector.createLength(0);
+		return solve(A.getBand(-1),A.getBand(0),A.getBand(1),b);
+	}
+	
+	/**
+	 * Solves a tridiagonal system of equations specified by its three bands.
+	 * 
+	 * @return The solution vector, or null if a zero pivot was encountered
+	 */
+	public static AVector solve(AVector lower, AVector diag, AVector upper, AVector b) {
+		int n=diag.length();
+		if ((lower.length()!=n-1)||(upper.length()!=n-1)||(b.length()!=n)) {
+			throw new IllegalArgumentException("Incompatible band lengths for tridiagonal system of size "+n);
+		}
+		Vector x=Vector.create(b);
+		boolean ok=solveInPlace(lower.toDoubleArray(),diag.toDoubleArray(),upper.toDoubleArray(),x.getArray(),new double[Math.max(0, n-1)]);
+		return ok?x:null;
+	}
+}
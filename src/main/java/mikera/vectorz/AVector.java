@@ -30,6 +30,7 @@ import mikera.vectorz.impl.IndexedSubVector;
 import mikera.vectorz.impl.JoinedVector;
 import mikera.vectorz.impl.ListWrapper;
 import mikera.vectorz.impl.SparseIndexedVector;
+import mikera.vectorz.impl.VectorKernels;
 import mikera.vectorz.impl.Vector0;
 import mikera.vectorz.impl.VectorIndexScalar;
 import mikera.vectorz.impl.VectorIterator;
@@ -1138,14 +1139,29 @@ public abstract class AVector extends AbstractArray<Double> implements IVector {
 	 * @return
 	 */
 	public double dotProduct(AVector v) {
-		if (v instanceof ADenseArrayVector) return dotProduct((ADenseArrayVector)v);
-		if (v instanceof ASparseVector) return ((ASparseVector)v).dotProduct(this);
+		return VectorKernels.dotProduct(this, v);
+	}
+	
+	/**
+	 * Returns the dot product of this vector with another vector, summing the products with
+	 * Kahan compensated summation. Slower than dotProduct(AVector), but the rounding error does 
+	 * not grow with the length of the vectors.
+	 * 
+	 * @param v
+	 * @return
+	 */
+	public double dotProductCompensated(AVector v) {
 		int len=checkSameLength(v);
-		double total=0.0;
+		double sum=0.0;
+		double c=0.0;
 		for (int i=0; i<len; i++) {
-			total+=unsafeGet(i)*v.unsafeGet(i);
+			double y=unsafeGet(i)*v.unsafeGet(i)-c;
+			double t=sum+y;
+			// no compensation once the sum is infinite, since it would be NaN
+			c=Double.isInfinite(t)?0.0:(t-sum)-y;
+			sum=t;
 		}
-		return total;
+		return sum;
 	}
 	
 	/**
@@ -1259,8 +1275,7 @@ public abstract class AVector extends AbstractArray<Double> implements IVector {
 	 * @return
 	 */
 	public double distanceSquared(AVector v) {
-		// we rely on the identity:  (a-b)^2  = a^2 + b^2 - 2a.b
-		return this.elementSquaredSum()+v.elementSquaredSum()-2*v.dotProduct(this);
+		return VectorKernels.distanceSquared(this, v);
 	}
 	
 	/**
@@ -1279,9 +1294,7 @@ public abstract class AVector extends AbstractArray<Double> implements IVector {
 	 * @return
 	 */
 	public double distanceL1(AVector v) {
-		AVector t=this.subCopy(v).mutable();
-		t.abs();
-		return t.elementSum();
+		return VectorKernels.distanceL1(this, v);
 	}
 	
 	/**
@@ -1291,8 +1304,7 @@ public abstract class AVector extends AbstractArray<Double> implements IVector {
 	 * @return
 	 */
 	public double distanceLinf(AVector v) {
-		AVector t=this.subCopy(v);
-		return t.maxAbsElement();
+		return VectorKernels.distanceLinf(this, v);
 	}
 	
 	/**
@@ -1406,6 +1418,24 @@ public abstract class AVector extends AbstractArray<Double> implements IVector {
 		return result;
 	}
 	
+	/**
+	 * Returns the sum of all elements in a vector, using Kahan compensated summation. Slower than
+	 * elementSum(), but the rounding error does not grow with the length of the vector.
+	 * @return
+	 */
+	public double elementSumCompensated() {
+		int len=length();
+		double sum=0.0;
+		double c=0.0;
+		for (int i=0; i<len; i++) {
+			double y=unsafeGet(i)-c;
+			double t=sum+y;
+			c=Double.isInfinite(t)?0.0:(t-sum)-y;
+			sum=t;
+		}
+		return sum;
+	}
+	
 	@Override
 	public double elementProduct() {
 		int len=length();
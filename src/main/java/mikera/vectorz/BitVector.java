@@ -1,13 +1,21 @@
 package mikera.vectorz;
 
+import java.util.Arrays;
+
 import mikera.vectorz.impl.ABooleanVector;
+import mikera.vectorz.impl.ADenseArrayVector;
+import mikera.vectorz.util.LongArrays;
 
 /**
  * Boolean vector backed by densely packed single bits - constrained to 0.0 / 1.0 values
  * 
  * Setting the BitVector will set to 1.0 for any positive values (true) and 0.0 otherwise (false)
  * 
- * Intended for compact representation/storage of boolean vectors
+ * Intended for compact representation/storage of boolean vectors. Operations between BitVectors
+ * such as dot products, distances and the logical and/or/xor operations work on whole 64-bit
+ * words at a time.
+ * 
+ * Bits beyond the length of the vector in the last word are always kept clear.
  * 
  * @author Mike
  */
@@ -19,11 +27,11 @@ public final class BitVector extends ABooleanVector {
 	public static final double BIT_THRESHOLD=0.0;
 	
 	private final long[] data;
+	private final int offset;
+	private final int words;
 	
 	public BitVector(int length) {
-		super(length);
-		data=new long[requiredArraySize(length)];
-		
+		this(new long[requiredArraySize(length)],0,length);
 	}
 
 	private BitVector(AVector source) {
@@ -32,19 +40,51 @@ public final class BitVector extends ABooleanVector {
 	}
 	
 	private BitVector(BitVector source) {
-		this(source.data.clone(),source.length());
+		this(Arrays.copyOfRange(source.data, source.offset, source.offset+source.words),0,source.length());
 	}
 
-	private BitVector(long[] data, int length) {
+	private BitVector(long[] data, int offset, int length) {
 		super(length);
 		this.data=data;
+		this.offset=offset;
+		this.words=requiredArraySize(length);
 	}
 	
-	private int requiredArraySize(int length) {
+	/**
+	 * Returns the number of 64-bit words needed to store a bit vector of the given length
+	 */
+	public static int requiredArraySize(int length) {
 		assert(length>=0);
 		return (length+63)/64;
 	}
 	
+	/**
+	 * Wraps a range of words in a long[] array as a BitVector. Bit j of the vector is stored in
+	 * bit (j%64) of word (offset+j/64). Does not take a defensive copy.
+	 * 
+	 * Any bits set beyond the length of the vector in the last word must be clear.
+	 */
+	public static BitVector wrap(long[] data, int offset, int length) {
+		if ((offset<0)||(length<0)||(offset+requiredArraySize(length)>data.length)) {
+			throw new IndexOutOfBoundsException("Invalid bit array range: offset="+offset+", length="+length);
+		}
+		return new BitVector(data,offset,length);
+	}
+	
+	/**
+	 * Gets the underlying long[] array of packed bits
+	 */
+	public long[] getLongArray() {
+		return data;
+	}
+	
+	/**
+	 * Gets the offset of the first word in the underlying long[] array
+	 */
+	public int getLongArrayOffset() {
+		return offset;
+	}
+	
 	public static BitVector createLength(int length) {
 		return new BitVector(length);
 	}
@@ -54,7 +94,7 @@ public final class BitVector extends ABooleanVector {
 	}
 	
 	private final boolean getBit(int i) {
-		return (((data[i>>>6] >>> (i%64))&1L)!=0L);
+		return (((data[offset+(i>>>6)] >>> (i%64))&1L)!=0L);
 	}
 	
 	@Override
@@ -75,13 +115,13 @@ public final class BitVector extends ABooleanVector {
 	
 	@Override
 	public boolean isView() {
-		return false;
+		return (offset!=0)||(data.length!=words);
 	}
 	
 	@Override
 	public boolean isZero() {
-		for (int i=0; i<data.length; i++) {
-			if (data[i]!=0) return false;
+		for (int i=0; i<words; i++) {
+			if (data[offset+i]!=0) return false;
 		}
 		return true;
 	}
@@ -99,11 +139,7 @@ public final class BitVector extends ABooleanVector {
 	
 	@Override
 	public long nonZeroCount() {
-		long result=0;
-		for (int i=0; i<data.length; i++) {
-			result+=Long.bitCount(data[i]);
-		}
-		return result;
+		return LongArrays.bitCount(data, offset, words);
 	}
 
 	@Override
@@ -113,35 +149,149 @@ public final class BitVector extends ABooleanVector {
 	
 	@Override
 	public double dotProduct(double[] data, int offset) {
-		double result=0.0;
-		for (int i=0; i<this.data.length; i++) {
-			long mask=this.data[i];
-			for (int j=0; j<64; j++) {
-				if (mask==0) break;
-				if ((mask&1L)!=0L) result+=data[offset+j];
-				mask>>>=1;
-			}
-			offset+=64;
-		}
-		return result;
+		return LongArrays.bitDotProduct(this.data, this.offset, words, data, offset);
 	}
 	
 	@Override
 	public double dotProduct(AVector v) {
+		checkSameLength(v);
+		if (v instanceof BitVector) return intersectionCount((BitVector)v);
+		if (v instanceof ADenseArrayVector) {
+			ADenseArrayVector dv=(ADenseArrayVector)v;
+			return dotProduct(dv.getArray(),dv.getArrayOffset());
+		}
 		double result=0.0;
-		int offset=0;
-		for (int i=0; i<data.length; i++) {
-			long mask=this.data[i];
-			for (int j=0; j<64; j++) {
-				if (mask==0) break;
-				if ((mask&1L)!=0L) result+=v.unsafeGet(offset+j);
-				mask>>>=1;
+		for (int i=0; i<words; i++) {
+			long w=data[offset+i];
+			int base=i<<6;
+			while (w!=0L) {
+				result+=v.unsafeGet(base+Long.numberOfTrailingZeros(w));
+				w&=w-1;
 			}
-			offset+=64;
 		}
 		return result;
 	}
 	
+	/**
+	 * Counts the positions where both this and another BitVector are set
+	 */
+	public long intersectionCount(BitVector v) {
+		checkSameLength(v);
+		return LongArrays.andCount(data, offset, v.data, v.offset, words);
+	}
+	
+	/**
+	 * Counts the positions where either this or another BitVector is set
+	 */
+	public long unionCount(BitVector v) {
+		checkSameLength(v);
+		return LongArrays.orCount(data, offset, v.data, v.offset, words);
+	}
+	
+	/**
+	 * Counts the positions where this and another BitVector differ
+	 */
+	public long hammingDistance(BitVector v) {
+		checkSameLength(v);
+		return LongArrays.xorCount(data, offset, v.data, v.offset, words);
+	}
+	
+	/**
+	 * Computes the Jaccard similarity with another BitVector, i.e. the size of the intersection
+	 * divided by the size of the union. Two all-zero vectors have a similarity of 1.0
+	 */
+	public double jaccardSimilarity(BitVector v) {
+		long union=unionCount(v);
+		if (union==0L) return 1.0;
+		return ((double)intersectionCount(v))/union;
+	}
+	
+	@Override
+	public double distanceSquared(AVector v) {
+		if (v instanceof BitVector) return hammingDistance((BitVector)v);
+		return super.distanceSquared(v);
+	}
+	
+	@Override
+	public double distanceL1(AVector v) {
+		if (v instanceof BitVector) return hammingDistance((BitVector)v);
+		return super.distanceL1(v);
+	}
+	
+	/**
+	 * Sets this BitVector to the logical AND of itself and another BitVector
+	 */
+	public void and(BitVector v) {
+		checkSameLength(v);
+		LongArrays.and(data, offset, v.data, v.offset, words);
+	}
+	
+	/**
+	 * Sets this BitVector to the logical OR of itself and another BitVector
+	 */
+	public void or(BitVector v) {
+		checkSameLength(v);
+		LongArrays.or(data, offset, v.data, v.offset, words);
+	}
+	
+	/**
+	 * Sets this BitVector to the logical XOR of itself and another BitVector
+	 */
+	public void xor(BitVector v) {
+		checkSameLength(v);
+		LongArrays.xor(data, offset, v.data, v.offset, words);
+	}
+	
+	/**
+	 * Clears every bit in this BitVector that is set in another BitVector
+	 */
+	public void andNot(BitVector v) {
+		checkSameLength(v);
+		LongArrays.andNot(data, offset, v.data, v.offset, words);
+	}
+	
+	/**
+	 * Inverts every bit in this BitVector
+	 */
+	public void not() {
+		if (words==0) return;
+		for (int i=0; i<words; i++) {
+			data[offset+i]=~data[offset+i];
+		}
+		data[offset+words-1]&=LongArrays.tailMask(length);
+	}
+	
+	@Override
+	public void fill(double value) {
+		if (words==0) return;
+		if (value>BIT_THRESHOLD) {
+			Arrays.fill(data, offset, offset+words, -1L);
+			data[offset+words-1]&=LongArrays.tailMask(length);
+		} else {
+			Arrays.fill(data, offset, offset+words, 0L);
+		}
+	}
+	
+	@Override
+	public void set(AVector v) {
+		if (v instanceof BitVector) {
+			checkSameLength(v);
+			BitVector bv=(BitVector)v;
+			System.arraycopy(bv.data, bv.offset, data, offset, words);
+		} else {
+			super.set(v);
+		}
+	}
+	
+	@Override
+	public void multiply(AVector v) {
+		if (v instanceof BitVector) {
+			and((BitVector)v);
+		} else {
+			super.multiply(v);
+		}
+	}
+	
 	@Override 
 	public void multiplyTo(double[] data, int offset) {
 		int len = length();
@@ -159,9 +309,14 @@ public final class BitVector extends ABooleanVector {
 	
 	@Override
 	public void getElements(double[] data, int offset) {
-		int len = length();
-		for (int i=0; i<len; i++) {
-			data[i+offset]=unsafeGet(i);
+		Arrays.fill(data, offset, offset+length, BIT_OFF);
+		for (int i=0; i<words; i++) {
+			long w=this.data[this.offset+i];
+			int base=offset+(i<<6);
+			while (w!=0L) {
+				data[base+Long.numberOfTrailingZeros(w)]=BIT_ON;
+				w&=w-1;
+			}
 		}
 	}
 
@@ -170,7 +325,7 @@ public final class BitVector extends ABooleanVector {
 		if ((i<0)||(i>=length)) throw new IndexOutOfBoundsException("Index: "+i);
 		int bit=i%64;
 		long mask = (1L<<bit);
-		int p=i>>>6;
+		int p=offset+(i>>>6);
 		data[p]=(data[p]&(~mask))|(value>BIT_THRESHOLD?mask:0L);
 	}
 
@@ -9,8 +9,10 @@ import mikera.vectorz.ops.Composed;
 import mikera.vectorz.ops.Derivative;
 import mikera.vectorz.ops.Division;
 import mikera.vectorz.ops.Inverse;
+import mikera.vectorz.ops.OpCompiler;
 import mikera.vectorz.ops.Product;
 import mikera.vectorz.ops.Sum;
+import mikera.vectorz.util.ParallelArrays;
 
 /**
  * Abstract class for representing a unary operation
@@ -19,6 +21,18 @@ import mikera.vectorz.ops.Sum;
  */
 public abstract class Op implements IOperator {
 	
+	/**
+	 * Number of elements processed at a time by blocked array kernels. Small enough for
+	 * working buffers to stay in L1 cache.
+	 */
+	protected static final int BLOCK_SIZE=256;
+	
+	// strided ranges up to this length are processed element by element rather than gathered
+	private static final int SMALL_LENGTH=16;
+	
+	// cached result of compile()
+	private volatile Op compiled;
+	
 	@Override
 	public abstract double apply(double x);
 	
@@ -72,7 +86,7 @@ public abstract class Op implements IOperator {
 	 * @param s
 	 */
 	public void applyTo(ADenseArrayVector v) {
-		applyTo(v.getArray(), v.getArrayOffset(),v.length());
+		ParallelArrays.applyOp(this, v.getArray(), v.getArrayOffset(),v.length());
 	}
 	
 	/**
@@ -91,6 +105,13 @@ public abstract class Op implements IOperator {
 		}
 	}
 
+	/**
+	 * Applies this operator to a contiguous range of a double[] array, mutating the array in place.
+	 * 
+	 * Built-in Ops override this with a specialised loop. Ops combining two child Ops, such as
+	 * Composed, Sum, Product and Division, evaluate both children with their own array kernels
+	 * one block of BLOCK_SIZE elements at a time, so that the intermediate values stay in cache.
+	 */
 	@Override
 	public void applyTo(double[] data, int start, int length) {
 		for (int i=0; i<length; i++) {
@@ -99,16 +120,35 @@ public abstract class Op implements IOperator {
 		}
 	}
 	
+	/**
+	 * Applies this operator to strided elements of a double[] array, mutating the array in place.
+	 * 
+	 * Elements are gathered in blocks into a contiguous buffer so that the array kernel of 
+	 * the operator can be used. Ops with cheap element functions override this with a direct loop.
+	 */
 	@Override
 	public void applyTo(double[] data, int start, int stride, int length) {
 		if (stride==1) {
 			applyTo(data,start,length);
-		} else {
+		} else if (length<=SMALL_LENGTH) {
 			for (int i=0; i<length; i++) {
 				int ii=start+i*stride;
 				double x=data[ii];
 				data[ii]=apply(x);
 			}
+		} else {
+			double[] buf=new double[Math.min(length, BLOCK_SIZE)];
+			for (int i0=0; i0<length; i0+=BLOCK_SIZE) {
+				int n=Math.min(BLOCK_SIZE, length-i0);
+				int base=start+i0*stride;
+				for (int i=0; i<n; i++) {
+					buf[i]=data[base+i*stride];
+				}
+				applyTo(buf,0,n);
+				for (int i=0; i<n; i++) {
+					data[base+i*stride]=buf[i];
+				}
+			}
 		}
 	}
 	
@@ -189,6 +229,16 @@ public abstract class Op implements IOperator {
 		return false;
 	}
 	
+	/**
+	 * Returns true if the operator may be applied to different elements from multiple threads at the 
+	 * same time. Only thread safe operators are applied to large arrays in parallel, so this defaults 
+	 * to false and is overridden by the stateless built-in operators.
+	 * @return
+	 */
+	public boolean isThreadSafe() {
+		return false;
+	}
+	
 	public double averageValue() {
 		throw new UnsupportedOperationException();
 	}
@@ -296,6 +346,22 @@ public abstract class Op implements IOperator {
 		return Sum.create(this, op);
 	}
 	
+	/**
+	 * Compiles this Op into a single kernel with array loops generated for the tree, so that a
+	 * tree of composed Ops is inlined into one loop instead of being evaluated node by node (see
+	 * OpCompiler). The compiled Op is cached, so repeated calls are cheap.
+	 * 
+	 * @return An Op computing the same function as this Op
+	 */
+	public Op compile() {
+		Op c=compiled;
+		if (c==null) {
+			c=OpCompiler.compile(this);
+			compiled=c;
+		}
+		return c;
+	}
+	
 	@Override public String toString() {
 		return getClass().toString();
 	}
@@ -3,7 +3,9 @@ package mikera.vectorz;
 import mikera.arrayz.INDArray;
 import mikera.matrixx.AMatrix;
 import mikera.vectorz.impl.ADenseArrayVector;
+import mikera.vectorz.ops.OpCompiler;
 import mikera.vectorz.util.ErrorMessages;
+import mikera.vectorz.util.ParallelArrays;
 
 /**
  * Abstract class for representing a unary operation
@@ -12,6 +14,9 @@ import mikera.vectorz.util.ErrorMessages;
  */
 public abstract class Op2 {
 	
+	// cached result of compile()
+	private volatile Op2 compiled;
+	
 	public abstract double apply(double x, double y);
 	
 	public void applyTo(AVector a, AVector b) {
@@ -31,7 +36,7 @@ public abstract class Op2 {
 	}
 	
 	public void applyTo(ADenseArrayVector a, AVector b) {
-		applyTo(a.getArray(), a.getArrayOffset(),a.length(),b);
+		ParallelArrays.applyOp(this, a.getArray(), a.getArrayOffset(),a.length(),b);
 	}
 	
 	public void applyTo(INDArray a, INDArray b) {
@@ -77,6 +82,26 @@ public abstract class Op2 {
 		return false;
 	}
 	
+	/**
+	 * Returns true if the operator may be applied to different elements from multiple threads at the 
+	 * same time. Only thread safe operators are applied to large arrays in parallel, so this defaults 
+	 * to false and is overridden by the stateless built-in operators.
+	 * @return
+	 */
+	public boolean isThreadSafe() {
+		return false;
+	}
+	
+	/**
+	 * Returns true if the operator is associative, i.e. apply(apply(x,y),z) equals apply(x,apply(y,z)) 
+	 * for all inputs, ignoring floating point rounding. Reductions with associative operators may be 
+	 * computed in parallel.
+	 * @return
+	 */
+	public boolean isAssociative() {
+		return false;
+	}
+	
 	public double averageValue() {
 		throw new UnsupportedOperationException();
 	}
@@ -198,6 +223,21 @@ public abstract class Op2 {
 		return reduceZeros(0.0,length-1);
 	}
 
+	/**
+	 * Compiles this Op2 into a single kernel with array loops generated for the tree (see
+	 * OpCompiler). The compiled Op2 is cached, so repeated calls are cheap.
+	 * 
+	 * @return An Op2 computing the same function as this Op2
+	 */
+	public Op2 compile() {
+		Op2 c=compiled;
+		if (c==null) {
+			c=OpCompiler.compile(this);
+			compiled=c;
+		}
+		return c;
+	}
+
 	/**
 	 * Gets the derivative of this Op2 with respect to the specified parameter (0 or 1)
 	 * @param i
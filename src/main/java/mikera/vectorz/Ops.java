@@ -5,6 +5,12 @@ import mikera.vectorz.ops.AFunctionOp;
 import mikera.vectorz.ops.ARoundingOp;
 import mikera.vectorz.ops.Absolute;
 import mikera.vectorz.ops.Add;
+import mikera.vectorz.ops.ApproxCos;
+import mikera.vectorz.ops.ApproxExp;
+import mikera.vectorz.ops.ApproxLog;
+import mikera.vectorz.ops.ApproxLogistic;
+import mikera.vectorz.ops.ApproxSin;
+import mikera.vectorz.ops.ApproxTanh;
 import mikera.vectorz.ops.Clamp;
 import mikera.vectorz.ops.ComposedOp2;
 import mikera.vectorz.ops.Cosh;
@@ -66,6 +72,22 @@ public final class Ops {
 
 	public static final Op RECIPROCAL = Reciprocal.INSTANCE;
 	
+	// approximate transcendental functions, with relative error below 1e-7
+	public static final Op APPROX_EXP = ApproxExp.PRECISE;
+	public static final Op APPROX_LOG = ApproxLog.PRECISE;
+	public static final Op APPROX_LOGISTIC = ApproxLogistic.PRECISE;
+	public static final Op APPROX_TANH = ApproxTanh.PRECISE;
+	public static final Op APPROX_SIN = ApproxSin.PRECISE;
+	public static final Op APPROX_COS = ApproxCos.PRECISE;
+	
+	// fast approximate transcendental functions, with relative error below 1e-4
+	public static final Op FAST_EXP = ApproxExp.FAST;
+	public static final Op FAST_LOG = ApproxLog.FAST;
+	public static final Op FAST_LOGISTIC = ApproxLogistic.FAST;
+	public static final Op FAST_TANH = ApproxTanh.FAST;
+	public static final Op FAST_SIN = ApproxSin.FAST;
+	public static final Op FAST_COS = ApproxCos.FAST;
+	
 	// binary operators
 	public static final Op2 MIN = new Min();
 	public static final Op2 MAX = new Max();
@@ -86,6 +108,19 @@ public final class Ops {
 		public double apply(double x) {
 			return Math.ceil(x);
 		}
+		
+		@Override
+		public boolean isThreadSafe() {
+			return true;
+		}
+		
+		@Override
+		public void applyTo(double[] data, int start, int length) {
+			for (int i=0; i<length; i++) {
+				double x=data[start+i];
+				data[start+i]=Math.ceil(x);
+			}
+		}
 	};
 
 	public static final ARoundingOp FLOOR = new ARoundingOp() {
@@ -93,6 +128,19 @@ public final class Ops {
 		public double apply(double x) {
 			return Math.floor(x);
 		}
+		
+		@Override
+		public boolean isThreadSafe() {
+			return true;
+		}
+		
+		@Override
+		public void applyTo(double[] data, int start, int length) {
+			for (int i=0; i<length; i++) {
+				double x=data[start+i];
+				data[start+i]=Math.floor(x);
+			}
+		}
 	};
 
 	public static final ARoundingOp RINT = new ARoundingOp() {
@@ -100,6 +148,19 @@ public final class Ops {
 		public double apply(double x) {
 			return Math.rint(x);
 		}
+		
+		@Override
+		public boolean isThreadSafe() {
+			return true;
+		}
+		
+		@Override
+		public void applyTo(double[] data, int start, int length) {
+			for (int i=0; i<length; i++) {
+				double x=data[start+i];
+				data[start+i]=Math.rint(x);
+			}
+		}
 	};
 
 	public static final AFunctionOp COSH = Cosh.INSTANCE;
@@ -109,6 +170,19 @@ public final class Ops {
 		public double apply(double x) {
 			return Math.sinh(x);
 		}
+		
+		@Override
+		public boolean isThreadSafe() {
+			return true;
+		}
+		
+		@Override
+		public void applyTo(double[] data, int start, int length) {
+			for (int i=0; i<length; i++) {
+				double x=data[start+i];
+				data[start+i]=Math.sinh(x);
+			}
+		}
 	};
 
 	public static final Op SIN = new AFunctionOp() {
@@ -116,6 +190,19 @@ public final class Ops {
 		public double apply(double x) {
 			return Math.sin(x);
 		}
+		
+		@Override
+		public boolean isThreadSafe() {
+			return true;
+		}
+		
+		@Override
+		public void applyTo(double[] data, int start, int length) {
+			for (int i=0; i<length; i++) {
+				double x=data[start+i];
+				data[start+i]=Math.sin(x);
+			}
+		}
 
 		@Override
 		public double derivative(double x) {
@@ -153,6 +240,19 @@ public final class Ops {
 		public double apply(double x) {
 			return Math.cos(x);
 		}
+		
+		@Override
+		public boolean isThreadSafe() {
+			return true;
+		}
+		
+		@Override
+		public void applyTo(double[] data, int start, int length) {
+			for (int i=0; i<length; i++) {
+				double x=data[start+i];
+				data[start+i]=Math.cos(x);
+			}
+		}
 
 		@Override
 		public double derivative(double x) {
@@ -190,6 +290,19 @@ public final class Ops {
 		public double apply(double x) {
 			return Math.tan(x);
 		}
+		
+		@Override
+		public boolean isThreadSafe() {
+			return true;
+		}
+		
+		@Override
+		public void applyTo(double[] data, int start, int length) {
+			for (int i=0; i<length; i++) {
+				double x=data[start+i];
+				data[start+i]=Math.tan(x);
+			}
+		}
 
 		@Override
 		public double derivative(double x) {
@@ -208,6 +321,19 @@ public final class Ops {
 		public double apply(double x) {
 			return Math.acos(x);
 		}
+		
+		@Override
+		public boolean isThreadSafe() {
+			return true;
+		}
+		
+		@Override
+		public void applyTo(double[] data, int start, int length) {
+			for (int i=0; i<length; i++) {
+				double x=data[start+i];
+				data[start+i]=Math.acos(x);
+			}
+		}
 
 		@Override
 		public double derivative(double x) {
@@ -260,6 +386,19 @@ public final class Ops {
 		public double apply(double x) {
 			return Math.asin(x);
 		}
+		
+		@Override
+		public boolean isThreadSafe() {
+			return true;
+		}
+		
+		@Override
+		public void applyTo(double[] data, int start, int length) {
+			for (int i=0; i<length; i++) {
+				double x=data[start+i];
+				data[start+i]=Math.asin(x);
+			}
+		}
 
 		@Override
 		public double derivative(double x) {
@@ -312,6 +451,19 @@ public final class Ops {
 		public double apply(double x) {
 			return Math.atan(x);
 		}
+		
+		@Override
+		public boolean isThreadSafe() {
+			return true;
+		}
+		
+		@Override
+		public void applyTo(double[] data, int start, int length) {
+			for (int i=0; i<length; i++) {
+				double x=data[start+i];
+				data[start+i]=Math.atan(x);
+			}
+		}
 
 		@Override
 		public double derivative(double x) {
@@ -12,6 +12,7 @@ import mikera.indexz.Index;
 import mikera.randomz.Hash;
 import mikera.vectorz.impl.ADenseArrayVector;
 import mikera.vectorz.util.DoubleArrays;
+import mikera.vectorz.util.ParallelArrays;
 import mikera.vectorz.util.ErrorMessages;
 import mikera.vectorz.util.VectorzException;
 
@@ -230,7 +231,7 @@ public final class Vector extends ADenseArrayVector {
 	
 	@Override
 	public void applyOp(Op op) {
-		op.applyTo(data, 0, data.length);
+		ParallelArrays.applyOp(op, data, 0, data.length);
 	}
 	
 	@Override
@@ -260,12 +261,12 @@ public final class Vector extends ADenseArrayVector {
 	
 	@Override
 	public double elementSum() {
-		return DoubleArrays.elementSum(data);
+		return ParallelArrays.elementSum(data);
 	}
 	
 	@Override
 	public double elementMax(){
-		return DoubleArrays.elementMax(data);
+		return ParallelArrays.elementMax(data);
 	}
 	
 	@Override
@@ -393,12 +394,7 @@ public final class Vector extends ADenseArrayVector {
 	
 	@Override
 	public double dotProduct(double[] data, int offset) {
-		int len=length();
-		double result=0.0;
-		for (int i=0; i<len; i++) {
-			result+=this.data[i]*data[offset+i];
-		}
-		return result;
+		return ParallelArrays.dotProduct(this.data, 0, data, offset, length());
 	}
 	
 	@Override
@@ -10,6 +10,7 @@ import mikera.vectorz.Op2;
 import mikera.vectorz.Vector;
 import mikera.vectorz.Vectorz;
 import mikera.vectorz.util.DoubleArrays;
+import mikera.vectorz.util.ParallelArrays;
 import mikera.vectorz.util.IntArrays;
 import mikera.vectorz.util.VectorzException;
 
@@ -307,7 +308,7 @@ public abstract class ADenseArrayVector extends AStridedVector implements IDense
 
 	@Override
 	public double dotProduct(double[] data, int offset) {
-		return DoubleArrays.dotProduct(getArray(), getArrayOffset(), data, offset, length());
+		return ParallelArrays.dotProduct(getArray(), getArrayOffset(), data, offset, length());
 	}
 	
 
@@ -334,22 +335,37 @@ public abstract class ADenseArrayVector extends AStridedVector implements IDense
 	
 	@Override
 	public void applyOp(Op2 op, AVector b) {
-		op.applyTo(getArray(), getArrayOffset(), length(),b);
+		ParallelArrays.applyOp(op, getArray(), getArrayOffset(), length(),b);
 	}
 	
 	@Override
 	public double reduce(Op2 op, double init) {
-		return op.reduce(init, data, getArrayOffset(), length);
+		return ParallelArrays.reduce(op, init, data, getArrayOffset(), length);
 	}
 	
 	@Override
 	public double reduce(Op2 op) {
-		return DoubleArrays.reduce(op, data, getArrayOffset(), length);
+		return ParallelArrays.reduce(op, data, getArrayOffset(), length);
 	}
 	
 	@Override
 	public double elementSum() {
-		return DoubleArrays.elementSum(getArray(), getArrayOffset(), length());
+		return ParallelArrays.elementSum(getArray(), getArrayOffset(), length());
+	}
+	
+	@Override
+	public double elementSumCompensated() {
+		return ParallelArrays.kahanSum(getArray(), getArrayOffset(), length());
+	}
+	
+	@Override
+	public double dotProductCompensated(AVector v) {
+		if (v instanceof ADenseArrayVector) {
+			checkSameLength(v);
+			ADenseArrayVector dv=(ADenseArrayVector)v;
+			return ParallelArrays.kahanDotProduct(getArray(), getArrayOffset(), dv.getArray(), dv.getArrayOffset(), length());
+		}
+		return super.dotProductCompensated(v);
 	}
 	
 	@Override
@@ -369,7 +385,7 @@ public abstract class ADenseArrayVector extends AStridedVector implements IDense
 	
 	@Override
 	public double elementMax(){
-		return DoubleArrays.elementMax(getArray(), getArrayOffset(), length());
+		return ParallelArrays.elementMax(getArray(), getArrayOffset(), length());
 	}
 	
 	@Override
@@ -524,7 +540,7 @@ public abstract class ADenseArrayVector extends AStridedVector implements IDense
 	
 	@Override
 	public double elementSquaredSum() {
-		return DoubleArrays.elementSquaredSum(data, getArrayOffset(), length);
+		return ParallelArrays.elementSquaredSum(data, getArrayOffset(), length);
 	}
 
 	@Override
@@ -113,16 +113,7 @@ public abstract class ASparseIndexedVector extends ASparseVector {
 	@Override
 	public final double dotProduct(AVector v) {
 		if (v instanceof ADenseArrayVector) return dotProduct((ADenseArrayVector)v);
-		if (v instanceof ASparseVector) return dotProduct((ASparseVector)v);
-		
-		// no quick implementation, so use indexed gets
-		double result=0.0;
-		double[] data=internalData();
-		int[] ixs=internalIndexArray();
-		for (int j=0; j<data.length; j++) {
-			result+=data[j]*v.unsafeGet(ixs[j]);
-		}
-		return result;
+		return VectorKernels.dotProduct(this, v);
 	}
 	
 	/**
@@ -131,44 +122,7 @@ public abstract class ASparseIndexedVector extends ASparseVector {
 	 * @return
 	 */
 	public final double dotProduct(ASparseVector v) {
-		int vNonSparse=v.nonSparseElementCount();
-		if (vNonSparse==0) return 0.0; // zero vector
-		if (vNonSparse==1) { // single non-saprse element
-			if (v instanceof ASingleElementVector) {
-				ASingleElementVector av=(ASingleElementVector)v;
-				int ix=av.index(); // non-sparse index
-				return av.value()*unsafeGet(ix);
-			}
-		}
-		
-		double result=0.0;
-		double[] data=internalData();
-		int[] ixs=internalIndexArray();
-		AVector vvalues=v.nonSparseValues();
-		double[] vdata=vvalues.asDoubleArray();
-		if (vdata==null) vdata=vvalues.toDoubleArray();
-		int[] vixs=v.nonSparseIndex().data;
-		if (data.length==0) return 0.0;
-		
-		int ti=0;
-		int vi=0;
-		while ((ti<data.length)&&(vi<vdata.length)) {
-			int tv=ixs[ti];
-			int vv=vixs[vi];
-			if (tv==vv) {
-				result+=data[ti]*vdata[vi];
-				ti++;
-				vi++;
-			} else {
-				if (tv<vv) {
-					ti++;
-				} else {
-					vi++;
-				}
-			}
-		}
-		
-		return result;
+		return VectorKernels.dotProduct(this, v);
 	}
 
 	@Override
@@ -150,12 +150,6 @@ public abstract class ASparseVector extends ASizedVector implements ISparseVecto
 		return result;
 	}
 
-	@Override
-	public double distanceSquared(AVector v) {
-		AVector d=this.subCopy(v);
-		return d.elementSquaredSum();
-	}
-	
 	@Override
 	public abstract double dotProduct(AVector v);
 	
@@ -320,19 +314,6 @@ public abstract class ASparseVector extends ASizedVector implements ISparseVecto
     	return nonSparseValues().elementSquaredSum();
     }
     
-    @Override
-	public double distanceL1(AVector v) {
-		AVector t=this.subCopy(v).mutable();
-		t.abs();
-		return t.elementSum();
-	}
-	
-	@Override
-	public double distanceLinf(AVector v) {
-		AVector t=this.subCopy(v);
-		return t.maxAbsElement();
-	}
-
 	@Override
 	public SparseIndexedVector toSparseIndexedVector() {
 		return SparseIndexedVector.create(this);
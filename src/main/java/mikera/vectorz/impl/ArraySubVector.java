@@ -6,6 +6,7 @@ import mikera.randomz.Hash;
 import mikera.vectorz.AVector;
 import mikera.vectorz.Op;
 import mikera.vectorz.util.DoubleArrays;
+import mikera.vectorz.util.ParallelArrays;
 
 /**
  * Vector referring to a fixed offset into a double[] array
@@ -106,7 +107,7 @@ public final class ArraySubVector extends ADenseArrayVector {
 	
 	@Override
 	public void applyOp(Op op) {
-		op.applyTo(data, offset, length);
+		ParallelArrays.applyOp(op, data, offset, length);
 	}
 	
 	@Override
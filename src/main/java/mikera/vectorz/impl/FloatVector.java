@@ -0,0 +1,255 @@
+package mikera.vectorz.impl;
+
+import java.util.Arrays;
+
+import mikera.vectorz.AVector;
+import mikera.vectorz.Op;
+import mikera.vectorz.Vector;
+import mikera.vectorz.util.FloatArrays;
+
+/**
+ * Dense vector storing its elements in single precision, as a window into a float[] array.
+ *
+ * Uses half the memory and bandwidth of a double vector, at the cost of precision: values set
+ * in the vector are rounded to the nearest float. Computations such as dot products and sums
+ * are accumulated in double precision.
+ *
+ * @author Mike
+ *
+ */
+public final class FloatVector extends ASizedVector {
+	private static final long serialVersionUID = 3574126785094302712L;
+
+	private final float[] data;
+	private final int offset;
+
+	private FloatVector(float[] data, int offset, int length) {
+		super(length);
+		this.data=data;
+		this.offset=offset;
+	}
+
+	/**
+	 * Wraps a float[] array as a FloatVector. Does not take a defensive copy.
+	 */
+	public static FloatVector wrap(float[] data) {
+		return new FloatVector(data,0,data.length);
+	}
+
+	/**
+	 * Wraps a segment of a float[] array as a FloatVector
+	 */
+	public static FloatVector wrap(float[] data, int offset, int length) {
+		if ((offset<0)||(offset+length>data.length)) throw new IndexOutOfBoundsException("Invalid float array range: offset="+offset+", length="+length);
+		return new FloatVector(data,offset,length);
+	}
+
+	public static FloatVector createLength(int length) {
+		return new FloatVector(new float[length],0,length);
+	}
+
+	/**
+	 * Creates a FloatVector from a vector, rounding each element to the nearest float
+	 */
+	public static FloatVector create(AVector v) {
+		int n=v.length();
+		if (v instanceof FloatVector) return ((FloatVector)v).exactClone();
+		float[] data=new float[n];
+		if (v instanceof ADenseArrayVector) {
+			ADenseArrayVector dv=(ADenseArrayVector)v;
+			FloatArrays.copy(dv.getArray(), dv.getArrayOffset(), data, 0, n);
+		} else {
+			for (int i=0; i<n; i++) {
+				data[i]=(float)v.unsafeGet(i);
+			}
+		}
+		return wrap(data);
+	}
+
+	public static FloatVector of(double... values) {
+		return wrap(FloatArrays.toFloat(values));
+	}
+
+	/**
+	 * Gets the underlying float[] array
+	 */
+	public float[] getFloatArray() {
+		return data;
+	}
+
+	/**
+	 * Gets the offset of the first element in the underlying float[] array
+	 */
+	public int getFloatArrayOffset() {
+		return offset;
+	}
+
+	/**
+	 * Converts this vector to a double precision Vector. The conversion is exact.
+	 */
+	public Vector toDouble() {
+		return Vector.wrap(FloatArrays.toDouble(data, offset, length));
+	}
+
+	@Override
+	public double get(int i) {
+		checkIndex(i);
+		return data[offset+i];
+	}
+
+	@Override
+	public void set(int i, double value) {
+		checkIndex(i);
+		data[offset+i]=(float)value;
+	}
+
+	@Override
+	public double unsafeGet(int i) {
+		return data[offset+i];
+	}
+
+	@Override
+	public void unsafeSet(int i, double value) {
+		data[offset+i]=(float)value;
+	}
+
+	@Override
+	public boolean isFullyMutable() {
+		// cannot store every double value
+		return false;
+	}
+
+	@Override
+	public boolean isElementConstrained() {
+		return true;
+	}
+
+	@Override
+	public AVector subVector(int start, int length) {
+		checkRange(start,length);
+		if (length==0) return Vector0.INSTANCE;
+		if (length==this.length) return this;
+		return new FloatVector(data,offset+start,length);
+	}
+
+	@Override
+	public void getElements(double[] dest, int destOffset) {
+		FloatArrays.copy(data, offset, dest, destOffset, length);
+	}
+
+	@Override
+	public void setElements(double[] values, int valuesOffset) {
+		FloatArrays.copy(values, valuesOffset, data, offset, length);
+	}
+
+	@Override
+	public void set(AVector v) {
+		checkSameLength(v);
+		if (v instanceof FloatVector) {
+			FloatVector fv=(FloatVector)v;
+			System.arraycopy(fv.data, fv.offset, data, offset, length);
+		} else if (v instanceof ADenseArrayVector) {
+			ADenseArrayVector dv=(ADenseArrayVector)v;
+			FloatArrays.copy(dv.getArray(), dv.getArrayOffset(), data, offset, length);
+		} else {
+			super.set(v);
+		}
+	}
+
+	@Override
+	public void fill(double value) {
+		Arrays.fill(data, offset, offset+length, (float)value);
+	}
+
+	@Override
+	public double dotProduct(double[] d, int dOffset) {
+		return FloatArrays.dotProduct(data, offset, d, dOffset, length);
+	}
+
+	@Override
+	public double dotProduct(AVector v) {
+		if (v instanceof FloatVector) return dotProduct((FloatVector)v);
+		if (v instanceof ADenseArrayVector) return dotProduct((ADenseArrayVector)v);
+		return super.dotProduct(v);
+	}
+
+	public double dotProduct(FloatVector v) {
+		checkSameLength(v);
+		return FloatArrays.dotProduct(data, offset, v.data, v.offset, length);
+	}
+
+	@Override
+	public void add(AVector v) {
+		if (v instanceof FloatVector) {
+			checkSameLength(v);
+			FloatVector fv=(FloatVector)v;
+			FloatArrays.add(data, offset, fv.data, fv.offset, length);
+		} else {
+			addMultiple(v,1.0);
+		}
+	}
+
+	@Override
+	public void addMultiple(AVector v, double factor) {
+		checkSameLength(v);
+		if (v instanceof FloatVector) {
+			FloatVector fv=(FloatVector)v;
+			FloatArrays.addMultiple(data, offset, fv.data, fv.offset, length, (float)factor);
+		} else if (v instanceof ADenseArrayVector) {
+			ADenseArrayVector dv=(ADenseArrayVector)v;
+			FloatArrays.addMultiple(data, offset, dv.getArray(), dv.getArrayOffset(), length, factor);
+		} else {
+			for (int i=0; i<length; i++) {
+				data[offset+i]+=(float)(v.unsafeGet(i)*factor);
+			}
+		}
+	}
+
+	@Override
+	public void add(double value) {
+		FloatArrays.add(data, offset, length, (float)value);
+	}
+
+	@Override
+	public void multiply(double factor) {
+		FloatArrays.multiply(data, offset, length, (float)factor);
+	}
+
+	@Override
+	public void multiply(AVector v) {
+		if (v instanceof FloatVector) {
+			checkSameLength(v);
+			FloatVector fv=(FloatVector)v;
+			FloatArrays.multiply(data, offset, fv.data, fv.offset, length);
+		} else {
+			super.multiply(v);
+		}
+	}
+
+	@Override
+	public void applyOp(Op op) {
+		FloatArrays.applyOp(op, data, offset, length);
+	}
+
+	@Override
+	public double elementSum() {
+		return FloatArrays.elementSum(data, offset, length);
+	}
+
+	@Override
+	public double elementSquaredSum() {
+		return FloatArrays.elementSquaredSum(data, offset, length);
+	}
+
+	@Override
+	public void addToArray(double[] dest, int destOffset) {
+		for (int i=0; i<length; i++) {
+			dest[destOffset+i]+=data[offset+i];
+		}
+	}
+
+	@Override
+	public FloatVector exactClone() {
+		return wrap(Arrays.copyOfRange(data, offset, offset+length));
+	}
+}
@@ -72,6 +72,24 @@ public final class JoinedArrayVector extends AJoinedVector {
 		return pos[j+1]-pos[j];
 	}
 	
+	// segment accessors for allocation-free kernels, see VectorKernels
+	
+	double[] segmentArray(int j) {
+		return data[j];
+	}
+	
+	int segmentOffset(int j) {
+		return offsets[j];
+	}
+	
+	int segmentPosition(int j) {
+		return pos[j];
+	}
+	
+	int segmentLength(int j) {
+		return subLength(j);
+	}
+	
 	@Override
 	public ArraySubVector getComponent(int i) {
 		return ArraySubVector.wrap(data[i], offsets[i], subLength(i));
@@ -166,6 +184,15 @@ public final class JoinedArrayVector extends AJoinedVector {
 		return result;
 	}
 	
+	@Override
+	public double dotProduct(double[] arr, int offset, int stride) {
+		double result=0.0;
+		for (int j=0; j<numArrays; j++) {
+			result+=DoubleArrays.dotProduct(data[j], offsets[j], arr,offset+pos[j]*stride,stride,subLength(j));
+		}
+		return result;
+	}
+	
 	@Override
 	public void add(AVector a) {
 		add(0,a,0,length);
@@ -228,11 +228,7 @@ public final class JoinedVector extends AJoinedVector {
 	
 	@Override
 	public double dotProduct (AVector v) {
-		if (v instanceof JoinedVector) {
-			JoinedVector jv=(JoinedVector)v;
-			return dotProduct(jv);
-		}
-		return super.dotProduct(v);
+		return VectorKernels.dotProduct(this, v);
 	}
 	
 	@Override
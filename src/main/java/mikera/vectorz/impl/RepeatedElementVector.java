@@ -58,6 +58,13 @@ public final class RepeatedElementVector extends ASizedVector {
 		return true;
 	}
 	
+	/**
+	 * Gets the value repeated in every element of this vector
+	 */
+	public double getValue() {
+		return value;
+	}
+	
 	@Override
 	public double get(int i) {
 		checkIndex(i);
@@ -169,7 +169,7 @@ public class SparseIndexedVector extends ASparseIndexedVector {
 		GrowableIndexedVector gv=GrowableIndexedVector.createLength(n);
 		for (int i=0; i<n; i++) {
 			double v=values[i];
-			if (i!=0.0) {
+			if (v!=0.0) {
 				gv.append(i, v);
 			}
 		}
@@ -0,0 +1,233 @@
+package mikera.vectorz.impl;
+
+import mikera.vectorz.AVector;
+import mikera.vectorz.Op;
+import mikera.vectorz.util.DoubleArrays;
+import mikera.vectorz.util.ErrorMessages;
+
+/**
+ * Mutable strided vector view that can be repositioned over a sequence of equally spaced vectors
+ * in the same double[] array, e.g. the rows or columns of a strided matrix.
+ *
+ * Position i views the elements data[base+i*step+j*stride] for j in 0..length-1. Moving the
+ * cursor with moveTo(i) changes which elements the view refers to without allocating, so a single
+ * cursor can be used to scan every row of a large matrix.
+ *
+ * Because the view changes as the cursor moves, a cursor should not be retained or used as a key
+ * in collections. Use clone to obtain a copy of the current position. Sub vectors shorter than the
+ * cursor are fixed views of the position they were taken from.
+ *
+ * @author Mike
+ *
+ */
+public final class StridedCursor extends AStridedVector {
+	private static final long serialVersionUID = 2947310268472351137L;
+
+	private final int base;
+	private final int step;
+	private final int count;
+	private final int stride;
+	private int position;
+	private int offset;
+
+	private StridedCursor(double[] data, int base, int count, int step, int length, int stride) {
+		super(length, data);
+		this.base=base;
+		this.count=count;
+		this.step=step;
+		this.stride=stride;
+		this.position=0;
+		this.offset=base;
+	}
+
+	/**
+	 * Creates a cursor over count vectors of the given length and element stride, where the
+	 * vector at position i starts at data[base+i*step]. The cursor is initially at position 0.
+	 *
+	 * Performs no bounds checking on the data array.
+	 */
+	public static StridedCursor create(double[] data, int base, int count, int step, int length, int stride) {
+		if ((count<0)||(length<0)) throw new IllegalArgumentException(ErrorMessages.illegalSize(count,length));
+		return new StridedCursor(data,base,count,step,length,stride);
+	}
+
+	/**
+	 * Moves the cursor to the given position
+	 * @return This cursor, viewing the vector at the new position
+	 */
+	public StridedCursor moveTo(int i) {
+		if ((i<0)||(i>=count)) throw new IndexOutOfBoundsException(ErrorMessages.invalidIndex(this, i));
+		position=i;
+		offset=base+i*step;
+		return this;
+	}
+
+	/**
+	 * Gets the current position of the cursor
+	 */
+	public int getPosition() {
+		return position;
+	}
+
+	/**
+	 * Gets the number of positions that the cursor can move to
+	 */
+	public int positionCount() {
+		return count;
+	}
+
+	@Override
+	public int getArrayOffset() {
+		return offset;
+	}
+
+	@Override
+	public int getStride() {
+		return stride;
+	}
+
+	@Override
+	protected int index(int i) {
+		return offset+i*stride;
+	}
+
+	@Override
+	public double get(int i) {
+		checkIndex(i);
+		return data[offset+i*stride];
+	}
+
+	@Override
+	public double unsafeGet(int i) {
+		return data[offset+i*stride];
+	}
+
+	@Override
+	public void set(int i, double value) {
+		checkIndex(i);
+		data[offset+i*stride]=value;
+	}
+
+	@Override
+	public void unsafeSet(int i, double value) {
+		data[offset+i*stride]=value;
+	}
+
+	@Override
+	public void addAt(int i, double value) {
+		data[offset+i*stride]+=value;
+	}
+
+	@Override
+	public double dotProduct(double[] ds, int off) {
+		return DoubleArrays.dotProduct(ds, off, data, offset, stride, length);
+	}
+
+	@Override
+	public double dotProduct(double[] ds, int doffset, int dstride) {
+		return DoubleArrays.dotProduct(data, offset, stride, ds, doffset, dstride, length);
+	}
+
+	@Override
+	public double dotProduct(AVector v) {
+		checkLength(v.length());
+		return v.dotProduct(data, offset, stride);
+	}
+
+	@Override
+	public void add(AVector v) {
+		v.checkLength(length);
+		v.addToArray(data, offset, stride);
+	}
+
+	@Override
+	public void set(AVector v) {
+		int length=checkSameLength(v);
+		v.copyTo(0, data, offset, length, stride);
+	}
+
+	@Override
+	public void setElements(double[] src, int srcOffset) {
+		for (int i=0; i<length; i++) {
+			data[offset+i*stride]=src[srcOffset+i];
+		}
+	}
+
+	@Override
+	public void setElements(int pos, double[] src, int srcOffset, int length) {
+		int di=offset+pos*stride;
+		for (int i=0; i<length; i++) {
+			data[di+i*stride]=src[srcOffset+i];
+		}
+	}
+
+	@Override
+	public void fill(double value) {
+		int di=offset;
+		for (int i=0; i<length; i++) {
+			data[di]=value;
+			di+=stride;
+		}
+	}
+
+	@Override
+	public void multiply(double factor) {
+		int di=offset;
+		for (int i=0; i<length; i++) {
+			data[di]*=factor;
+			di+=stride;
+		}
+	}
+
+	@Override
+	public void clamp(double min, double max) {
+		int di=offset;
+		for (int i=0; i<length; i++) {
+			double v=data[di];
+			if (v<min) {
+				data[di]=min;
+			} else if (v>max) {
+				data[di]=max;
+			}
+			di+=stride;
+		}
+	}
+
+	@Override
+	public void applyOp(Op op) {
+		op.applyTo(data, offset, stride, length);
+	}
+
+	@Override
+	public boolean isView() {
+		return true;
+	}
+
+	@Override
+	public boolean isFullyMutable() {
+		return true;
+	}
+
+	@Override
+	public boolean isMutable() {
+		return true;
+	}
+
+	@Override
+	public AVector subVector(int start, int length) {
+		int len=checkRange(start,length);
+		if (length==0) return Vector0.INSTANCE;
+		if (length==len) return this;
+		if (length==1) return ArraySubVector.wrap(data, offset+start*stride, 1);
+		// fixed view of the current position, unaffected by later cursor movement
+		return StridedVector.wrap(data, offset+start*stride, length, stride);
+	}
+
+	@Override
+	public StridedCursor exactClone() {
+		StridedCursor c=new StridedCursor(data.clone(),base,count,step,length,stride);
+		c.position=position;
+		c.offset=offset;
+		return c;
+	}
+}
@@ -0,0 +1,340 @@
+package mikera.vectorz.impl;
+
+import mikera.vectorz.AVector;
+import mikera.vectorz.util.ErrorMessages;
+import mikera.vectorz.util.ParallelArrays;
+
+/**
+ * Kernels for dot products and distances between vectors of possibly different types.
+ *
+ * Each operation dispatches on the pair of argument types to a loop specialised for that pair,
+ * working directly on the underlying data where possible:
+ * <ul>
+ * <li>dense x dense: contiguous array kernel</li>
+ * <li>strided x any: the other vector's array kernel, e.g. segment by segment for joined vectors</li>
+ * <li>sparse indexed x sparse indexed: merge over the two index arrays</li>
+ * <li>sparse indexed x other: loop over the non-zero elements only</li>
+ * <li>axis or single element x any: single element lookup</li>
+ * <li>joined x joined with matching segments: segment by segment</li>
+ * <li>joined array x joined array: overlapping segment arrays</li>
+ * <li>joined array x other: segment arrays against unsafeGet</li>
+ * </ul>
+ * Any other pair falls back to a loop over unsafeGet. None of the kernels allocate, except that
+ * iterating a SparseHashedVector boxes its keys.
+ *
+ * @author Mike
+ */
+public final class VectorKernels {
+
+	private VectorKernels() {}
+
+	private static final int SQUARED=0;
+	private static final int L1=1;
+	private static final int LINF=2;
+
+	/**
+	 * Computes the dot product of two vectors of the same length
+	 */
+	public static double dotProduct(AVector a, AVector b) {
+		checkSameLength(a,b);
+		if (b instanceof AStridedVector) {
+			if ((a instanceof ADenseArrayVector)&&(b instanceof ADenseArrayVector)) {
+				return denseDotProduct((ADenseArrayVector)a,(ADenseArrayVector)b);
+			}
+			AStridedVector sb=(AStridedVector)b;
+			return a.dotProduct(sb.getArray(), sb.getArrayOffset(), sb.getStride());
+		}
+		if (a instanceof AStridedVector) {
+			AStridedVector sa=(AStridedVector)a;
+			return b.dotProduct(sa.getArray(), sa.getArrayOffset(), sa.getStride());
+		}
+		if (a instanceof ASparseIndexedVector) {
+			if (b instanceof ASparseIndexedVector) return sparseDotProduct((ASparseIndexedVector)a,(ASparseIndexedVector)b);
+			return sparseDotProduct((ASparseIndexedVector)a,b);
+		}
+		if (b instanceof ASparseIndexedVector) return sparseDotProduct((ASparseIndexedVector)b,a);
+		if (a instanceof AxisVector) return b.unsafeGet(((AxisVector)a).axis());
+		if (b instanceof AxisVector) return a.unsafeGet(((AxisVector)b).axis());
+		if (a instanceof ASingleElementVector) {
+			ASingleElementVector sa=(ASingleElementVector)a;
+			return sa.value()*b.unsafeGet(sa.index());
+		}
+		if (b instanceof ASingleElementVector) {
+			ASingleElementVector sb=(ASingleElementVector)b;
+			return sb.value()*a.unsafeGet(sb.index());
+		}
+		if (a instanceof SparseHashedVector) return a.dotProduct(b);
+		if (b instanceof SparseHashedVector) return b.dotProduct(a);
+		if ((a instanceof AJoinedVector)&&(b instanceof AJoinedVector)&&(sameSegments((AJoinedVector)a,(AJoinedVector)b))) {
+			return joinedDotProduct((AJoinedVector)a,(AJoinedVector)b);
+		}
+		if (a instanceof JoinedArrayVector) {
+			if (b instanceof JoinedArrayVector) return joinedArrayDotProduct((JoinedArrayVector)a,(JoinedArrayVector)b);
+			return joinedArrayDotProduct((JoinedArrayVector)a,b);
+		}
+		if (b instanceof JoinedArrayVector) return joinedArrayDotProduct((JoinedArrayVector)b,a);
+		return genericDotProduct(a,b);
+	}
+
+	private static double denseDotProduct(ADenseArrayVector a, ADenseArrayVector b) {
+		return ParallelArrays.dotProduct(a.getArray(), a.getArrayOffset(), b.getArray(), b.getArrayOffset(), a.length());
+	}
+
+	private static double sparseDotProduct(ASparseIndexedVector a, ASparseIndexedVector b) {
+		double[] aData=a.internalData();
+		int[] aIxs=a.internalIndexArray();
+		double[] bData=b.internalData();
+		int[] bIxs=b.internalIndexArray();
+		int an=aData.length;
+		int bn=bData.length;
+		double result=0.0;
+		int i=0;
+		int j=0;
+		while ((i<an)&&(j<bn)) {
+			int ai=aIxs[i];
+			int bi=bIxs[j];
+			if (ai==bi) {
+				result+=aData[i++]*bData[j++];
+			} else if (ai<bi) {
+				i++;
+			} else {
+				j++;
+			}
+		}
+		return result;
+	}
+
+	private static double sparseDotProduct(ASparseIndexedVector a, AVector b) {
+		double[] data=a.internalData();
+		int[] ixs=a.internalIndexArray();
+		double result=0.0;
+		for (int j=0; j<data.length; j++) {
+			result+=data[j]*b.unsafeGet(ixs[j]);
+		}
+		return result;
+	}
+
+	private static boolean sameSegments(AJoinedVector a, AJoinedVector b) {
+		int n=a.componentCount();
+		if (n!=b.componentCount()) return false;
+		if ((a instanceof JoinedArrayVector)||(b instanceof JoinedArrayVector)) return false; // components are created on demand
+		for (int i=0; i<n; i++) {
+			if (a.getComponent(i).length()!=b.getComponent(i).length()) return false;
+		}
+		return true;
+	}
+
+	private static double joinedDotProduct(AJoinedVector a, AJoinedVector b) {
+		int n=a.componentCount();
+		double result=0.0;
+		for (int i=0; i<n; i++) {
+			result+=dotProduct(a.getComponent(i),b.getComponent(i));
+		}
+		return result;
+	}
+
+	private static double joinedArrayDotProduct(JoinedArrayVector a, JoinedArrayVector b) {
+		// walk both segment lists, taking the overlap of the current segments each time
+		int len=a.length();
+		double result=0.0;
+		int i=0;
+		int j=0;
+		int pos=0;
+		while (pos<len) {
+			int aEnd=a.segmentPosition(i)+a.segmentLength(i);
+			int bEnd=b.segmentPosition(j)+b.segmentLength(j);
+			int end=Math.min(aEnd, bEnd);
+			double[] aData=a.segmentArray(i);
+			int aOffset=a.segmentOffset(i)+pos-a.segmentPosition(i);
+			double[] bData=b.segmentArray(j);
+			int bOffset=b.segmentOffset(j)+pos-b.segmentPosition(j);
+			for (int k=0; k<end-pos; k++) {
+				result+=aData[aOffset+k]*bData[bOffset+k];
+			}
+			pos=end;
+			if (aEnd==end) i++;
+			if (bEnd==end) j++;
+		}
+		return result;
+	}
+
+	private static double joinedArrayDotProduct(JoinedArrayVector a, AVector b) {
+		int n=a.componentCount();
+		double result=0.0;
+		for (int j=0; j<n; j++) {
+			double[] aData=a.segmentArray(j);
+			int aOffset=a.segmentOffset(j);
+			int pos=a.segmentPosition(j);
+			int segLength=a.segmentLength(j);
+			for (int i=0; i<segLength; i++) {
+				result+=aData[aOffset+i]*b.unsafeGet(pos+i);
+			}
+		}
+		return result;
+	}
+
+	private static double genericDotProduct(AVector a, AVector b) {
+		int len=a.length();
+		double result=0.0;
+		for (int i=0; i<len; i++) {
+			result+=a.unsafeGet(i)*b.unsafeGet(i);
+		}
+		return result;
+	}
+
+	/**
+	 * Computes the squared Euclidean distance between two vectors of the same length
+	 */
+	public static double distanceSquared(AVector a, AVector b) {
+		return distance(SQUARED,a,b);
+	}
+
+	/**
+	 * Computes the L1 (Taxicab) distance between two vectors of the same length
+	 */
+	public static double distanceL1(AVector a, AVector b) {
+		return distance(L1,a,b);
+	}
+
+	/**
+	 * Computes the Linf distance between two vectors of the same length
+	 */
+	public static double distanceLinf(AVector a, AVector b) {
+		return distance(LINF,a,b);
+	}
+
+	private static double accumulate(int metric, double acc, double d) {
+		switch (metric) {
+			case SQUARED: return acc+d*d;
+			case L1: return acc+Math.abs(d);
+			default: {
+				double ad=Math.abs(d);
+				return (ad>acc)?ad:acc;
+			}
+		}
+	}
+
+	private static double distance(int metric, AVector a, AVector b) {
+		checkSameLength(a,b);
+		// all metrics are symmetric, so we can put an array backed argument second
+		if (b instanceof AStridedVector) {
+			AStridedVector sb=(AStridedVector)b;
+			return distance(metric,0.0,a,sb.getArray(),sb.getArrayOffset(),sb.getStride());
+		}
+		if (a instanceof AStridedVector) {
+			AStridedVector sa=(AStridedVector)a;
+			return distance(metric,0.0,b,sa.getArray(),sa.getArrayOffset(),sa.getStride());
+		}
+		if ((a instanceof ASparseIndexedVector)&&(b instanceof ASparseIndexedVector)) {
+			return sparseDistance(metric,(ASparseIndexedVector)a,(ASparseIndexedVector)b);
+		}
+		if ((a instanceof AJoinedVector)&&(b instanceof AJoinedVector)&&(sameSegments((AJoinedVector)a,(AJoinedVector)b))) {
+			AJoinedVector ja=(AJoinedVector)a;
+			AJoinedVector jb=(AJoinedVector)b;
+			double acc=0.0;
+			int n=ja.componentCount();
+			for (int i=0; i<n; i++) {
+				double d=distance(metric,ja.getComponent(i),jb.getComponent(i));
+				acc=(metric==LINF)?Math.max(acc, d):acc+d;
+			}
+			return acc;
+		}
+		int len=a.length();
+		double acc=0.0;
+		for (int i=0; i<len; i++) {
+			acc=accumulate(metric,acc,a.unsafeGet(i)-b.unsafeGet(i));
+		}
+		return acc;
+	}
+
+	/**
+	 * Accumulates the distance between a vector and strided array data
+	 */
+	private static double distance(int metric, double acc, AVector a, double[] data, int offset, int stride) {
+		int len=a.length();
+		if (a instanceof AStridedVector) {
+			AStridedVector sa=(AStridedVector)a;
+			double[] aData=sa.getArray();
+			int aOffset=sa.getArrayOffset();
+			int aStride=sa.getStride();
+			for (int i=0; i<len; i++) {
+				acc=accumulate(metric,acc,aData[aOffset+i*aStride]-data[offset+i*stride]);
+			}
+			return acc;
+		}
+		if (a instanceof ASparseIndexedVector) {
+			ASparseIndexedVector sa=(ASparseIndexedVector)a;
+			double[] aData=sa.internalData();
+			int[] ixs=sa.internalIndexArray();
+			int i=0;
+			for (int j=0; j<aData.length; j++) {
+				int ix=ixs[j];
+				for (; i<ix; i++) {
+					acc=accumulate(metric,acc,data[offset+i*stride]);
+				}
+				acc=accumulate(metric,acc,aData[j]-data[offset+ix*stride]);
+				i=ix+1;
+			}
+			for (; i<len; i++) {
+				acc=accumulate(metric,acc,data[offset+i*stride]);
+			}
+			return acc;
+		}
+		if (a instanceof JoinedArrayVector) {
+			JoinedArrayVector ja=(JoinedArrayVector)a;
+			int n=ja.componentCount();
+			for (int j=0; j<n; j++) {
+				double[] aData=ja.segmentArray(j);
+				int aOffset=ja.segmentOffset(j);
+				int pos=ja.segmentPosition(j);
+				int segLength=ja.segmentLength(j);
+				for (int i=0; i<segLength; i++) {
+					acc=accumulate(metric,acc,aData[aOffset+i]-data[offset+(pos+i)*stride]);
+				}
+			}
+			return acc;
+		}
+		if (a instanceof AJoinedVector) {
+			AJoinedVector ja=(AJoinedVector)a;
+			int n=ja.componentCount();
+			for (int j=0; j<n; j++) {
+				AVector c=ja.getComponent(j);
+				acc=distance(metric,acc,c,data,offset,stride);
+				offset+=c.length()*stride;
+			}
+			return acc;
+		}
+		for (int i=0; i<len; i++) {
+			acc=accumulate(metric,acc,a.unsafeGet(i)-data[offset+i*stride]);
+		}
+		return acc;
+	}
+
+	private static double sparseDistance(int metric, ASparseIndexedVector a, ASparseIndexedVector b) {
+		double[] aData=a.internalData();
+		int[] aIxs=a.internalIndexArray();
+		double[] bData=b.internalData();
+		int[] bIxs=b.internalIndexArray();
+		int an=aData.length;
+		int bn=bData.length;
+		double acc=0.0;
+		int i=0;
+		int j=0;
+		while ((i<an)||(j<bn)) {
+			int ai=(i<an)?aIxs[i]:Integer.MAX_VALUE;
+			int bi=(j<bn)?bIxs[j]:Integer.MAX_VALUE;
+			if (ai==bi) {
+				acc=accumulate(metric,acc,aData[i++]-bData[j++]);
+			} else if (ai<bi) {
+				acc=accumulate(metric,acc,aData[i++]);
+			} else {
+				acc=accumulate(metric,acc,bData[j++]);
+			}
+		}
+		return acc;
+	}
+
+	private static void checkSameLength(AVector a, AVector b) {
+		if (a.length()!=b.length()) throw new IllegalArgumentException(ErrorMessages.mismatch(a, b));
+	}
+}
@@ -13,6 +13,23 @@ public class Absolute extends Op {
 		return Math.abs(x);
 	}
 	
+	@Override
+	public void applyTo(double[] data, int start, int length) {
+		for (int i=0; i<length; i++) {
+			double x=data[start+i];
+			data[start+i]=Math.abs(x);
+		}
+	}
+	
+	@Override
+	public void applyTo(double[] data, int start, int stride, int length) {
+		for (int i=0; i<length; i++) {
+			int ii=start+i*stride;
+			double x=data[ii];
+			data[ii]=Math.abs(x);
+		}
+	}
+	
 	@Override
 	public void applyTo(AVector v) {
 		v.abs();
@@ -49,4 +66,8 @@ public class Absolute extends Op {
 		return x>=0?1.0:-1.0;
 	}
 
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
 }
@@ -24,4 +24,14 @@ public final class Add extends Op2 {
 			data[start+i]=apply(x,b.unsafeGet(i));
 		}
 	}
+	
+	@Override
+	public boolean isAssociative() {
+		return true;
+	}
+
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
 }
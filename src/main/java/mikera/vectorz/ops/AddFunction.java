@@ -47,5 +47,8 @@ public final class AddFunction extends Op2 {
 		}
 	}
 
-
+	@Override
+	public boolean isThreadSafe() {
+		return f.isThreadSafe();
+	}
 }
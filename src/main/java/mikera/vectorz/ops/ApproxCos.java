@@ -0,0 +1,81 @@
+package mikera.vectorz.ops;
+
+import mikera.vectorz.Op;
+import mikera.vectorz.Ops;
+import mikera.vectorz.util.Approximations;
+
+/**
+ * Approximate cosine function, computed with Approximations.
+ * 
+ * Available in two tiers: PRECISE with relative error below 1e-7, and FAST with relative 
+ * error below 1e-4.
+ * 
+ * @author Mike
+ */
+public final class ApproxCos extends ABoundedOp {
+	public static final ApproxCos PRECISE=new ApproxCos(false);
+	public static final ApproxCos FAST=new ApproxCos(true);
+	
+	private final boolean fast;
+	
+	private ApproxCos(boolean fast) {
+		this.fast=fast;
+	}
+	
+	@Override
+	public double apply(double x) {
+		return fast?Approximations.fastCos(x):Approximations.cos(x);
+	}
+	
+	@Override
+	public void applyTo(double[] data, int start, int length) {
+		if (fast) {
+			for (int i=0; i<length; i++) {
+				data[start+i]=Approximations.fastCos(data[start+i]);
+			}
+		} else {
+			for (int i=0; i<length; i++) {
+				data[start+i]=Approximations.cos(data[start+i]);
+			}
+		}
+	}
+
+	@Override
+	public boolean hasDerivative() {
+		return true;
+	}
+	
+	@Override
+	public boolean hasDerivativeForOutput() {
+		return false;
+	}
+	
+	@Override
+	public double derivative(double x) {
+		return -(fast?Approximations.fastSin(x):Approximations.sin(x));
+	}
+
+	@Override
+	public Op getDerivativeOp() {
+		return Ops.negate(fast?ApproxSin.FAST:ApproxSin.PRECISE);
+	}
+
+	@Override
+	public double minValue() {
+		return -1.0;
+	}
+
+	@Override
+	public double maxValue() {
+		return 1.0;
+	}
+
+	@Override public String toString() {
+		return "ApproxCos("+(fast?"FAST":"PRECISE")+")";
+	}
+
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
+}
@@ -0,0 +1,72 @@
+package mikera.vectorz.ops;
+
+import mikera.vectorz.Op;
+import mikera.vectorz.util.Approximations;
+
+/**
+ * Approximate exponential function, computed with Approximations.
+ * 
+ * Available in two tiers: PRECISE with relative error below 1e-7, and FAST with relative 
+ * error below 1e-4.
+ * 
+ * @author Mike
+ */
+public final class ApproxExp extends AFunctionOp {
+	public static final ApproxExp PRECISE=new ApproxExp(false);
+	public static final ApproxExp FAST=new ApproxExp(true);
+	
+	private final boolean fast;
+	
+	private ApproxExp(boolean fast) {
+		this.fast=fast;
+	}
+	
+	@Override
+	public double apply(double x) {
+		return fast?Approximations.fastExp(x):Approximations.exp(x);
+	}
+	
+	@Override
+	public void applyTo(double[] data, int start, int length) {
+		if (fast) {
+			for (int i=0; i<length; i++) {
+				data[start+i]=Approximations.fastExp(data[start+i]);
+			}
+		} else {
+			for (int i=0; i<length; i++) {
+				data[start+i]=Approximations.exp(data[start+i]);
+			}
+		}
+	}
+
+	@Override
+	public double derivative(double x) {
+		return apply(x);
+	}
+
+	@Override
+	public double derivativeForOutput(double y) {
+		return y;
+	}
+	
+	@Override public double applyInverse(double y) {
+		return fast?Approximations.fastLog(y):Approximations.log(y);
+	}
+
+	@Override public boolean hasDerivative() {return true;}
+	@Override public boolean hasInverse() {return true;}
+	@Override public Op getInverse() {return fast?ApproxLog.FAST:ApproxLog.PRECISE;}
+
+	@Override public double minValue() {return 0.0;}
+
+	@Override public Op getDerivativeOp() {return this;}
+
+	@Override public String toString() {
+		return "ApproxExp("+(fast?"FAST":"PRECISE")+")";
+	}
+
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
+}
@@ -0,0 +1,72 @@
+package mikera.vectorz.ops;
+
+import mikera.vectorz.Op;
+import mikera.vectorz.util.Approximations;
+
+/**
+ * Approximate natural logarithm, computed with Approximations.
+ * 
+ * Available in two tiers: PRECISE with relative error below 1e-7, and FAST with relative 
+ * error below 1e-4.
+ * 
+ * @author Mike
+ */
+public final class ApproxLog extends AFunctionOp {
+	public static final ApproxLog PRECISE=new ApproxLog(false);
+	public static final ApproxLog FAST=new ApproxLog(true);
+	
+	private final boolean fast;
+	
+	private ApproxLog(boolean fast) {
+		this.fast=fast;
+	}
+	
+	@Override
+	public double apply(double x) {
+		return fast?Approximations.fastLog(x):Approximations.log(x);
+	}
+	
+	@Override
+	public void applyTo(double[] data, int start, int length) {
+		if (fast) {
+			for (int i=0; i<length; i++) {
+				data[start+i]=Approximations.fastLog(data[start+i]);
+			}
+		} else {
+			for (int i=0; i<length; i++) {
+				data[start+i]=Approximations.log(data[start+i]);
+			}
+		}
+	}
+
+	@Override
+	public double derivative(double x) {
+		return 1.0/x;
+	}
+
+	@Override
+	public double derivativeForOutput(double y) {
+		return 1.0/(fast?Approximations.fastExp(y):Approximations.exp(y));
+	}
+	
+	@Override public double applyInverse(double y) {
+		return fast?Approximations.fastExp(y):Approximations.exp(y);
+	}
+
+	@Override public boolean hasDerivative() {return true;}
+	@Override public boolean hasInverse() {return true;}
+
+	@Override public double minDomain() {return Double.MIN_VALUE;}
+
+	@Override public Op getInverse() {return fast?ApproxExp.FAST:ApproxExp.PRECISE;}
+	@Override public Op getDerivativeOp() {return Reciprocal.INSTANCE;}
+
+	@Override public String toString() {
+		return "ApproxLog("+(fast?"FAST":"PRECISE")+")";
+	}
+
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
+}
@@ -0,0 +1,75 @@
+package mikera.vectorz.ops;
+
+import mikera.vectorz.util.Approximations;
+
+/**
+ * Approximate logistic function, computed with Approximations.
+ * 
+ * Available in two tiers: PRECISE with relative error below 1e-7, and FAST with relative 
+ * error below 1e-4.
+ * 
+ * @author Mike
+ */
+public final class ApproxLogistic extends ABoundedOp {
+	public static final ApproxLogistic PRECISE=new ApproxLogistic(false);
+	public static final ApproxLogistic FAST=new ApproxLogistic(true);
+	
+	private final boolean fast;
+	
+	private ApproxLogistic(boolean fast) {
+		this.fast=fast;
+	}
+	
+	@Override
+	public double apply(double x) {
+		return fast?Approximations.fastLogistic(x):Approximations.logistic(x);
+	}
+	
+	@Override
+	public void applyTo(double[] data, int start, int length) {
+		if (fast) {
+			for (int i=0; i<length; i++) {
+				data[start+i]=Approximations.fastLogistic(data[start+i]);
+			}
+		} else {
+			for (int i=0; i<length; i++) {
+				data[start+i]=Approximations.logistic(data[start+i]);
+			}
+		}
+	}
+
+	@Override
+	public boolean hasDerivative() {
+		return true;
+	}
+	
+	@Override
+	public double derivativeForOutput(double y) {
+		return y*(1.0-y);
+	}
+	
+	@Override
+	public double derivative(double x) {
+		double y=apply(x);
+		return y*(1.0-y);
+	}
+
+	@Override
+	public double minValue() {
+		return 0.0;
+	}
+
+	@Override
+	public double maxValue() {
+		return 1.0;
+	}
+
+	@Override public String toString() {
+		return "ApproxLogistic("+(fast?"FAST":"PRECISE")+")";
+	}
+
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
+}
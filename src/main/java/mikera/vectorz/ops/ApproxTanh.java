@@ -0,0 +1,75 @@
+package mikera.vectorz.ops;
+
+import mikera.vectorz.util.Approximations;
+
+/**
+ * Approximate hyperbolic tangent, computed with Approximations.
+ * 
+ * Available in two tiers: PRECISE with relative error below 1e-7, and FAST with relative 
+ * error below 1e-4.
+ * 
+ * @author Mike
+ */
+public final class ApproxTanh extends ABoundedOp {
+	public static final ApproxTanh PRECISE=new ApproxTanh(false);
+	public static final ApproxTanh FAST=new ApproxTanh(true);
+	
+	private final boolean fast;
+	
+	private ApproxTanh(boolean fast) {
+		this.fast=fast;
+	}
+	
+	@Override
+	public double apply(double x) {
+		return fast?Approximations.fastTanh(x):Approximations.tanh(x);
+	}
+	
+	@Override
+	public void applyTo(double[] data, int start, int length) {
+		if (fast) {
+			for (int i=0; i<length; i++) {
+				data[start+i]=Approximations.fastTanh(data[start+i]);
+			}
+		} else {
+			for (int i=0; i<length; i++) {
+				data[start+i]=Approximations.tanh(data[start+i]);
+			}
+		}
+	}
+
+	@Override
+	public boolean hasDerivative() {
+		return true;
+	}
+	
+	@Override
+	public double derivativeForOutput(double y) {
+		return 1.0-y*y;
+	}
+	
+	@Override
+	public double derivative(double x) {
+		double y=apply(x);
+		return 1.0-y*y;
+	}
+
+	@Override
+	public double minValue() {
+		return -1.0;
+	}
+
+	@Override
+	public double maxValue() {
+		return 1.0;
+	}
+
+	@Override public String toString() {
+		return "ApproxTanh("+(fast?"FAST":"PRECISE")+")";
+	}
+
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
+}
@@ -50,6 +50,15 @@ public final class Clamp extends ABoundedOp {
 		}
 	}
 	
+	@Override
+	public void applyTo(double[] data, int start, int stride, int length) {
+		for (int i=0; i<length; i++) {
+			int ii=start+i*stride;
+			double x=data[ii];
+			data[ii]=(x<min) ? min : ((x>max)?max:x);
+		}
+	}
+	
 	@Override
 	public double minValue() {
 		return min;
@@ -76,4 +85,9 @@ public final class Clamp extends ABoundedOp {
 		if ((y<=min)||(y>=max)) return 0.0;
 		return 1.0;
 	}
+
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
 }
@@ -0,0 +1,154 @@
+package mikera.vectorz.ops;
+
+import java.lang.invoke.MethodHandle;
+
+import mikera.vectorz.Op;
+import mikera.vectorz.util.VectorzException;
+
+/**
+ * An Op tree compiled into a single kernel by OpCompiler.
+ *
+ * Evaluates the compiled MethodHandle with array loops generated for the tree (see OpCompiler). All other properties
+ * (derivatives, inverses, bounds) are taken from the source tree.
+ *
+ * @author Mike
+ */
+public final class CompiledOp extends Op {
+	private final Op source;
+	final MethodHandle handle;
+	private final OpCompiler.Kernel kernel;
+
+	CompiledOp(Op source, MethodHandle handle, OpCompiler.Kernel kernel) {
+		this.source=source;
+		this.handle=handle;
+		this.kernel=kernel;
+	}
+
+	/**
+	 * Gets the Op tree from which this kernel was compiled
+	 */
+	public Op getSource() {
+		return source;
+	}
+
+	@Override
+	public double apply(double x) {
+		try {
+			return kernel.apply(x);
+		} catch (Throwable t) {
+			throw rethrow(t);
+		}
+	}
+
+	@Override
+	public void applyTo(double[] data, int start, int length) {
+		try {
+			kernel.applyTo(data,start,length);
+		} catch (Throwable t) {
+			throw rethrow(t);
+		}
+	}
+
+	@Override
+	public void applyTo(double[] data, int start, int stride, int length) {
+		if (stride==1) {
+			applyTo(data,start,length);
+			return;
+		}
+		try {
+			kernel.applyTo(data,start,stride,length);
+		} catch (Throwable t) {
+			throw rethrow(t);
+		}
+	}
+
+	static RuntimeException rethrow(Throwable t) {
+		if (t instanceof RuntimeException) return (RuntimeException)t;
+		if (t instanceof Error) throw (Error)t;
+		return new VectorzException("Error in compiled Op", t);
+	}
+
+	@Override
+	public Op compile() {
+		return this;
+	}
+
+	@Override
+	public double applyInverse(double y) {
+		return source.applyInverse(y);
+	}
+
+	@Override
+	public boolean hasDerivative() {
+		return source.hasDerivative();
+	}
+
+	@Override
+	public boolean hasDerivativeForOutput() {
+		return source.hasDerivativeForOutput();
+	}
+
+	@Override
+	public boolean hasInverse() {
+		return source.hasInverse();
+	}
+
+	@Override
+	public double derivative(double x) {
+		return source.derivative(x);
+	}
+
+	@Override
+	public double derivativeForOutput(double y) {
+		return source.derivativeForOutput(y);
+	}
+
+	@Override
+	public Op getDerivativeOp() {
+		return source.getDerivativeOp();
+	}
+
+	@Override
+	public Op getInverse() {
+		return source.getInverse();
+	}
+
+	@Override
+	public boolean isStochastic() {
+		return source.isStochastic();
+	}
+
+	@Override
+	public boolean isThreadSafe() {
+		return source.isThreadSafe();
+	}
+
+	@Override
+	public double averageValue() {
+		return source.averageValue();
+	}
+
+	@Override
+	public double minValue() {
+		return source.minValue();
+	}
+
+	@Override
+	public double maxValue() {
+		return source.maxValue();
+	}
+
+	@Override
+	public double minDomain() {
+		return source.minDomain();
+	}
+
+	@Override
+	public double maxDomain() {
+		return source.maxDomain();
+	}
+
+	@Override public String toString() {
+		return "Compiled("+source+")";
+	}
+}
@@ -0,0 +1,150 @@
+package mikera.vectorz.ops;
+
+import java.lang.invoke.MethodHandle;
+
+import mikera.matrixx.AMatrix;
+import mikera.matrixx.Matrix;
+import mikera.vectorz.AVector;
+import mikera.vectorz.Op2;
+import mikera.vectorz.impl.ADenseArrayVector;
+import mikera.vectorz.util.ErrorMessages;
+
+/**
+ * An Op2 tree compiled into a single kernel by OpCompiler.
+ *
+ * Evaluates the compiled MethodHandle with array loops generated for the tree (see OpCompiler). All other properties
+ * are taken from the source tree.
+ *
+ * @author Mike
+ */
+public final class CompiledOp2 extends Op2 {
+	private final Op2 source;
+	final MethodHandle handle;
+	private final OpCompiler.Kernel2 kernel;
+
+	CompiledOp2(Op2 source, MethodHandle handle, OpCompiler.Kernel2 kernel) {
+		this.source=source;
+		this.handle=handle;
+		this.kernel=kernel;
+	}
+
+	/**
+	 * Gets the Op2 tree from which this kernel was compiled
+	 */
+	public Op2 getSource() {
+		return source;
+	}
+
+	@Override
+	public double apply(double x, double y) {
+		try {
+			return kernel.apply(x,y);
+		} catch (Throwable t) {
+			throw CompiledOp.rethrow(t);
+		}
+	}
+
+	@Override
+	public void applyTo(AMatrix a, AMatrix b) {
+		if ((a instanceof Matrix)&&(b instanceof Matrix)) {
+			if (!a.isSameShape(b)) throw new IllegalArgumentException(ErrorMessages.mismatch(a, b));
+			double[] data=((Matrix)a).data;
+			applyTo(data,0,data.length,((Matrix)b).data,0);
+		} else {
+			super.applyTo(a, b);
+		}
+	}
+
+	@Override
+	public void applyTo(double[] data, int start, int length, AVector b) {
+		b.checkLength(length);
+		if (b instanceof ADenseArrayVector) {
+			ADenseArrayVector db=(ADenseArrayVector)b;
+			applyTo(data,start,length,db.getArray(),db.getArrayOffset());
+			return;
+		}
+		OpCompiler.Kernel2 k=kernel;
+		try {
+			for (int i=0; i<length; i++) {
+				data[start+i]=k.apply(data[start+i],b.unsafeGet(i));
+			}
+		} catch (Throwable t) {
+			throw CompiledOp.rethrow(t);
+		}
+	}
+
+	private void applyTo(double[] data, int start, int length, double[] bData, int bOffset) {
+		try {
+			kernel.applyTo(data,start,length,bData,bOffset);
+		} catch (Throwable t) {
+			throw CompiledOp.rethrow(t);
+		}
+	}
+
+	@Override
+	public void applyTo(double[] data, int start, int length, double b) {
+		try {
+			kernel.applyTo(data,start,length,b);
+		} catch (Throwable t) {
+			throw CompiledOp.rethrow(t);
+		}
+	}
+
+	@Override
+	public double reduce(double init, double[] data, int offset, int length) {
+		return reduce(init,data,offset,length,1);
+	}
+
+	@Override
+	public double reduce(double init, double[] data, int offset, int length, int stride) {
+		try {
+			return kernel.reduce(init,data,offset,length,stride);
+		} catch (Throwable t) {
+			throw CompiledOp.rethrow(t);
+		}
+	}
+
+	@Override
+	public Op2 compile() {
+		return this;
+	}
+
+	@Override
+	public boolean isAssociative() {
+		return source.isAssociative();
+	}
+
+	@Override
+	public boolean isStochastic() {
+		return source.isStochastic();
+	}
+
+	@Override
+	public boolean isThreadSafe() {
+		return source.isThreadSafe();
+	}
+
+	@Override
+	public double averageValue() {
+		return source.averageValue();
+	}
+
+	@Override
+	public double minValue() {
+		return source.minValue();
+	}
+
+	@Override
+	public double maxValue() {
+		return source.maxValue();
+	}
+
+	@Override
+	public Op2 getDerivative(int i) {
+		return source.getDerivative(i);
+	}
+
+	@Override public String toString() {
+		return "Compiled("+source+")";
+	}
+}
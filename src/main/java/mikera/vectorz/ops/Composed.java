@@ -31,8 +31,11 @@ public class Composed extends Op {
 	
 	@Override
 	public void applyTo(double[] data, int start,int length) {
-		inner.applyTo(data, start, length);
-		outer.applyTo(data, start, length);
+		for (int i0=0; i0<length; i0+=BLOCK_SIZE) {
+			int n=Math.min(BLOCK_SIZE, length-i0);
+			inner.applyTo(data, start+i0, n);
+			outer.applyTo(data, start+i0, n);
+		}
 	}
 	
 	@Override
@@ -85,6 +88,11 @@ public class Composed extends Op {
 	public boolean isStochastic() {
 		return (outer.isStochastic())||(inner.isStochastic());
 	}
+
+	@Override
+	public boolean isThreadSafe() {
+		return outer.isThreadSafe()&&inner.isThreadSafe();
+	}
 	
 	@Override
 	public Op getInverse() {
@@ -65,6 +65,11 @@ public class ComposedOp2 extends Op2 {
 	public boolean isStochastic() {
 		return (outer.isStochastic())||(inner.isStochastic());
 	}
+
+	@Override
+	public boolean isThreadSafe() {
+		return outer.isThreadSafe()&&inner.isThreadSafe();
+	}
 	
 	@Override
 	public double averageValue() {
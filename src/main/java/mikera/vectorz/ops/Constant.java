@@ -54,6 +54,13 @@ public final class Constant extends ALinearOp {
 		Arrays.fill(data,start,start+length,value);
 	}
 	
+	@Override
+	public void applyTo(double[] data, int start, int stride, int length) {
+		for (int i=0; i<length; i++) {
+			data[start+i*stride]=value;
+		}
+	}
+	
 	@Override
 	public double getFactor() {
 		return 0.0;
@@ -104,4 +111,9 @@ public final class Constant extends ALinearOp {
 		if (value==0) return Constant.ZERO;
 		return Linear.create(value, 0.0).compose(op);
 	}
+
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
 }
@@ -7,6 +7,17 @@ public class Cosh extends AFunctionOp {
 	public double apply(double x) {
 		return Math.cosh(x);
 	}
-
 	
+	@Override
+	public void applyTo(double[] data, int start, int length) {
+		for (int i=0; i<length; i++) {
+			double x=data[start+i];
+			data[start+i]=Math.cosh(x);
+		}
+	}
+
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
 }
@@ -34,5 +34,10 @@ public final class CrossEntropy extends Op2 {
 	public Op2 getDerivative(int i) {
 		if (i==0) return Ops.D_CROSS_ENTROPY;
 		throw new UnsupportedOperationException(ErrorMessages.noDerivative(this));
-	}	
+	}
+
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
 }
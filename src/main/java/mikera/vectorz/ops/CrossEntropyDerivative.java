@@ -27,4 +27,9 @@ public final class CrossEntropyDerivative extends Op2 {
 			data[start+i]=apply(x,b.unsafeGet(i));
 		}
 	}
+
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
 }
@@ -26,4 +26,9 @@ public final class CrossEntropyLogisticDerivative extends Op2 {
 			data[start+i]=apply(x,b.unsafeGet(i));
 		}
 	}
+
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
 }
@@ -18,4 +18,9 @@ public class Derivative extends AFunctionOp {
 	public double apply(double x) {
 		return op.derivative(x);
 	}
+
+	@Override
+	public boolean isThreadSafe() {
+		return op.isThreadSafe();
+	}
 }
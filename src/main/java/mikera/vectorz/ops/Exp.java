@@ -49,4 +49,9 @@ public final class Exp extends AFunctionOp {
 	@Override public double minValue() {return 0.0;}
 
 	@Override public Op getDerivativeOp() {return this;}
+
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
 }
\ No newline at end of file
@@ -54,6 +54,11 @@ public final class Identity extends ALinearOp {
 		// done!
 	}
 	
+	@Override
+	public void applyTo(double[] data, int start, int stride, int length) {
+		// done!
+	}
+	
 	@Override
 	public boolean hasDerivative() {
 		return true;
@@ -104,4 +109,9 @@ public final class Identity extends ALinearOp {
 		if (op instanceof Power) return Power.create(((Power)op).getExponent()+1.0);
 		return super.product(op);
 	}
+
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
 }
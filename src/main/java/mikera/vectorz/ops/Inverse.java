@@ -65,4 +65,8 @@ public class Inverse extends Op {
 		return op.hasDerivative();
 	}
 
+	@Override
+	public boolean isThreadSafe() {
+		return op.isThreadSafe();
+	}
 }
@@ -0,0 +1,41 @@
+package mikera.vectorz.ops;
+
+import java.lang.invoke.MethodHandle;
+
+/**
+ * Template for the array loops of a compiled Op2. Copied for each compiled tree in the same way
+ * as KernelTemplate.
+ *
+ * @author Mike
+ */
+final class Kernel2Template implements OpCompiler.Kernel2 {
+	private static final MethodHandle HANDLE=OpCompiler.pendingHandle();
+
+	@Override
+	public double apply(double x, double y) throws Throwable {
+		return (double)HANDLE.invokeExact(x,y);
+	}
+
+	@Override
+	public void applyTo(double[] data, int start, int length, double[] b, int bOffset) throws Throwable {
+		for (int i=0; i<length; i++) {
+			data[start+i]=(double)HANDLE.invokeExact(data[start+i],b[bOffset+i]);
+		}
+	}
+
+	@Override
+	public void applyTo(double[] data, int start, int length, double b) throws Throwable {
+		for (int i=0; i<length; i++) {
+			data[start+i]=(double)HANDLE.invokeExact(data[start+i],b);
+		}
+	}
+
+	@Override
+	public double reduce(double init, double[] data, int offset, int length, int stride) throws Throwable {
+		double result=init;
+		for (int i=0; i<length; i++) {
+			result=(double)HANDLE.invokeExact(result,data[offset+i*stride]);
+		}
+		return result;
+	}
+}
@@ -0,0 +1,36 @@
+package mikera.vectorz.ops;
+
+import java.lang.invoke.MethodHandle;
+
+/**
+ * Template for the array loops of a compiled Op.
+ *
+ * OpCompiler defines a separate copy of this class for every compiled tree, each in its own class
+ * loader. Every copy has its own static final HANDLE, which the JIT treats as a constant, so the
+ * whole tree is inlined into the loops of that copy. Not used directly.
+ *
+ * @author Mike
+ */
+final class KernelTemplate implements OpCompiler.Kernel {
+	private static final MethodHandle HANDLE=OpCompiler.pendingHandle();
+
+	@Override
+	public double apply(double x) throws Throwable {
+		return (double)HANDLE.invokeExact(x);
+	}
+
+	@Override
+	public void applyTo(double[] data, int start, int length) throws Throwable {
+		for (int i=0; i<length; i++) {
+			data[start+i]=(double)HANDLE.invokeExact(data[start+i]);
+		}
+	}
+
+	@Override
+	public void applyTo(double[] data, int start, int stride, int length) throws Throwable {
+		for (int i=0; i<length; i++) {
+			int ii=start+i*stride;
+			data[ii]=(double)HANDLE.invokeExact(data[ii]);
+		}
+	}
+}
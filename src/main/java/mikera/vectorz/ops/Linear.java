@@ -58,6 +58,15 @@ public final class Linear extends ALinearOp {
 		DoubleArrays.scaleAdd(data, start, length, factor,constant);
 	}
 	
+	@Override
+	public void applyTo(double[] data, int start, int stride, int length) {
+		for (int i=0; i<length; i++) {
+			int ii=start+i*stride;
+			double x=data[ii];
+			data[ii]=(factor*x)+constant;
+		}
+	}
+	
 	@Override
 	public double getFactor() {
 		return factor;
@@ -114,4 +123,9 @@ public final class Linear extends ALinearOp {
 		}
 		return super.compose(op);
 	}
+
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
 }
@@ -56,4 +56,9 @@ public final class Log extends AFunctionOp {
 
 	@Override public Op getInverse() {return Exp.INSTANCE;}
 	@Override public Op getDerivativeOp() {return Ops.RECIPROCAL;}
+
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
 }
\ No newline at end of file
@@ -32,6 +32,14 @@ public final class LogN extends AFunctionOp {
 	public double apply(double x) {
 		return Math.log(x)/logBase;
 	}
+	
+	@Override
+	public void applyTo(double[] data, int start, int length) {
+		for (int i=0; i<length; i++) {
+			double x=data[start+i];
+			data[start+i]=Math.log(x)/logBase;
+		}
+	}
 
 	@Override
 	public double derivative(double x) {
@@ -54,4 +62,9 @@ public final class LogN extends AFunctionOp {
 
 	@Override public Op getInverse() {return Exp.INSTANCE.compose(Linear.create(logBase, 0.0));}
 	@Override public Op getDerivativeOp() {return Ops.RECIPROCAL;}
+
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
 }
\ No newline at end of file
@@ -79,4 +79,8 @@ public final class Logistic extends ABoundedOp {
 		return INSTANCE; 
 	}
 
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
 }
@@ -14,5 +14,14 @@ public final class Min extends Op2 {
 	public double apply(double x, double y) {
 		return Math.min(x, y);
 	}
+	
+	@Override
+	public boolean isAssociative() {
+		return true;
+	}
 
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
 }
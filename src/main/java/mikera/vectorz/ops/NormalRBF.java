@@ -9,6 +9,14 @@ public class NormalRBF extends ABoundedOp {
 		return Math.exp(-(x*x));
 	}
 	
+	@Override
+	public void applyTo(double[] data, int start, int length) {
+		for (int i=0; i<length; i++) {
+			double x=data[start+i];
+			data[start+i]=Math.exp(-(x*x));
+		}
+	}
+	
 	@Override
 	public boolean hasDerivative() {
 		return true;
@@ -44,4 +52,8 @@ public class NormalRBF extends ABoundedOp {
 		return 1.0;
 	}
 
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
 }
@@ -56,6 +56,15 @@ public final class Offset extends ALinearOp {
 		
 	}
 	
+	@Override
+	public void applyTo(double[] data, int start, int stride, int length) {
+		for (int i=0; i<length; i++) {
+			int ii=start+i*stride;
+			double x=data[ii];
+			data[ii]=x+constant;
+		}
+	}
+	
 	@Override
 	public double getFactor() {
 		return 1.0;
@@ -112,4 +121,9 @@ public final class Offset extends ALinearOp {
 		}
 		return super.compose(op);
 	}
+
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
 }
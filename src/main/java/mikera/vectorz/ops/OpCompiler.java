@@ -0,0 +1,233 @@
+package mikera.vectorz.ops;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+
+import mikera.vectorz.Op;
+import mikera.vectorz.Op2;
+import mikera.vectorz.util.VectorzException;
+
+/**
+ * Compiler that flattens a tree of Ops into a single specialised kernel.
+ *
+ * Composite nodes (Composed, Sum, Product, Division, ComposedOp2) are translated into MethodHandle
+ * combinators, and leaf Ops are bound as constant receivers of their apply method. The array
+ * loops for the resulting handle are generated per tree: a copy of KernelTemplate (or
+ * Kernel2Template) is defined in a fresh class loader, with the tree handle in its static final
+ * HANDLE field. The JIT treats such a field as a constant, so the whole tree, including the leaf
+ * apply methods, is inlined into the loop body of that copy.
+ *
+ * If kernel classes cannot be defined, e.g. because the template class files are not readable as
+ * resources, compile returns the Op tree unchanged.
+ *
+ * Use Op.compile() / Op2.compile() rather than calling this class directly, so that the
+ * compiled kernel is cached with the tree.
+ *
+ * @author Mike
+ */
+public final class OpCompiler {
+
+	private OpCompiler() {}
+
+	private static final MethodType UNARY=MethodType.methodType(double.class, double.class);
+	private static final MethodType BINARY=MethodType.methodType(double.class, double.class, double.class);
+
+	private static final MethodHandle APPLY;
+	private static final MethodHandle APPLY2;
+	private static final MethodHandle ADD;
+	private static final MethodHandle MULTIPLY;
+	private static final MethodHandle DIVIDE;
+
+	/**
+	 * Array loops of a compiled Op, implemented by the per-tree copies of KernelTemplate.
+	 * Public only because the copies are defined in separate class loaders.
+	 */
+	public interface Kernel {
+		public double apply(double x) throws Throwable;
+		public void applyTo(double[] data, int start, int length) throws Throwable;
+		public void applyTo(double[] data, int start, int stride, int length) throws Throwable;
+	}
+
+	/**
+	 * Array loops of a compiled Op2, implemented by the per-tree copies of Kernel2Template.
+	 * Public only because the copies are defined in separate class loaders.
+	 */
+	public interface Kernel2 {
+		public double apply(double x, double y) throws Throwable;
+		public void applyTo(double[] data, int start, int length, double[] b, int bOffset) throws Throwable;
+		public void applyTo(double[] data, int start, int length, double b) throws Throwable;
+		public double reduce(double init, double[] data, int offset, int length, int stride) throws Throwable;
+	}
+
+	// class files of the kernel templates, or null if they are not available
+	private static final byte[] KERNEL_CLASS=readClass(KernelTemplate.class);
+	private static final byte[] KERNEL2_CLASS=readClass(Kernel2Template.class);
+
+	// handle for the kernel class currently being initialised on this thread
+	private static final ThreadLocal<MethodHandle> PENDING=new ThreadLocal<MethodHandle>();
+
+	static {
+		MethodHandles.Lookup lookup=MethodHandles.lookup();
+		try {
+			APPLY=lookup.findVirtual(Op.class, "apply", UNARY);
+			APPLY2=lookup.findVirtual(Op2.class, "apply", BINARY);
+			ADD=lookup.findStatic(OpCompiler.class, "add", BINARY);
+			MULTIPLY=lookup.findStatic(OpCompiler.class, "multiply", BINARY);
+			DIVIDE=lookup.findStatic(OpCompiler.class, "divide", BINARY);
+		} catch (ReflectiveOperationException e) {
+			throw new VectorzException("Unable to initialise Op compiler", e);
+		}
+	}
+
+	private static double add(double a, double b) {
+		return a+b;
+	}
+
+	private static double multiply(double a, double b) {
+		return a*b;
+	}
+
+	private static double divide(double a, double b) {
+		return a/b;
+	}
+
+	/**
+	 * Class loader defining a single kernel class
+	 */
+	private static final class KernelLoader extends ClassLoader {
+		private KernelLoader() {
+			super(OpCompiler.class.getClassLoader());
+		}
+
+		private Class<?> define(String name, byte[] bytes) {
+			return defineClass(name, bytes, 0, bytes.length);
+		}
+	}
+
+	private static byte[] readClass(Class<?> c) {
+		InputStream in=c.getResourceAsStream(c.getSimpleName()+".class");
+		if (in==null) return null;
+		try {
+			ByteArrayOutputStream out=new ByteArrayOutputStream();
+			byte[] buf=new byte[4096];
+			int n;
+			while ((n=in.read(buf))>0) {
+				out.write(buf, 0, n);
+			}
+			return out.toByteArray();
+		} catch (IOException e) {
+			return null;
+		} finally {
+			try {
+				in.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+	}
+
+	/**
+	 * Gets the handle for the kernel class being initialised. Called only by the static
+	 * initialisers of the kernel templates.
+	 */
+	public static MethodHandle pendingHandle() {
+		return PENDING.get();
+	}
+
+	/**
+	 * Defines a new copy of a kernel template with the given handle, and creates an instance of it.
+	 * Returns null if the copy cannot be defined.
+	 */
+	private static Object createKernel(Class<?> template, byte[] bytes, MethodHandle h) {
+		if (bytes==null) return null;
+		PENDING.set(h);
+		try {
+			Class<?> c=new KernelLoader().define(template.getName(), bytes);
+			Constructor<?> cons=c.getDeclaredConstructor();
+			cons.setAccessible(true);
+			return cons.newInstance();
+		} catch (ReflectiveOperationException e) {
+			return null;
+		} catch (SecurityException e) {
+			return null;
+		} catch (LinkageError e) {
+			return null;
+		} finally {
+			PENDING.remove();
+		}
+	}
+
+	/**
+	 * Compiles an Op tree into a single kernel. Returns the Op unchanged if it is already compiled,
+	 * or if the kernel class cannot be created.
+	 */
+	public static Op compile(Op op) {
+		if (op instanceof CompiledOp) return op;
+		MethodHandle h=handle(op);
+		Kernel k=(Kernel)createKernel(KernelTemplate.class,KERNEL_CLASS,h);
+		if (k==null) return op;
+		return new CompiledOp(op,h,k);
+	}
+
+	/**
+	 * Compiles an Op2 tree into a single kernel. Returns the Op2 unchanged if it is already compiled,
+	 * or if the kernel class cannot be created.
+	 */
+	public static Op2 compile(Op2 op) {
+		if (op instanceof CompiledOp2) return op;
+		MethodHandle h=handle(op);
+		Kernel2 k=(Kernel2)createKernel(Kernel2Template.class,KERNEL2_CLASS,h);
+		if (k==null) return op;
+		return new CompiledOp2(op,h,k);
+	}
+
+	/**
+	 * Gets a MethodHandle of type (double)double that computes the given Op
+	 */
+	static MethodHandle handle(Op op) {
+		if (op instanceof CompiledOp) {
+			return ((CompiledOp)op).handle;
+		} else if (op instanceof Identity) {
+			return MethodHandles.identity(double.class);
+		} else if (op instanceof Composed) {
+			Composed c=(Composed)op;
+			return MethodHandles.filterReturnValue(handle(c.inner), handle(c.outer));
+		} else if (op instanceof Sum) {
+			Sum s=(Sum)op;
+			return combine(ADD,handle(s.a),handle(s.b));
+		} else if (op instanceof Product) {
+			Product p=(Product)op;
+			return combine(MULTIPLY,handle(p.a),handle(p.b));
+		} else if (op instanceof Division) {
+			Division d=(Division)op;
+			return combine(DIVIDE,handle(d.a),handle(d.b));
+		}
+		return APPLY.bindTo(op);
+	}
+
+	/**
+	 * Gets a MethodHandle of type (double,double)double that computes the given Op2
+	 */
+	static MethodHandle handle(Op2 op) {
+		if (op instanceof CompiledOp2) {
+			return ((CompiledOp2)op).handle;
+		} else if (op instanceof ComposedOp2) {
+			ComposedOp2 c=(ComposedOp2)op;
+			return MethodHandles.filterArguments(handle(c.outer), 1, handle(c.inner));
+		}
+		return APPLY2.bindTo(op);
+	}
+
+	/**
+	 * Creates a handle computing f(a(x),b(x)) for a binary function f
+	 */
+	private static MethodHandle combine(MethodHandle f, MethodHandle a, MethodHandle b) {
+		MethodHandle both=MethodHandles.filterArguments(f, 0, a, b);
+		return MethodHandles.permuteArguments(both, UNARY, 0, 0);
+	}
+}
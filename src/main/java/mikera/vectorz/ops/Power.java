@@ -107,4 +107,8 @@ public final class Power extends Op {
 		return exponent;
 	}
 
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
 }
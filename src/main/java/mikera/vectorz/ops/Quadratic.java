@@ -65,6 +65,15 @@ public final class Quadratic extends APolynomialOp {
 		}	
 	}
 	
+	@Override
+	public void applyTo(double[] data, int start, int stride, int length) {
+		for (int i=0; i<length; i++) {
+			int ii=start+i*stride;
+			double x=data[ii];
+			data[ii]=(a*x*x)+(b*x)+c;
+		}
+	}
+	
 	@Override
 	public double averageValue() {
 		return apply(-2.0*b/a)+a;
@@ -109,4 +118,9 @@ public final class Quadratic extends APolynomialOp {
 		}
 		return super.compose(op);
 	}
+
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
 }
@@ -45,4 +45,9 @@ public final class Reciprocal extends AFunctionOp {
 	@Override public Op getInverse() {return this;}
 
 	@Override public boolean hasDerivative() {return true;}
+
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
 }
\ No newline at end of file
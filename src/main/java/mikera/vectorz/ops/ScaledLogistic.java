@@ -83,4 +83,8 @@ public final class ScaledLogistic extends Op {
 		return 0.5;
 	}
 
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
 }
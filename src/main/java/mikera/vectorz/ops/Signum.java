@@ -11,6 +11,23 @@ public class Signum extends ARoundingOp {
 		return Math.signum(x);
 	}
 	
+	@Override
+	public void applyTo(double[] data, int start, int length) {
+		for (int i=0; i<length; i++) {
+			double x=data[start+i];
+			data[start+i]=Math.signum(x);
+		}
+	}
+	
+	@Override
+	public void applyTo(double[] data, int start, int stride, int length) {
+		for (int i=0; i<length; i++) {
+			int ii=start+i*stride;
+			double x=data[ii];
+			data[ii]=Math.signum(x);
+		}
+	}
+	
 	@Override
 	public void applyTo(INDArray v) {
 		v.signum();
@@ -20,4 +37,9 @@ public class Signum extends ARoundingOp {
 	public void applyTo(AVector v) {
 		v.signum();
 	}
+
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
 }
@@ -75,4 +75,8 @@ public final class SoftPlus extends ABoundedOp {
 		return INSTANCE; 
 	}
 
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
 }
@@ -82,4 +82,8 @@ public class Sqrt extends AFunctionOp {
 		return 0.0;
 	}
 
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
 }
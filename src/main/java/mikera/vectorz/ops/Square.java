@@ -42,6 +42,15 @@ public final class Square extends APolynomialOp {
 		DoubleArrays.square(data, start, length);
 	}
 	
+	@Override
+	public void applyTo(double[] data, int start, int stride, int length) {
+		for (int i=0; i<length; i++) {
+			int ii=start+i*stride;
+			double x=data[ii];
+			data[ii]=x*x;
+		}
+	}
+	
 	@Override
 	public double averageValue() {
 		return 1.0;
@@ -86,4 +95,9 @@ public final class Square extends APolynomialOp {
 		}
 		return super.compose(op);
 	}
+
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
 }
@@ -14,6 +14,14 @@ public class StochasticBinary extends ABoundedOp {
 		return (Rand.nextDouble()<x)?1.0:0.0;
 	}
 	
+	@Override
+	public void applyTo(double[] data, int start, int length) {
+		for (int i=0; i<length; i++) {
+			double x=data[start+i];
+			data[start+i]=(Rand.nextDouble()<x)?1.0:0.0;
+		}
+	}
+	
 	@Override
 	public double applyInverse(double y) {
 		return y;
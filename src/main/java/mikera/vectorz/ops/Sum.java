@@ -23,6 +23,21 @@ public final class Sum extends Op {
 	public double apply(double x) {
 		return a.apply(x)+b.apply(x);
 	}
+	
+	@Override
+	public void applyTo(double[] data, int start, int length) {
+		double[] tmp=new double[Math.min(length, BLOCK_SIZE)];
+		for (int i0=0; i0<length; i0+=BLOCK_SIZE) {
+			int n=Math.min(BLOCK_SIZE, length-i0);
+			int s=start+i0;
+			System.arraycopy(data, s, tmp, 0, n);
+			a.applyTo(data, s, n);
+			b.applyTo(tmp, 0, n);
+			for (int i=0; i<n; i++) {
+				data[s+i]+=tmp[i];
+			}
+		}
+	}
 
 	@Override
 	public double averageValue() {
@@ -48,6 +63,11 @@ public final class Sum extends Op {
 	public boolean isStochastic() {
 		return a.isStochastic()||b.isStochastic();
 	}
+
+	@Override
+	public boolean isThreadSafe() {
+		return a.isThreadSafe()&&b.isThreadSafe();
+	}
 	
 	@Override public String toString() {
 		return "Sum("+a+","+b+")";
@@ -58,4 +58,8 @@ public final class Tanh extends ABoundedOp {
 		return 1.0;
 	}
 
+	@Override
+	public boolean isThreadSafe() {
+		return true;
+	}
 }
@@ -0,0 +1,230 @@
+package mikera.vectorz.util;
+
+/**
+ * Fast approximations to common transcendental functions.
+ *
+ * Each function comes in two accuracy tiers:
+ * <ul>
+ * <li>The standard versions (exp, log, ...) have a maximum relative error below 1e-7</li>
+ * <li>The fast versions (fastExp, fastLog, ...) have a maximum relative error below 1e-4</li>
+ * </ul>
+ *
+ * Error bounds apply to finite results in the normal double range. Special values (NaN, infinities,
+ * zeros) are handled in the same way as java.lang.Math. sin and cos are only approximated for
+ * |x| up to 65536, larger arguments fall back to Math.sin / Math.cos.
+ *
+ * All functions use a short range reduction followed by a low degree polynomial, so that they
+ * are cheap to inline into array loops.
+ *
+ * @author Mike
+ */
+public final class Approximations {
+
+	private Approximations() {}
+
+	// adding and then subtracting this rounds a double of magnitude below 2^51 to the nearest integer
+	private static final double ROUND=6755399441055744.0;
+
+	private static final double LOG2E=1.4426950408889634;
+	// ln(2) split so that k*LN2_HI is exact for any exponent k
+	private static final double LN2_HI=6.93147180369123816490e-01;
+	private static final double LN2_LO=1.90821492927058770002e-10;
+	private static final long SQRT_HALF_BITS=Double.doubleToRawLongBits(Math.sqrt(0.5));
+
+	private static final double TWO_OVER_PI=0.6366197723675814;
+	// pi/2 split into 33 bit pieces, so that k*PIO2_1 and k*PIO2_2 are exact for |k| < 2^20
+	private static final double PIO2_1=1.57079632673412561417e+00;
+	private static final double PIO2_2=6.07710050630396597660e-11;
+	private static final double PIO2_3=2.02226624871116645580e-21;
+	private static final double TRIG_LIMIT=65536.0;
+
+	// below these magnitudes tanh uses its Taylor series rather than exp
+	private static final double TANH_SERIES_LIMIT=0.2;
+	private static final double FAST_TANH_SERIES_LIMIT=0.4;
+
+	/**
+	 * Approximate exponential function, with relative error below 1e-7
+	 */
+	public static double exp(double x) {
+		// clamping keeps the reduction in range while still over/underflowing correctly. NaN passes through.
+		x=(x<-746.0)?-746.0:((x>710.0)?710.0:x);
+		double t=x*LOG2E+ROUND;
+		double k=t-ROUND;
+		double r=(x-k*LN2_HI)-k*LN2_LO;
+		// Taylor series to degree 7 for |r| <= ln(2)/2
+		double p=1.0+r*(1.0+r*(1.0/2+r*(1.0/6+r*(1.0/24+r*(1.0/120+r*(1.0/720+r*(1.0/5040)))))));
+		return scale(p,t);
+	}
+
+	/**
+	 * Fast approximate exponential function, with relative error below 1e-4
+	 */
+	public static double fastExp(double x) {
+		x=(x<-746.0)?-746.0:((x>710.0)?710.0:x);
+		double t=x*LOG2E+ROUND;
+		double k=t-ROUND;
+		double r=(x-k*LN2_HI)-k*LN2_LO;
+		// Taylor series to degree 4 for |r| <= ln(2)/2
+		double p=1.0+r*(1.0+r*(1.0/2+r*(1.0/6+r*(1.0/24))));
+		return scale(p,t);
+	}
+
+	/**
+	 * Computes p*2^k, where k is the integer held in the low bits of the rounded value t. The 
+	 * scaling is done in two steps so that subnormal results and overflow to infinity are handled
+	 * correctly.
+	 */
+	private static double scale(double p, double t) {
+		int k=(int)Double.doubleToRawLongBits(t);
+		int k1=k>>1;
+		int k2=k-k1;
+		return p*Double.longBitsToDouble(((long)(k1+1023))<<52)*Double.longBitsToDouble(((long)(k2+1023))<<52);
+	}
+
+	/**
+	 * Approximate natural logarithm, with relative error below 1e-7
+	 */
+	public static double log(double x) {
+		if (!((x>=Double.MIN_NORMAL)&&(x<Double.POSITIVE_INFINITY))) return Math.log(x);
+		// split x=m*2^e with m in [sqrt(1/2), sqrt(2)), without branching
+		long bits=Double.doubleToRawLongBits(x);
+		long e=(bits-SQRT_HALF_BITS)>>52;
+		double m=Double.longBitsToDouble(bits-(e<<52));
+		// log(m)=2*atanh(f) with |f| <= 0.172
+		double f=(m-1.0)/(m+1.0);
+		double f2=f*f;
+		double s=f*(2.0+f2*(2.0/3+f2*(2.0/5+f2*(2.0/7+f2*(2.0/9)))));
+		return e*LN2_HI+(s+e*LN2_LO);
+	}
+
+	/**
+	 * Fast approximate natural logarithm, with relative error below 1e-4
+	 */
+	public static double fastLog(double x) {
+		if (!((x>=Double.MIN_NORMAL)&&(x<Double.POSITIVE_INFINITY))) return Math.log(x);
+		// split x=m*2^e with m in [sqrt(1/2), sqrt(2)), without branching
+		long bits=Double.doubleToRawLongBits(x);
+		long e=(bits-SQRT_HALF_BITS)>>52;
+		double m=Double.longBitsToDouble(bits-(e<<52));
+		double f=(m-1.0)/(m+1.0);
+		double f2=f*f;
+		double s=f*(2.0+f2*(2.0/3+f2*(2.0/5)));
+		return e*LN2_HI+(s+e*LN2_LO);
+	}
+
+	/**
+	 * Approximate logistic function 1/(1+exp(-x)), with relative error below 1e-7
+	 */
+	public static double logistic(double x) {
+		return 1.0/(1.0+exp(-x));
+	}
+
+	/**
+	 * Fast approximate logistic function 1/(1+exp(-x)), with relative error below 1e-4
+	 */
+	public static double fastLogistic(double x) {
+		return 1.0/(1.0+fastExp(-x));
+	}
+
+	/**
+	 * Approximate hyperbolic tangent, with relative error below 1e-7
+	 */
+	public static double tanh(double x) {
+		double a=Math.abs(x);
+		if (a<TANH_SERIES_LIMIT) {
+			double x2=x*x;
+			return x*(1.0+x2*(-1.0/3+x2*(2.0/15+x2*(-17.0/315+x2*(62.0/2835)))));
+		}
+		double y=1.0-2.0/(exp(2.0*a)+1.0);
+		return Math.copySign(y, x);
+	}
+
+	/**
+	 * Fast approximate hyperbolic tangent, with relative error below 1e-4
+	 */
+	public static double fastTanh(double x) {
+		double a=Math.abs(x);
+		if (a<FAST_TANH_SERIES_LIMIT) {
+			double x2=x*x;
+			return x*(1.0+x2*(-1.0/3+x2*(2.0/15+x2*(-17.0/315))));
+		}
+		double y=1.0-2.0/(fastExp(2.0*a)+1.0);
+		return Math.copySign(y, x);
+	}
+
+	/**
+	 * Approximate sine function, with relative error below 1e-7
+	 */
+	public static double sin(double x) {
+		if (!(Math.abs(x)<=TRIG_LIMIT)) return Math.sin(x);
+		double t=x*TWO_OVER_PI+ROUND;
+		double k=t-ROUND;
+		double r=((x-k*PIO2_1)-k*PIO2_2)-k*PIO2_3;
+		return quadrant(sinPoly(r),cosPoly(r),(int)Double.doubleToRawLongBits(t));
+	}
+
+	/**
+	 * Approximate cosine function, with relative error below 1e-7
+	 */
+	public static double cos(double x) {
+		if (!(Math.abs(x)<=TRIG_LIMIT)) return Math.cos(x);
+		double t=x*TWO_OVER_PI+ROUND;
+		double k=t-ROUND;
+		double r=((x-k*PIO2_1)-k*PIO2_2)-k*PIO2_3;
+		return quadrant(sinPoly(r),cosPoly(r),(int)Double.doubleToRawLongBits(t)+1);
+	}
+
+	/**
+	 * Fast approximate sine function, with relative error below 1e-4
+	 */
+	public static double fastSin(double x) {
+		if (!(Math.abs(x)<=TRIG_LIMIT)) return Math.sin(x);
+		double t=x*TWO_OVER_PI+ROUND;
+		double k=t-ROUND;
+		double r=((x-k*PIO2_1)-k*PIO2_2)-k*PIO2_3;
+		return quadrant(fastSinPoly(r),fastCosPoly(r),(int)Double.doubleToRawLongBits(t));
+	}
+
+	/**
+	 * Fast approximate cosine function, with relative error below 1e-4
+	 */
+	public static double fastCos(double x) {
+		if (!(Math.abs(x)<=TRIG_LIMIT)) return Math.cos(x);
+		double t=x*TWO_OVER_PI+ROUND;
+		double k=t-ROUND;
+		double r=((x-k*PIO2_1)-k*PIO2_2)-k*PIO2_3;
+		return quadrant(fastSinPoly(r),fastCosPoly(r),(int)Double.doubleToRawLongBits(t)+1);
+	}
+
+	/**
+	 * Selects the value of sin(x) for x=r+q*pi/2, given sin(r) and cos(r). Uses bit operations 
+	 * rather than branches, since the quadrant is unpredictable for typical data.
+	 */
+	private static double quadrant(double s, double c, int q) {
+		long mask=-(long)(q&1);
+		long bits=(Double.doubleToRawLongBits(c)&mask)|(Double.doubleToRawLongBits(s)&~mask);
+		return Double.longBitsToDouble(bits^(((long)(q&2))<<62));
+	}
+
+	// Taylor series for |r| <= pi/4
+
+	private static double sinPoly(double r) {
+		double r2=r*r;
+		return r*(1.0+r2*(-1.0/6+r2*(1.0/120+r2*(-1.0/5040+r2*(1.0/362880)))));
+	}
+
+	private static double cosPoly(double r) {
+		double r2=r*r;
+		return 1.0+r2*(-1.0/2+r2*(1.0/24+r2*(-1.0/720+r2*(1.0/40320))));
+	}
+
+	private static double fastSinPoly(double r) {
+		double r2=r*r;
+		return r*(1.0+r2*(-1.0/6+r2*(1.0/120)));
+	}
+
+	private static double fastCosPoly(double r) {
+		double r2=r*r;
+		return 1.0+r2*(-1.0/2+r2*(1.0/24+r2*(-1.0/720)));
+	}
+}
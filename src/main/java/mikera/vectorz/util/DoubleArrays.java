@@ -11,20 +11,89 @@ public final class DoubleArrays {
 
 	public static final double[] EMPTY = new double[0];
 
+	// Length below which sums are computed directly with multiple accumulators rather than split pairwise
+	private static final int SUM_BLOCK=256;
+
+	// block size for the inner and column dimensions of the matrix multiply kernel
+	private static final int GEMM_BLOCK=256;
+
+	/**
+	 * Computes the sum of all elements in an array. Uses pairwise summation over blocks, so that
+	 * rounding error grows with log(length) rather than length.
+	 */
 	public static final double elementSum(double[] data) {
-		double result = 0.0;
-		for (int i=0; i<data.length; i++) {
-			result+=data[i];
-		}
-		return result;
+		return elementSum(data,0,data.length);
 	}
 	
+	/**
+	 * Computes the sum of a range of an array. Uses pairwise summation over blocks, so that
+	 * rounding error grows with log(length) rather than length.
+	 */
 	public static final double elementSum(double[] data, int offset, int length) {
-		double result = 0.0;
-		for (int i=0; i<length; i++) {
-			result+=data[offset+i];
+		if (length<=SUM_BLOCK) return blockSum(data,offset,length);
+		int half=length>>>1;
+		return elementSum(data,offset,half)+elementSum(data,offset+half,length-half);
+	}
+	
+	/**
+	 * Sums a block with four independent accumulators, so that the additions can be pipelined
+	 */
+	private static double blockSum(double[] data, int offset, int length) {
+		double s0=0.0,s1=0.0,s2=0.0,s3=0.0;
+		int i=0;
+		for (; i<=length-4; i+=4) {
+			s0+=data[offset+i];
+			s1+=data[offset+i+1];
+			s2+=data[offset+i+2];
+			s3+=data[offset+i+3];
 		}
-		return result;
+		for (; i<length; i++) {
+			s0+=data[offset+i];
+		}
+		return (s0+s1)+(s2+s3);
+	}
+	
+	/**
+	 * Computes the sum of a range of an array using Kahan compensated summation. Slower than
+	 * elementSum, but the rounding error is bounded independently of length.
+	 */
+	public static double kahanSum(double[] data, int offset, int length) {
+		// two interleaved compensated accumulators, to shorten the dependency chain. Once a
+		// partial sum becomes infinite its compensation would be NaN, so accumulation continues
+		// without compensation, exactly as plain summation would.
+		double s0=0.0,c0=0.0,s1=0.0,c1=0.0;
+		int i=0;
+		for (; i<=length-2; i+=2) {
+			double y0=data[offset+i]-c0;
+			double t0=s0+y0;
+			c0=Double.isInfinite(t0)?0.0:(t0-s0)-y0;
+			s0=t0;
+			double y1=data[offset+i+1]-c1;
+			double t1=s1+y1;
+			c1=Double.isInfinite(t1)?0.0:(t1-s1)-y1;
+			s1=t1;
+		}
+		if (i<length) {
+			double y0=data[offset+i]-c0;
+			double t0=s0+y0;
+			c0=Double.isInfinite(t0)?0.0:(t0-s0)-y0;
+			s0=t0;
+		}
+		return kahanCombine(s0,c0,s1,c1);
+	}
+	
+	public static double kahanSum(double[] data) {
+		return kahanSum(data,0,data.length);
+	}
+	
+	/**
+	 * Adds two compensated partial sums, carrying the compensation terms
+	 */
+	private static double kahanCombine(double s0, double c0, double s1, double c1) {
+		double y=s1-(c0+c1);
+		double t=s0+y;
+		if (Double.isInfinite(t)) return t;
+		return t-((t-s0)-y);
 	}
 	
 	public static final double elementSum(double[] data, int offset, int stride, int length) {
@@ -129,21 +198,36 @@ public final class DoubleArrays {
 	}
 	
 	public static double elementSquaredSum(double[] data) {
-		double result = 0.0;
-		for (int i=0; i<data.length; i++) {
-			double x=data[i];
-			result+=x*x;
-		}
-		return result;	
+		return elementSquaredSum(data,0,data.length);
 	}
 	
+	/**
+	 * Computes the sum of squares of a range of an array, using pairwise summation over blocks
+	 */
 	public static double elementSquaredSum(double[] data, int offset, int length) {
-		double result = 0.0;
-		for (int i=0; i<length; i++) {
+		if (length<=SUM_BLOCK) return blockSquaredSum(data,offset,length);
+		int half=length>>>1;
+		return elementSquaredSum(data,offset,half)+elementSquaredSum(data,offset+half,length-half);
+	}
+	
+	private static double blockSquaredSum(double[] data, int offset, int length) {
+		double s0=0.0,s1=0.0,s2=0.0,s3=0.0;
+		int i=0;
+		for (; i<=length-4; i+=4) {
+			double x0=data[offset+i];
+			double x1=data[offset+i+1];
+			double x2=data[offset+i+2];
+			double x3=data[offset+i+3];
+			s0+=x0*x0;
+			s1+=x1*x1;
+			s2+=x2*x2;
+			s3+=x3*x3;
+		}
+		for (; i<length; i++) {
 			double x=data[offset+i];
-			result+=x*x;
+			s0+=x*x;
 		}
-		return result;	
+		return (s0+s1)+(s2+s3);
 	}
 	
 	public static double elementSquaredSum(double[] data, int offset, int length, int stride) {
@@ -289,6 +373,25 @@ public final class DoubleArrays {
 		}
 	}
 	
+	/**
+	 * Double precision counterpart of FloatArrays.multiply(float[], int, float[], int, float[], int, int, int, int)
+	 */
+	public static void multiply(double[] a, int aOffset, double[] b, int bOffset, double[] dest, int destOffset, int rows, int inner, int cols) {
+		for (int bj=0; bj<cols; bj+=GEMM_BLOCK) {
+			int jn=Math.min(GEMM_BLOCK, cols-bj);
+			for (int bk=0; bk<inner; bk+=GEMM_BLOCK) {
+				int kn=Math.min(GEMM_BLOCK, inner-bk);
+				for (int i=0; i<rows; i++) {
+					int di=destOffset+i*cols+bj;
+					int ai=aOffset+i*inner;
+					for (int k=bk; k<bk+kn; k++) {
+						addMultiple(dest,di,b,bOffset+k*cols+bj,jn,a[ai+k]);
+					}
+				}
+			}
+		}
+	}
+	
 	public static void addProduct(double[] dest, int offset, double[] src1, int src1Offset, double[] src2, int src2Offset, int length, double factor) {
 		for (int i=0; i<length; i++) {
 			dest[offset+i]+=factor*src1[src1Offset+i]*src2[src2Offset+i];
@@ -319,6 +422,10 @@ public final class DoubleArrays {
 		}
 	}
 
+	/**
+	 * Computes the dot product of two array ranges, accumulating in order. This gives the same 
+	 * result as the strided and matrix multiplication kernels.
+	 */
 	public static double dotProduct(double[] a, int aOffset, double[] b, int bOffset, int length) {
 		double result=0.0;
 		for (int i=0; i<length; i++) {
@@ -328,6 +435,58 @@ public final class DoubleArrays {
 		return result;
 	}
 	
+	/**
+	 * Computes the dot product of two array ranges, using pairwise summation over blocks. Faster 
+	 * and more accurate than dotProduct for long arrays, but rounds differently.
+	 */
+	public static double pairwiseDotProduct(double[] a, int aOffset, double[] b, int bOffset, int length) {
+		if (length<=SUM_BLOCK) return blockDotProduct(a,aOffset,b,bOffset,length);
+		int half=length>>>1;
+		return pairwiseDotProduct(a,aOffset,b,bOffset,half)+pairwiseDotProduct(a,aOffset+half,b,bOffset+half,length-half);
+	}
+	
+	private static double blockDotProduct(double[] a, int aOffset, double[] b, int bOffset, int length) {
+		double s0=0.0,s1=0.0,s2=0.0,s3=0.0;
+		int i=0;
+		for (; i<=length-4; i+=4) {
+			s0+=a[aOffset+i]*b[bOffset+i];
+			s1+=a[aOffset+i+1]*b[bOffset+i+1];
+			s2+=a[aOffset+i+2]*b[bOffset+i+2];
+			s3+=a[aOffset+i+3]*b[bOffset+i+3];
+		}
+		for (; i<length; i++) {
+			s0+=a[aOffset+i]*b[bOffset+i];
+		}
+		return (s0+s1)+(s2+s3);
+	}
+	
+	/**
+	 * Computes the dot product of two array ranges, summing the products with Kahan compensated
+	 * summation. Each product is still rounded, so the result is accurate to within one rounding 
+	 * of each product.
+	 */
+	public static double kahanDotProduct(double[] a, int aOffset, double[] b, int bOffset, int length) {
+		double s0=0.0,c0=0.0,s1=0.0,c1=0.0;
+		int i=0;
+		for (; i<=length-2; i+=2) {
+			double y0=a[aOffset+i]*b[bOffset+i]-c0;
+			double t0=s0+y0;
+			c0=Double.isInfinite(t0)?0.0:(t0-s0)-y0;
+			s0=t0;
+			double y1=a[aOffset+i+1]*b[bOffset+i+1]-c1;
+			double t1=s1+y1;
+			c1=Double.isInfinite(t1)?0.0:(t1-s1)-y1;
+			s1=t1;
+		}
+		if (i<length) {
+			double y0=a[aOffset+i]*b[bOffset+i]-c0;
+			double t0=s0+y0;
+			c0=Double.isInfinite(t0)?0.0:(t0-s0)-y0;
+			s0=t0;
+		}
+		return kahanCombine(s0,c0,s1,c1);
+	}
+	
 	/**
 	 * Compute a dot product between array data and strided array data.
 	 * @param a
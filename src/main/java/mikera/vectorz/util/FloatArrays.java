@@ -0,0 +1,171 @@
+package mikera.vectorz.util;
+
+import mikera.vectorz.Op;
+
+/**
+ * Static kernels for single precision float[] arrays, used by the float vector, matrix and array
+ * classes. Products and sums are accumulated in double precision.
+ *
+ * @author Mike
+ */
+public final class FloatArrays {
+
+	private FloatArrays(){}
+
+	public static final float[] EMPTY = new float[0];
+
+	// Block size used for cache blocking in matrix multiplication
+	private static final int GEMM_BLOCK=256;
+
+	/**
+	 * Converts a range of a double[] array to a new float[] array, rounding to the nearest float
+	 */
+	public static float[] toFloat(double[] src, int offset, int length) {
+		float[] result=new float[length];
+		copy(src,offset,result,0,length);
+		return result;
+	}
+
+	public static float[] toFloat(double[] src) {
+		return toFloat(src,0,src.length);
+	}
+
+	/**
+	 * Converts a range of a float[] array to a new double[] array. The conversion is exact.
+	 */
+	public static double[] toDouble(float[] src, int offset, int length) {
+		double[] result=new double[length];
+		copy(src,offset,result,0,length);
+		return result;
+	}
+
+	public static double[] toDouble(float[] src) {
+		return toDouble(src,0,src.length);
+	}
+
+	/**
+	 * Copies doubles into a float[] array, rounding to the nearest float
+	 */
+	public static void copy(double[] src, int srcOffset, float[] dest, int destOffset, int length) {
+		for (int i=0; i<length; i++) {
+			dest[destOffset+i]=(float)src[srcOffset+i];
+		}
+	}
+
+	/**
+	 * Copies floats into a double[] array
+	 */
+	public static void copy(float[] src, int srcOffset, double[] dest, int destOffset, int length) {
+		for (int i=0; i<length; i++) {
+			dest[destOffset+i]=src[srcOffset+i];
+		}
+	}
+
+	public static double dotProduct(float[] a, int aOffset, float[] b, int bOffset, int length) {
+		double s0=0.0,s1=0.0;
+		int i=0;
+		for (; i<=length-2; i+=2) {
+			s0+=a[aOffset+i]*(double)b[bOffset+i];
+			s1+=a[aOffset+i+1]*(double)b[bOffset+i+1];
+		}
+		if (i<length) s0+=a[aOffset+i]*(double)b[bOffset+i];
+		return s0+s1;
+	}
+
+	public static double dotProduct(float[] a, int aOffset, double[] b, int bOffset, int length) {
+		double result=0.0;
+		for (int i=0; i<length; i++) {
+			result+=a[aOffset+i]*b[bOffset+i];
+		}
+		return result;
+	}
+
+	/**
+	 * Adds a multiple of the source array to the destination array (axpy)
+	 */
+	public static void addMultiple(float[] dest, int destOffset, float[] src, int srcOffset, int length, float factor) {
+		for (int i=0; i<length; i++) {
+			dest[destOffset+i]+=src[srcOffset+i]*factor;
+		}
+	}
+
+	public static void addMultiple(float[] dest, int destOffset, double[] src, int srcOffset, int length, double factor) {
+		for (int i=0; i<length; i++) {
+			dest[destOffset+i]+=(float)(src[srcOffset+i]*factor);
+		}
+	}
+
+	public static void add(float[] dest, int destOffset, float[] src, int srcOffset, int length) {
+		for (int i=0; i<length; i++) {
+			dest[destOffset+i]+=src[srcOffset+i];
+		}
+	}
+
+	public static void add(float[] data, int offset, int length, float value) {
+		for (int i=0; i<length; i++) {
+			data[offset+i]+=value;
+		}
+	}
+
+	public static void multiply(float[] data, int offset, int length, float factor) {
+		for (int i=0; i<length; i++) {
+			data[offset+i]*=factor;
+		}
+	}
+
+	public static void multiply(float[] dest, int destOffset, float[] src, int srcOffset, int length) {
+		for (int i=0; i<length; i++) {
+			dest[destOffset+i]*=src[srcOffset+i];
+		}
+	}
+
+	/**
+	 * Applies an operator to each element, computing in double precision and rounding the result
+	 */
+	public static void applyOp(Op op, float[] data, int offset, int length) {
+		for (int i=0; i<length; i++) {
+			data[offset+i]=(float)op.apply(data[offset+i]);
+		}
+	}
+
+	public static double elementSum(float[] data, int offset, int length) {
+		double result=0.0;
+		for (int i=0; i<length; i++) {
+			result+=data[offset+i];
+		}
+		return result;
+	}
+
+	public static double elementSquaredSum(float[] data, int offset, int length) {
+		double result=0.0;
+		for (int i=0; i<length; i++) {
+			double x=data[offset+i];
+			result+=x*x;
+		}
+		return result;
+	}
+
+	/**
+	 * Multiplies a row major matrix (rows x inner) by a row major matrix (inner x cols), adding the
+	 * result to a row major destination matrix (rows x cols).
+	 *
+	 * Uses the i-k-j loop order, so that the innermost loop is a single precision axpy over a row of
+	 * the second matrix and the destination, blocked over the inner and column dimensions so that
+	 * the working set stays in cache.
+	 */
+	public static void multiply(float[] a, int aOffset, float[] b, int bOffset, float[] dest, int destOffset, int rows, int inner, int cols) {
+		for (int bj=0; bj<cols; bj+=GEMM_BLOCK) {
+			int jn=Math.min(GEMM_BLOCK, cols-bj);
+			for (int bk=0; bk<inner; bk+=GEMM_BLOCK) {
+				int kn=Math.min(GEMM_BLOCK, inner-bk);
+				for (int i=0; i<rows; i++) {
+					int di=destOffset+i*cols+bj;
+					int ai=aOffset+i*inner;
+					for (int k=bk; k<bk+kn; k++) {
+						addMultiple(dest,di,b,bOffset+k*cols+bj,jn,a[ai+k]);
+					}
+				}
+			}
+		}
+	}
+}
@@ -22,4 +22,97 @@ public class LongArrays {
 		}
 		return ls;
 	}
+
+	/**
+	 * Counts the set bits in a range of a long[] array
+	 */
+	public static long bitCount(long[] data, int offset, int length) {
+		long result=0;
+		for (int i=0; i<length; i++) {
+			result+=Long.bitCount(data[offset+i]);
+		}
+		return result;
+	}
+
+	/**
+	 * Counts the bits set in both of two ranges of long[] arrays, i.e. the popcount of (a AND b)
+	 */
+	public static long andCount(long[] a, int aOffset, long[] b, int bOffset, int length) {
+		long result=0;
+		for (int i=0; i<length; i++) {
+			result+=Long.bitCount(a[aOffset+i]&b[bOffset+i]);
+		}
+		return result;
+	}
+
+	/**
+	 * Counts the bits set in either of two ranges of long[] arrays, i.e. the popcount of (a OR b)
+	 */
+	public static long orCount(long[] a, int aOffset, long[] b, int bOffset, int length) {
+		long result=0;
+		for (int i=0; i<length; i++) {
+			result+=Long.bitCount(a[aOffset+i]|b[bOffset+i]);
+		}
+		return result;
+	}
+
+	/**
+	 * Counts the bits that differ between two ranges of long[] arrays, i.e. the popcount of (a XOR b)
+	 */
+	public static long xorCount(long[] a, int aOffset, long[] b, int bOffset, int length) {
+		long result=0;
+		for (int i=0; i<length; i++) {
+			result+=Long.bitCount(a[aOffset+i]^b[bOffset+i]);
+		}
+		return result;
+	}
+
+	public static void and(long[] dest, int destOffset, long[] src, int srcOffset, int length) {
+		for (int i=0; i<length; i++) {
+			dest[destOffset+i]&=src[srcOffset+i];
+		}
+	}
+
+	public static void or(long[] dest, int destOffset, long[] src, int srcOffset, int length) {
+		for (int i=0; i<length; i++) {
+			dest[destOffset+i]|=src[srcOffset+i];
+		}
+	}
+
+	public static void xor(long[] dest, int destOffset, long[] src, int srcOffset, int length) {
+		for (int i=0; i<length; i++) {
+			dest[destOffset+i]^=src[srcOffset+i];
+		}
+	}
+
+	public static void andNot(long[] dest, int destOffset, long[] src, int srcOffset, int length) {
+		for (int i=0; i<length; i++) {
+			dest[destOffset+i]&=~src[srcOffset+i];
+		}
+	}
+
+	/**
+	 * Sums the elements of a double[] array at the positions of the set bits in a range of a long[]
+	 * array, where bit j of word i corresponds to element (64*i+j). Visits set bits only.
+	 */
+	public static double bitDotProduct(long[] bits, int bitsOffset, int words, double[] data, int offset) {
+		double result=0.0;
+		for (int i=0; i<words; i++) {
+			long w=bits[bitsOffset+i];
+			int base=offset+(i<<6);
+			while (w!=0L) {
+				result+=data[base+Long.numberOfTrailingZeros(w)];
+				w&=w-1;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Mask of the valid bits in the last word of a packed bit array of the given length
+	 */
+	public static long tailMask(int length) {
+		int r=length&63;
+		return (r==0)?-1L:((1L<<r)-1);
+	}
 }
@@ -0,0 +1,148 @@
+package mikera.vectorz.util;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Utility functions for running work in parallel on a shared fork/join pool.
+ *
+ * Work is only split when there is more than one available processor, so callers can use these
+ * functions unconditionally once they have decided an operation is large enough to be worth it.
+ *
+ * @author Mike
+ */
+public class Parallel {
+
+	private Parallel(){}
+
+	/**
+	 * Number of threads used for parallel operations
+	 */
+	public static final int THREADS=Runtime.getRuntime().availableProcessors();
+
+	private static volatile ForkJoinPool pool;
+
+	/**
+	 * Interface for a task that processes a contiguous range of indices [start, end)
+	 */
+	public interface IRangeTask {
+		public void run(int start, int end);
+	}
+
+	/**
+	 * Interface for a function that computes a value over a contiguous range of indices [start, end)
+	 */
+	public interface IRangeFunction {
+		public double apply(int start, int end);
+	}
+
+	/**
+	 * Gets the shared fork/join pool used by Vectorz, creating it if necessary
+	 */
+	public static ForkJoinPool getPool() {
+		ForkJoinPool p=pool;
+		if (p==null) {
+			synchronized (Parallel.class) {
+				p=pool;
+				if (p==null) {
+					p=new ForkJoinPool(THREADS);
+					pool=p;
+				}
+			}
+		}
+		return p;
+	}
+
+	/**
+	 * Runs a task over the range [start, end), splitting it into sub-ranges of at least grain
+	 * indices that may be processed in parallel. Returns when all sub-ranges are complete.
+	 */
+	public static void forRange(int start, int end, int grain, IRangeTask task) {
+		grain=Math.max(1, grain);
+		if ((THREADS<=1)||((end-start)<=grain)) {
+			task.run(start, end);
+			return;
+		}
+		RangeAction action=new RangeAction(start,end,grain,task);
+		if (ForkJoinTask.inForkJoinPool()) {
+			action.invoke();
+		} else {
+			getPool().invoke(action);
+		}
+	}
+
+	/**
+	 * Evaluates a function over consecutive chunks of chunkSize indices covering [start, end), 
+	 * potentially in parallel, and returns the results in chunk order. The chunks depend only on
+	 * the range and chunkSize, so combining the results in order gives the same answer regardless
+	 * of the number of threads.
+	 */
+	public static double[] mapChunks(final int start, final int end, final int chunkSize, final IRangeFunction f) {
+		int n=end-start;
+		if (n<=0) return DoubleArrays.EMPTY;
+		int chunks=(int)((n+(long)chunkSize-1)/chunkSize);
+		final double[] results=new double[chunks];
+		forRange(0,chunks,1,new IRangeTask() {
+			@Override
+			public void run(int cs, int ce) {
+				for (int c=cs; c<ce; c++) {
+					int s=start+c*chunkSize;
+					results[c]=f.apply(s, Math.min(end, s+chunkSize));
+				}
+			}
+		});
+		return results;
+	}
+
+	/**
+	 * Runs a set of tasks, potentially in parallel, and returns when all are complete.
+	 */
+	public static void runAll(Runnable... tasks) {
+		if ((THREADS<=1)||(tasks.length<=1)) {
+			for (Runnable r: tasks) r.run();
+			return;
+		}
+		final ForkJoinTask<?>[] fjTasks=new ForkJoinTask<?>[tasks.length];
+		for (int i=0; i<tasks.length; i++) {
+			fjTasks[i]=ForkJoinTask.adapt(tasks[i]);
+		}
+		if (ForkJoinTask.inForkJoinPool()) {
+			ForkJoinTask.invokeAll(fjTasks);
+		} else {
+			getPool().invoke(new RecursiveAction() {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void compute() {
+					invokeAll(fjTasks);
+				}
+			});
+		}
+	}
+
+	@SuppressWarnings("serial")
+	private static final class RangeAction extends RecursiveAction {
+		private final int start;
+		private final int end;
+		private final int grain;
+		private final IRangeTask task;
+
+		RangeAction(int start, int end, int grain, IRangeTask task) {
+			this.start=start;
+			this.end=end;
+			this.grain=grain;
+			this.task=task;
+		}
+
+		@Override
+		protected void compute() {
+			if ((end-start)<=grain) {
+				task.run(start, end);
+				return;
+			}
+			int mid=(start+end)>>>1;
+			invokeAll(new RangeAction(start,mid,grain,task),new RangeAction(mid,end,grain,task));
+		}
+	}
+}
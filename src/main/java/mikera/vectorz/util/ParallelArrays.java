@@ -0,0 +1,208 @@
+package mikera.vectorz.util;
+
+import mikera.vectorz.AVector;
+import mikera.vectorz.Op;
+import mikera.vectorz.Op2;
+import mikera.vectorz.util.Parallel.IRangeFunction;
+import mikera.vectorz.util.Parallel.IRangeTask;
+
+/**
+ * Elementwise operations and reductions over large dense double[] arrays, run in parallel on
+ * the shared fork/join pool.
+ *
+ * Arrays shorter than the parallel threshold (see setParallelThreshold) are processed serially using
+ * the standard kernels. Longer arrays are split into chunks of CHUNK_SIZE elements. Reductions compute a partial result for
+ * each chunk and combine the partial results in chunk order, so results depend only on the array
+ * length and never on the number of threads or on scheduling. Since chunked dot products are
+ * reassociated anyway, their chunks use the faster pairwise kernel.
+ *
+ * Ops are only applied in parallel if they are thread safe (see Op.isThreadSafe()), so user defined
+ * Ops run serially unless they opt in. Stochastic Ops are always applied serially, and Op2
+ * reductions are only parallelised for associative operators (see Op2.isAssociative()).
+ *
+ * @author Mike
+ */
+public final class ParallelArrays {
+
+	private ParallelArrays() {}
+
+	/**
+	 * Default minimum number of elements for which operations are run in parallel
+	 */
+	public static final int PARALLEL_THRESHOLD=1<<18;
+
+	private static volatile int parallelThreshold=PARALLEL_THRESHOLD;
+
+	/**
+	 * Number of elements in each chunk of a parallel operation
+	 */
+	public static final int CHUNK_SIZE=1<<16;
+
+	/**
+	 * Gets the minimum number of elements for which operations are run in parallel
+	 */
+	public static int getParallelThreshold() {
+		return parallelThreshold;
+	}
+
+	/**
+	 * Sets the minimum number of elements for which operations are run in parallel. Use
+	 * Integer.MAX_VALUE to run all operations serially.
+	 */
+	public static void setParallelThreshold(int threshold) {
+		if (threshold<1) throw new IllegalArgumentException("Parallel threshold must be positive: "+threshold);
+		parallelThreshold=threshold;
+	}
+
+	/**
+	 * Applies an Op to a range of a double[] array, in place
+	 */
+	public static void applyOp(final Op op, final double[] data, int offset, int length) {
+		if ((length<parallelThreshold)||!op.isThreadSafe()||op.isStochastic()) {
+			op.applyTo(data, offset, length);
+			return;
+		}
+		Parallel.forRange(offset, offset+length, CHUNK_SIZE, new IRangeTask() {
+			@Override
+			public void run(int start, int end) {
+				op.applyTo(data, start, end-start);
+			}
+		});
+	}
+
+	/**
+	 * Applies an Op2 to a range of a double[] array in place, taking second arguments from the
+	 * corresponding elements of a vector
+	 */
+	public static void applyOp(final Op2 op, final double[] data, final int offset, int length, final AVector b) {
+		if ((length<parallelThreshold)||!op.isThreadSafe()||op.isStochastic()) {
+			op.applyTo(data, offset, length, b);
+			return;
+		}
+		b.checkLength(length);
+		Parallel.forRange(offset, offset+length, CHUNK_SIZE, new IRangeTask() {
+			@Override
+			public void run(int start, int end) {
+				op.applyTo(data, start, end-start, b.subVector(start-offset, end-start));
+			}
+		});
+	}
+
+	/**
+	 * Applies an Op2 to a range of a double[] array in place, with a constant second argument
+	 */
+	public static void applyOp(final Op2 op, final double[] data, int offset, int length, final double b) {
+		if ((length<parallelThreshold)||!op.isThreadSafe()||op.isStochastic()) {
+			op.applyTo(data, offset, length, b);
+			return;
+		}
+		Parallel.forRange(offset, offset+length, CHUNK_SIZE, new IRangeTask() {
+			@Override
+			public void run(int start, int end) {
+				op.applyTo(data, start, end-start, b);
+			}
+		});
+	}
+
+	public static double elementSum(final double[] data, int offset, int length) {
+		if (length<parallelThreshold) return DoubleArrays.elementSum(data, offset, length);
+		double[] partials=Parallel.mapChunks(offset, offset+length, CHUNK_SIZE, new IRangeFunction() {
+			@Override
+			public double apply(int start, int end) {
+				return DoubleArrays.elementSum(data, start, end-start);
+			}
+		});
+		return DoubleArrays.elementSum(partials);
+	}
+
+	public static double elementSum(double[] data) {
+		return elementSum(data,0,data.length);
+	}
+
+	public static double kahanSum(final double[] data, int offset, int length) {
+		if (length<parallelThreshold) return DoubleArrays.kahanSum(data, offset, length);
+		double[] partials=Parallel.mapChunks(offset, offset+length, CHUNK_SIZE, new IRangeFunction() {
+			@Override
+			public double apply(int start, int end) {
+				return DoubleArrays.kahanSum(data, start, end-start);
+			}
+		});
+		return DoubleArrays.kahanSum(partials);
+	}
+
+	public static double elementSquaredSum(final double[] data, int offset, int length) {
+		if (length<parallelThreshold) return DoubleArrays.elementSquaredSum(data, offset, length);
+		double[] partials=Parallel.mapChunks(offset, offset+length, CHUNK_SIZE, new IRangeFunction() {
+			@Override
+			public double apply(int start, int end) {
+				return DoubleArrays.elementSquaredSum(data, start, end-start);
+			}
+		});
+		return DoubleArrays.elementSum(partials);
+	}
+
+	public static double elementSquaredSum(double[] data) {
+		return elementSquaredSum(data,0,data.length);
+	}
+
+	public static double elementMax(final double[] data, int offset, int length) {
+		if (length<parallelThreshold) return DoubleArrays.elementMax(data, offset, length);
+		double[] partials=Parallel.mapChunks(offset, offset+length, CHUNK_SIZE, new IRangeFunction() {
+			@Override
+			public double apply(int start, int end) {
+				return DoubleArrays.elementMax(data, start, end-start);
+			}
+		});
+		return DoubleArrays.elementMax(partials);
+	}
+
+	public static double elementMax(double[] data) {
+		return elementMax(data,0,data.length);
+	}
+
+	public static double dotProduct(final double[] a, final int aOffset, final double[] b, final int bOffset, int length) {
+		if (length<parallelThreshold) return DoubleArrays.dotProduct(a, aOffset, b, bOffset, length);
+		double[] partials=Parallel.mapChunks(0, length, CHUNK_SIZE, new IRangeFunction() {
+			@Override
+			public double apply(int start, int end) {
+				return DoubleArrays.pairwiseDotProduct(a, aOffset+start, b, bOffset+start, end-start);
+			}
+		});
+		return DoubleArrays.elementSum(partials);
+	}
+
+	public static double kahanDotProduct(final double[] a, final int aOffset, final double[] b, final int bOffset, int length) {
+		if (length<parallelThreshold) return DoubleArrays.kahanDotProduct(a, aOffset, b, bOffset, length);
+		double[] partials=Parallel.mapChunks(0, length, CHUNK_SIZE, new IRangeFunction() {
+			@Override
+			public double apply(int start, int end) {
+				return DoubleArrays.kahanDotProduct(a, aOffset+start, b, bOffset+start, end-start);
+			}
+		});
+		return DoubleArrays.kahanSum(partials);
+	}
+
+	/**
+	 * Reduces over a range of a double[] array, starting from an initial value
+	 */
+	public static double reduce(final Op2 op, double init, final double[] data, final int offset, int length) {
+		if ((length<parallelThreshold)||!op.isAssociative()||!op.isThreadSafe()||op.isStochastic()) {
+			return op.reduce(init, data, offset, length);
+		}
+		double[] partials=Parallel.mapChunks(offset, offset+length, CHUNK_SIZE, new IRangeFunction() {
+			@Override
+			public double apply(int start, int end) {
+				return op.reduce(data[start], data, start+1, end-start-1);
+			}
+		});
+		return op.reduce(init, partials, 0, partials.length);
+	}
+
+	/**
+	 * Reduces over a range of a double[] array, starting from the first element
+	 */
+	public static double reduce(Op2 op, double[] data, int offset, int length) {
+		if (length<=0) throw new IllegalArgumentException(ErrorMessages.zeroElementReduce());
+		return reduce(op, data[offset], data, offset+1, length-1);
+	}
+}
@@ -18,7 +18,9 @@ import org.junit.Test;
 import mikera.arrayz.impl.BroadcastScalarArray;
 import mikera.arrayz.impl.IDense;
 import mikera.arrayz.impl.IStridedArray;
+import mikera.arrayz.impl.FloatArray;
 import mikera.arrayz.impl.ImmutableArray;
+import mikera.arrayz.impl.SparseCoordinateArray;
 import mikera.arrayz.impl.JoinedArray;
 import mikera.arrayz.impl.SliceArray;
 import mikera.indexz.Indexz;
@@ -726,6 +728,22 @@ public class TestArrays {
 
 		b.multiply(a);
 		assertEquals(a.elementSquaredSum(), b.elementSum(), 0.000001);
+		
+		if (a.elementCount()>10000) return;
+		int dims=a.dimensionality();
+		int[] all=new int[dims];
+		for (int i=0; i<dims; i++) all[i]=i;
+		assertEquals(a.elementSum(), a.sumAlong(all).get(), 0.000001);
+		if (dims>0) {
+			INDArray s=a.sumAlong(0);
+			assertEquals(dims-1, s.dimensionality());
+			INDArray expected=Array.newArray(s.getShape());
+			for (int i=0; i<a.sliceCount(); i++) {
+				expected.add(a.slice(i));
+			}
+			assertTrue(expected.epsilonEquals(s, 0.000001));
+			assertEquals(dims, a.sumAlong(new int[] {0}, true).dimensionality());
+		}
 	}
 
 	private void testTranspose(INDArray a) {
@@ -1061,6 +1079,30 @@ public class TestArrays {
 		testArray(ImmutableArray.create(Scalar.create(4)));
 	}
 		
+	@Test
+	public void g_FloatArray() {
+		testArray(FloatArray.newArray());
+		testArray(FloatArray.newArray(0,3));
+		testArray(FloatArray.create(Matrixx.createRandomMatrix(3, 4)));
+		FloatArray fa=FloatArray.newArray(2,3,2,2);
+		fa.setElements(Vectorz.createRange(24).toDoubleArray());
+		testArray(fa);
+		testArray(fa.slice(1));
+	}
+		
+	@Test
+	public void g_SparseCoordinateArray() {
+		testArray(SparseCoordinateArray.newArray(3));
+		testArray(SparseCoordinateArray.newArray(2,0,3));
+		testArray(SparseCoordinateArray.create(Matrixx.createRandomMatrix(3, 4)));
+		INDArray a=SparseCoordinateArray.create(new int[] {3,4,2,5},
+				new long[] {7,0,119,64,33,7}, new double[] {1,2,3,4,5,6});
+		testArray(a);
+		testArray(a.slice(1));
+		testArray(a.slice(2,1));
+		testArray(a.slice(3,4).slice(1,0));
+	}
+		
 	@Test
 	public void g_ZeroArray() {
 		// zero array tests
@@ -0,0 +1,224 @@
+package mikera.arrayz.impl;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import mikera.arrayz.Array;
+import mikera.arrayz.Arrayz;
+import mikera.arrayz.INDArray;
+import mikera.arrayz.NDArray;
+import mikera.matrixx.AMatrix;
+import mikera.matrixx.Matrix;
+import mikera.matrixx.Matrixx;
+import mikera.matrixx.impl.ImmutableMatrix;
+import mikera.matrixx.impl.SparseColumnMatrix;
+import mikera.matrixx.impl.SparseRowMatrix;
+import mikera.vectorz.Vector;
+
+import org.junit.Test;
+
+public class TestAxisReductions {
+
+	private static Array randomArray(Random r, int... shape) {
+		Array a=Array.newArray(shape);
+		double[] data=a.getArray();
+		for (int i=0; i<data.length; i++) data[i]=r.nextInt(19)-9;
+		return a;
+	}
+
+	/**
+	 * Brute force reference, visiting every element with get(int[])
+	 */
+	private static Array naiveReduce(String kind, INDArray a, int[] axes, boolean keepDims) {
+		int[] shape=a.getShape();
+		int dims=shape.length;
+		boolean[] reduced=new boolean[dims];
+		for (int axis: axes) reduced[axis]=true;
+		int n=0;
+		for (int i=0; i<dims; i++) if (keepDims||!reduced[i]) n++;
+		int[] rshape=new int[n];
+		for (int i=0, j=0; i<dims; i++) {
+			if (!reduced[i]) rshape[j++]=shape[i]; else if (keepDims) rshape[j++]=1;
+		}
+		Array result=Array.newArray(rshape);
+		Array count=Array.newArray(rshape);
+		if (kind.equals("max")) result.fill(Double.NEGATIVE_INFINITY);
+		if (kind.equals("min")) result.fill(Double.POSITIVE_INFINITY);
+
+		int[] ix=new int[dims];
+		int[] rix=new int[n];
+		for (long k=0; k<a.elementCount(); k++) {
+			for (int i=0, j=0; i<dims; i++) {
+				if (!reduced[i]) rix[j++]=ix[i]; else if (keepDims) rix[j++]=0;
+			}
+			double x=a.get(ix);
+			double acc=result.get(rix);
+			if (kind.equals("max")) {
+				acc=Math.max(acc, x);
+			} else if (kind.equals("min")) {
+				acc=Math.min(acc, x);
+			} else if (kind.equals("norm")) {
+				acc+=x*x;
+			} else if (kind.equals("argmax")||kind.equals("argmin")) {
+				double c=count.get(rix);
+				int pos=ix[axes[0]];
+				if ((pos==0)||(kind.equals("argmax")?(x>c):(x<c))) {
+					count.set(rix,x);
+					acc=pos;
+				}
+			} else {
+				acc+=x;
+			}
+			result.set(rix,acc);
+			for (int d=dims-1; d>=0; d--) {
+				if (++ix[d]<shape[d]) break;
+				ix[d]=0;
+			}
+		}
+		if (kind.equals("norm")) result.sqrt();
+		if (kind.equals("mean")) {
+			long c=1;
+			for (int axis: axes) c*=shape[axis];
+			result.divide(c);
+		}
+		return result;
+	}
+
+	private static void assertSameArray(INDArray expected, INDArray actual) {
+		assertArrayEquals(expected.getShape(),actual.getShape());
+		assertTrue(expected.epsilonEquals(actual,1e-9));
+	}
+
+	private static final int[][] AXES={{},{0},{1},{2},{0,2},{2,0},{1,2},{0,1,2}};
+
+	private static final int[][] MATRIX_AXES={{},{0},{1},{1,0}};
+
+	private static void checkAll(INDArray a) {
+		checkAll(a,AXES);
+	}
+
+	private static void checkAll(INDArray a, int[][] axesList) {
+		for (int[] axes: axesList) {
+			for (boolean keep: new boolean[] {false,true}) {
+				assertSameArray(naiveReduce("sum",a,axes,keep),a.sumAlong(axes,keep));
+				assertSameArray(naiveReduce("mean",a,axes,keep),a.meanAlong(axes,keep));
+				assertSameArray(naiveReduce("max",a,axes,keep),a.maxAlong(axes,keep));
+				assertSameArray(naiveReduce("min",a,axes,keep),a.minAlong(axes,keep));
+				assertSameArray(naiveReduce("norm",a,axes,keep),a.normAlong(axes,keep));
+				if (axes.length==1) {
+					assertSameArray(naiveReduce("argmax",a,axes,keep),a.argMaxAlong(axes[0],keep));
+					assertSameArray(naiveReduce("argmin",a,axes,keep),a.argMinAlong(axes[0],keep));
+				}
+			}
+		}
+	}
+
+	@Test public void testDense() {
+		Random r=new Random(1);
+		checkAll(randomArray(r,3,4,5));
+		checkAll(randomArray(r,1,6,2));
+		checkAll(randomArray(r,2,3,4,2));
+	}
+
+	@Test public void testViews() {
+		Random r=new Random(2);
+		Array a=randomArray(r,4,5,6);
+		checkAll(a.getTransposeView());
+		checkAll(a.subArray(new int[] {1,0,2}, new int[] {3,4,3}));
+		checkAll(NDArray.wrap(a.getTransposeView()));
+		checkAll(Arrayz.createSparse(randomArray(r,3,2,4)));
+	}
+
+	@Test public void testSparseMatrices() {
+		Random r=new Random(5);
+		Matrix m=Matrix.create(5, 7);
+		for (int i=0; i<5; i++) {
+			for (int j=0; j<7; j++) {
+				// mostly zeros, with an all negative row and a column without zeros
+				if ((i==2)||(j==3)||(r.nextInt(3)==0)) m.set(i,j,(i==2)?-1-r.nextInt(4):r.nextInt(9)-4);
+			}
+		}
+		m.set(2,3,-2);
+		checkAll(SparseRowMatrix.create(m),MATRIX_AXES);
+		checkAll(SparseColumnMatrix.create(m),MATRIX_AXES);
+		checkAll(SparseRowMatrix.create(Matrix.create(3,4)),MATRIX_AXES);
+	}
+
+	@Test public void testImmutable() {
+		Random r=new Random(6);
+		checkAll(randomArray(r,3,4,5).immutable());
+		checkAll(ImmutableMatrix.create(Matrix.create(randomArray(r,4,6))),MATRIX_AXES);
+	}
+
+	@Test public void testShapes() {
+		Array a=randomArray(new Random(3),2,3,4);
+		assertArrayEquals(new int[] {2,4},a.sumAlong(1).getShape());
+		assertArrayEquals(new int[] {2,1,4},a.sumAlong(new int[] {1},true).getShape());
+		assertArrayEquals(new int[] {1,1,1},a.sumAlong(new int[] {0,1,2},true).getShape());
+		assertEquals(a.elementSum(),a.sumAlong(0,1,2).get(),0.0);
+		assertEquals(a.elementMax(),a.maxAlong(new int[] {0,1,2},false).get(),0.0);
+		assertEquals(a,a.sumAlong());
+
+		// the result is a copy
+		INDArray s=a.sumAlong();
+		s.fill(0.0);
+		assertFalse(a.isZero());
+	}
+
+	@Test public void testEmpty() {
+		Array a=Array.newArray(3,0,2);
+		assertSameArray(Array.newArray(3,2),a.sumAlong(1));
+		assertArrayEquals(new int[] {0,2},a.maxAlong(new int[] {0},false).getShape());
+		try {
+			a.maxAlong(new int[] {1},false);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// OK
+		}
+		try {
+			a.argMaxAlong(1,false);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// OK
+		}
+	}
+
+	@Test public void testBadAxes() {
+		Array a=Array.newArray(2,3);
+		int[][] bad={{2},{-1},{0,0}};
+		for (int[] axes: bad) {
+			try {
+				a.sumAlong(axes);
+				fail();
+			} catch (IllegalArgumentException e) {
+				// OK
+			}
+		}
+	}
+
+	@Test public void testLarge() {
+		// large enough to run in parallel
+		Array a=randomArray(new Random(4),64,128,48);
+		for (int[] axes: new int[][] {{0},{1},{2},{0,2}}) {
+			assertSameArray(naiveReduce("sum",a,axes,false),a.sumAlong(axes));
+			assertSameArray(naiveReduce("max",a,axes,false),a.maxAlong(axes,false));
+		}
+	}
+
+	@Test public void testMatrixSums() {
+		Matrix m=Matrix.create(Matrixx.createRandomMatrix(5, 7));
+		AMatrix[] ms={m,m.getTranspose(),m.subMatrix(1, 3, 2, 4),
+				SparseRowMatrix.create(m),SparseColumnMatrix.create(m)};
+		for (AMatrix a: ms) {
+			Vector rs=a.rowSums();
+			Vector cs=a.columnSums();
+			assertSameArray(naiveReduce("sum",a,new int[] {1},false),rs);
+			assertSameArray(naiveReduce("sum",a,new int[] {0},false),cs);
+			assertSameArray(naiveReduce("sum",a,new int[] {1},true),a.sumAlong(new int[] {1},true));
+			assertSameArray(naiveReduce("sum",a,new int[] {0},true),a.sumAlong(new int[] {0},true));
+			assertSameArray(naiveReduce("mean",a,new int[] {0},false),a.meanAlong(new int[] {0},false));
+			assertSameArray(naiveReduce("argmax",a,new int[] {1},false),a.argMaxAlong(1,false));
+		}
+	}
+}
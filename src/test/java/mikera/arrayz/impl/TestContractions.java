@@ -0,0 +1,191 @@
+package mikera.arrayz.impl;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import mikera.arrayz.Array;
+import mikera.arrayz.Arrayz;
+import mikera.arrayz.INDArray;
+import mikera.arrayz.NDArray;
+import mikera.matrixx.Matrix;
+import mikera.matrixx.Matrixx;
+import mikera.vectorz.Vector;
+
+import org.junit.Test;
+
+public class TestContractions {
+
+	private static Array randomArray(Random r, int... shape) {
+		Array a=Array.newArray(shape);
+		double[] data=a.getArray();
+		for (int i=0; i<data.length; i++) data[i]=r.nextInt(19)-9;
+		return a;
+	}
+
+	/**
+	 * Brute force einsum reference, looping over every assignment of the labels
+	 */
+	private static INDArray naiveEinsum(String inputs, String output, INDArray... arrays) {
+		String[] ins=inputs.split(",");
+		String labels="";
+		int[] sizes=new int[128];
+		for (int i=0; i<ins.length; i++) {
+			for (int j=0; j<ins[i].length(); j++) {
+				char c=ins[i].charAt(j);
+				if (labels.indexOf(c)<0) labels+=c;
+				sizes[c]=arrays[i].getShape(j);
+			}
+		}
+		int[] outShape=new int[output.length()];
+		for (int j=0; j<outShape.length; j++) outShape[j]=sizes[output.charAt(j)];
+		Array result=Array.newArray(outShape);
+
+		int n=labels.length();
+		int[] values=new int[128];
+		long count=1;
+		for (int i=0; i<n; i++) count*=sizes[labels.charAt(i)];
+		int[] ix=new int[n];
+		for (long k=0; k<count; k++) {
+			for (int i=0; i<n; i++) values[labels.charAt(i)]=ix[i];
+			double prod=1.0;
+			for (int a=0; a<ins.length; a++) {
+				int[] idx=new int[ins[a].length()];
+				for (int j=0; j<idx.length; j++) idx[j]=values[ins[a].charAt(j)];
+				prod*=arrays[a].get(idx);
+			}
+			int[] oidx=new int[output.length()];
+			for (int j=0; j<oidx.length; j++) oidx[j]=values[output.charAt(j)];
+			result.set(oidx,result.get(oidx)+prod);
+			for (int d=n-1; d>=0; d--) {
+				if (++ix[d]<sizes[labels.charAt(d)]) break;
+				ix[d]=0;
+			}
+		}
+		return result;
+	}
+
+	private static void assertSameArray(INDArray expected, INDArray actual) {
+		assertArrayEquals(expected.getShape(),actual.getShape());
+		assertTrue(expected.epsilonEquals(actual,1e-9));
+	}
+
+	@Test public void testTensordot() {
+		Random r=new Random(1);
+		Array a=randomArray(r,3,4,5);
+		Array b=randomArray(r,5,4,2);
+
+		assertSameArray(naiveEinsum("ijk,kjl","il",a,b),Arrayz.tensordot(a, b, new int[] {1,2}, new int[] {1,0}));
+		assertSameArray(naiveEinsum("ijk,klm","ijlm",a,b),Arrayz.tensordot(a, b, 1));
+		assertSameArray(naiveEinsum("ijk,klm","ijlm",a,b),Arrayz.tensordot(a, b, new int[] {2}, new int[] {0}));
+		assertSameArray(naiveEinsum("ijk,lmn","ijklmn",a,b),Arrayz.tensordot(a, b, 0));
+
+		// contracting all axes gives a scalar
+		Array c=randomArray(r,3,4,5);
+		Array full=Arrayz.tensordot(a, c, 3);
+		assertEquals(0,full.dimensionality());
+		assertEquals(naiveEinsum("ijk,ijk","",a,c).get(),full.get(),0.0);
+	}
+
+	@Test public void testStridedOperands() {
+		Random r=new Random(2);
+		Array a=randomArray(r,4,3,6);
+		Array b=randomArray(r,7,3,2);
+
+		// transposed and sub-array views need copying or strided matrices
+		INDArray at=a.getTransposeView();
+		INDArray bs=b.subArray(new int[] {1,0,0}, new int[] {6,3,2});
+		assertSameArray(naiveEinsum("kji,kjl","il",at,bs),Arrayz.tensordot(at, bs, new int[] {0,1}, new int[] {0,1}));
+		assertSameArray(naiveEinsum("ijk,kml","ijml",a,at),Arrayz.tensordot(a, at, new int[] {2}, new int[] {0}));
+
+		// non-strided operands
+		INDArray sparse=Arrayz.createSparse(randomArray(r,6,3,2));
+		assertSameArray(naiveEinsum("ijk,kjl","il",a,sparse),Arrayz.tensordot(a, sparse, new int[] {1,2}, new int[] {1,0}));
+	}
+
+	@Test public void testEmpty() {
+		Array a=Array.newArray(3,0,2);
+		Array b=Array.newArray(0,4);
+		Array r=Arrayz.tensordot(a, b, new int[] {1}, new int[] {0});
+		assertArrayEquals(new int[] {3,2,4},r.getShape());
+		assertTrue(r.isZero());
+		assertArrayEquals(new int[] {0,2,0,2},Arrayz.tensordot(a, a, new int[] {0}, new int[] {0}).getShape());
+	}
+
+	@Test public void testEinsum() {
+		Random r=new Random(3);
+		Matrix m=Matrix.create(Matrixx.createRandomMatrix(4, 4));
+		Matrix n=Matrix.create(Matrixx.createRandomMatrix(4, 3));
+		assertTrue(m.innerProduct(n).epsilonEquals(Arrayz.einsum("ij,jk->ik", m, n),1e-12));
+		assertTrue(m.innerProduct(n).epsilonEquals(Arrayz.einsum("ij,jk", m, n),1e-12));
+		assertTrue(m.getTranspose().epsilonEquals(Arrayz.einsum("ij->ji", m),0.0));
+		assertEquals(m.trace(),Arrayz.einsum("ii", m).get(),1e-12);
+		assertTrue(m.getLeadingDiagonal().epsilonEquals(Arrayz.einsum("ii->i", m),0.0));
+		assertEquals(m.elementSum(),Arrayz.einsum("ij->", m).get(),1e-12);
+
+		Vector v=Vector.of(1,2,3);
+		Vector w=Vector.of(4,5);
+		assertTrue(v.outerProduct(w).epsilonEquals(Arrayz.einsum("i,j->ij", v, w),0.0));
+		assertEquals(32.0,Arrayz.einsum("i,i", v, Vector.of(4,5,6)).get(),0.0);
+
+		Array a=randomArray(r,2,3,4);
+		Array b=randomArray(r,2,4,5);
+		Array c=randomArray(r,5,3);
+		assertSameArray(naiveEinsum("bij,bjk","bik",a,b),Arrayz.einsum("bij,bjk->bik", a, b));
+		assertSameArray(naiveEinsum("bij,bjk","kib",a,b),Arrayz.einsum("bij,bjk->kib", a, b));
+		assertSameArray(naiveEinsum("bij,bjk,kl","il",a,b,c),Arrayz.einsum("bij,bjk,kl->il", a, b, c));
+		assertSameArray(naiveEinsum("bij,bjk","i",a,b),Arrayz.einsum("bij,bjk->i", a, b));
+		assertSameArray(naiveEinsum("bij","jb",a),Arrayz.einsum("bij->jb", a));
+		assertSameArray(naiveEinsum("bij,bjk,kl","bl",a,b,c),Arrayz.einsum("bij, bjk, kl -> bl", a, b, c));
+
+		Array d=randomArray(r,3,2,3);
+		assertSameArray(naiveEinsum("iji","j",d),Arrayz.einsum("iji->j", d));
+	}
+
+	@Test public void testEinsumCopies() {
+		Array a=randomArray(new Random(4),2,3,4);
+		Array r=Arrayz.einsum("ijk->ijk", a);
+		assertEquals(a,r);
+		r.set(0.0);
+		assertFalse(a.isZero());
+	}
+
+	@Test public void testEinsumErrors() {
+		Array a=Array.newArray(2,3);
+		String[] bad={"ij,jk->ik","ijk->i","ij->k","ij->ii","i1->i"};
+		for (String spec: bad) {
+			try {
+				Arrayz.einsum(spec, a);
+				fail("Expected failure for "+spec);
+			} catch (IllegalArgumentException e) {
+				// OK
+			}
+		}
+		try {
+			Arrayz.einsum("ij,ij->i", a, Array.newArray(3,2));
+			fail();
+		} catch (IllegalArgumentException e) {
+			// OK
+		}
+		try {
+			Arrayz.tensordot(a, a, new int[] {1}, new int[] {1,0});
+			fail();
+		} catch (IllegalArgumentException e) {
+			// OK
+		}
+	}
+
+	@Test public void testInnerProduct() {
+		Random r=new Random(5);
+		Array a=randomArray(r,2,3,4);
+		Array b=randomArray(r,4,5,2);
+		assertSameArray(naiveEinsum("ijk,klm","ijlm",a,b),a.innerProduct(b));
+		INDArray av=a.innerProduct(Vector.of(1,2,3,4));
+		assertSameArray(naiveEinsum("ijk,k","ij",a,Vector.of(1,2,3,4)),av);
+		NDArray nd=NDArray.wrap(a.getTransposeView());
+		assertSameArray(naiveEinsum("kji,i","kj",nd,Vector.of(1,2)),nd.innerProduct(Vector.of(1,2)));
+
+		Matrix m=Matrix.create(Matrixx.createRandomMatrix(3, 4));
+		assertSameArray(naiveEinsum("ij,jkl","ikl",m,b),m.innerProduct(b));
+	}
+}
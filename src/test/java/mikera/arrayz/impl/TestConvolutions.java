@@ -0,0 +1,219 @@
+package mikera.arrayz.impl;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import mikera.arrayz.Array;
+import mikera.arrayz.INDArray;
+import mikera.vectorz.Vector;
+
+import org.junit.Test;
+
+public class TestConvolutions {
+
+	private static Array random(Random r, int... shape) {
+		Array a=Array.newArray(shape);
+		double[] data=a.getArray();
+		for (int i=0; i<data.length; i++) data[i]=r.nextGaussian();
+		return a;
+	}
+
+	private static double dot(INDArray a, INDArray b) {
+		double[] x=a.toDoubleArray();
+		double[] y=b.toDoubleArray();
+		assertEquals(x.length,y.length);
+		double s=0.0;
+		for (int i=0; i<x.length; i++) s+=x[i]*y[i];
+		return s;
+	}
+
+	/**
+	 * Direct nested loop convolution, for reference
+	 */
+	private static Array naiveConv(Array x, Array w, Vector b, int sh, int sw, int ph, int pw, int dh, int dw) {
+		int n=x.getShape(0), c=x.getShape(1), h=x.getShape(2), wd=x.getShape(3);
+		int co=w.getShape(0), kh=w.getShape(2), kw=w.getShape(3);
+		int oh=Convolutions.outputSize(h,kh,sh,ph,dh);
+		int ow=Convolutions.outputSize(wd,kw,sw,pw,dw);
+		Array result=Array.newArray(n,co,oh,ow);
+		for (int i=0; i<n; i++) {
+			for (int o=0; o<co; o++) {
+				for (int oy=0; oy<oh; oy++) {
+					for (int ox=0; ox<ow; ox++) {
+						double acc=(b==null)?0.0:b.get(o);
+						for (int ch=0; ch<c; ch++) {
+							for (int ky=0; ky<kh; ky++) {
+								for (int kx=0; kx<kw; kx++) {
+									int y=oy*sh-ph+ky*dh;
+									int xx=ox*sw-pw+kx*dw;
+									if ((y<0)||(y>=h)||(xx<0)||(xx>=wd)) continue;
+									acc+=x.get(i,ch,y,xx)*w.get(o,ch,ky,kx);
+								}
+							}
+						}
+						result.set(new int[] {i,o,oy,ox},acc);
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	private static Array naivePool(Array x, int kh, int kw, int sh, int sw, int ph, int pw, boolean max) {
+		int n=x.getShape(0), c=x.getShape(1), h=x.getShape(2), wd=x.getShape(3);
+		int oh=Convolutions.outputSize(h,kh,sh,ph,1);
+		int ow=Convolutions.outputSize(wd,kw,sw,pw,1);
+		Array result=Array.newArray(n,c,oh,ow);
+		for (int i=0; i<n; i++) {
+			for (int ch=0; ch<c; ch++) {
+				for (int oy=0; oy<oh; oy++) {
+					for (int ox=0; ox<ow; ox++) {
+						double acc=max?Double.NEGATIVE_INFINITY:0.0;
+						int count=0;
+						for (int ky=0; ky<kh; ky++) {
+							for (int kx=0; kx<kw; kx++) {
+								int y=oy*sh-ph+ky;
+								int xx=ox*sw-pw+kx;
+								if ((y<0)||(y>=h)||(xx<0)||(xx>=wd)) continue;
+								double v=x.get(i,ch,y,xx);
+								acc=max?Math.max(acc,v):acc+v;
+								count++;
+							}
+						}
+						result.set(new int[] {i,ch,oy,ox},max?acc:acc/count);
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	// {n, c, h, w, co, kh, kw, sh, sw, ph, pw, dh, dw}
+	private static final int[][] CONV_CASES={
+		{1,1,5,5,1,3,3,1,1,0,0,1,1},
+		{2,3,7,6,4,3,3,1,1,1,1,1,1},
+		{3,2,9,8,3,3,2,2,3,1,2,1,1},
+		{2,2,11,10,2,3,3,1,2,2,1,2,3},
+		{4,5,6,6,3,1,1,1,1,0,0,1,1},
+		{1,4,6,5,2,1,1,1,1,0,0,1,1},
+		{1,2,4,4,2,5,5,1,1,2,2,1,1},
+		{5,1,3,3,2,3,3,2,2,0,0,1,1},
+	};
+
+	@Test public void testConv2d() {
+		Random r=new Random(1);
+		for (int[] t: CONV_CASES) {
+			Array x=random(r,t[0],t[1],t[2],t[3]);
+			Array w=random(r,t[4],t[1],t[5],t[6]);
+			Vector b=Vector.wrap(random(r,t[4]).getArray());
+			Array expected=naiveConv(x,w,b,t[7],t[8],t[9],t[10],t[11],t[12]);
+			Array result=Convolutions.conv2d(x,w,b,t[7],t[8],t[9],t[10],t[11],t[12]);
+			assertTrue(expected.epsilonEquals(result,1e-10));
+			assertTrue(naiveConv(x,w,null,t[7],t[8],t[9],t[10],t[11],t[12]).epsilonEquals(Convolutions.conv2d(x,w,null,t[7],t[8],t[9],t[10],t[11],t[12]),1e-10));
+		}
+	}
+
+	@Test public void testConv2dGradients() {
+		Random r=new Random(2);
+		for (int[] t: CONV_CASES) {
+			int[] inShape={t[0],t[1],t[2],t[3]};
+			Array x=random(r,inShape);
+			Array w=random(r,t[4],t[1],t[5],t[6]);
+			Array y=Convolutions.conv2d(x,w,null,t[7],t[8],t[9],t[10],t[11],t[12]);
+			Array g=random(r,y.getShape());
+
+			// the convolution is linear in both x and w, so each gradient is an adjoint
+			Array gx=Convolutions.conv2dBackwardInput(g,w,inShape,t[7],t[8],t[9],t[10],t[11],t[12]);
+			assertArrayEqualsShape(inShape,gx);
+			assertEquals(dot(y,g),dot(x,gx),1e-9);
+
+			Array gw=Convolutions.conv2dBackwardWeights(x,g,t[5],t[6],t[7],t[8],t[9],t[10],t[11],t[12]);
+			assertArrayEqualsShape(w.getShape(),gw);
+			assertEquals(dot(y,g),dot(w,gw),1e-9);
+
+			Vector gb=Convolutions.conv2dBackwardBias(g);
+			for (int o=0; o<t[4]; o++) {
+				assertEquals(g.slice(1,o).elementSum(),gb.get(o),1e-10);
+			}
+		}
+	}
+
+	private static void assertArrayEqualsShape(int[] shape, INDArray a) {
+		assertArrayEquals(shape,a.getShape());
+	}
+
+	@Test public void testPooling() {
+		Random r=new Random(3);
+		// {kh, kw, sh, sw, ph, pw}
+		int[][] cases={{2,2,2,2,0,0},{3,3,1,1,1,1},{3,2,2,1,1,0},{1,1,1,1,0,0},{4,3,3,2,2,1}};
+		for (int[] t: cases) {
+			Array x=random(r,3,2,9,7);
+			assertTrue(naivePool(x,t[0],t[1],t[2],t[3],t[4],t[5],true).epsilonEquals(Convolutions.maxPool2d(x,t[0],t[1],t[2],t[3],t[4],t[5]),0.0));
+			Array avg=Convolutions.avgPool2d(x,t[0],t[1],t[2],t[3],t[4],t[5]);
+			assertTrue(naivePool(x,t[0],t[1],t[2],t[3],t[4],t[5],false).epsilonEquals(avg,1e-12));
+
+			Array g=random(r,avg.getShape());
+			Array gx=Convolutions.avgPool2dBackward(g,x.getShape(),t[0],t[1],t[2],t[3],t[4],t[5]);
+			assertEquals(dot(avg,g),dot(x,gx),1e-9);
+
+			// max pooling is locally linear, so the same identity holds for the selected elements
+			Array max=Convolutions.maxPool2d(x,t[0],t[1],t[2],t[3],t[4],t[5]);
+			Array gm=Convolutions.maxPool2dBackward(x,g,t[0],t[1],t[2],t[3],t[4],t[5]);
+			assertEquals(dot(max,g),dot(x,gm),1e-9);
+			assertEquals(g.elementSum(),gm.elementSum(),1e-9);
+		}
+	}
+
+	@Test public void testMaxPoolTies() {
+		Array x=Array.newArray(1,1,2,2);
+		x.fill(1.0);
+		Array g=Array.newArray(1,1,1,1);
+		g.fill(5.0);
+		Array gx=Convolutions.maxPool2dBackward(x,g,2,2,2,2,0,0);
+		// the gradient goes to the first maximum only
+		assertEquals(5.0,gx.get(0,0,0,0),0.0);
+		assertEquals(5.0,gx.elementSum(),0.0);
+	}
+
+	@Test public void testLargeBatch() {
+		// enough work to be split between threads
+		Random r=new Random(4);
+		Array x=random(r,17,8,20,20);
+		Array w=random(r,16,8,3,3);
+		Array y=Convolutions.conv2d(x,w,null,1,1);
+		assertTrue(naiveConv(x,w,null,1,1,1,1,1,1).epsilonEquals(y,1e-10));
+		Array g=random(r,y.getShape());
+		Array gw=Convolutions.conv2dBackwardWeights(x,g,3,3,1,1,1,1,1,1);
+		assertEquals(dot(y,g),dot(w,gw),1e-8);
+		assertEquals(gw,Convolutions.conv2dBackwardWeights(x,g,3,3,1,1,1,1,1,1));
+	}
+
+	@Test public void testInvalidArguments() {
+		Array x=Array.newArray(1,2,5,5);
+		try {
+			Convolutions.conv2d(x,Array.newArray(3,1,3,3),null,1,0);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// channel mismatch
+		}
+		try {
+			Convolutions.conv2d(x,Array.newArray(3,2,7,7),null,1,0);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// kernel larger than input
+		}
+		try {
+			Convolutions.maxPool2d(x,2,2,2,2,2,0);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// padding more than half the window
+		}
+		try {
+			Convolutions.conv2d(Array.newArray(2,5,5),Array.newArray(3,2,3,3),null,1,0);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// input must be 4D
+		}
+	}
+}
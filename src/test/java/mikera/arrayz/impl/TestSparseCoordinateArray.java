@@ -0,0 +1,232 @@
+package mikera.arrayz.impl;
+
+import static org.junit.Assert.*;
+
+import java.util.Iterator;
+import java.util.Random;
+
+import mikera.arrayz.Array;
+import mikera.arrayz.INDArray;
+import mikera.matrixx.Matrix;
+import mikera.vectorz.AVector;
+import mikera.vectorz.Vector;
+
+import org.junit.Test;
+
+public class TestSparseCoordinateArray {
+
+	private static Array randomSparse(Random r, int... shape) {
+		Array a=Array.newArray(shape);
+		double[] data=a.getArray();
+		for (int i=0; i<data.length; i++) {
+			if (r.nextInt(5)==0) data[i]=r.nextInt(9)-4;
+		}
+		return a;
+	}
+
+	@Test public void testCreate() {
+		Random r=new Random(1);
+		Array a=randomSparse(r,3,4,5);
+		SparseCoordinateArray s=SparseCoordinateArray.create(a);
+		s.validate();
+		assertEquals(a,s);
+		assertEquals(a.nonZeroCount(),s.nonZeroCount());
+		assertEquals(a.elementSum(),s.elementSum(),0.0);
+		assertEquals(a.elementSquaredSum(),s.elementSquaredSum(),0.0);
+		assertEquals(a.elementMax(),s.elementMax(),0.0);
+		assertEquals(a.elementMin(),s.elementMin(),0.0);
+		assertTrue(s.isSparse());
+
+		// unsorted coordinates with duplicates are summed
+		SparseCoordinateArray c=SparseCoordinateArray.create(new int[] {2,3},
+				new int[][] {{1,2},{0,1},{1,2},{0,0},{0,1}}, new double[] {1,2,3,4,-2});
+		c.validate();
+		assertEquals(Matrix.create(new double[][] {{4,0,0},{0,0,4}}),c);
+		assertEquals(2,c.nonZeroCount());
+	}
+
+	@Test public void testHuge() {
+		// 10^8 logical elements
+		int[] shape={1000,1000,100};
+		SparseCoordinateArray s=SparseCoordinateArray.create(shape,
+				new long[] {99999999L,0L,12345678L}, new double[] {1,2,3});
+		assertEquals(100000000L,s.elementCount());
+		assertEquals(6.0,s.elementSum(),0.0);
+		assertEquals(3,s.nonZeroCount());
+		assertEquals(1.0,s.get(999,999,99),0.0);
+		assertEquals(3.0,s.get(123,456,78),0.0);
+		assertEquals(3.0,s.slice(2,78).elementSum(),0.0);
+		assertEquals(3.0,s.slice(123).slice(456).get(78),0.0);
+		assertEquals(3e-8,s.density(),1e-20);
+	}
+
+	@Test public void testTooLargeForFlatView() {
+		// more elements than a flat vector can index
+		int[] shape={100000,100000,10};
+		SparseCoordinateArray s=SparseCoordinateArray.create(shape,
+				new long[] {1L,99999999999L}, new double[] {4,5});
+		try {
+			s.asVector();
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		try {
+			s.getElements(new double[10], 0);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		Iterator<Double> it=s.elementIterator();
+		assertEquals(0.0,it.next(),0.0);
+		assertEquals(4.0,it.next(),0.0);
+		assertEquals(5.0,s.slice(99999).slice(99999).get(9),0.0);
+		assertEquals(4.0,((AVector)s.slice(0).slice(0)).elementSum(),0.0);
+	}
+
+	@Test public void testSparseEquals() {
+		// 10^11 logical elements, too many to compare densely
+		int[] shape={100000,100000,10};
+		SparseCoordinateArray s=SparseCoordinateArray.create(shape,
+				new long[] {7L,123456789L,99999999999L}, new double[] {1,2,3});
+		SparseCoordinateArray c=s.exactClone();
+		assertTrue(s.equals(c));
+		assertTrue(s.equals((INDArray)c));
+		assertEquals(s,c);
+		c.set(new int[] {0,0,7},1.5);
+		assertFalse(s.equals(c));
+		c.set(new int[] {0,0,7},1.0);
+		assertTrue(s.equals(c));
+		c.set(new int[] {5,5,5},1.0);
+		assertFalse(s.equals(c));
+		assertFalse(c.equals(s));
+		c.set(new int[] {5,5,5},0.0);
+		assertTrue(c.equals(s));
+		assertFalse(s.equals(SparseCoordinateArray.newArray(100000,10,100000)));
+
+		// views compare by position within the view
+		Random r=new Random(7);
+		Array a=randomSparse(r,4,3,5);
+		SparseCoordinateArray sa=SparseCoordinateArray.create(a);
+		for (int d=0; d<3; d++) {
+			for (int i=0; i<a.getShape(d); i++) {
+				INDArray ss=sa.slice(d,i);
+				assertTrue(ss.equals(SparseCoordinateArray.create(a.slice(d,i))));
+				assertTrue(SparseCoordinateArray.create(a.slice(d,i)).equals(ss));
+				assertEquals(a.slice(d,i).equals(a.slice(d,0)),ss.equals(sa.slice(d,0)));
+			}
+		}
+	}
+
+	@Test public void testSlices() {
+		Random r=new Random(2);
+		Array a=randomSparse(r,4,3,5,2);
+		SparseCoordinateArray s=SparseCoordinateArray.create(a);
+		for (int d=0; d<4; d++) {
+			for (int i=0; i<a.getShape(d); i++) {
+				INDArray as=a.slice(d,i);
+				INDArray ss=s.slice(d,i);
+				assertEquals(as,ss);
+				assertEquals(as.nonZeroCount(),ss.nonZeroCount());
+				assertEquals(as.elementSum(),ss.elementSum(),0.0);
+				for (int d2=0; d2<3; d2++) {
+					assertEquals(as.slice(d2,1),ss.slice(d2,1));
+					assertEquals(as.slice(d2,1).elementSum(),ss.slice(d2,1).elementSum(),0.0);
+				}
+			}
+		}
+
+		// slices are mutable views
+		INDArray v=s.slice(2,3);
+		v.set(new int[] {1,2,1},7.0);
+		assertEquals(7.0,s.get(1,2,3,1),0.0);
+		v.fill(0.0);
+		assertEquals(0.0,s.slice(2,3).elementSquaredSum(),0.0);
+		a.slice(2,3).fill(0.0);
+		a.set(new int[] {1,2,3,1},0.0);
+		assertEquals(a,s);
+		s.slice(0,1).multiply(0.0);
+		a.slice(0,1).fill(0.0);
+		s.slice(3,0).fill(0.0);
+		a.slice(3,0).fill(0.0);
+		assertEquals(a,s);
+		assertEquals(a.nonZeroCount(),s.nonZeroCount());
+		s.validate();
+
+		AVector fiber=(AVector)s.slice(0).slice(1).slice(2);
+		fiber.set(1,5.0);
+		assertEquals(5.0,s.get(0,1,2,1),0.0);
+		s.validate();
+	}
+
+	@Test public void testSetAndRemove() {
+		SparseCoordinateArray s=SparseCoordinateArray.newArray(3,3,3);
+		Array a=Array.newArray(3,3,3);
+		Random r=new Random(3);
+		for (int k=0; k<200; k++) {
+			int[] ix={r.nextInt(3),r.nextInt(3),r.nextInt(3)};
+			double v=(r.nextInt(3)==0)?0.0:r.nextInt(9);
+			s.set(ix,v);
+			a.set(ix,v);
+			assertEquals(a.nonZeroCount(),s.nonZeroCount());
+		}
+		s.validate();
+		assertEquals(a,s);
+
+		s.multiply(2.0);
+		a.multiply(2.0);
+		assertEquals(a,s);
+		s.multiply(0.0);
+		assertTrue(s.isZero());
+	}
+
+	@Test public void testTensorVectorProduct() {
+		Random r=new Random(4);
+		Array a=randomSparse(r,3,4,5);
+		SparseCoordinateArray s=SparseCoordinateArray.create(a);
+		for (int d=0; d<3; d++) {
+			Vector v=Vector.createLength(a.getShape(d));
+			for (int i=0; i<v.length(); i++) v.set(i,r.nextInt(5)-2);
+			INDArray expected=Contractions.tensordot(a, v, new int[] {d}, new int[] {0});
+			INDArray result=s.tensorVectorProduct(d, v);
+			assertTrue(result instanceof SparseCoordinateArray);
+			assertEquals(expected,result);
+
+			// also on a non-contiguous slice view
+			INDArray sv=s.slice(1,2);
+			if (d<2) {
+				Vector w=Vector.createLength(sv.getShape(d));
+				w.fill(1.5);
+				assertEquals(Contractions.tensordot(a.slice(1,2), w, new int[] {d}, new int[] {0}),
+						((SparseCoordinateArray)sv).tensorVectorProduct(d, w));
+			}
+		}
+
+		SparseCoordinateArray one=SparseCoordinateArray.create(Vector.of(1,0,3));
+		assertEquals(7.0,one.tensorVectorProduct(0, Vector.of(1,5,2)).get(),0.0);
+	}
+
+	@Test public void testTensorMatrixProduct() {
+		Random r=new Random(5);
+		Array a=randomSparse(r,3,4,5);
+		SparseCoordinateArray s=SparseCoordinateArray.create(a);
+		for (int d=0; d<3; d++) {
+			Matrix m=Matrix.create(2, a.getShape(d));
+			for (int i=0; i<2; i++) for (int j=0; j<m.columnCount(); j++) m.set(i,j,r.nextInt(5)-2);
+			int[] rshape=a.getShapeClone();
+			rshape[d]=2;
+			Array expected=Array.newArray(rshape);
+			int[] ix=new int[3];
+			for (ix[0]=0; ix[0]<3; ix[0]++) for (ix[1]=0; ix[1]<4; ix[1]++) for (ix[2]=0; ix[2]<5; ix[2]++) {
+				int[] rix=ix.clone();
+				for (int j=0; j<2; j++) {
+					rix[d]=j;
+					expected.set(rix, expected.get(rix)+a.get(ix)*m.get(j,ix[d]));
+				}
+			}
+			SparseCoordinateArray result=s.tensorMatrixProduct(d, m);
+			result.validate();
+			assertEquals(expected,result);
+		}
+	}
+}
@@ -0,0 +1,277 @@
+package mikera.arrayz.impl;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import mikera.arrayz.Array;
+import mikera.arrayz.INDArray;
+import mikera.arrayz.NDArray;
+import mikera.matrixx.Matrix;
+import mikera.matrixx.Matrixx;
+import mikera.vectorz.Ops;
+import mikera.vectorz.Scalar;
+import mikera.vectorz.Vector;
+import mikera.vectorz.impl.SparseIndexedVector;
+
+import org.junit.Test;
+
+public class TestStridedLoop {
+
+	/**
+	 * Creates a strided view with the given shape over random data, with the dimensions
+	 * laid out in the given order of decreasing stride and a gap after each dimension.
+	 */
+	private static NDArray createView(int[] shape, int[] order, int gap, long seed) {
+		int dims=shape.length;
+		int[] strides=new int[dims];
+		int st=1;
+		for (int i=dims-1; i>=0; i--) {
+			int d=order[i];
+			strides[d]=st;
+			st=st*shape[d]+gap;
+		}
+		Random r=new Random(seed);
+		double[] data=new double[st+3];
+		for (int i=0; i<data.length; i++) data[i]=r.nextInt(100)-50;
+		return (NDArray)NDArray.wrapStrided(data, 3, shape, strides);
+	}
+
+	/**
+	 * Reference: the elements in row major order, using get(int[]) only
+	 */
+	private static double[] elements(INDArray a) {
+		int[] shape=a.getShape();
+		int n=(int)a.elementCount();
+		double[] result=new double[n];
+		int[] ix=new int[shape.length];
+		for (int i=0; i<n; i++) {
+			result[i]=a.get(ix);
+			for (int d=shape.length-1; d>=0; d--) {
+				if (++ix[d]<shape[d]) break;
+				ix[d]=0;
+			}
+		}
+		return result;
+	}
+
+	private static final int[][] SHAPES={{3,4,5},{2,1,3,4},{2,3,2,2,3},{1,1,6},{4,0,2},{5}};
+
+	private static int[] order(int dims, boolean reversed) {
+		int[] order=new int[dims];
+		for (int i=0; i<dims; i++) order[i]=reversed?(dims-1-i):i;
+		return order;
+	}
+
+	@Test public void testCoalescing() {
+		// a packed array of any shape is a single row
+		Array a=Array.newArray(2,3,4,5);
+		StridedLoop loop=StridedLoop.create(a);
+		assertEquals(0,loop.outerDimensions());
+		assertEquals(120,loop.rowLength());
+
+		// gaps between dimensions prevent coalescing
+		NDArray v=createView(new int[] {2,3,4},order(3,false),1,1);
+		loop=StridedLoop.create(v);
+		assertEquals(2,loop.outerDimensions());
+		assertEquals(4,loop.rowLength());
+
+		// dimensions of size one are ignored
+		loop=StridedLoop.create(createView(new int[] {1,3,1,4},order(4,false),0,1));
+		assertEquals(0,loop.outerDimensions());
+		assertEquals(12,loop.rowLength());
+
+		// a transposed view can be traversed in memory order as a single row
+		INDArray t=a.getTransposeView();
+		IStridedArray st=(IStridedArray)t;
+		loop=StridedLoop.create(t.getShape(),st.getArrayOffset(),st.getStrides(),0,null,true);
+		assertEquals(0,loop.outerDimensions());
+		assertEquals(120,loop.rowLength());
+		assertEquals(1,loop.rowStrideA());
+		loop=StridedLoop.create(st);
+		assertEquals(3,loop.outerDimensions());
+		assertEquals(60,loop.rowStrideA());
+
+		// both arrays must allow coalescing
+		loop=StridedLoop.create(a,createView(new int[] {2,3,4,5},order(4,false),2,1));
+		assertEquals(3,loop.outerDimensions());
+		assertEquals(5,loop.rowLength());
+	}
+
+	@Test public void testRowOrder() {
+		for (int[] shape: SHAPES) {
+			for (boolean rev: new boolean[] {false,true}) {
+				for (int gap=0; gap<2; gap++) {
+					NDArray a=createView(shape,order(shape.length,rev),gap,7);
+					double[] expected=elements(a);
+					double[] dest=new double[expected.length];
+					StridedLoop.getElements(a, dest, 0);
+					assertArrayEquals(expected,dest,0.0);
+
+					int count=0;
+					for (StridedLoop loop=StridedLoop.create(a); loop.hasRow(); loop.nextRow()) {
+						count+=loop.rowLength();
+					}
+					assertEquals(expected.length,count);
+				}
+			}
+		}
+	}
+
+	@Test public void testReductions() {
+		for (int[] shape: SHAPES) {
+			NDArray a=createView(shape,order(shape.length,true),1,3);
+			double[] es=elements(a);
+			double sum=0.0;
+			double sq=0.0;
+			for (double d: es) {
+				sum+=d;
+				sq+=d*d;
+			}
+			assertEquals(sum,a.elementSum(),0.0);
+			assertEquals(sq,a.elementSquaredSum(),0.0);
+			assertEquals(sum+10,a.reduce(Ops.ADD,10.0),0.0);
+			if (es.length>0) {
+				double max=es[0];
+				double min=es[0];
+				for (double d: es) {
+					max=Math.max(max, d);
+					min=Math.min(min, d);
+				}
+				assertEquals(max,a.elementMax(),0.0);
+				assertEquals(min,a.elementMin(),0.0);
+				assertEquals(max,a.reduce(Ops.MAX),0.0);
+			} else {
+				try {
+					a.elementMax();
+					fail();
+				} catch (IllegalArgumentException e) {
+					// OK
+				}
+			}
+		}
+	}
+
+	@Test public void testBinaryOps() {
+		for (int[] shape: SHAPES) {
+			int dims=shape.length;
+			NDArray a=createView(shape,order(dims,true),1,4);
+			NDArray b=createView(shape,order(dims,false),2,5);
+			double[] ae=elements(a);
+			double[] be=elements(b);
+			int n=ae.length;
+
+			a.add(b);
+			double[] r=elements(a);
+			for (int i=0; i<n; i++) assertEquals(ae[i]+be[i],r[i],0.0);
+
+			a.sub(b);
+			assertArrayEquals(ae,elements(a),0.0);
+
+			a.multiply(b);
+			r=elements(a);
+			for (int i=0; i<n; i++) assertEquals(ae[i]*be[i],r[i],0.0);
+
+			a.applyOp(Ops.MAX,b);
+			r=elements(a);
+			for (int i=0; i<n; i++) assertEquals(Math.max(ae[i]*be[i],be[i]),r[i],0.0);
+
+			a.set(b);
+			assertArrayEquals(be,elements(a),0.0);
+			assertTrue(a.equals(b));
+
+			Array c=Array.newArray(shape);
+			c.set(b);
+			assertArrayEquals(be,elements(c),0.0);
+			c.add(a);
+			r=elements(c);
+			for (int i=0; i<n; i++) assertEquals(2*be[i],r[i],0.0);
+		}
+	}
+
+	@Test public void testUnaryOps() {
+		for (int[] shape: SHAPES) {
+			NDArray a=createView(shape,order(shape.length,true),1,6);
+			double[] ae=elements(a);
+			double[] before=a.getArray().clone();
+			int n=ae.length;
+
+			a.multiply(2.0);
+			a.add(1.0);
+			double[] r=elements(a);
+			for (int i=0; i<n; i++) assertEquals(ae[i]*2+1,r[i],0.0);
+
+			a.applyOp(Ops.NEGATE);
+			r=elements(a);
+			for (int i=0; i<n; i++) assertEquals(-(ae[i]*2+1),r[i],0.0);
+
+			a.set(5.0);
+			assertTrue((n==0)||(a.elementsEqual(5.0)));
+
+			// elements outside the view are untouched
+			double[] after=a.getArray();
+			a.set(0.0);
+			int changed=0;
+			for (int i=0; i<before.length; i++) {
+				if (after[i]!=before[i]) changed++;
+			}
+			assertTrue(changed<=n);
+
+			double[] dest=new double[n+2];
+			a.set(1.0);
+			a.addToArray(dest, 1);
+			for (int i=0; i<n; i++) assertEquals(1.0,dest[i+1],0.0);
+			assertEquals(0.0,dest[0],0.0);
+		}
+	}
+
+	@Test public void testBroadcast() {
+		int[] shape={3,4,5};
+		NDArray a=createView(shape,order(3,true),1,8);
+		double[] ae=elements(a);
+		Vector v=Vector.of(1,2,3,4,5);
+		Matrix m=Matrix.create(Matrixx.createRandomMatrix(4, 5));
+
+		a.add(v);
+		double[] r=elements(a);
+		for (int i=0; i<ae.length; i++) assertEquals(ae[i]+v.get(i%5),r[i],0.0);
+
+		a.sub(v);
+		a.multiply(m);
+		r=elements(a);
+		for (int i=0; i<ae.length; i++) assertEquals(ae[i]*m.get((i/5)%4,i%5),r[i],0.0);
+
+		// broadcast views are used as zero stride operands
+		Array b=Array.create(a);
+		b.set(BroadcastScalarArray.create(2.0, shape));
+		assertTrue(b.elementsEqual(2.0));
+		b.divide(v.broadcast(4,5));
+		assertEquals(2.0/3,b.get(2,1,2),0.0);
+		b.add(Scalar.create(1.0));
+		assertEquals(1.0+2.0/5,b.get(0,3,4),0.0);
+		assertNull(StridedLoop.broadcastView(Vector.of(1,2), shape));
+		assertNull(StridedLoop.broadcastView(SparseIndexedVector.createLength(5), shape));
+
+		IStridedArray bv=StridedLoop.broadcastView(v, shape);
+		assertArrayEquals(new int[] {0,0,1},bv.getStrides());
+		assertTrue(bv.getArray()==v.getArray());
+
+		// results of broadcasting copies
+		assertEquals(m.addCopy(v),v.addCopy(m));
+		Matrix n=m.clone();
+		n.multiply(v);
+		n.divide(v);
+		assertTrue(n.epsilonEquals(m,1e-12));
+		Matrix e=Matrix.create(0, 5);
+		assertEquals(e,v.addCopy(e));
+	}
+
+	@Test public void testMismatch() {
+		try {
+			StridedLoop.create(Array.newArray(2,3),Array.newArray(3,2));
+			fail();
+		} catch (IllegalArgumentException e) {
+			// OK
+		}
+	}
+}
@@ -17,6 +17,8 @@ import mikera.matrixx.impl.ColumnMatrix;
 import mikera.matrixx.impl.DenseColumnMatrix;
 import mikera.matrixx.impl.DiagonalMatrix;
 import mikera.matrixx.impl.IdentityMatrix;
+import mikera.matrixx.impl.BitMatrix;
+import mikera.matrixx.impl.FloatMatrix;
 import mikera.matrixx.impl.ImmutableMatrix;
 import mikera.matrixx.impl.LowerTriangularMatrix;
 import mikera.matrixx.impl.PermutationMatrix;
@@ -276,6 +278,17 @@ public class TestMatrices {
 		assertEquals(m.rowCount(),new MatrixTransform(m).outputDimensions());
 		assertEquals(m.columnCount(),new MatrixTransform(m).inputDimensions());
 		
+		AVector rowSums=m.rowSums();
+		AVector columnSums=m.columnSums();
+		assertEquals(m.rowCount(),rowSums.length());
+		assertEquals(m.columnCount(),columnSums.length());
+		for (int i=0; i<m.rowCount(); i++) {
+			assertEquals(m.getRow(i).elementSum(),rowSums.get(i),0.000001);
+		}
+		for (int j=0; j<m.columnCount(); j++) {
+			assertEquals(m.getColumn(j).elementSum(),columnSums.get(j),0.000001);
+		}
+		
 		m=m.clone();
 		int rc=m.rowCount();
 		int cc=m.columnCount();
@@ -755,6 +768,20 @@ public class TestMatrices {
 		doGenericTests(new ImmutableMatrix(Matrixx.createRandomMatrix(3, 3)));
 	}	
 
+	@Test public void g_BitMatrix() {	
+		AMatrix m=Matrixx.createRandomMatrix(4, 5);
+		m.add(-0.5);
+		doGenericTests(BitMatrix.create(m));
+		doGenericTests(BitMatrix.create(IdentityMatrix.create(70)));
+		doGenericTests(BitMatrix.create(0, 3));
+	}	
+
+	@Test public void g_FloatMatrix() {	
+		doGenericTests(FloatMatrix.create(Matrixx.createRandomMatrix(4, 5)));
+		doGenericTests(FloatMatrix.create(Matrixx.createRandomMatrix(3, 3)));
+		doGenericTests(FloatMatrix.create(0, 2));
+	}	
+
 	@Test public void g_BlockDiagonalMatrix() {	
 		doGenericTests(BlockDiagonalMatrix.create(IdentityMatrix.create(2),Matrixx.createRandomSquareMatrix(2)));
 	}
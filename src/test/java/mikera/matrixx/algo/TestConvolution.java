@@ -0,0 +1,117 @@
+package mikera.matrixx.algo;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import mikera.matrixx.Matrix;
+import mikera.matrixx.algo.Convolution.Mode;
+import mikera.vectorz.Vector;
+
+import org.junit.Test;
+
+public class TestConvolution {
+	
+	private static double[] random(Random r, int length) {
+		double[] a=new double[length];
+		for (int i=0; i<length; i++) a[i]=r.nextDouble()-0.5;
+		return a;
+	}
+	
+	private static double[] naive(double[] a, double[] k) {
+		double[] out=new double[a.length+k.length-1];
+		for (int i=0; i<a.length; i++) {
+			for (int j=0; j<k.length; j++) {
+				out[i+j]+=a[i]*k[j];
+			}
+		}
+		return out;
+	}
+	
+	private static double[] naive2D(double[] a, int ar, int ac, double[] k, int kr, int kc) {
+		int fc=ac+kc-1;
+		double[] out=new double[(ar+kr-1)*fc];
+		for (int i=0; i<ar; i++) for (int j=0; j<ac; j++) {
+			for (int p=0; p<kr; p++) for (int q=0; q<kc; q++) {
+				out[(i+p)*fc+j+q]+=a[i*ac+j]*k[p*kc+q];
+			}
+		}
+		return out;
+	}
+	
+	@Test public void testSmallExample() {
+		Vector a=Vector.of(1,2,3);
+		Vector k=Vector.of(0,1,0.5);
+		assertEquals(Vector.of(0,1,2.5,4,1.5),Convolution.convolve(a, k, Mode.FULL));
+		assertEquals(Vector.of(1,2.5,4),Convolution.convolve(a, k, Mode.SAME));
+		assertEquals(Vector.of(2.5),Convolution.convolve(a, k, Mode.VALID));
+		assertEquals(Vector.of(0.5,2,3.5,3,0),Convolution.correlate(a, k, Mode.FULL));
+		assertEquals(Vector.of(3.5),Convolution.correlate(a, k, Mode.VALID));
+		assertEquals(0,Convolution.convolve(k, Vector.of(1,2,3,4), Mode.VALID).length());
+	}
+	
+	@Test public void testStrategiesAgree() {
+		Random r=new Random(123);
+		for (int[] nm : new int[][] {{1,1},{5,3},{100,7},{3,50},{1000,33},{777,300},{300,777}}) {
+			int n=nm[0];
+			int m=nm[1];
+			double[] a=random(r,n);
+			double[] k=random(r,m);
+			double[] expected=naive(a,k);
+			assertArrayEquals(expected,Convolution.convolveDirect(a,n,k,m),1e-10);
+			assertArrayEquals(expected,Convolution.convolveFull(a,n,k,m),1e-10);
+			// overlap-add with every block size, down to the single full-size transform
+			for (int t=FFT.nextPow2(2*m-1); t<=FFT.nextPow2(n+m-1); t*=2) {
+				assertArrayEquals("n="+n+" m="+m+" t="+t,expected,Convolution.convolveFFT(a,n,k,m,t),1e-10);
+			}
+			assertArrayEquals(expected,Convolution.convolveFFT(a,n,k,m,FFT.nextPow2(n+m-1)),1e-10);
+		}
+	}
+	
+	@Test public void testLongKernel() {
+		Random r=new Random(7);
+		Vector a=Vector.wrap(random(r,20000));
+		Vector k=Vector.wrap(random(r,10000));
+		double[] rk=new double[10000];
+		for (int i=0; i<10000; i++) rk[i]=k.get(9999-i);
+		Vector v=Convolution.convolve(a, k, Mode.VALID);
+		assertEquals(10001,v.length());
+		for (int i : new int[] {0,5000,10000}) {
+			assertEquals(a.subVector(i, 10000).dotProduct(Vector.wrap(rk)),v.get(i),1e-9);
+		}
+		Vector c=Convolution.correlate(a, k, Mode.VALID);
+		for (int i : new int[] {0,123,10000}) {
+			assertEquals(a.subVector(i, 10000).dotProduct(k),c.get(i),1e-9);
+		}
+	}
+	
+	@Test public void testStrategiesAgree2D() {
+		Random r=new Random(321);
+		for (int[] s : new int[][] {{1,1,1,1},{6,5,3,2},{40,33,5,7},{3,4,20,9},{70,50,30,20}}) {
+			int ar=s[0], ac=s[1], kr=s[2], kc=s[3];
+			double[] a=random(r,ar*ac);
+			double[] k=random(r,kr*kc);
+			double[] expected=naive2D(a,ar,ac,k,kr,kc);
+			assertArrayEquals(expected,Convolution.convolveDirect2D(a,ar,ac,k,kr,kc),1e-10);
+			assertArrayEquals(expected,Convolution.convolveFull2D(a,ar,ac,k,kr,kc),1e-10);
+			for (int tr=FFT.nextPow2(2*kr-1); tr<=FFT.nextPow2(ar+kr-1); tr*=2) {
+				for (int tc=FFT.nextPow2(2*kc-1); tc<=FFT.nextPow2(ac+kc-1); tc*=2) {
+					assertArrayEquals(expected,Convolution.convolveFFT2D(a,ar,ac,k,kr,kc,tr,tc),1e-10);
+				}
+			}
+			assertArrayEquals(expected,Convolution.convolveFFT2D(a,ar,ac,k,kr,kc,FFT.nextPow2(ar+kr-1),FFT.nextPow2(ac+kc-1)),1e-10);
+		}
+	}
+	
+	@Test public void testMatrixModes() {
+		Matrix a=Matrix.create(new double[][] {{1,2,3},{4,5,6},{7,8,9}});
+		Matrix k=Matrix.create(new double[][] {{1,0},{0,-1}});
+		Matrix full=Convolution.convolve(a, k, Mode.FULL);
+		assertEquals(4,full.rowCount());
+		assertEquals(4,full.columnCount());
+		assertEquals(Matrix.create(new double[][] {{4,4},{4,4}}),Convolution.convolve(a, k, Mode.VALID));
+		assertEquals(Matrix.create(new double[][] {{1,2,3},{4,4,4},{7,4,4}}),Convolution.convolve(a, k, Mode.SAME));
+		assertEquals(Matrix.create(new double[][] {{-4,-4},{-4,-4}}),Convolution.correlate(a, k, Mode.VALID));
+	}
+}
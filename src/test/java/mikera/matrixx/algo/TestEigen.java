@@ -0,0 +1,98 @@
+package mikera.matrixx.algo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import mikera.matrixx.AMatrix;
+import mikera.matrixx.Matrix;
+import mikera.matrixx.decompose.Eigen;
+import mikera.matrixx.decompose.IEigenResult;
+import mikera.vectorz.AVector;
+import mikera.vectorz.Vector;
+import mikera.vectorz.Vector2;
+
+import org.junit.Test;
+
+public class TestEigen {
+
+	private static void checkEigenPairs(AMatrix A, IEigenResult r) {
+		Vector2[] values=r.getEigenvalues();
+		AVector[] vectors=r.getEigenVectors();
+		assertEquals(A.rowCount(), values.length);
+		double trace=0;
+		for (int i=0; i<values.length; i++) {
+			trace+=values[i].x;
+			if (values[i].y!=0) {
+				assertNull(vectors[i]);
+				continue;
+			}
+			AVector x=vectors[i];
+			assertEquals(1.0, x.magnitude(), 1e-10);
+			AVector ax=A.innerProduct(x);
+			ax.addMultiple(x, -values[i].x);
+			assertTrue("Residual too large: "+ax.magnitude(), ax.magnitude()<1e-8);
+		}
+		assertEquals(A.trace(), trace, 1e-8);
+	}
+
+	@Test
+	public void testRotation() {
+		Matrix A=Matrix.create(new double[][] {{0,-1},{1,0}});
+		IEigenResult r=Eigen.decompose(A);
+		Vector2[] values=r.getEigenvalues();
+		assertTrue(values[0].epsilonEquals(Vector2.of(0, 1), 1e-12));
+		assertTrue(values[1].epsilonEquals(Vector2.of(0, -1), 1e-12));
+		assertNull(r.getEigenVectors()[0]);
+		assertNull(r.getEigenVectors()[1]);
+	}
+
+	@Test
+	public void testKnown() {
+		Matrix A=Matrix.create(new double[][] {{2,0,0},{1,3,0},{4,5,6}});
+		IEigenResult r=Eigen.decompose(A);
+		double[] values=new double[3];
+		for (int i=0; i<3; i++) {
+			assertEquals(0.0, r.getEigenvalues()[i].y, 0.0);
+			values[i]=r.getEigenvalues()[i].x;
+		}
+		Arrays.sort(values);
+		assertTrue(Vector.of(2,3,6).epsilonEquals(Vector.wrap(values), 1e-10));
+		checkEigenPairs(A, r);
+	}
+
+	@Test
+	public void testRandom() {
+		for (int n : new int[] {1, 2, 3, 5, 10, 40, 100}) {
+			Matrix A=Matrix.createRandom(n, n);
+			A.sub(0.5);
+			IEigenResult r=Eigen.decompose(A);
+			assertNotNull(r);
+			checkEigenPairs(A, r);
+
+			// eigenvalue only path should give the same eigenvalues
+			Vector2[] full=r.getEigenvalues();
+			Vector2[] valuesOnly=Eigen.decompose(A, false).getEigenvalues();
+			double[] a=new double[n];
+			double[] b=new double[n];
+			for (int i=0; i<n; i++) {
+				a[i]=full[i].x*1000+full[i].y;
+				b[i]=valuesOnly[i].x*1000+valuesOnly[i].y;
+			}
+			Arrays.sort(a);
+			Arrays.sort(b);
+			assertTrue(Vector.wrap(a).epsilonEquals(Vector.wrap(b), 1e-6));
+		}
+	}
+
+	@Test
+	public void testSymmetricDispatch() {
+		Matrix A=Matrix.create(new double[][] {{1,2,3},{2,5,6},{3,6,9}});
+		IEigenResult r=Eigen.decompose(A);
+		assertTrue(r.getEigenvalues()[0].epsilonEquals(Vector2.of(14.300735254, 0), 1e-8));
+		checkEigenPairs(A, r);
+	}
+}
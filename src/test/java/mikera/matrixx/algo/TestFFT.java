@@ -1,6 +1,13 @@
 package mikera.matrixx.algo;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import mikera.matrixx.Matrix;
 import mikera.matrixx.algo.FFT;
 
 import org.junit.Test;
@@ -38,4 +45,177 @@ public class TestFFT {
 		assertEquals(r1,d[2],0.000001);
 		assertEquals(r2,d[4],0.000001);
 	}
+	
+	@Test public void testRealForwardFullIgnoresUpperHalf() {
+		for (int n : new int[] {2,6,8}) {
+			double[] a=new double[2*n];
+			double[] c=new double[2*n];
+			for (int i=0; i<n; i++) {
+				a[i]=Math.random();
+				c[2*i]=a[i];
+				a[n+i]=100.0; // should be ignored
+			}
+			FFT fft=new FFT(n);
+			fft.realForwardFull(a);
+			fft.complexForward(c);
+			for (int i=0; i<2*n; i++) {
+				assertEquals(c[i],a[i],0.000001);
+			}
+		}
+	}
+	
+	private static double[] transform(int n, double[] data, int kind) {
+		double[] a=new double[2*n+3];
+		System.arraycopy(data, 0, a, 3, 2*n);
+		FFT fft=new FFT(n);
+		switch (kind) {
+			case 0: fft.complexForward(a,3); break;
+			case 1: fft.complexInverse(a,3,true); break;
+			case 2: fft.realForwardFull(a,3); break;
+			case 3: fft.realInverseFull(a,3,true); break;
+			case 4: fft.realForward(a,3); break;
+			case 5: fft.realInverse(a,3,true); break;
+		}
+		return a;
+	}
+	
+	@Test public void testParallelMatchesSerial() {
+		int threads=FFT.getNumberOfThreads();
+		int begin2=FFT.getThreadsBeginN2Threads();
+		int begin4=FFT.getThreadsBeginN4Threads();
+		Random r=new Random(1234);
+		try {
+			// split radix, mixed radix and even and odd Bluestein sizes
+			for (int n : new int[] {256,1024,8192,600,3000,4096*3,422,1994,211,1993}) {
+				double[] data=new double[2*n];
+				for (int i=0; i<2*n; i++) data[i]=r.nextDouble()-0.5;
+				for (int kind=0; kind<6; kind++) {
+					FFT.setNumberOfThreads(1);
+					double[] serial=transform(n,data,kind);
+					
+					FFT.setNumberOfThreads(4);
+					FFT.setThreadsBeginN(16, 64);
+					assertArrayEquals("n="+n+" kind="+kind, serial, transform(n,data,kind), 1e-9);
+					FFT.setThreadsBeginN(16, Integer.MAX_VALUE);
+					assertArrayEquals("n="+n+" kind="+kind, serial, transform(n,data,kind), 1e-9);
+				}
+			}
+		} finally {
+			FFT.setNumberOfThreads(threads);
+			FFT.setThreadsBeginN(begin2, begin4);
+		}
+	}
+	
+	@Test public void testPlanCache() {
+		FFT a=FFT.getPlan(600);
+		assertSame(a,FFT.getPlan(600));
+		assertEquals(600,a.size());
+		assertEquals(601,FFT.getPlan(601).size());
+	}
+	
+	private static double[] random(Random r, int length) {
+		double[] a=new double[length];
+		for (int i=0; i<length; i++) a[i]=r.nextDouble()-0.5;
+		return a;
+	}
+	
+	@Test public void testBatchMatchesSingle() {
+		Random r=new Random(5678);
+		// split radix, mixed radix (incl. general radix) and Bluestein sizes
+		for (int n : new int[] {1,8,12,147,422}) {
+			FFT plan=FFT.getPlan(n);
+			FFT single=new FFT(n);
+			int count=5;
+			int distance=2*n+3;
+			// repeat so that per-thread work buffers are reused with stale contents
+			for (int rep=0; rep<2; rep++) {
+				for (int kind=0; kind<5; kind++) {
+					double[] a=random(r,2+count*distance);
+					double[] b=a.clone();
+					switch (kind) {
+						case 0: plan.complexForwardBatch(a,2,count,distance); break;
+						case 1: plan.complexInverseBatch(a,2,count,distance,true); break;
+						case 2: plan.realForwardBatch(a,2,count,distance); break;
+						case 3: plan.realForwardFullBatch(a,2,count,distance); break;
+						case 4: plan.realInverseBatch(a,2,count,distance,true); break;
+					}
+					for (int i=0; i<count; i++) {
+						int off=2+i*distance;
+						switch (kind) {
+							case 0: single.complexForward(b,off); break;
+							case 1: single.complexInverse(b,off,true); break;
+							case 2: single.realForward(b,off); break;
+							case 3: single.realForwardFull(b,off); break;
+							case 4: single.realInverse(b,off,true); break;
+						}
+					}
+					assertArrayEquals("n="+n+" kind="+kind, b, a, 1e-9);
+				}
+			}
+		}
+	}
+	
+	@Test public void testStridedBatch() {
+		Random r=new Random(91);
+		int rows=422;
+		int cols=37;
+		double[] a=random(r,2*rows*cols);
+		double[] orig=a.clone();
+		FFT fft=FFT.getPlan(rows);
+		
+		// transform all columns of a rows x cols complex matrix
+		fft.complexForwardBatch(a,0,cols,2,2*cols);
+		for (int c=0; c<cols; c++) {
+			double[] col=new double[2*rows];
+			for (int k=0; k<rows; k++) {
+				col[2*k]=orig[2*(k*cols+c)];
+				col[2*k+1]=orig[2*(k*cols+c)+1];
+			}
+			fft.complexForward(col);
+			for (int k=0; k<rows; k++) {
+				assertEquals(col[2*k],a[2*(k*cols+c)],1e-9);
+				assertEquals(col[2*k+1],a[2*(k*cols+c)+1],1e-9);
+			}
+		}
+		
+		fft.complexInverseBatch(a,0,cols,2,2*cols,true);
+		assertArrayEquals(orig,a,1e-9);
+	}
+	
+	@Test public void testMatrixRows() {
+		Random r=new Random(17);
+		Matrix m=Matrix.create(7, 30);
+		m.setElements(random(r,7*30));
+		FFT fft=FFT.getPlan(30);
+		
+		Matrix spectrum=fft.realForwardFullRows(m);
+		assertEquals(60,spectrum.columnCount());
+		double[] row=new double[60];
+		m.getRow(3).getElements(row, 0);
+		fft.realForwardFull(row);
+		assertArrayEquals(row,spectrum.getRow(3).toDoubleArray(),1e-9);
+		
+		Matrix c=spectrum.clone();
+		fft.complexInverseRows(c,true);
+		fft.complexForwardRows(c);
+		assertArrayEquals(spectrum.asDoubleArray(),c.asDoubleArray(),1e-9);
+		
+		assertArrayEquals(m.asDoubleArray(),fft.realInverseRows(spectrum,true).asDoubleArray(),1e-9);
+	}
+	
+	@Test public void testBatchBounds() {
+		FFT fft=FFT.getPlan(16);
+		try {
+			fft.complexForwardBatch(new double[100],0,4,32);
+			fail();
+		} catch (IllegalArgumentException e) {
+			// OK
+		}
+		try {
+			fft.complexForwardRows(Matrix.create(3, 16));
+			fail();
+		} catch (IllegalArgumentException e) {
+			// OK
+		}
+	}
 }
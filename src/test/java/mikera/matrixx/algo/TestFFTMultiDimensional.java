@@ -0,0 +1,122 @@
+package mikera.matrixx.algo;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import mikera.arrayz.Array;
+import mikera.matrixx.Matrix;
+
+import org.junit.Test;
+
+public class TestFFTMultiDimensional {
+
+	/**
+	 * Naive O(n^2) DFT of interleaved complex data with the given shape
+	 */
+	private static double[] naiveDFT(double[] a, int[] shape, int sign) {
+		int n=1;
+		for (int s : shape) n*=s;
+		int dims=shape.length;
+		double[] r=new double[2*n];
+		int[] k=new int[dims];
+		int[] x=new int[dims];
+		for (int ki=0; ki<n; ki++) {
+			unravel(ki,shape,k);
+			double re=0, im=0;
+			for (int xi=0; xi<n; xi++) {
+				unravel(xi,shape,x);
+				double phase=0;
+				for (int d=0; d<dims; d++) phase+=((double)k[d]*x[d])/shape[d];
+				double ang=sign*2*Math.PI*phase;
+				double c=Math.cos(ang), s=Math.sin(ang);
+				re+=a[2*xi]*c-a[2*xi+1]*s;
+				im+=a[2*xi]*s+a[2*xi+1]*c;
+			}
+			r[2*ki]=re;
+			r[2*ki+1]=im;
+		}
+		return r;
+	}
+
+	private static void unravel(int i, int[] shape, int[] out) {
+		for (int d=shape.length-1; d>=0; d--) {
+			out[d]=i%shape[d];
+			i/=shape[d];
+		}
+	}
+
+	private static double[] random(int n, long seed) {
+		Random rand=new Random(seed);
+		double[] d=new double[n];
+		for (int i=0; i<n; i++) d[i]=rand.nextDouble()-0.5;
+		return d;
+	}
+
+	@Test public void test2DComplex() {
+		int[][] shapes={{1,1},{4,8},{6,10},{5,7},{3,40},{37,2}};
+		for (int[] s : shapes) {
+			double[] a=random(2*s[0]*s[1],s[0]*100+s[1]);
+			double[] expected=naiveDFT(a,s,-1);
+			double[] b=a.clone();
+			FFT2D fft=new FFT2D(s[0],s[1]);
+			fft.complexForward(b);
+			assertArrayEquals(expected, b, 1e-9);
+			fft.complexInverse(b, true);
+			assertArrayEquals(a, b, 1e-12);
+		}
+	}
+
+	@Test public void test2DReal() {
+		int rows=6, cols=9;
+		Matrix m=Matrix.create(rows, cols);
+		m.setElements(random(rows*cols,7));
+		double[] complex=new double[2*rows*cols];
+		for (int i=0; i<rows*cols; i++) complex[2*i]=m.data[i];
+
+		FFT2D fft=new FFT2D(rows,cols);
+		Matrix spectrum=fft.realForwardFull(m);
+		assertArrayEquals(naiveDFT(complex,new int[] {rows,cols},-1), spectrum.data, 1e-9);
+
+		Matrix back=fft.realInverse(spectrum, true);
+		assertTrue(back.epsilonEquals(m, 1e-12));
+
+		Matrix c=Matrix.wrap(rows, 2*cols, complex.clone());
+		fft.complexForward(c);
+		assertTrue(c.epsilonEquals(spectrum, 1e-12));
+	}
+
+	@Test public void test3D() {
+		int[][] shapes={{2,3,4},{4,4,4},{5,1,6},{3,7,5}};
+		for (int[] s : shapes) {
+			int n=s[0]*s[1]*s[2];
+			FFT3D fft=new FFT3D(s[0],s[1],s[2]);
+
+			double[] a=random(2*n,n);
+			double[] b=a.clone();
+			fft.complexForward(b);
+			assertArrayEquals(naiveDFT(a,s,-1), b, 1e-9);
+			fft.complexInverse(b, true);
+			assertArrayEquals(a, b, 1e-12);
+
+			Array real=Array.wrap(random(n,n+1), s[0], s[1], s[2]);
+			double[] complex=new double[2*n];
+			for (int i=0; i<n; i++) complex[2*i]=real.getArray()[i];
+			Array spectrum=fft.realForwardFull(real);
+			assertArrayEquals(naiveDFT(complex,s,-1), spectrum.getArray(), 1e-9);
+			assertTrue(fft.realInverse(spectrum, true).epsilonEquals(real, 1e-12));
+		}
+	}
+
+	@Test public void testLarge2DRoundTrip() {
+		// large enough to be split into several parallel tasks
+		int rows=256, cols=300;
+		double[] a=random(2*rows*cols,1);
+		double[] b=a.clone();
+		FFT2D fft=new FFT2D(rows,cols);
+		fft.complexForward(b);
+		fft.complexInverse(b, true);
+		assertArrayEquals(a, b, 1e-10);
+	}
+}
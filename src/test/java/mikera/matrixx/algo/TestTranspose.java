@@ -0,0 +1,102 @@
+package mikera.matrixx.algo;
+
+import static org.junit.Assert.*;
+
+import mikera.arrayz.Array;
+import mikera.arrayz.INDArray;
+import mikera.matrixx.AMatrix;
+import mikera.matrixx.Matrix;
+import mikera.matrixx.impl.AStridedMatrix;
+import mikera.matrixx.impl.DenseColumnMatrix;
+
+import org.junit.Test;
+
+public class TestTranspose {
+
+	private static void checkTranspose(AMatrix m) {
+		Matrix t=m.toMatrixTranspose();
+		assertEquals(m.columnCount(),t.rowCount());
+		assertEquals(m.rowCount(),t.columnCount());
+		assertEquals(m.getTransposeView(),t);
+		assertEquals(m,t.toMatrixTranspose());
+	}
+
+	@Test public void testMatrixTranspose() {
+		int[][] sizes={{0,0},{1,1},{1,7},{7,1},{3,5},{33,65},{100,37},{257,129}};
+		for (int[] s: sizes) {
+			checkTranspose(Matrix.createRandom(s[0], s[1]));
+		}
+	}
+
+	@Test public void testParallelTranspose() {
+		// large enough to take the parallel path
+		Matrix m=Matrix.createRandom(700, 513);
+		checkTranspose(m);
+		assertEquals(m.getTransposeView(),m.getTransposeCopy());
+	}
+
+	@Test public void testStridedTranspose() {
+		Matrix m=Matrix.createRandom(60, 50);
+		AStridedMatrix sm=m.subMatrix(3, 41, 5, 33);
+		checkTranspose(sm);
+		checkTranspose(sm.getTransposeView());
+	}
+
+	@Test public void testTransposeInPlace() {
+		int[] sizes={0,1,2,31,32,33,100,257};
+		for (int n: sizes) {
+			Matrix m=Matrix.createRandom(n, n);
+			Matrix t=m.toMatrixTranspose();
+			m.transposeInPlace();
+			assertEquals(t,m);
+
+			DenseColumnMatrix dm=DenseColumnMatrix.create(t);
+			dm.transposeInPlace();
+			assertEquals(t.getTransposeView(),dm);
+		}
+	}
+
+	@Test public void testTransposeInPlaceStrided() {
+		// square block in the middle of a larger array
+		Matrix m=Matrix.createRandom(80, 90);
+		Matrix copy=m.copy();
+		int n=67;
+		Transpose.transposeInPlace(m.getArray(), 5*90+11, 90, n);
+		for (int i=0; i<80; i++) {
+			for (int j=0; j<90; j++) {
+				boolean inside=(i>=5)&&(i<5+n)&&(j>=11)&&(j<11+n);
+				double expected=inside?copy.get(5+(j-11),11+(i-5)):copy.get(i,j);
+				assertEquals(expected,m.get(i,j),0.0);
+			}
+		}
+	}
+
+	@Test public void testDenseColumnConversions() {
+		Matrix m=Matrix.createRandom(37, 70);
+		DenseColumnMatrix dm=DenseColumnMatrix.create(m);
+		assertEquals(m,dm);
+		assertEquals(m,dm.toMatrix());
+		assertEquals(m.toMatrixTranspose(),dm.toMatrixTranspose());
+		assertEquals(m.subMatrix(1, 20, 2, 30),DenseColumnMatrix.create(m.subMatrix(1, 20, 2, 30)));
+		assertEquals(m.getTransposeView(),DenseColumnMatrix.create(m.getTransposeView()));
+	}
+
+	@Test public void testArrayTranspose() {
+		int[][] shapes={{},{5},{3,4},{2,3,4},{7,1,33,20},{40,3,50}};
+		for (int[] shape: shapes) {
+			Array a=Array.newArray(shape);
+			double[] data=a.getArray();
+			for (int i=0; i<data.length; i++) data[i]=i;
+			INDArray t=a.getTransposeCopy();
+			assertTrue(t instanceof Array);
+			assertEquals(a.getTransposeView(),t);
+			assertEquals(a,t.getTransposeCopy());
+
+			if (shape.length>0) {
+				// strided slices of a larger array
+				INDArray s=a.slice(shape.length-1, 0);
+				assertEquals(s.getTransposeView(),s.getTransposeCopy());
+			}
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package mikera.matrixx.decompose.impl.eigen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import mikera.matrixx.AMatrix;
+import mikera.matrixx.Matrix;
+import mikera.matrixx.decompose.Eigen;
+import mikera.matrixx.decompose.IEigenResult;
+import mikera.matrixx.decompose.QR;
+import mikera.matrixx.impl.SparseRowMatrix;
+import mikera.vectorz.AVector;
+import mikera.vectorz.Vector2;
+
+import org.junit.Test;
+
+public class TestArnoldiEigenDecomposition {
+
+	/**
+	 * Creates a matrix similar to a block diagonal matrix with known eigenvalues,
+	 * including complex conjugate pairs from 2x2 rotation blocks
+	 */
+	private static Matrix createKnown(int n) {
+		Matrix D=Matrix.create(n, n);
+		// complex pair 10(cos 0.5 +- i sin 0.5)
+		D.set(0, 0, 10*Math.cos(0.5));
+		D.set(0, 1, -10*Math.sin(0.5));
+		D.set(1, 0, 10*Math.sin(0.5));
+		D.set(1, 1, 10*Math.cos(0.5));
+		D.set(2, 2, -8);
+		D.set(3, 3, 6);
+		for (int i=4; i<n; i++) {
+			D.set(i, i, 1.0+(i%7)*0.1);
+		}
+		AMatrix Q=QR.decompose(Matrix.createRandom(n, n)).getQ();
+		return Q.innerProduct(D).innerProduct(Q.getTranspose()).toMatrix();
+	}
+
+	private static void checkRealPairs(AMatrix A, IEigenResult r, double tolerance) {
+		Vector2[] values=r.getEigenvalues();
+		AVector[] vectors=r.getEigenVectors();
+		for (int i=0; i<values.length; i++) {
+			if (values[i].y!=0) {
+				assertNull(vectors[i]);
+				continue;
+			}
+			AVector x=vectors[i];
+			AVector ax=A.innerProduct(x);
+			ax.addMultiple(x, -values[i].x);
+			assertTrue("Residual too large: "+ax.magnitude(), ax.magnitude()<tolerance);
+		}
+	}
+
+	@Test
+	public void testLargestMagnitude() {
+		Matrix A=createKnown(50);
+		IEigenResult r=Eigen.decompose(A, 4, true);
+		assertNotNull(r);
+		Vector2[] v=r.getEigenvalues();
+		assertEquals(4, v.length);
+		assertTrue(v[0].epsilonEquals(Vector2.of(10*Math.cos(0.5), 10*Math.sin(0.5)), 1e-8));
+		assertTrue(v[1].epsilonEquals(Vector2.of(10*Math.cos(0.5), -10*Math.sin(0.5)), 1e-8));
+		assertTrue(v[2].epsilonEquals(Vector2.of(-8, 0), 1e-8));
+		assertTrue(v[3].epsilonEquals(Vector2.of(6, 0), 1e-8));
+		checkRealPairs(A, r, 1e-6);
+	}
+
+	@Test
+	public void testSparseNonSymmetric() {
+		// upper bidiagonal matrix, eigenvalues are the diagonal entries
+		int n=200;
+		SparseRowMatrix A=SparseRowMatrix.create(n, n);
+		for (int i=0; i<n; i++) {
+			A.set(i, i, i+1);
+			if (i+1<n) A.set(i, i+1, 0.5);
+		}
+		IEigenResult r=Eigen.decompose(A, 3, true);
+		assertNotNull(r);
+		for (int i=0; i<3; i++) {
+			assertEquals(n-i, r.getEigenvalues()[i].x, 1e-6);
+		}
+		checkRealPairs(A, r, 1e-6);
+	}
+
+	@Test
+	public void testHessenbergQRAlgorithm() {
+		Matrix A=Matrix.create(new double[][] {{4,-2,1},{3,6,-4},{2,1,8}});
+		Matrix H=A.copy().toMatrix();
+		// reduce to Hessenberg first, then check eigenvalues reproduce trace and determinant
+		H=mikera.matrixx.decompose.Hessenberg.decompose(H).getH().toMatrix();
+		HessenbergQRAlgorithm alg=new HessenbergQRAlgorithm(H, null);
+		assertTrue(alg.process());
+		double[] wr=alg.getRealEigenvalues();
+		double[] wi=alg.getImaginaryEigenvalues();
+		double trace=0;
+		for (int i=0; i<3; i++) trace+=wr[i];
+		assertEquals(A.trace(), trace, 1e-10);
+
+		// product of eigenvalues as complex numbers equals determinant
+		double pr=1, pi=0;
+		for (int i=0; i<3; i++) {
+			double nr=pr*wr[i]-pi*wi[i];
+			pi=pr*wi[i]+pi*wr[i];
+			pr=nr;
+		}
+		assertEquals(A.determinant(), pr, 1e-8);
+		assertEquals(0.0, pi, 1e-8);
+	}
+}
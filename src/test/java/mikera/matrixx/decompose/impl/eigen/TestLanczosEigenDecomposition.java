@@ -0,0 +1,113 @@
+package mikera.matrixx.decompose.impl.eigen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import mikera.matrixx.AMatrix;
+import mikera.matrixx.Matrix;
+import mikera.matrixx.decompose.Eigen;
+import mikera.matrixx.decompose.IEigenResult;
+import mikera.matrixx.impl.SparseRowMatrix;
+import mikera.vectorz.AVector;
+import mikera.vectorz.Vector2;
+import mikera.vectorz.Vectorz;
+
+import org.junit.Test;
+
+public class TestLanczosEigenDecomposition {
+
+	/**
+	 * Laplacian of a path graph with n vertices, which has eigenvalues 2-2cos(pi.j/n)
+	 */
+	private static SparseRowMatrix pathLaplacian(int n) {
+		SparseRowMatrix m=SparseRowMatrix.create(n, n);
+		for (int i=0; i<n; i++) {
+			double degree=0;
+			if (i>0) {m.set(i, i-1, -1); degree++;}
+			if (i<n-1) {m.set(i, i+1, -1); degree++;}
+			m.set(i, i, degree);
+		}
+		return m;
+	}
+
+	private static void checkEigenPairs(AMatrix A, IEigenResult r, double tolerance) {
+		Vector2[] values=r.getEigenvalues();
+		AVector[] vectors=r.getEigenVectors();
+		for (int i=0; i<values.length; i++) {
+			AVector x=vectors[i];
+			assertEquals(1.0, x.magnitude(), 1e-8);
+			AVector ax=A.innerProduct(x);
+			ax.addMultiple(x, -values[i].x);
+			assertTrue("Residual too large: "+ax.magnitude(), ax.magnitude()<tolerance);
+		}
+	}
+
+	@Test
+	public void testSmallestLaplacian() {
+		int n=300;
+		SparseRowMatrix L=pathLaplacian(n);
+		IEigenResult r=Eigen.decomposeSymmetric(L, 4, false);
+		assertNotNull(r);
+		Vector2[] values=r.getEigenvalues();
+		assertEquals(4, values.length);
+		for (int j=0; j<4; j++) {
+			assertEquals(2-2*Math.cos(Math.PI*j/n), values[j].x, 1e-8);
+			assertEquals(0.0, values[j].y, 0.0);
+		}
+		checkEigenPairs(L, r, 1e-6);
+	}
+
+	@Test
+	public void testLargestLaplacian() {
+		int n=100;
+		SparseRowMatrix L=pathLaplacian(n);
+		IEigenResult r=Eigen.decomposeSymmetric(L, 3, true);
+		assertNotNull(r);
+		Vector2[] values=r.getEigenvalues();
+		for (int j=0; j<3; j++) {
+			assertEquals(2-2*Math.cos(Math.PI*(n-1-j)/n), values[j].x, 1e-8);
+		}
+		checkEigenPairs(L, r, 1e-6);
+	}
+
+	@Test
+	public void testAgainstDense() {
+		int n=60;
+		Matrix A=Matrix.create(n, n);
+		Vectorz.fillRandom(A.asVector(), 5678);
+		A.add(A.getTransposeCopy());
+
+		double[] all=new double[n];
+		Vector2[] dense=Eigen.decomposeSymmetric(A, false).getEigenvalues();
+		for (int i=0; i<n; i++) all[i]=dense[i].x;
+		Arrays.sort(all);
+
+		IEigenResult r=Eigen.decomposeSymmetric(A, 5, true);
+		assertNotNull(r);
+		for (int i=0; i<5; i++) {
+			assertEquals(all[n-1-i], r.getEigenvalues()[i].x, 1e-8);
+		}
+		checkEigenPairs(A, r, 1e-6);
+
+		r=Eigen.decomposeSymmetric(A, 5, false);
+		assertNotNull(r);
+		for (int i=0; i<5; i++) {
+			assertEquals(all[i], r.getEigenvalues()[i].x, 1e-8);
+		}
+		checkEigenPairs(A, r, 1e-6);
+	}
+
+	@Test
+	public void testSmallMatrix() {
+		Matrix A=Matrix.create(new double[][] {{1,2,3},{2,5,6},{3,6,9}});
+		IEigenResult r=Eigen.decomposeSymmetric(A, 3, true);
+		assertNotNull(r);
+		assertEquals(14.300735254, r.getEigenvalues()[0].x, 1e-8);
+		assertEquals(0.699264746, r.getEigenvalues()[1].x, 1e-8);
+		assertEquals(0.0, r.getEigenvalues()[2].x, 1e-8);
+		checkEigenPairs(A, r, 1e-8);
+	}
+}
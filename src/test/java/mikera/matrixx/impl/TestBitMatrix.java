@@ -0,0 +1,74 @@
+package mikera.matrixx.impl;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import mikera.matrixx.AMatrix;
+import mikera.matrixx.Matrix;
+import mikera.vectorz.BitVector;
+import mikera.vectorz.Vector;
+
+import org.junit.Test;
+
+public class TestBitMatrix {
+
+	private static BitMatrix randomBits(Random r, int rows, int cols) {
+		BitMatrix m=BitMatrix.create(rows, cols);
+		for (int i=0; i<rows; i++) {
+			for (int j=0; j<cols; j++) {
+				if (r.nextInt(3)==0) m.set(i,j,1.0);
+			}
+		}
+		return m;
+	}
+
+	@Test public void testCreate() {
+		Matrix m=Matrix.create(new double[][] {{1,0,-1},{0.5,2,0}});
+		BitMatrix b=BitMatrix.create(m);
+		assertEquals(Matrix.create(new double[][] {{1,0,0},{1,1,0}}),b);
+		assertEquals(3,b.nonZeroCount());
+		assertEquals(BitVector.of(1,1,0),b.getRow(1));
+
+		// rows are views
+		b.getRowView(0).fill(1.0);
+		assertEquals(1.0,b.get(0,2),0.0);
+		assertEquals(5,b.nonZeroCount());
+	}
+
+	@Test public void testTranspose() {
+		Random r=new Random(1);
+		for (int[] s: new int[][] {{1,1},{3,70},{130,65},{0,4}}) {
+			BitMatrix m=randomBits(r,s[0],s[1]);
+			assertEquals(m.getTranspose(),m.transposeCopy());
+		}
+	}
+
+	@Test public void testMultiply() {
+		Random r=new Random(2);
+		int[][] sizes={{1,1,1},{3,70,5},{20,130,65},{0,3,2},{2,0,3},{200,300,100}};
+		for (int[] s: sizes) {
+			BitMatrix a=randomBits(r,s[0],s[1]);
+			BitMatrix b=randomBits(r,s[1],s[2]);
+			Matrix da=Matrix.create(a);
+			Matrix db=Matrix.create(b);
+
+			AMatrix p=a.innerProduct((AMatrix)b);
+			assertEquals(da.innerProduct(db),p);
+
+			BitMatrix bp=a.booleanProduct(b);
+			assertEquals(BitMatrix.create(da.innerProduct(db)),bp);
+		}
+	}
+
+	@Test public void testTransform() {
+		Random r=new Random(3);
+		BitMatrix a=randomBits(r,7,100);
+		BitVector x=a.getRow(2).exactClone();
+		x.not();
+		Vector dx=x.toVector();
+		assertEquals(Matrix.create(a).innerProduct(dx),a.innerProduct(x));
+		assertEquals(Matrix.create(a).innerProduct(dx),a.innerProduct(dx));
+		assertEquals(0.0,a.innerProduct(x).get(2),0.0);
+	}
+}
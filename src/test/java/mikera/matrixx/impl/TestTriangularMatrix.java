@@ -0,0 +1,76 @@
+package mikera.matrixx.impl;
+
+import static org.junit.Assert.assertTrue;
+
+import mikera.matrixx.AMatrix;
+import mikera.matrixx.Matrix;
+import mikera.matrixx.Matrixx;
+import mikera.matrixx.solve.impl.TriangularSolver;
+import mikera.vectorz.AVector;
+import mikera.vectorz.Vector;
+import mikera.vectorz.Vectorz;
+
+import org.junit.Test;
+
+public class TestTriangularMatrix {
+
+	private void checkProducts(ATriangularMatrix t) {
+		Matrix dense=t.toMatrix();
+		int rc=t.rowCount();
+		int cc=t.columnCount();
+
+		Vector v=Vector.createLength(cc);
+		Vectorz.fillRandom(v);
+		assertTrue(dense.innerProduct(v).epsilonEquals(t.innerProduct(v), 1e-10));
+		AVector sv=v.join(Vector.of(0)).subVector(0, cc);
+		assertTrue(dense.innerProduct(sv).epsilonEquals(t.innerProduct(sv), 1e-10));
+
+		if (rc==cc) {
+			// in place transform, where source and destination share an array
+			Vector w=v.clone();
+			t.transform(w,w);
+			assertTrue(dense.innerProduct(v).epsilonEquals(w, 1e-10));
+		}
+
+		for (int k : new int[] {1,7,300}) {
+			Matrix b=Matrix.createRandom(cc, k);
+			AMatrix r=t.innerProduct(b);
+			assertTrue(r.isSameShape(Matrix.create(rc,k)));
+			assertTrue(dense.innerProduct(b).epsilonEquals(r, 1e-10));
+		}
+	}
+
+	@Test
+	public void testLowerProducts() {
+		checkProducts(LowerTriangularMatrix.createFrom(Matrixx.createRandomSquareMatrix(5)));
+		checkProducts(LowerTriangularMatrix.createFrom(Matrixx.createRandomSquareMatrix(150)));
+		checkProducts(LowerTriangularMatrix.createFrom(Matrixx.createRandomMatrix(90,70)));
+		checkProducts(LowerTriangularMatrix.createFrom(Matrixx.createRandomMatrix(70,90)));
+	}
+
+	@Test
+	public void testUpperProducts() {
+		checkProducts(UpperTriangularMatrix.createFrom(Matrixx.createRandomSquareMatrix(5)));
+		checkProducts(UpperTriangularMatrix.createFrom(Matrixx.createRandomSquareMatrix(150)));
+		checkProducts(UpperTriangularMatrix.createFrom(Matrixx.createRandomMatrix(90,70)));
+		checkProducts(UpperTriangularMatrix.createFrom(Matrixx.createRandomMatrix(70,90)));
+	}
+
+	@Test
+	public void testSolveInverseOfMultiply() {
+		int n=120, k=500;
+		Matrix m=Matrixx.createRandomSquareMatrix(n);
+		m.add(Matrix.createIdentity(n).multiplyCopy(n));
+		LowerTriangularMatrix l=LowerTriangularMatrix.createFrom(m);
+		Matrix b=Matrix.createRandom(n, k);
+
+		Matrix x=l.innerProduct(b).toMatrix();
+		TriangularSolver.solveLBlock(l.toMatrix().data, x.data, n, k, false);
+		assertTrue(x.epsilonEquals(b, 1e-10));
+
+		UpperTriangularMatrix u=l.getTranspose();
+		x=u.innerProduct(b).toMatrix();
+		TriangularSolver.solveUBlock(u.toMatrix().data, n, x.data, n, k);
+		assertTrue(x.epsilonEquals(b, 1e-10));
+	}
+}
@@ -0,0 +1,127 @@
+package mikera.matrixx.solve.impl;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import mikera.matrixx.AMatrix;
+import mikera.matrixx.Matrix;
+import mikera.matrixx.impl.BandedMatrix;
+import mikera.matrixx.solve.Linear;
+import mikera.vectorz.AVector;
+import mikera.vectorz.Vector;
+import mikera.vectorz.Vectorz;
+
+import org.junit.Test;
+
+public class TestBandedSolvers {
+
+	private static BandedMatrix createRandomBanded(int n, int kl, int ku) {
+		BandedMatrix m=BandedMatrix.create(n, n, -kl, ku);
+		for (int d=-kl; d<=ku; d++) {
+			Vectorz.fillRandom(m.getBand(d));
+			m.getBand(d).sub(0.5);
+		}
+		return m;
+	}
+
+	private static BandedMatrix createSPDBanded(int n, int kd) {
+		BandedMatrix m=BandedMatrix.create(n, n, -kd, kd);
+		for (int d=1; d<=kd; d++) {
+			Vectorz.fillRandom(m.getBand(d));
+			m.getBand(-d).set(m.getBand(d));
+		}
+		m.getBand(0).fill(2.0*kd+1.0);
+		return m;
+	}
+
+	private static void checkSolution(AMatrix A, AVector x, AVector b) {
+		AVector r=A.innerProduct(x);
+		r.sub(b);
+		assertTrue("Residual too large: "+r.magnitude(), r.magnitude()<1e-8);
+	}
+
+	@Test
+	public void testBandedLU() {
+		for (int[] shape : new int[][] {{1,0,0},{5,1,2},{20,3,1},{50,2,4},{100,0,3}}) {
+			BandedMatrix A=createRandomBanded(shape[0], shape[1], shape[2]);
+			A.getBand(0).add(1.0);
+			Vector b=Vector.createLength(shape[0]);
+			Vectorz.fillRandom(b);
+
+			BandedLUSolver lu=new BandedLUSolver();
+			assertTrue(lu.setA(A));
+			AVector x=lu.solve(b);
+			checkSolution(A, x, b);
+
+			Matrix B=Matrix.createRandom(shape[0], 3);
+			AMatrix X=lu.solve(B);
+			assertTrue(A.innerProduct(X).epsilonEquals(B, 1e-8));
+		}
+	}
+
+	@Test
+	public void testBandedLUPivoting() {
+		// zero on the diagonal requires row interchanges
+		Matrix d=Matrix.create(new double[][] {{0,1,0,0},{1,0,2,0},{0,3,0,1},{0,0,1,1}});
+		BandedMatrix A=BandedMatrix.create(d);
+		Vector b=Vector.of(1,2,3,4);
+		BandedLUSolver lu=new BandedLUSolver();
+		assertTrue(lu.setA(A));
+		checkSolution(d, lu.solve(b), b);
+	}
+
+	@Test
+	public void testSingular() {
+		BandedMatrix A=BandedMatrix.create(6, 6, -1, 1);
+		A.getBand(0).fill(1.0);
+		A.getBand(0).set(3, 0.0);
+		A.getBand(1).set(3, 0.0);
+		A.getBand(-1).set(2, 0.0);
+		assertFalse(new BandedLUSolver().setA(A));
+		assertNull(Linear.solve(A, Vector.createLength(6)));
+	}
+
+	@Test
+	public void testBandedCholesky() {
+		for (int[] shape : new int[][] {{1,0},{10,1},{30,3},{100,5}}) {
+			BandedMatrix A=createSPDBanded(shape[0], shape[1]);
+			Vector b=Vector.createLength(shape[0]);
+			Vectorz.fillRandom(b);
+			BandedCholeskySolver chol=new BandedCholeskySolver();
+			assertTrue(chol.setA(A));
+			checkSolution(A, chol.solve(b), b);
+		}
+
+		BandedMatrix notPD=createSPDBanded(10, 2);
+		notPD.getBand(0).set(4, -1.0);
+		assertFalse(new BandedCholeskySolver().setA(notPD));
+	}
+
+	@Test
+	public void testTridiagonal() {
+		int n=1000;
+		BandedMatrix A=BandedMatrix.create(n, n, -1, 1);
+		A.getBand(-1).fill(-1.0);
+		A.getBand(1).fill(-1.0);
+		A.getBand(0).fill(2.5);
+		Vector b=Vector.createLength(n);
+		Vectorz.fillRandom(b);
+		checkSolution(A, TridiagonalSolver.solve(A, b), b);
+		checkSolution(A, Linear.solve(A, b), b);
+	}
+
+	@Test
+	public void testLinearDispatch() {
+		BandedMatrix A=createRandomBanded(40, 2, 3);
+		A.getBand(0).add(3.0);
+		Vector b=Vector.createLength(40);
+		Vectorz.fillRandom(b);
+		AVector x=Linear.solve(A, b);
+		assertTrue(x.epsilonEquals(Linear.solve(A.toMatrix(), b), 1e-8));
+
+		BandedMatrix S=createSPDBanded(40, 3);
+		Matrix B=Matrix.createRandom(40, 2);
+		assertTrue(S.innerProduct(Linear.solve(S, B)).epsilonEquals(B, 1e-8));
+	}
+}
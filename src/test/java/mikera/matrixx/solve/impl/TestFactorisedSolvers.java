@@ -0,0 +1,142 @@
+package mikera.matrixx.solve.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import mikera.matrixx.AMatrix;
+import mikera.matrixx.Matrix;
+import mikera.matrixx.impl.BandedMatrix;
+import mikera.matrixx.solve.ISolver;
+import mikera.matrixx.solve.Linear;
+import mikera.vectorz.AVector;
+import mikera.vectorz.Vector;
+import mikera.vectorz.Vectorz;
+
+import org.junit.Test;
+
+public class TestFactorisedSolvers {
+
+	private static Matrix createSPD(int n) {
+		Matrix a=Matrix.createRandom(n, n);
+		Matrix spd=a.innerProduct(a.getTranspose());
+		spd.add(Matrix.createIdentity(n));
+		return spd;
+	}
+
+	private static void checkSolver(AMatrix A, ISolver s) {
+		int n=A.rowCount();
+		Vector b=Vector.createLength(n);
+		Vectorz.fillRandom(b);
+		Vector bCopy=b.clone();
+		AVector x=s.solve(b);
+		assertEquals(bCopy, b);
+		assertTrue(A.innerProduct(x).epsilonEquals(b, 1e-8));
+
+		// enough right hand sides to span several column strips and row blocks
+		Matrix B=Matrix.createRandom(n, 300);
+		AMatrix X=s.solve(B);
+		assertEquals(A.columnCount(), X.rowCount());
+		assertTrue(A.innerProduct(X).epsilonEquals(B, 1e-8));
+		assertTrue(X.getColumn(7).epsilonEquals(s.solve(B.getColumn(7)), 1e-10));
+	}
+
+	@Test
+	public void testLU() {
+		for (int n : new int[] {2,3,70,150}) {
+			Matrix A=Matrix.createRandom(n, n);
+			A.add(Matrix.createIdentity(n));
+			ISolver s=Linear.factorize(A);
+			assertTrue(s instanceof FactorisedLUSolver);
+			checkSolver(A,s);
+		}
+	}
+
+	@Test
+	public void testCholesky() {
+		for (int n : new int[] {1,5,130}) {
+			Matrix A=createSPD(n);
+			ISolver s=Linear.factorize(A);
+			assertTrue(s instanceof FactorisedCholeskySolver);
+			checkSolver(A,s);
+		}
+	}
+
+	@Test
+	public void testQR() {
+		Matrix A=Matrix.createRandom(80, 80);
+		A.add(Matrix.createIdentity(80));
+		checkSolver(A,FactorisedQRSolver.create(A));
+
+		// least squares solution agrees with the existing solver
+		Matrix T=Matrix.createRandom(100, 20);
+		ISolver s=Linear.factorize(T);
+		Vector b=Vector.createLength(100);
+		Vectorz.fillRandom(b);
+		assertTrue(s.solve(b).epsilonEquals(Linear.solveLeastSquares(T, b), 1e-8));
+		Matrix B=Matrix.createRandom(100, 4);
+		assertTrue(s.solve(B).epsilonEquals(Linear.solveLeastSquares(T, B), 1e-8));
+	}
+
+	@Test
+	public void testBanded() {
+		BandedMatrix A=BandedMatrix.create(50, 50, -2, 1);
+		for (int d=-2; d<=1; d++) Vectorz.fillRandom(A.getBand(d));
+		A.getBand(0).add(2.0);
+		ISolver s=Linear.factorize(A);
+		assertTrue(s instanceof BandedLUSolver);
+		checkSolver(A,s);
+	}
+
+	@Test
+	public void testSingular() {
+		Matrix A=Matrix.create(new double[][] {{1,2},{2,4}});
+		assertNull(Linear.factorize(A));
+		assertNull(Linear.factorize(Matrix.create(3, 2)));
+		assertNull(Linear.factorize(Matrix.createRandom(2, 3)));
+
+		// dependent up to rounding, so R has a tiny but non-zero diagonal element
+		Random r=new Random(7);
+		Matrix D=Matrix.create(6, 3);
+		for (int i=0; i<6; i++) {
+			double x=r.nextDouble();
+			double y=r.nextDouble();
+			D.set(i,0,x);
+			D.set(i,1,y);
+			D.set(i,2,x+y);
+		}
+		assertNull(FactorisedQRSolver.create(D));
+
+		// rank is judged relative to the scale of the matrix
+		Matrix S=Matrix.create(new double[][] {{1,2},{3,4},{5,7}});
+		S.multiply(1e-200);
+		assertNotNull(FactorisedQRSolver.create(S));
+	}
+
+	@Test
+	public void testTriangularBlock() {
+		int n=140, k=300;
+		Matrix L=Matrix.createRandom(n, n);
+		for (int i=0; i<n; i++) {
+			for (int j=i+1; j<n; j++) L.set(i,j,0.0);
+			L.set(i,i,L.get(i,i)+1.0);
+		}
+		Matrix B=Matrix.createRandom(n, k);
+
+		Matrix X=B.clone();
+		TriangularSolver.solveLBlock(L.data, X.data, n, k, false);
+		assertTrue(L.innerProduct(X).epsilonEquals(B, 1e-8));
+
+		X=B.clone();
+		TriangularSolver.solveTranLBlock(L.data, X.data, n, k);
+		assertTrue(L.getTranspose().innerProduct(X).epsilonEquals(B, 1e-8));
+
+		Matrix U=L.getTransposeCopy().toMatrix();
+		X=B.clone();
+		TriangularSolver.solveUBlock(U.data, n, X.data, n, k);
+		assertTrue(U.innerProduct(X).epsilonEquals(B, 1e-8));
+	}
+}
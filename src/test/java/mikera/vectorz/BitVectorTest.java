@@ -2,6 +2,8 @@ package mikera.vectorz;
 
 import static org.junit.Assert.*;
 
+import java.util.Random;
+
 import org.junit.Test;
 
 public class BitVectorTest {
@@ -65,4 +67,75 @@ public class BitVectorTest {
 		
 		assertEquals(b.dotProduct(b),b.elementSquaredSum(),0.0);
 	}
+	
+	private static BitVector randomBits(Random r, int length) {
+		BitVector b=new BitVector(length);
+		for (int i=0; i<length; i++) {
+			if (r.nextBoolean()) b.set(i,1.0);
+		}
+		return b;
+	}
+	
+	@Test
+	public void testWordKernels() {
+		Random r=new Random(1);
+		for (int len: new int[] {0,1,63,64,65,200,4096}) {
+			BitVector a=randomBits(r,len);
+			BitVector b=randomBits(r,len);
+			Vector da=a.toVector();
+			Vector db=b.toVector();
+			
+			assertEquals(da.dotProduct(db),a.dotProduct(b),0.0);
+			assertEquals(da.dotProduct(db),a.intersectionCount(b),0.0);
+			assertEquals(da.dotProduct(db),a.dotProduct(db),0.0);
+			assertEquals(da.distanceL1(db),a.hammingDistance(b),0.0);
+			assertEquals(da.distanceSquared(db),a.distanceSquared(b),0.0);
+			assertEquals(a.elementSum()+b.elementSum()-a.intersectionCount(b),a.unionCount(b),0.0);
+			
+			BitVector c=a.exactClone();
+			c.and(b);
+			assertEquals(da.multiplyCopy(db),c);
+			
+			c=a.exactClone();
+			c.xor(b);
+			assertEquals(a.hammingDistance(b),c.nonZeroCount());
+			
+			c=a.exactClone();
+			c.or(b);
+			assertEquals(a.unionCount(b),c.nonZeroCount());
+			c.andNot(b);
+			assertEquals(a.nonZeroCount()-a.intersectionCount(b),c.nonZeroCount());
+			
+			c=a.exactClone();
+			c.not();
+			assertEquals(len-a.nonZeroCount(),c.nonZeroCount());
+			assertEquals(0,c.intersectionCount(a));
+		}
+	}
+	
+	@Test
+	public void testJaccard() {
+		BitVector a=BitVector.of(1,1,0,0,1);
+		BitVector b=BitVector.of(0,1,0,1,1);
+		assertEquals(0.5,a.jaccardSimilarity(b),0.0);
+		assertEquals(1.0,a.jaccardSimilarity(a),0.0);
+		assertEquals(1.0,new BitVector(3).jaccardSimilarity(new BitVector(3)),0.0);
+		assertEquals(2,a.hammingDistance(b));
+	}
+	
+	@Test
+	public void testFillAndWrap() {
+		BitVector b=new BitVector(70);
+		b.fill(1.0);
+		assertEquals(70,b.nonZeroCount());
+		b.not();
+		assertTrue(b.isZero());
+		
+		long[] words=new long[] {-1L,5L,-1L};
+		BitVector w=BitVector.wrap(words, 1, 3);
+		assertEquals(BitVector.of(1,0,1),w);
+		assertTrue(w.isView());
+		w.set(1,1.0);
+		assertEquals(7L,words[1]);
+	}
 }
@@ -8,11 +8,15 @@ import java.util.List;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
+import mikera.matrixx.Matrix;
 import mikera.transformz.TestTransformz;
 import mikera.util.Maths;
 import mikera.util.Rand;
 import mikera.vectorz.ops.Clamp;
+import mikera.vectorz.ops.CompiledOp;
+import mikera.vectorz.ops.CompiledOp2;
 import mikera.vectorz.ops.Composed;
+import mikera.vectorz.ops.ComposedOp2;
 import mikera.vectorz.ops.Constant;
 import mikera.vectorz.ops.GaussianNoise;
 import mikera.vectorz.ops.Identity;
@@ -72,6 +76,29 @@ public class TestOps {
 		assertEquals(0.0, op.derivative(1000.0),0.0001);
 	}
 	
+	@Test public void testApproximateOps() {
+		Op[] exact={Ops.EXP,Ops.LOGISTIC,Ops.TANH,Ops.SIN,Ops.COS};
+		Op[] approx={Ops.APPROX_EXP,Ops.APPROX_LOGISTIC,Ops.APPROX_TANH,Ops.APPROX_SIN,Ops.APPROX_COS};
+		Op[] fast={Ops.FAST_EXP,Ops.FAST_LOGISTIC,Ops.FAST_TANH,Ops.FAST_SIN,Ops.FAST_COS};
+		AVector v=Vectorz.createUniformRandomVector(1000);
+		v.multiply(20.0);
+		v.add(-10.0);
+		for (int i=0; i<exact.length; i++) {
+			AVector e=v.applyOpCopy(exact[i]);
+			assertTrue(approx[i].toString(),e.epsilonEquals(v.applyOpCopy(approx[i]), 1e-7*e.maxAbsElement()));
+			assertTrue(fast[i].toString(),e.epsilonEquals(v.applyOpCopy(fast[i]), 1e-4*e.maxAbsElement()));
+		}
+		
+		AVector p=Vectorz.createUniformRandomVector(1000);
+		p.multiply(100.0);
+		AVector e=p.applyOpCopy(Ops.LOG);
+		assertTrue(e.epsilonEquals(p.applyOpCopy(Ops.APPROX_LOG), 1e-7*e.maxAbsElement()));
+		assertTrue(e.epsilonEquals(p.applyOpCopy(Ops.FAST_LOG), 1e-4*e.maxAbsElement()));
+		
+		assertEquals(Ops.APPROX_LOG,Ops.APPROX_EXP.getInverse());
+		assertEquals(Ops.FAST_EXP,Ops.FAST_LOG.getInverse());
+	}
+	
 	@Test public void testLog10() {
 		Op op=Ops.LOG10;
 		assertEquals(1.0, op.apply(10),0.0001);
@@ -169,6 +196,55 @@ public class TestOps {
 		assertTrue(v1.equalsArray(d1));	
 	}
 	
+	private void testArrayKernels(Op op) {
+		if (op.isStochastic()) return;
+		// long enough to cover several blocks of blocked kernels, plus a partial block
+		int SIZE=600;
+		int STRIDE=3;
+		double[] src=new double[SIZE*STRIDE+1];
+		for (int i=0; i<src.length; i++) {
+			src[i]=Rand.nextGaussian()*3;
+		}
+		
+		double[] d1=src.clone();
+		op.applyTo(d1, 1, SIZE);
+		double[] d2=src.clone();
+		op.applyTo(d2, 1, STRIDE, SIZE);
+		double[] d3=src.clone();
+		op.applyTo(d3, 1, STRIDE, 5);
+		for (int i=0; i<SIZE; i++) {
+			assertEquals(op.toString(), op.apply(src[1+i]), d1[1+i], 0.0);
+			assertEquals(op.toString(), op.apply(src[1+i*STRIDE]), d2[1+i*STRIDE], 0.0);
+			if (i<5) assertEquals(op.toString(), op.apply(src[1+i*STRIDE]), d3[1+i*STRIDE], 0.0);
+		}
+		// elements outside the range are untouched
+		assertEquals(src[0], d1[0], 0.0);
+		assertEquals(src[2], d2[2], 0.0);
+		assertEquals(src[1+5*STRIDE], d3[1+5*STRIDE], 0.0);
+	}
+	
+	private void testCompiled(Op op) {
+		Op c=op.compile();
+		assertTrue(c instanceof CompiledOp);
+		assertSame(c,op.compile());
+		assertSame(c,c.compile());
+		assertEquals(op.hasDerivative(),c.hasDerivative());
+		assertEquals(op.isStochastic(),c.isStochastic());
+		if (op.isStochastic()) return;
+		
+		for (int i=0; i<20; i++) {
+			double x=Rand.nextGaussian()*10;
+			assertEquals(op.toString(), op.apply(x), c.apply(x), 0.0);
+		}
+		testArrayKernels(c);
+		
+		Matrix m=Matrix.createRandom(3, 4);
+		Matrix m2=m.clone();
+		m.applyOp(op);
+		m2.applyOp(c);
+		assertEquals(m,m2);
+	}
+	
 	private void testTransforms(Op op) {
 		if (op.isStochastic()) return;
 		TestTransformz.doTransformTests(op.getTransform(1));
@@ -265,6 +341,8 @@ public class TestOps {
 		testInverse(op);
 		testStochastic(op);
 		testVectorApply(op);
+		testArrayKernels(op);
+		testCompiled(op);
 		testTransforms(op);
 		testBounds(op);
 		testCompositions(op);
@@ -370,6 +448,19 @@ public class TestOps {
 		doOpTest(Ops.ACOS);
 		doOpTest(Ops.ASIN);
 		doOpTest(Ops.ATAN);
+		
+		doOpTest(Ops.APPROX_EXP);
+		doOpTest(Ops.APPROX_LOG);
+		doOpTest(Ops.APPROX_LOGISTIC);
+		doOpTest(Ops.APPROX_TANH);
+		doOpTest(Ops.APPROX_SIN);
+		doOpTest(Ops.APPROX_COS);
+		doOpTest(Ops.FAST_EXP);
+		doOpTest(Ops.FAST_LOG);
+		doOpTest(Ops.FAST_LOGISTIC);
+		doOpTest(Ops.FAST_TANH);
+		doOpTest(Ops.FAST_SIN);
+		doOpTest(Ops.FAST_COS);
 
 		doOpTest(Power.create(0.5));
 		doOpTest(Power.create(1));
@@ -383,6 +474,15 @@ public class TestOps {
 		
 		doOpTest(Ops.LINEAR.product(Quadratic.create(0, 3, 4)));	
 		doOpTest(Ops.LINEAR.divide(Quadratic.create(0, 3, 4)));
+		testArrayKernels(Ops.TANH.sum(Ops.SQUARE));
+		testArrayKernels(Ops.LOGISTIC.product(Ops.EXP));
+		testArrayKernels(Ops.SIN.divide(Ops.COSH));
+		testArrayKernels(Ops.LOG10.compose(Ops.ABS));
+		
+		testCompiled(Ops.TANH.sum(Ops.SQUARE));
+		testCompiled(Ops.LOGISTIC.product(Ops.EXP));
+		testCompiled(Ops.SIN.divide(Ops.COSH));
+		testCompiled(Ops.RECTIFIER.compose(Linear.create(0.5, 0.1)).product(Ops.LOGISTIC).sum(Ops.SQUARE));
 	}
 		
 	@Test public void genericComposeTests() {
@@ -390,4 +490,41 @@ public class TestOps {
 		doComposeTest(StochasticBinary.INSTANCE,GaussianNoise.create(2.0));
 		doComposeTest(Logistic.INSTANCE,Linear.create(10.0, -0.2));
 	}
+	
+	@Test public void testCompiledOp2() {
+		Op2 op=ComposedOp2.create(Ops.ADD, Ops.LOGISTIC.compose(Ops.SQUARE));
+		Op2 c=op.compile();
+		assertTrue(c instanceof CompiledOp2);
+		assertSame(c,op.compile());
+		assertEquals(op.apply(1.5, -2.0),c.apply(1.5, -2.0),0.0);
+		
+		AVector a=Vectorz.createUniformRandomVector(20);
+		AVector b=Vectorz.createUniformRandomVector(20);
+		AVector a1=a.clone();
+		AVector a2=a.clone();
+		op.applyTo(a1, b);
+		c.applyTo(a2, b);
+		assertEquals(a1,a2);
+		
+		a2=a.clone();
+		c.applyTo(a2, b.sparseClone());
+		assertEquals(a1,a2);
+		
+		assertEquals(a.reduce(op, 1.0),a.reduce(c, 1.0),0.0);
+		
+		Matrix m=Matrix.createRandom(3, 4);
+		Matrix mb=Matrix.createRandom(3, 4);
+		Matrix m1=m.clone();
+		Matrix m2=m.clone();
+		op.applyTo(m1, mb);
+		c.applyTo(m2, mb);
+		assertEquals(m1,m2);
+		
+		try {
+			c.applyTo(m2, Matrix.create(4, 3));
+			fail("Shape mismatch not detected");
+		} catch (IllegalArgumentException e) {
+			// OK
+		}
+	}
 }
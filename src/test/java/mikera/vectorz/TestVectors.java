@@ -14,12 +14,15 @@ import mikera.indexz.Index;
 import mikera.indexz.Indexz;
 import mikera.matrixx.AMatrix;
 import mikera.matrixx.Matrixx;
+import mikera.matrixx.impl.BitMatrix;
+import mikera.matrixx.impl.IdentityMatrix;
 import mikera.util.Rand;
 import mikera.vectorz.impl.ArraySubVector;
 import mikera.vectorz.impl.AxisVector;
 import mikera.vectorz.impl.BufferVector;
 import mikera.vectorz.impl.IndexedElementVisitor;
 import mikera.vectorz.impl.GrowableIndexedVector;
+import mikera.vectorz.impl.FloatVector;
 import mikera.vectorz.impl.ImmutableVector;
 import mikera.vectorz.impl.IndexVector;
 import mikera.vectorz.impl.IndexedArrayVector;
@@ -34,6 +37,7 @@ import mikera.vectorz.impl.SingleElementVector;
 import mikera.vectorz.impl.SparseHashedVector;
 import mikera.vectorz.impl.SparseImmutableVector;
 import mikera.vectorz.impl.SparseIndexedVector;
+import mikera.vectorz.impl.StridedCursor;
 import mikera.vectorz.impl.StridedVector;
 import mikera.vectorz.impl.Vector0;
 import mikera.vectorz.impl.WrappedSubVector;
@@ -987,6 +991,8 @@ public class TestVectors {
 		doGenericTests(BitVector.of(0));
 		doGenericTests(BitVector.of(0,1,0));
 		doGenericTests(BitVector.of(0,1,0).subVector(1, 1));
+		doGenericTests(BitVector.wrap(new long[] {-1L,5L}, 1, 3));
+		doGenericTests(BitMatrix.create(IdentityMatrix.create(70)).getRowView(66));
 	}
 	
 	@Test public void g_BufferVector() {
@@ -1183,11 +1189,24 @@ public class TestVectors {
 		doGenericTests(StridedVector.wrap(new double[]{1,2}, 1, 1, 100));
 	}
 		
+	@Test public void g_StridedCursor() {	
+		// rows of a 3x4 matrix, positioned at the last row
+		doGenericTests(StridedCursor.create(new double[]{1,2,3,4,5,6,7,8,9,10,11,12}, 0, 3, 4, 4, 1).moveTo(2));
+		// columns of the same matrix
+		doGenericTests(StridedCursor.create(new double[]{1,2,3,4,5,6,7,8,9,10,11,12}, 0, 4, 1, 3, 4).moveTo(1));
+	}
+		
 	@Test public void g_ImmutableVector() {	
 		doGenericTests(ImmutableVector.create(Vector.of(1,2,3)));
 		doGenericTests(ImmutableVector.create(Vector.of()));
 	}
 		
+	@Test public void g_FloatVector() {	
+		doGenericTests(FloatVector.of(1,2,3));
+		doGenericTests(FloatVector.createLength(0));
+		doGenericTests(FloatVector.wrap(new float[] {1,2,3,4,5,6},2,3));
+	}
+		
 	@Test public void g_RangeVector() {	
 		doGenericTests(RangeVector.create(-10,3));
 		doGenericTests(RangeVector.create(0,7));
@@ -1,6 +1,7 @@
 package mikera.vectorz.impl;
 
 import static org.junit.Assert.*;
+import mikera.matrixx.Matrix;
 import mikera.vectorz.AVector;
 import mikera.vectorz.GrowableVector;
 import mikera.vectorz.Vector;
@@ -30,6 +31,38 @@ public class TestMiscVectors {
 		assertEquals(Vector.of(1,4,3,8,5,12,7,8),v);
 	}
 
+	@Test 
+	public void testStridedCursor() {
+		Matrix m=Matrix.create(new double[][] {{1,2,3},{4,5,6},{7,8,9},{10,11,12}});
+		StridedCursor row=m.getRowCursor();
+		assertEquals(4,row.positionCount());
+		for (int i=0; i<4; i++) {
+			assertEquals(m.getRow(i),row.moveTo(i));
+			assertEquals(i,row.getPosition());
+		}
+		
+		// writes go through to the current position only
+		row.moveTo(1).fill(0.0);
+		assertEquals(Vector.of(0,0,0),m.getRow(1));
+		assertEquals(Vector.of(7,8,9),m.getRow(2));
+		
+		// sub vectors are fixed views of the position they were taken from
+		AVector sub=row.moveTo(3).subVector(1, 2);
+		row.moveTo(0);
+		assertEquals(Vector.of(11,12),sub);
+		
+		StridedCursor col=m.getTransposeView().getRowCursor();
+		assertEquals(Vector.of(3,0,9,12),col.moveTo(2));
+		assertEquals(m.getColumn(0),m.getColumnCursor().moveTo(0));
+		
+		try {
+			row.moveTo(4);
+			fail();
+		} catch (IndexOutOfBoundsException e) {
+			// OK
+		}
+	}
+
 	@Test public void testVectorStuff() {
 		Vector v=Vector.of(0,1,2,3,4,5);
 		v.subVector(1, 2).addMultiple(Vector.of(10,20), 2);
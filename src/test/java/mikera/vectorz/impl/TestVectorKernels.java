@@ -0,0 +1,123 @@
+package mikera.vectorz.impl;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import mikera.vectorz.AVector;
+import mikera.vectorz.Vector;
+import mikera.vectorz.Vectorz;
+
+import org.junit.Test;
+
+public class TestVectorKernels {
+	private static final int LENGTH=40;
+
+	private static double[] randomData(Random r, double density) {
+		double[] data=new double[LENGTH];
+		for (int i=0; i<LENGTH; i++) {
+			if (r.nextDouble()<density) data[i]=r.nextGaussian();
+		}
+		return data;
+	}
+
+	/**
+	 * Creates one vector of each kind handled by VectorKernels, with different contents
+	 */
+	static List<AVector> testVectors() {
+		Random r=new Random(1234);
+		ArrayList<AVector> vs=new ArrayList<AVector>();
+		vs.add(Vector.wrap(randomData(r,1.0)));
+		double[] big=new double[LENGTH*3+5];
+		for (int i=0; i<big.length; i++) big[i]=r.nextGaussian();
+		vs.add(ArraySubVector.wrap(big, 5, LENGTH));
+		vs.add(StridedVector.wrap(big, 2, LENGTH, 3));
+		vs.add(SparseIndexedVector.create(randomData(r,0.2)));
+		vs.add(SparseIndexedVector.create(randomData(r,0.3)));
+		vs.add(SparseHashedVector.create(Vector.wrap(randomData(r,0.2))));
+		vs.add(JoinedVector.joinVectors(Vector.wrap(randomData(r,1.0)).subVector(0, 15), StridedVector.wrap(big, 1, LENGTH-15, 2)));
+		vs.add(JoinedVector.joinVectors(SparseIndexedVector.create(randomData(r,0.3)).subVector(0, 15), Vector.wrap(randomData(r,1.0)).subVector(0, LENGTH-15)));
+		vs.add(JoinedArrayVector.joinVectors(ArraySubVector.wrap(randomData(r,1.0), 0, 10), ArraySubVector.wrap(big, 7, LENGTH-10)));
+		vs.add(JoinedArrayVector.create(ArraySubVector.wrap(big, 1, 3)).join(ArraySubVector.wrap(randomData(r,1.0), 0, 17)).join(ArraySubVector.wrap(big, 50, LENGTH-20)));
+		vs.add(JoinedMultiVector.wrap(Vector.wrap(randomData(r,1.0)).subVector(0, 5),RepeatedElementVector.create(20, 0.5),StridedVector.wrap(big, 0, LENGTH-25, 4)));
+		vs.add(AxisVector.create(7, LENGTH));
+		vs.add(SingleElementVector.create(2.5, 11, LENGTH));
+		vs.add(RepeatedElementVector.create(LENGTH, 1.5));
+		vs.add(Vectorz.createZeroVector(LENGTH));
+		vs.add(RangeVector.create(-20, LENGTH));
+		return vs;
+	}
+
+	@Test public void testDotProducts() {
+		List<AVector> vs=testVectors();
+		for (AVector a: vs) {
+			double[] ad=a.toDoubleArray();
+			for (AVector b: vs) {
+				double[] bd=b.toDoubleArray();
+				double dot=0.0;
+				for (int i=0; i<LENGTH; i++) dot+=ad[i]*bd[i];
+				String msg=a.getClass().getSimpleName()+" x "+b.getClass().getSimpleName();
+				assertEquals(msg,dot,VectorKernels.dotProduct(a, b),1e-10);
+				assertEquals(msg,dot,a.dotProduct(b),1e-10);
+			}
+		}
+	}
+
+	@Test public void testDistances() {
+		List<AVector> vs=testVectors();
+		for (AVector a: vs) {
+			double[] ad=a.toDoubleArray();
+			for (AVector b: vs) {
+				double[] bd=b.toDoubleArray();
+				double sq=0.0;
+				double l1=0.0;
+				double linf=0.0;
+				for (int i=0; i<LENGTH; i++) {
+					double d=ad[i]-bd[i];
+					sq+=d*d;
+					l1+=Math.abs(d);
+					linf=Math.max(linf, Math.abs(d));
+				}
+				String msg=a.getClass().getSimpleName()+" x "+b.getClass().getSimpleName();
+				assertEquals(msg,sq,a.distanceSquared(b),1e-10);
+				assertEquals(msg,Math.sqrt(sq),a.distance(b),1e-10);
+				assertEquals(msg,l1,a.distanceL1(b),1e-10);
+				assertEquals(msg,linf,a.distanceLinf(b),0.0);
+			}
+		}
+	}
+
+	@Test public void testJoinedSegments() {
+		// matching segments are processed segment by segment
+		AVector a=JoinedVector.joinVectors(Vector.of(1,2,3), SparseIndexedVector.create(new double[] {0,4,0}));
+		AVector b=JoinedVector.joinVectors(Vector.of(1,1,1), SparseIndexedVector.create(new double[] {5,2,0}));
+		assertEquals(14.0,a.dotProduct(b),0.0);
+		assertEquals(1+4+25+4,a.distanceSquared(b),0.0);
+		assertEquals(5.0,a.distanceLinf(b),0.0);
+
+		AVector c=JoinedVector.joinVectors(Vector.of(1,1), Vector.of(1,5,2,0));
+		assertEquals(14.0,a.dotProduct(c),0.0);
+		assertEquals(14.0,c.dotProduct(a),0.0);
+	}
+
+	@Test public void testMismatch() {
+		List<AVector> vs=testVectors();
+		AVector shorter=Vector.createLength(LENGTH-1);
+		for (AVector a: vs) {
+			try {
+				VectorKernels.dotProduct(a, shorter);
+				fail("Expected mismatch for "+a.getClass());
+			} catch (IllegalArgumentException e) {
+				// OK
+			}
+			try {
+				VectorKernels.distanceL1(shorter, a);
+				fail("Expected mismatch for "+a.getClass());
+			} catch (IllegalArgumentException e) {
+				// OK
+			}
+		}
+	}
+}
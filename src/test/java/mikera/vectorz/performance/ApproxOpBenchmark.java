@@ -0,0 +1,79 @@
+package mikera.vectorz.performance;
+
+import com.google.caliper.Runner;
+import com.google.caliper.SimpleBenchmark;
+
+import mikera.vectorz.Op;
+import mikera.vectorz.Ops;
+import mikera.vectorz.Vectorz;
+
+/**
+ * Caliper based benchmarks comparing the throughput of approximate transcendental Ops with
+ * the exact versions
+ *
+ * @author Mike
+ */
+public class ApproxOpBenchmark extends SimpleBenchmark {
+	private static final int SIZE = 10000;
+
+	private static final double[] source=Vectorz.createUniformRandomVector(SIZE).toDoubleArray();
+	private static final double[] data=new double[SIZE];
+
+	static {
+		// arguments in [-5,5), log uses their absolute values instead
+		for (int i=0; i<SIZE; i++) {
+			source[i]=source[i]*10.0-5.0;
+		}
+	}
+
+	public volatile double output=0.0;
+
+	private void run(Op op, boolean positive, int runs) {
+		for (int run=0; run<runs; run++) {
+			if (positive) {
+				for (int i=0; i<SIZE; i++) data[i]=Math.abs(source[i])+1e-3;
+			} else {
+				System.arraycopy(source, 0, data, 0, SIZE);
+			}
+			op.applyTo(data, 0, SIZE);
+			output=data[0];
+		}
+	}
+
+	public void timeExp(int runs) { run(Ops.EXP,false,runs); }
+	public void timeExpApprox(int runs) { run(Ops.APPROX_EXP,false,runs); }
+	public void timeExpFast(int runs) { run(Ops.FAST_EXP,false,runs); }
+
+	public void timeLog(int runs) { run(Ops.LOG,true,runs); }
+	public void timeLogApprox(int runs) { run(Ops.APPROX_LOG,true,runs); }
+	public void timeLogFast(int runs) { run(Ops.FAST_LOG,true,runs); }
+
+	public void timeLogistic(int runs) { run(Ops.LOGISTIC,false,runs); }
+	public void timeLogisticApprox(int runs) { run(Ops.APPROX_LOGISTIC,false,runs); }
+	public void timeLogisticFast(int runs) { run(Ops.FAST_LOGISTIC,false,runs); }
+
+	public void timeTanh(int runs) { run(Ops.TANH,false,runs); }
+	public void timeTanhApprox(int runs) { run(Ops.APPROX_TANH,false,runs); }
+	public void timeTanhFast(int runs) { run(Ops.FAST_TANH,false,runs); }
+
+	public void timeSin(int runs) { run(Ops.SIN,false,runs); }
+	public void timeSinApprox(int runs) { run(Ops.APPROX_SIN,false,runs); }
+	public void timeSinFast(int runs) { run(Ops.FAST_SIN,false,runs); }
+
+	public void timeCos(int runs) { run(Ops.COS,false,runs); }
+	public void timeCosApprox(int runs) { run(Ops.APPROX_COS,false,runs); }
+	public void timeCosFast(int runs) { run(Ops.FAST_COS,false,runs); }
+
+	/**
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		new ApproxOpBenchmark().run();
+	}
+
+	private void run() {
+		Runner runner=new Runner();
+		runner.run(new String[] {this.getClass().getCanonicalName()});
+	}
+
+}
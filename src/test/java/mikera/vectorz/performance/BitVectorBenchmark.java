@@ -0,0 +1,113 @@
+package mikera.vectorz.performance;
+
+import java.util.Random;
+
+import com.google.caliper.Runner;
+import com.google.caliper.SimpleBenchmark;
+
+import mikera.matrixx.Matrix;
+import mikera.matrixx.impl.BitMatrix;
+import mikera.vectorz.BitVector;
+import mikera.vectorz.Vector;
+
+/**
+ * Caliper based benchmarks for set similarity over 4096-bit fingerprints, comparing the packed
+ * BitVector / BitMatrix kernels with the same operations on double based vectors and matrices.
+ * 
+ * @author Mike
+ */
+public class BitVectorBenchmark extends SimpleBenchmark {
+	private static final int BITS=4096;
+	private static final int ROWS=256;
+
+	private BitVector a;
+	private BitVector b;
+	private Vector da;
+	private Vector db;
+	
+	private BitMatrix m;
+	private BitMatrix mt;
+	private Matrix dm;
+	private Matrix dmt;
+
+	public volatile double output=0.0;
+
+	private static BitVector randomBits(Random r, int length) {
+		BitVector v=new BitVector(length);
+		for (int i=0; i<length; i++) {
+			if (r.nextInt(4)==0) v.set(i,1.0);
+		}
+		return v;
+	}
+
+	@Override
+	protected void setUp() {
+		Random r=new Random(1);
+		a=randomBits(r,BITS);
+		b=randomBits(r,BITS);
+		da=a.toVector();
+		db=b.toVector();
+		
+		BitVector[] rows=new BitVector[ROWS];
+		for (int i=0; i<ROWS; i++) rows[i]=randomBits(r,BITS);
+		m=BitMatrix.create(rows);
+		mt=m.transposeCopy();
+		dm=Matrix.create(m);
+		dmt=Matrix.create(mt);
+	}
+
+	public void timeBitJaccard(int runs) {
+		for (int run=0; run<runs; run++) {
+			output=a.jaccardSimilarity(b);
+		}
+	}
+
+	public void timeDoubleJaccard(int runs) {
+		for (int run=0; run<runs; run++) {
+			double inter=da.dotProduct(db);
+			output=inter/(da.elementSum()+db.elementSum()-inter);
+		}
+	}
+
+	public void timeBitHamming(int runs) {
+		for (int run=0; run<runs; run++) {
+			output=a.hammingDistance(b);
+		}
+	}
+
+	public void timeDoubleHamming(int runs) {
+		for (int run=0; run<runs; run++) {
+			output=da.distanceL1(db);
+		}
+	}
+
+	public void timeBitDotDouble(int runs) {
+		for (int run=0; run<runs; run++) {
+			output=a.dotProduct(db);
+		}
+	}
+
+	public void timeBitMatrixProduct(int runs) {
+		for (int run=0; run<runs; run++) {
+			output=m.innerProduct(mt).get(0,0);
+		}
+	}
+
+	public void timeDoubleMatrixProduct(int runs) {
+		for (int run=0; run<runs; run++) {
+			output=dm.innerProduct(dmt).get(0,0);
+		}
+	}
+
+	/**
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		new BitVectorBenchmark().run();
+	}
+
+	private void run() {
+		Runner runner=new Runner();
+		runner.run(new String[] {this.getClass().getCanonicalName()});
+	}
+}
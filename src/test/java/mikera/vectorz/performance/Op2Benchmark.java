@@ -8,6 +8,8 @@ import mikera.vectorz.Op2;
 import mikera.vectorz.Ops;
 import mikera.vectorz.Vector;
 import mikera.vectorz.Vectorz;
+import mikera.vectorz.ops.ComposedOp2;
+import mikera.vectorz.ops.Linear;
 
 /**
  * Benchmark for Op2 performance
@@ -20,10 +22,19 @@ public class Op2Benchmark extends SimpleBenchmark {
 	public static AVector a=Vector.createLength(VECTOR_SIZE);
 	public static AVector b=Vector.createLength(VECTOR_SIZE);
 	public static Op2 op=Ops.MAX;
+	public static Op2 composed=ComposedOp2.create(Ops.ADD, Ops.RECTIFIER.compose(Linear.create(0.5, 0.1)).product(Ops.SQUARE));
 
 	static {
 		Vectorz.fillGaussian(a);
 		Vectorz.fillGaussian(b);		
+		
+		// make the interpreted call sites in ComposedOp2 megamorphic, as they are in real applications
+		AVector t=a.clone();
+		for (Op2 o: new Op2[] {Ops.MAX_ABS,Ops.ADD_ABS,Ops.ADD_SQUARE,composed}) {
+			for (int i=0; i<1000; i++) {
+				t.applyOp(o,b);
+			}
+		}
 	}
 	
 	public volatile double output=0.0;
@@ -35,6 +46,23 @@ public class Op2Benchmark extends SimpleBenchmark {
 		}
 	}
 	
+	public void timeComposed(int runs) {
+		AVector t=a.clone();
+		for (int run=0; run<runs; run++) {
+			t.applyOp(composed,b);
+			output=t.get(0);
+		}
+	}
+	
+	public void timeComposedCompiled(int runs) {
+		AVector t=a.clone();
+		Op2 c=composed.compile();
+		for (int run=0; run<runs; run++) {
+			t.applyOp(c,b);
+			output=t.get(0);
+		}
+	}
+	
 	public void timeElementMax(int runs) {
 		AVector t=Vector.createLength(VECTOR_SIZE);
 		for (int run=0; run<runs; run++) {
@@ -0,0 +1,135 @@
+package mikera.vectorz.performance;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.google.caliper.Param;
+import com.google.caliper.Runner;
+import com.google.caliper.SimpleBenchmark;
+
+import mikera.vectorz.Op;
+import mikera.vectorz.Ops;
+import mikera.vectorz.Vectorz;
+import mikera.vectorz.ops.Constant;
+import mikera.vectorz.ops.Linear;
+import mikera.vectorz.ops.Offset;
+import mikera.vectorz.ops.Quadratic;
+
+/**
+ * Caliper based benchmarks comparing the array kernels of the built-in Ops with a generic
+ * per-element loop calling Op.apply(double). Covers every Op with a specialised array kernel.
+ *
+ * @author Mike
+ */
+public class OpKernelBenchmark extends SimpleBenchmark {
+	private static final int SIZE = 10000;
+	private static final int STRIDE = 3;
+
+	private static final double[] source=Vectorz.createUniformRandomVector(SIZE*STRIDE).toDoubleArray();
+	private static final double[] data=new double[SIZE*STRIDE];
+
+	private static final Map<String,Op> OPS=new LinkedHashMap<String,Op>();
+
+	static {
+		OPS.put("abs", Ops.ABS);
+		OPS.put("signum", Ops.SIGNUM);
+		OPS.put("rectifier", Ops.RECTIFIER);
+		OPS.put("linear", Linear.create(2.0, -1.0));
+		OPS.put("offset", Offset.create(0.5));
+		OPS.put("square", Ops.SQUARE);
+		OPS.put("quadratic", Quadratic.create(0.5, 2.0, -1.0));
+		OPS.put("identity", Ops.IDENTITY);
+		OPS.put("constant", Constant.create(3.0));
+		OPS.put("logistic", Ops.LOGISTIC);
+		OPS.put("tanh", Ops.TANH);
+		OPS.put("exp", Ops.EXP);
+		OPS.put("softplus", Ops.SOFTPLUS);
+		OPS.put("cosh", Ops.COSH);
+		OPS.put("sinh", Ops.SINH);
+		OPS.put("rbfNormal", Ops.RBF_NORMAL);
+		OPS.put("log10", Ops.LOG10);
+		OPS.put("stochasticBinary", Ops.STOCHASTIC_BINARY);
+		OPS.put("ceil", Ops.CEIL);
+		OPS.put("floor", Ops.FLOOR);
+		OPS.put("rint", Ops.RINT);
+		OPS.put("sin", Ops.SIN);
+		OPS.put("cos", Ops.COS);
+		OPS.put("tan", Ops.TAN);
+		OPS.put("asin", Ops.ASIN);
+		OPS.put("acos", Ops.ACOS);
+		OPS.put("atan", Ops.ATAN);
+		OPS.put("composed", Ops.LOGISTIC.compose(Linear.create(2.0, -1.0)));
+		OPS.put("sum", Ops.TANH.sum(Ops.SQUARE));
+		OPS.put("product", Ops.LOGISTIC.product(Ops.EXP));
+		OPS.put("division", Ops.SIN.divide(Offset.create(1.0)));
+		OPS.put("tree", Ops.RECTIFIER.compose(Linear.create(0.5, 0.1)).product(Ops.LOGISTIC).sum(Ops.SQUARE));
+		OPS.put("cheapTree", Ops.SQUARE.compose(Linear.create(2.0, 1.0)).sum(Ops.ABS).product(Linear.create(0.5, 0.25)).sum(Ops.RECTIFIER));
+
+		// make the generic call site megamorphic, as it is in real applications
+		for (Op op: OPS.values()) {
+			for (int i=0; i<2000; i++) {
+				generic(op,source,0,1,100);
+			}
+		}
+	}
+
+	@Param({"abs","signum","rectifier","linear","offset","square","quadratic","identity","constant",
+		"logistic","tanh","exp","softplus","cosh","sinh","rbfNormal","log10","stochasticBinary",
+		"ceil","floor","rint","sin","cos","tan","asin","acos","atan",
+		"composed","sum","product","division","tree","cheapTree"})
+	String op;
+
+	private Op kernelOp;
+	private Op compiledOp;
+
+	public volatile double output=0.0;
+
+	@Override
+	protected void setUp() {
+		kernelOp=OPS.get(op);
+		compiledOp=kernelOp.compile();
+	}
+
+	private static void generic(Op op, double[] d, int start, int stride, int length) {
+		for (int i=0; i<length; i++) {
+			int ii=start+i*stride;
+			d[ii]=op.apply(d[ii]);
+		}
+	}
+
+	private void kernel(Op op, int stride, int runs) {
+		for (int run=0; run<runs; run++) {
+			System.arraycopy(source, 0, data, 0, SIZE*stride);
+			op.applyTo(data, 0, stride, SIZE);
+			output=data[0];
+		}
+	}
+
+	private void generic(Op op, int stride, int runs) {
+		for (int run=0; run<runs; run++) {
+			System.arraycopy(source, 0, data, 0, SIZE*stride);
+			generic(op, data, 0, stride, SIZE);
+			output=data[0];
+		}
+	}
+
+	public void timeKernel(int runs) { kernel(kernelOp,1,runs); }
+	public void timeGeneric(int runs) { generic(kernelOp,1,runs); }
+	public void timeStridedKernel(int runs) { kernel(kernelOp,STRIDE,runs); }
+	public void timeStridedGeneric(int runs) { generic(kernelOp,STRIDE,runs); }
+	public void timeCompiled(int runs) { kernel(compiledOp,1,runs); }
+	public void timeCompiledStrided(int runs) { kernel(compiledOp,STRIDE,runs); }
+
+	/**
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		new OpKernelBenchmark().run();
+	}
+
+	private void run() {
+		Runner runner=new Runner();
+		runner.run(new String[] {this.getClass().getCanonicalName()});
+	}
+
+}
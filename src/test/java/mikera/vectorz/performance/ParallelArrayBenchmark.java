@@ -0,0 +1,91 @@
+package mikera.vectorz.performance;
+
+import com.google.caliper.Runner;
+import com.google.caliper.SimpleBenchmark;
+
+import mikera.vectorz.Ops;
+import mikera.vectorz.Vector;
+import mikera.vectorz.Vectorz;
+import mikera.vectorz.ops.Max;
+import mikera.vectorz.util.DoubleArrays;
+
+/**
+ * Caliper based benchmarks comparing serial and parallel elementwise operations and reductions
+ * over large dense vectors
+ *
+ * @author Mike
+ */
+public class ParallelArrayBenchmark extends SimpleBenchmark {
+	private static final int SIZE = 1<<23;
+
+	private static final Vector v=Vector.wrap(Vectorz.createUniformRandomVector(SIZE).toDoubleArray());
+	private static final Vector w=Vector.wrap(Vectorz.createUniformRandomVector(SIZE).toDoubleArray());
+	private static final double[] vd=v.getArray();
+	private static final double[] wd=w.getArray();
+	private static final Max MAX=new Max();
+
+	public volatile double output=0.0;
+
+	public void timeElementSumSerial(int runs) {
+		for (int run=0; run<runs; run++) {
+			output=DoubleArrays.elementSum(vd);
+		}
+	}
+
+	public void timeElementSumParallel(int runs) {
+		for (int run=0; run<runs; run++) {
+			output=v.elementSum();
+		}
+	}
+
+	public void timeDotProductSerial(int runs) {
+		for (int run=0; run<runs; run++) {
+			output=DoubleArrays.dotProduct(vd, 0, wd, 0, SIZE);
+		}
+	}
+
+	public void timeDotProductParallel(int runs) {
+		for (int run=0; run<runs; run++) {
+			output=v.dotProduct(w);
+		}
+	}
+
+	public void timeReduceSerial(int runs) {
+		for (int run=0; run<runs; run++) {
+			output=MAX.reduce(0.0, vd, 0, SIZE);
+		}
+	}
+
+	public void timeReduceParallel(int runs) {
+		for (int run=0; run<runs; run++) {
+			output=v.reduce(MAX, 0.0);
+		}
+	}
+
+	public void timeApplyOpSerial(int runs) {
+		for (int run=0; run<runs; run++) {
+			Ops.SQRT.applyTo(vd, 0, SIZE);
+			Ops.SQUARE.applyTo(vd, 0, SIZE);
+		}
+	}
+
+	public void timeApplyOpParallel(int runs) {
+		for (int run=0; run<runs; run++) {
+			v.applyOp(Ops.SQRT);
+			v.applyOp(Ops.SQUARE);
+		}
+	}
+
+	/**
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		new ParallelArrayBenchmark().run();
+	}
+
+	private void run() {
+		Runner runner=new Runner();
+		runner.run(new String[] {this.getClass().getCanonicalName()});
+	}
+
+}
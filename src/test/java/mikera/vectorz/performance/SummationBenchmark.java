@@ -0,0 +1,103 @@
+package mikera.vectorz.performance;
+
+import java.math.BigDecimal;
+
+import com.google.caliper.Runner;
+import com.google.caliper.SimpleBenchmark;
+
+import mikera.vectorz.Vectorz;
+import mikera.vectorz.util.DoubleArrays;
+
+/**
+ * Caliper based benchmarks comparing the throughput of summation and dot product kernels.
+ *
+ * main() also prints the relative error of each kernel against an exact sum.
+ *
+ * @author Mike
+ */
+public class SummationBenchmark extends SimpleBenchmark {
+	private static final int SIZE = 1000000;
+
+	private static final double[] a=Vectorz.createUniformRandomVector(SIZE).toDoubleArray();
+	private static final double[] b=Vectorz.createUniformRandomVector(SIZE).toDoubleArray();
+
+	public volatile double output=0.0;
+
+	private static double naiveSum(double[] data) {
+		double result=0.0;
+		for (int i=0; i<data.length; i++) {
+			result+=data[i];
+		}
+		return result;
+	}
+
+	public void timeSumNaive(int runs) {
+		for (int run=0; run<runs; run++) {
+			output=naiveSum(a);
+		}
+	}
+
+	public void timeSumPairwise(int runs) {
+		for (int run=0; run<runs; run++) {
+			output=DoubleArrays.elementSum(a);
+		}
+	}
+
+	public void timeSumKahan(int runs) {
+		for (int run=0; run<runs; run++) {
+			output=DoubleArrays.kahanSum(a);
+		}
+	}
+
+	public void timeDotNaive(int runs) {
+		for (int run=0; run<runs; run++) {
+			output=DoubleArrays.dotProduct(a, 0, b, 0, SIZE);
+		}
+	}
+
+	public void timeDotPairwise(int runs) {
+		for (int run=0; run<runs; run++) {
+			output=DoubleArrays.pairwiseDotProduct(a, 0, b, 0, SIZE);
+		}
+	}
+
+	public void timeDotKahan(int runs) {
+		for (int run=0; run<runs; run++) {
+			output=DoubleArrays.kahanDotProduct(a, 0, b, 0, SIZE);
+		}
+	}
+
+	private static void printError(String name, double value, BigDecimal exact) {
+		double rel=new BigDecimal(value).subtract(exact).abs().doubleValue()/exact.abs().doubleValue();
+		System.out.println(name+" relative error: "+rel);
+	}
+
+	private static void printErrors() {
+		BigDecimal sum=BigDecimal.ZERO;
+		BigDecimal dot=BigDecimal.ZERO;
+		for (int i=0; i<SIZE; i++) {
+			sum=sum.add(new BigDecimal(a[i]));
+			dot=dot.add(new BigDecimal(a[i]).multiply(new BigDecimal(b[i])));
+		}
+		printError("Sum naive",naiveSum(a),sum);
+		printError("Sum pairwise",DoubleArrays.elementSum(a),sum);
+		printError("Sum Kahan",DoubleArrays.kahanSum(a),sum);
+		printError("Dot naive",DoubleArrays.dotProduct(a, 0, b, 0, SIZE),dot);
+		printError("Dot pairwise",DoubleArrays.pairwiseDotProduct(a, 0, b, 0, SIZE),dot);
+		printError("Dot Kahan",DoubleArrays.kahanDotProduct(a, 0, b, 0, SIZE),dot);
+	}
+
+	/**
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		printErrors();
+		new SummationBenchmark().run();
+	}
+
+	private void run() {
+		Runner runner=new Runner();
+		runner.run(new String[] {this.getClass().getCanonicalName()});
+	}
+
+}
@@ -0,0 +1,108 @@
+package mikera.vectorz.performance;
+
+import java.util.Random;
+
+import com.google.caliper.Param;
+import com.google.caliper.Runner;
+import com.google.caliper.SimpleBenchmark;
+
+import mikera.vectorz.AVector;
+import mikera.vectorz.Vector;
+import mikera.vectorz.impl.ArraySubVector;
+import mikera.vectorz.impl.AxisVector;
+import mikera.vectorz.impl.JoinedArrayVector;
+import mikera.vectorz.impl.JoinedVector;
+import mikera.vectorz.impl.SparseHashedVector;
+import mikera.vectorz.impl.SparseIndexedVector;
+import mikera.vectorz.impl.StridedVector;
+
+/**
+ * Caliper based benchmarks for dot products and distances over every pair of vector types.
+ *
+ * The generic methods show the cost of the element by element fallback for comparison.
+ *
+ * @author Mike
+ */
+public class VectorKernelBenchmark extends SimpleBenchmark {
+	private static final int SIZE = 10000;
+
+	@Param({"dense","strided","sparse","hashed","joined","joinedArray","axis"})
+	String left;
+
+	@Param({"dense","strided","sparse","hashed","joined","joinedArray","axis"})
+	String right;
+
+	private AVector a;
+	private AVector b;
+
+	public volatile double output=0.0;
+
+	private static AVector create(String kind, long seed) {
+		Random r=new Random(seed);
+		double[] data=new double[SIZE*2];
+		for (int i=0; i<data.length; i++) {
+			data[i]=r.nextGaussian();
+		}
+		if (kind.equals("dense")) return Vector.wrap(data).subVector(0, SIZE);
+		if (kind.equals("strided")) return StridedVector.wrap(data, 1, SIZE, 2);
+		if (kind.equals("joined")) return JoinedVector.joinVectors(Vector.wrap(data).subVector(0, SIZE/2), StridedVector.wrap(data, SIZE, SIZE/2, 2));
+		if (kind.equals("joinedArray")) return JoinedArrayVector.joinVectors(ArraySubVector.wrap(data, 0, SIZE/3), ArraySubVector.wrap(data, SIZE, SIZE-SIZE/3));
+		if (kind.equals("axis")) return AxisVector.create(SIZE/2, SIZE);
+
+		// sparse vectors with 1% non-zero elements
+		double[] sparse=new double[SIZE];
+		for (int i=0; i<SIZE; i+=100) {
+			sparse[i+r.nextInt(100)]=data[i];
+		}
+		if (kind.equals("sparse")) return SparseIndexedVector.create(sparse);
+		if (kind.equals("hashed")) return SparseHashedVector.create(Vector.wrap(sparse));
+		throw new IllegalArgumentException("Unknown vector kind: "+kind);
+	}
+
+	@Override
+	protected void setUp() {
+		a=create(left,1);
+		b=create(right,2);
+	}
+
+	public void timeDotProduct(int runs) {
+		for (int run=0; run<runs; run++) {
+			output=a.dotProduct(b);
+		}
+	}
+
+	public void timeDistanceSquared(int runs) {
+		for (int run=0; run<runs; run++) {
+			output=a.distanceSquared(b);
+		}
+	}
+
+	public void timeDistanceL1(int runs) {
+		for (int run=0; run<runs; run++) {
+			output=a.distanceL1(b);
+		}
+	}
+
+	public void timeGenericDotProduct(int runs) {
+		for (int run=0; run<runs; run++) {
+			double result=0.0;
+			for (int i=0; i<SIZE; i++) {
+				result+=a.unsafeGet(i)*b.unsafeGet(i);
+			}
+			output=result;
+		}
+	}
+
+	/**
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		new VectorKernelBenchmark().run();
+	}
+
+	private void run() {
+		Runner runner=new Runner();
+		runner.run(new String[] {this.getClass().getCanonicalName()});
+	}
+
+}
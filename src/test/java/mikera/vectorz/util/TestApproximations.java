@@ -0,0 +1,142 @@
+package mikera.vectorz.util;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestApproximations {
+	private static final double PRECISE=1e-7;
+	private static final double FAST=1e-4;
+
+	private static final int SAMPLES=200000;
+
+	private interface Fn {
+		public double apply(double x);
+	}
+
+	private static void checkRange(String name, Fn approx, Fn exact, double lo, double hi, double tolerance) {
+		Random r=new Random(4567);
+		for (int i=0; i<SAMPLES; i++) {
+			double x=lo+(hi-lo)*r.nextDouble();
+			checkPoint(name,approx,exact,x,tolerance);
+		}
+		checkPoint(name,approx,exact,lo,tolerance);
+		checkPoint(name,approx,exact,hi,tolerance);
+	}
+
+	private static void checkPoint(String name, Fn approx, Fn exact, double x, double tolerance) {
+		double e=exact.apply(x);
+		double a=approx.apply(x);
+		if (e==0.0) {
+			assertEquals(name+" at "+x, 0.0, a, 0.0);
+		} else {
+			double rel=Math.abs((a-e)/e);
+			if (!(rel<=tolerance)) fail(name+" at "+x+" has relative error "+rel);
+		}
+	}
+
+	private static void checkSpecial(String name, Fn approx, Fn exact) {
+		double[] xs={0.0,-0.0,Double.NaN,Double.POSITIVE_INFINITY,Double.NEGATIVE_INFINITY,Double.MIN_VALUE,-Double.MIN_VALUE};
+		for (double x: xs) {
+			assertEquals(name+" at "+x, exact.apply(x), approx.apply(x), 0.0);
+		}
+	}
+
+	private static final Fn EXP=new Fn() {public double apply(double x) {return Math.exp(x);}};
+	private static final Fn LOG=new Fn() {public double apply(double x) {return Math.log(x);}};
+	private static final Fn LOGISTIC=new Fn() {public double apply(double x) {return 1.0/(1.0+Math.exp(-x));}};
+	private static final Fn TANH=new Fn() {public double apply(double x) {return Math.tanh(x);}};
+	private static final Fn SIN=new Fn() {public double apply(double x) {return Math.sin(x);}};
+	private static final Fn COS=new Fn() {public double apply(double x) {return Math.cos(x);}};
+
+	@Test public void testExp() {
+		Fn a=new Fn() {public double apply(double x) {return Approximations.exp(x);}};
+		Fn f=new Fn() {public double apply(double x) {return Approximations.fastExp(x);}};
+		checkRange("exp",a,EXP,-5,5,PRECISE);
+		checkRange("exp",a,EXP,-708,709.7,PRECISE);
+		checkRange("fastExp",f,EXP,-5,5,FAST);
+		checkRange("fastExp",f,EXP,-708,709.7,FAST);
+		checkSpecial("exp",a,EXP);
+		checkSpecial("fastExp",f,EXP);
+		assertEquals(1.0,Approximations.exp(0.0),0.0);
+		assertEquals(Double.POSITIVE_INFINITY,Approximations.exp(710.0),0.0);
+		assertEquals(0.0,Approximations.exp(-800.0),0.0);
+	}
+
+	@Test public void testLog() {
+		Fn a=new Fn() {public double apply(double x) {return Approximations.log(x);}};
+		Fn f=new Fn() {public double apply(double x) {return Approximations.fastLog(x);}};
+		checkRange("log",a,LOG,0.5,2,PRECISE);
+		checkRange("log",a,LOG,Double.MIN_NORMAL,1e300,PRECISE);
+		checkRange("fastLog",f,LOG,0.5,2,FAST);
+		checkRange("fastLog",f,LOG,Double.MIN_NORMAL,1e300,FAST);
+		for (int i=-1000; i<1000; i++) {
+			double x=Math.pow(1.1, i);
+			checkPoint("log",a,LOG,x,PRECISE);
+			checkPoint("fastLog",f,LOG,x,FAST);
+		}
+		checkSpecial("log",a,LOG);
+		checkSpecial("fastLog",f,LOG);
+		assertEquals(0.0,Approximations.log(1.0),0.0);
+		assertTrue(Double.isNaN(Approximations.log(-1.0)));
+	}
+
+	@Test public void testLogistic() {
+		Fn a=new Fn() {public double apply(double x) {return Approximations.logistic(x);}};
+		Fn f=new Fn() {public double apply(double x) {return Approximations.fastLogistic(x);}};
+		checkRange("logistic",a,LOGISTIC,-20,20,PRECISE);
+		checkRange("logistic",a,LOGISTIC,-700,700,PRECISE);
+		checkRange("fastLogistic",f,LOGISTIC,-20,20,FAST);
+		checkRange("fastLogistic",f,LOGISTIC,-700,700,FAST);
+		assertEquals(0.5,Approximations.logistic(0.0),0.0);
+		assertEquals(1.0,Approximations.logistic(Double.POSITIVE_INFINITY),0.0);
+		assertEquals(0.0,Approximations.logistic(Double.NEGATIVE_INFINITY),0.0);
+	}
+
+	@Test public void testTanh() {
+		Fn a=new Fn() {public double apply(double x) {return Approximations.tanh(x);}};
+		Fn f=new Fn() {public double apply(double x) {return Approximations.fastTanh(x);}};
+		checkRange("tanh",a,TANH,-1e-6,1e-6,PRECISE);
+		checkRange("tanh",a,TANH,-3,3,PRECISE);
+		checkRange("tanh",a,TANH,-500,500,PRECISE);
+		checkRange("fastTanh",f,TANH,-1e-6,1e-6,FAST);
+		checkRange("fastTanh",f,TANH,-3,3,FAST);
+		checkRange("fastTanh",f,TANH,-500,500,FAST);
+		checkSpecial("tanh",a,TANH);
+		checkSpecial("fastTanh",f,TANH);
+	}
+
+	@Test public void testSinCos() {
+		Fn as=new Fn() {public double apply(double x) {return Approximations.sin(x);}};
+		Fn fs=new Fn() {public double apply(double x) {return Approximations.fastSin(x);}};
+		Fn ac=new Fn() {public double apply(double x) {return Approximations.cos(x);}};
+		Fn fc=new Fn() {public double apply(double x) {return Approximations.fastCos(x);}};
+		checkRange("sin",as,SIN,-10,10,PRECISE);
+		checkRange("sin",as,SIN,-65536,65536,PRECISE);
+		checkRange("fastSin",fs,SIN,-10,10,FAST);
+		checkRange("fastSin",fs,SIN,-65536,65536,FAST);
+		checkRange("cos",ac,COS,-10,10,PRECISE);
+		checkRange("cos",ac,COS,-65536,65536,PRECISE);
+		checkRange("fastCos",fc,COS,-10,10,FAST);
+		checkRange("fastCos",fc,COS,-65536,65536,FAST);
+
+		// arguments close to the zeros, where relative error depends on accurate range reduction
+		for (int k=-40000; k<=40000; k+=7) {
+			double x=k*(Math.PI/2);
+			for (double y: new double[] {Math.nextDown(x),x,Math.nextUp(x)}) {
+				checkPoint("sin",as,SIN,y,PRECISE);
+				checkPoint("cos",ac,COS,y,PRECISE);
+				checkPoint("fastSin",fs,SIN,y,FAST);
+				checkPoint("fastCos",fc,COS,y,FAST);
+			}
+		}
+
+		// large arguments fall back to exact functions
+		assertEquals(Math.sin(1e10),Approximations.sin(1e10),0.0);
+		assertEquals(Math.cos(1e10),Approximations.fastCos(1e10),0.0);
+		checkSpecial("sin",as,SIN);
+		checkSpecial("cos",ac,COS);
+	}
+}
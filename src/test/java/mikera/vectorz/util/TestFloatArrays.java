@@ -0,0 +1,120 @@
+package mikera.vectorz.util;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import mikera.arrayz.Array;
+import mikera.arrayz.impl.FloatArray;
+import mikera.matrixx.AMatrix;
+import mikera.matrixx.Matrix;
+import mikera.matrixx.impl.FloatMatrix;
+import mikera.vectorz.AVector;
+import mikera.vectorz.Ops;
+import mikera.vectorz.Vector;
+import mikera.vectorz.impl.FloatVector;
+
+import org.junit.Test;
+
+public class TestFloatArrays {
+
+	/**
+	 * Random matrix with small integer elements, so that float results are exact
+	 */
+	private static Matrix intMatrix(Random r, int rows, int cols) {
+		Matrix m=Matrix.create(rows, cols);
+		double[] data=m.getArray();
+		for (int i=0; i<data.length; i++) data[i]=r.nextInt(9)-4;
+		return m;
+	}
+
+	@Test public void testConversions() {
+		double[] d={1.0,0.1,-3.5,1e20};
+		float[] f=FloatArrays.toFloat(d);
+		assertEquals(0.1f,f[1],0.0f);
+		double[] back=FloatArrays.toDouble(f);
+		assertEquals(-3.5,back[2],0.0);
+		assertEquals((double)0.1f,back[1],0.0);
+
+		FloatVector v=FloatVector.of(d);
+		assertEquals(Vector.wrap(back),v.toDouble());
+		assertEquals(v,FloatVector.create(v.toDouble()));
+	}
+
+	@Test public void testVectorKernels() {
+		Random r=new Random(1);
+		Vector a=intMatrix(r,1,37).getRow(0).toVector();
+		Vector b=intMatrix(r,1,37).getRow(0).toVector();
+		FloatVector fa=FloatVector.create(a);
+		FloatVector fb=FloatVector.create(b);
+
+		assertEquals(a.dotProduct(b),fa.dotProduct(fb),0.0);
+		assertEquals(a.dotProduct(b),fa.dotProduct(b),0.0);
+		assertEquals(a.elementSum(),fa.elementSum(),0.0);
+		assertEquals(a.elementSquaredSum(),fa.elementSquaredSum(),0.0);
+
+		fa.addMultiple(fb, 2.0);
+		a.addMultiple(b, 2.0);
+		assertTrue(a.equals(fa));
+
+		fa.applyOp(Ops.NEGATE);
+		a.applyOp(Ops.NEGATE);
+		assertTrue(a.equals(fa));
+
+		// sub vectors are views
+		AVector sv=fa.subVector(3, 5);
+		sv.fill(7.0);
+		assertEquals(7.0,fa.get(5),0.0);
+	}
+
+	@Test public void testPrecision() {
+		FloatVector v=FloatVector.createLength(1);
+		v.set(0,0.1);
+		assertEquals(0.1f,v.get(0),0.0);
+		assertNotEquals(0.1,v.get(0),0.0);
+	}
+
+	@Test public void testMatrixMultiply() {
+		Random r=new Random(2);
+		int[][] sizes={{1,1,1},{3,4,5},{17,300,9},{70,260,300}};
+		for (int[] s: sizes) {
+			Matrix a=intMatrix(r,s[0],s[1]);
+			Matrix b=intMatrix(r,s[1],s[2]);
+			FloatMatrix fa=FloatMatrix.create(a);
+			FloatMatrix fb=FloatMatrix.create(b);
+			AMatrix fc=fa.innerProduct((AMatrix)fb);
+			assertTrue(fc instanceof FloatMatrix);
+			assertEquals(a.innerProduct(b),((FloatMatrix)fc).toDouble());
+		}
+	}
+
+	@Test public void testMatrixTransform() {
+		Random r=new Random(3);
+		Matrix a=intMatrix(r,6,11);
+		Vector x=intMatrix(r,1,11).getRow(0).toVector();
+		FloatMatrix fa=FloatMatrix.create(a);
+		assertEquals(a.innerProduct(x),fa.innerProduct(x));
+		assertEquals(a.innerProduct(x),fa.innerProduct(FloatVector.create(x)));
+		assertTrue(fa.getRowView(2).dotProduct(x)==a.getRow(2).dotProduct(x));
+
+		// row views share storage
+		fa.getRowView(1).fill(2.0);
+		assertEquals(2.0,fa.get(1,10),0.0);
+	}
+
+	@Test public void testArray() {
+		Array a=Array.newArray(2,3,4,5);
+		double[] data=a.getArray();
+		for (int i=0; i<data.length; i++) data[i]=i;
+		FloatArray fa=FloatArray.create(a);
+		assertEquals(a,fa.toDouble());
+		assertEquals(a.slice(1),fa.slice(1));
+		assertTrue(fa.slice(1) instanceof FloatArray);
+		assertTrue(fa.slice(1).slice(2) instanceof FloatMatrix);
+		assertEquals(a.slice(2,1),fa.slice(2,1));
+
+		fa.slice(1).slice(2).fill(-1.0);
+		assertEquals(-1.0,fa.get(1,2,3,4),0.0);
+		assertEquals(a.elementSum()-a.slice(1).slice(2).elementSum()-20,fa.elementSum(),0.0);
+	}
+}
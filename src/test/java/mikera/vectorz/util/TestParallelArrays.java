@@ -0,0 +1,212 @@
+package mikera.vectorz.util;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import mikera.arrayz.Array;
+import mikera.matrixx.Matrix;
+import mikera.vectorz.Op;
+import mikera.vectorz.Op2;
+import mikera.vectorz.Ops;
+import mikera.vectorz.Vector;
+import mikera.vectorz.ops.Add;
+import mikera.vectorz.ops.Linear;
+import mikera.vectorz.ops.Max;
+import mikera.vectorz.ops.Min;
+
+import org.junit.Test;
+
+public class TestParallelArrays {
+	// not a multiple of the chunk size, so the last chunk is partial
+	private static final int SIZE=ParallelArrays.PARALLEL_THRESHOLD+12345;
+
+	private static double[] randomData(int n, long seed) {
+		Random r=new Random(seed);
+		double[] data=new double[n];
+		for (int i=0; i<n; i++) {
+			data[i]=r.nextGaussian();
+		}
+		return data;
+	}
+
+	private static double chunkedSum(double[] data, int offset, int length) {
+		int chunks=(length+ParallelArrays.CHUNK_SIZE-1)/ParallelArrays.CHUNK_SIZE;
+		double[] partials=new double[chunks];
+		for (int i=0; i<chunks; i++) {
+			int s=i*ParallelArrays.CHUNK_SIZE;
+			partials[i]=DoubleArrays.elementSum(data, offset+s, Math.min(ParallelArrays.CHUNK_SIZE, length-s));
+		}
+		return DoubleArrays.elementSum(partials);
+	}
+
+	@Test public void testMapChunks() {
+		double[] rs=Parallel.mapChunks(10, 1000, 100, new Parallel.IRangeFunction() {
+			@Override
+			public double apply(int start, int end) {
+				return start*10000+end;
+			}
+		});
+		assertEquals(10,rs.length);
+		for (int i=0; i<10; i++) {
+			int s=10+i*100;
+			assertEquals(s*10000+Math.min(1000, s+100),rs[i],0.0);
+		}
+		assertEquals(0,Parallel.mapChunks(5, 5, 100, null).length);
+	}
+
+	@Test public void testReductions() {
+		double[] data=randomData(SIZE+7,123);
+		int offset=7;
+
+		// sums are combined in chunk order, so match exactly
+		assertEquals(chunkedSum(data,offset,SIZE),ParallelArrays.elementSum(data, offset, SIZE),0.0);
+		assertEquals(DoubleArrays.elementSum(data,offset,SIZE),ParallelArrays.elementSum(data, offset, SIZE),1e-8);
+		assertEquals(DoubleArrays.elementSquaredSum(data,offset,SIZE),ParallelArrays.elementSquaredSum(data, offset, SIZE),1e-8);
+		assertEquals(DoubleArrays.elementMax(data,offset,SIZE),ParallelArrays.elementMax(data, offset, SIZE),0.0);
+
+		double[] b=randomData(SIZE+3,456);
+		assertEquals(DoubleArrays.dotProduct(data,offset,b,3,SIZE),ParallelArrays.dotProduct(data,offset,b,3,SIZE),1e-8);
+
+		// small arrays use the serial kernels
+		assertEquals(DoubleArrays.elementSum(data,offset,1000),ParallelArrays.elementSum(data, offset, 1000),0.0);
+	}
+
+	@Test public void testDeterministic() {
+		double[] data=randomData(SIZE,789);
+		Vector v=Vector.wrap(data);
+		double sum=v.elementSum();
+		double dot=v.dotProduct(v);
+		double reduced=v.reduce(new Add(),0.0);
+		for (int i=0; i<5; i++) {
+			assertEquals(sum,v.elementSum(),0.0);
+			assertEquals(dot,v.dotProduct(v),0.0);
+			assertEquals(reduced,v.reduce(new Add(),0.0),0.0);
+		}
+	}
+
+	@Test public void testReduce() {
+		double[] data=randomData(SIZE,321);
+		Vector v=Vector.wrap(data);
+		assertEquals(DoubleArrays.elementMax(data),v.reduce(new Max()),0.0);
+		assertEquals(DoubleArrays.elementMin(data),v.reduce(new Min(),Double.MAX_VALUE),0.0);
+		assertEquals(100.0,v.reduce(new Max(),100.0),0.0);
+		assertEquals(DoubleArrays.elementSum(data),v.reduce(new Add()),1e-8);
+		assertEquals(DoubleArrays.elementSum(data)+10.0,v.reduce(new Add(),10.0),1e-8);
+		assertEquals(DoubleArrays.elementMax(data),v.reduce(new Max().compile()),0.0);
+
+		// non-associative reductions are sequential
+		Op2 sub=new Op2() {
+			@Override
+			public double apply(double x, double y) {
+				return x-y;
+			}
+		};
+		assertFalse(sub.isAssociative());
+		assertEquals(1.0-DoubleArrays.elementSum(data),v.reduce(sub,1.0),1e-8);
+		assertEquals(2*data[0]-DoubleArrays.elementSum(data),v.reduce(sub),1e-8);
+	}
+
+	@Test public void testApplyOp() {
+		double[] data=randomData(SIZE,111);
+		Vector v=Vector.wrap(data.clone());
+		v.applyOp(Ops.TANH);
+		Vector e=Vector.wrap(data.clone());
+		Ops.TANH.applyTo(e.getArray(), 0, SIZE);
+		assertTrue(v.equals(e));
+
+		Op op=Ops.compose(Ops.SQUARE, Linear.create(2.0, 1.0));
+		Vector sub=Vector.wrap(data.clone());
+		sub.subVector(3, SIZE-10).applyOp(op);
+		for (int i=0; i<SIZE; i++) {
+			double x=data[i];
+			double ex=((i>=3)&&(i<SIZE-7))?op.apply(x):x;
+			assertEquals(ex,sub.unsafeGet(i),0.0);
+		}
+	}
+
+	@Test public void testUserOpsSerial() {
+		final Thread caller=Thread.currentThread();
+		final boolean[] otherThread=new boolean[1];
+		Op op=new Op() {
+			@Override
+			public double apply(double x) {
+				if (Thread.currentThread()!=caller) otherThread[0]=true;
+				return x+1.0;
+			}
+		};
+		assertFalse(op.isThreadSafe());
+		assertFalse(Ops.compose(op, Ops.TANH).isThreadSafe());
+		assertTrue(Ops.compose(Ops.SQUARE, Linear.create(2.0, 1.0)).isThreadSafe());
+		assertTrue(Ops.SIN.isThreadSafe());
+		assertTrue(new Max().isThreadSafe());
+
+		double[] data=randomData(SIZE,555);
+		Vector v=Vector.wrap(data.clone());
+		v.applyOp(op);
+		assertFalse(otherThread[0]);
+		assertEquals(data[SIZE-1]+1.0,v.unsafeGet(SIZE-1),0.0);
+	}
+
+	@Test public void testParallelThreshold() {
+		assertEquals(ParallelArrays.PARALLEL_THRESHOLD,ParallelArrays.getParallelThreshold());
+		double[] data=randomData(SIZE,666);
+		try {
+			ParallelArrays.setParallelThreshold(Integer.MAX_VALUE);
+			assertEquals(DoubleArrays.elementSum(data),ParallelArrays.elementSum(data),0.0);
+			ParallelArrays.setParallelThreshold(1000);
+			assertEquals(chunkedSum(data,0,2000),ParallelArrays.elementSum(data,0,2000),0.0);
+		} finally {
+			ParallelArrays.setParallelThreshold(ParallelArrays.PARALLEL_THRESHOLD);
+		}
+		try {
+			ParallelArrays.setParallelThreshold(0);
+			fail();
+		} catch (IllegalArgumentException ex) {
+			// OK
+		}
+	}
+
+	@Test public void testApplyOp2() {
+		double[] data=randomData(SIZE,222);
+		Vector b=Vector.wrap(randomData(SIZE,333));
+		Vector v=Vector.wrap(data.clone());
+		v.applyOp(new Max(), b);
+		for (int i=0; i<SIZE; i++) {
+			assertEquals(Math.max(data[i],b.unsafeGet(i)),v.unsafeGet(i),0.0);
+		}
+
+		Matrix m=Matrix.wrap(SIZE/512, 512, Arrays.copyOf(data, (SIZE/512)*512));
+		m.applyOp(new Add(), 1.0);
+		for (int i=0; i<m.rowCount()*512; i++) {
+			assertEquals(data[i]+1.0,m.data[i],0.0);
+		}
+
+		try {
+			Vector.wrap(data.clone()).applyOp(new Add(),Vector.createLength(10));
+			fail();
+		} catch (IllegalArgumentException ex) {
+			// OK
+		}
+	}
+
+	@Test public void testDenseArrays() {
+		double[] data=randomData(SIZE-SIZE%64,444);
+		Matrix m=Matrix.wrap(data.length/64, 64, data.clone());
+		Array a=Array.newArray(4, 16, data.length/64);
+		a.setElements(data);
+
+		double sum=ParallelArrays.elementSum(data);
+		assertEquals(sum,m.elementSum(),0.0);
+		assertEquals(sum,a.elementSum(),0.0);
+		assertEquals(ParallelArrays.elementSquaredSum(data),m.elementSquaredSum(),0.0);
+		assertEquals(ParallelArrays.elementMax(data),a.elementMax(),0.0);
+		assertEquals(DoubleArrays.elementMax(data),a.reduce(new Max()),0.0);
+
+		a.applyOp(Ops.EXP);
+		m.applyOp(Ops.EXP);
+		assertTrue(m.asVector().equals(a.asVector()));
+		assertEquals(Math.exp(data[1000]),m.data[1000],0.0);
+	}
+}
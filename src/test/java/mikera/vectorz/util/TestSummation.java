@@ -0,0 +1,156 @@
+package mikera.vectorz.util;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import mikera.matrixx.AMatrix;
+import mikera.matrixx.Matrix;
+import mikera.vectorz.AVector;
+import mikera.vectorz.Vector;
+import mikera.vectorz.Vectorz;
+
+import org.junit.Test;
+
+public class TestSummation {
+
+	private static double exactSum(double[] data, int offset, int length) {
+		BigDecimal sum=BigDecimal.ZERO;
+		for (int i=0; i<length; i++) {
+			sum=sum.add(new BigDecimal(data[offset+i]));
+		}
+		return sum.doubleValue();
+	}
+
+	private static double exactDot(double[] a, double[] b, int length) {
+		BigDecimal sum=BigDecimal.ZERO;
+		for (int i=0; i<length; i++) {
+			// products of doubles are exact in BigDecimal
+			sum=sum.add(new BigDecimal(a[i]).multiply(new BigDecimal(b[i])));
+		}
+		return sum.doubleValue();
+	}
+
+	private static double[] randomData(int n, long seed) {
+		Random r=new Random(seed);
+		double[] data=new double[n];
+		for (int i=0; i<n; i++) {
+			data[i]=r.nextGaussian()*Math.pow(10, r.nextInt(6));
+		}
+		return data;
+	}
+
+	@Test public void testKernelLengths() {
+		// covers remainder handling in the unrolled loops and the pairwise split
+		double[] data=randomData(1100,1);
+		double[] b=randomData(1100,2);
+		for (int len=0; len<1100; len+=(len<20)?1:37) {
+			double exact=exactSum(data,3,len);
+			double scale=DoubleArrays.elementMaxAbs(data,3,len)*len+1.0;
+			assertEquals(exact,DoubleArrays.elementSum(data,3,len),1e-13*scale);
+			assertEquals(exact,DoubleArrays.kahanSum(data,3,len),1e-15*scale);
+
+			double sq=0.0;
+			for (int i=0; i<len; i++) sq+=data[3+i]*data[3+i];
+			assertEquals(sq,DoubleArrays.elementSquaredSum(data,3,len),1e-13*(sq+1.0));
+
+			double dot=DoubleArrays.dotProduct(data,0,b,0,len);
+			double dscale=scale*1e5;
+			assertEquals(dot,DoubleArrays.pairwiseDotProduct(data,0,b,0,len),1e-13*dscale);
+			assertEquals(exactDot(data,b,len),DoubleArrays.kahanDotProduct(data,0,b,0,len),1e-15*dscale);
+		}
+	}
+
+	@Test public void testIntegerSums() {
+		// integer valued sums are exact in all modes
+		double[] data=new double[1001];
+		for (int i=0; i<data.length; i++) data[i]=i;
+		assertEquals(500500.0,DoubleArrays.elementSum(data),0.0);
+		assertEquals(500500.0,DoubleArrays.kahanSum(data),0.0);
+		assertEquals(0.0,DoubleArrays.elementSum(data,0,0),0.0);
+		assertEquals(0.0,DoubleArrays.kahanSum(data,0,0),0.0);
+	}
+
+	@Test public void testAccuracy() {
+		int n=1000000;
+		double[] data=new double[n];
+		for (int i=0; i<n; i++) data[i]=0.1;
+		double exact=exactSum(data,0,n);
+
+		double naive=0.0;
+		for (int i=0; i<n; i++) naive+=data[i];
+
+		double pairwise=DoubleArrays.elementSum(data);
+		double kahan=DoubleArrays.kahanSum(data);
+		assertTrue(Math.abs(pairwise-exact)<Math.abs(naive-exact));
+		assertEquals(exact,kahan,Math.ulp(exact));
+
+		// small values lost entirely by naive summation after a large one
+		double[] ds=new double[10001];
+		ds[0]=1.0;
+		for (int i=1; i<ds.length; i++) ds[i]=1e-17;
+		assertEquals(1.0+1e-13,DoubleArrays.kahanSum(ds),1e-16);
+	}
+
+	@Test public void testSpecialValues() {
+		double[] data={1.0,Double.POSITIVE_INFINITY,2.0};
+		assertEquals(Double.POSITIVE_INFINITY,DoubleArrays.kahanSum(data),0.0);
+		assertEquals(Double.POSITIVE_INFINITY,DoubleArrays.elementSum(data),0.0);
+		assertEquals(Double.POSITIVE_INFINITY,DoubleArrays.kahanDotProduct(data,0,data,0,3),0.0);
+		data[0]=Double.NaN;
+		assertTrue(Double.isNaN(DoubleArrays.kahanSum(data)));
+
+		// infinity first, followed by more elements in both accumulators
+		double[] inf={Double.POSITIVE_INFINITY,0.0,1.0,2.0,3.0};
+		assertEquals(Double.POSITIVE_INFINITY,DoubleArrays.kahanSum(inf),0.0);
+		assertEquals(Double.POSITIVE_INFINITY,DoubleArrays.kahanSum(inf,0,3),0.0);
+		assertEquals(Double.POSITIVE_INFINITY,DoubleArrays.kahanDotProduct(inf,0,inf,0,5),0.0);
+		assertEquals(Double.NEGATIVE_INFINITY,DoubleArrays.kahanSum(new double[] {1.0,Double.NEGATIVE_INFINITY,1.0,1.0}),0.0);
+		assertTrue(Double.isNaN(DoubleArrays.kahanSum(new double[] {Double.POSITIVE_INFINITY,1.0,Double.NEGATIVE_INFINITY})));
+
+		// overflow of finite values
+		double[] big={Double.MAX_VALUE,Double.MAX_VALUE,1.0,1.0};
+		assertEquals(Double.POSITIVE_INFINITY,DoubleArrays.kahanSum(big),0.0);
+		assertEquals(Double.POSITIVE_INFINITY,DoubleArrays.kahanSum(new double[] {Double.MAX_VALUE,1.0,Double.MAX_VALUE,1.0,1.0}),0.0);
+		assertEquals(Double.POSITIVE_INFINITY,DoubleArrays.kahanDotProduct(big,0,big,0,4),0.0);
+		assertEquals(Double.POSITIVE_INFINITY,Vector.of(Double.POSITIVE_INFINITY,0,1).elementSumCompensated(),0.0);
+		assertEquals(Double.POSITIVE_INFINITY,Vector.wrap(big).elementSumCompensated(),0.0);
+
+		// generic implementations on non-dense vectors and matrices
+		AVector jv=Vectorz.join(Vector.of(Double.POSITIVE_INFINITY,1.0),Vector.of(2.0,3.0));
+		assertEquals(Double.POSITIVE_INFINITY,jv.elementSumCompensated(),0.0);
+		assertEquals(Double.POSITIVE_INFINITY,jv.dotProductCompensated(jv),0.0);
+		AVector jb=Vectorz.join(Vector.of(Double.MAX_VALUE,Double.MAX_VALUE),Vector.of(1.0,1.0));
+		assertEquals(Double.POSITIVE_INFINITY,jb.elementSumCompensated(),0.0);
+		assertEquals(Double.POSITIVE_INFINITY,Vector.wrap(big).dotProductCompensated(jb),0.0);
+		AMatrix m=Matrix.wrap(2, 2, big.clone()).getTranspose();
+		assertEquals(Double.POSITIVE_INFINITY,m.elementSumCompensated(),0.0);
+		m=Matrix.wrap(2, 3, new double[] {Double.POSITIVE_INFINITY,1.0,2.0,3.0,4.0,5.0}).getTranspose();
+		assertEquals(Double.POSITIVE_INFINITY,m.elementSumCompensated(),0.0);
+	}
+
+	@Test public void testCompensatedVectors() {
+		double[] data=randomData(1000,3);
+		double[] b=randomData(1000,4);
+		double exact=exactSum(data,0,data.length);
+		double exactDot=exactDot(data,b,data.length);
+
+		AVector v=Vector.wrap(data);
+		AVector w=Vector.wrap(b);
+		assertEquals(exact,v.elementSumCompensated(),Math.ulp(exact));
+		assertEquals(exactDot,v.dotProductCompensated(w),4*Math.ulp(exactDot));
+
+		// generic implementations on non-dense vectors
+		AVector jv=Vectorz.join(v.subVector(0, 500),v.subVector(500, 500));
+		AVector jw=Vectorz.join(w.subVector(0, 300),w.subVector(300, 700));
+		assertEquals(exact,jv.elementSumCompensated(),Math.ulp(exact));
+		assertEquals(exactDot,jv.dotProductCompensated(jw),4*Math.ulp(exactDot));
+		assertEquals(exactDot,v.dotProductCompensated(jw),4*Math.ulp(exactDot));
+
+		AMatrix m=Matrix.wrap(20, 50, data);
+		assertEquals(exact,m.elementSumCompensated(),Math.ulp(exact));
+		assertEquals(exact,m.getTranspose().elementSumCompensated(),4*Math.ulp(exact));
+		assertEquals(m.elementSum(),m.getTranspose().elementSum(),1e-9*Math.abs(exact));
+	}
+}